@@ -0,0 +1,135 @@
+package biweekly.benchmark;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+import biweekly.ICalVersion;
+import biweekly.ICalendar;
+import biweekly.component.VEvent;
+import biweekly.io.TimezoneAssignment;
+import biweekly.io.json.JCalWriter;
+import biweekly.io.text.ICalWriter;
+import biweekly.io.xml.XCalWriter;
+import biweekly.property.Attendee;
+import biweekly.util.DayOfWeek;
+import biweekly.util.Frequency;
+import biweekly.util.Recurrence;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * Generates synthetic iCalendar objects for the benchmarks. The generated
+ * data is deterministic, so results can be compared between runs.
+ * @author Michael Angstadt
+ */
+public final class Corpus {
+	/**
+	 * The timezone that the generated date-time values are in.
+	 */
+	public static final TimeZone TIMEZONE = TimeZone.getTimeZone("America/New_York");
+
+	/**
+	 * Creates an iCalendar object.
+	 * @param events the number of events to add to the object. Every fifth
+	 * event has a recurrence rule.
+	 * @return the iCalendar object
+	 */
+	public static ICalendar create(int events) {
+		ICalendar ical = new ICalendar();
+		ical.getTimezoneInfo().setDefaultTimezone(TimezoneAssignment.generate(TIMEZONE));
+
+		Calendar cal = Calendar.getInstance(TIMEZONE);
+		cal.clear();
+		cal.set(2020, Calendar.JANUARY, 6, 9, 0, 0);
+
+		for (int i = 0; i < events; i++) {
+			VEvent event = new VEvent();
+			event.setUid("event-" + i + "@example.com");
+			event.setSummary("Meeting #" + i);
+			event.setDescription("Agenda: review the action items from the previous meeting, discuss the roadmap for the next quarter, and assign owners to the open issues. Dial-in details are attached.");
+			event.setLocation("Conference Room " + (i % 20));
+			event.setOrganizer("organizer@example.com");
+			for (int j = 0; j < 3; j++) {
+				event.addAttendee(new Attendee("Attendee " + j, "attendee" + j + "@example.com"));
+			}
+			event.addCategories("work", "meeting");
+
+			Date start = cal.getTime();
+			cal.add(Calendar.HOUR_OF_DAY, 1);
+			Date end = cal.getTime();
+			cal.add(Calendar.HOUR_OF_DAY, 2);
+			event.setDateStart(start);
+			event.setDateEnd(end);
+
+			if (i % 5 == 0) {
+				//@formatter:off
+				event.setRecurrenceRule(new Recurrence.Builder(Frequency.WEEKLY)
+					.byDay(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY)
+					.count(20)
+				.build());
+				//@formatter:on
+			}
+
+			ical.addEvent(event);
+		}
+
+		return ical;
+	}
+
+	/**
+	 * Writes an iCalendar object to a string.
+	 * @param ical the iCalendar object
+	 * @param format the format ("ical", "jcal", or "xcal")
+	 * @return the string
+	 * @throws IOException if there's a problem writing the object
+	 */
+	public static String write(ICalendar ical, String format) throws IOException {
+		StringWriter sw = new StringWriter();
+		if ("ical".equals(format)) {
+			ICalWriter writer = new ICalWriter(sw, ICalVersion.V2_0);
+			writer.write(ical);
+			writer.flush();
+		} else if ("jcal".equals(format)) {
+			JCalWriter writer = new JCalWriter(sw);
+			writer.write(ical);
+			writer.close();
+		} else if ("xcal".equals(format)) {
+			XCalWriter writer = new XCalWriter(sw);
+			writer.write(ical);
+			writer.close();
+		} else {
+			throw new IllegalArgumentException("Unknown format: " + format);
+		}
+		return sw.toString();
+	}
+
+	private Corpus() {
+		//hide
+	}
+}
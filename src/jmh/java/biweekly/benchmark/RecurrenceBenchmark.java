@@ -0,0 +1,99 @@
+package biweekly.benchmark;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import biweekly.ICalDataType;
+import biweekly.ICalVersion;
+import biweekly.component.VEvent;
+import biweekly.io.ParseContext;
+import biweekly.io.scribe.property.RecurrenceRuleScribe;
+import biweekly.parameter.ICalParameters;
+import biweekly.property.RecurrenceRule;
+import biweekly.util.Google2445Utils;
+import biweekly.util.com.google.ical.compat.javautil.DateIterator;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * Measures how quickly {@link Google2445Utils#getDateIterator} expands
+ * recurrence rules.
+ * @author Michael Angstadt
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecurrenceBenchmark {
+	//@formatter:off
+	@Param({
+		"FREQ=DAILY",
+		"FREQ=WEEKLY;BYDAY=MO,WE,FR",
+		"FREQ=MONTHLY;BYDAY=-1FR",
+		"FREQ=YEARLY;BYMONTH=3,11;BYDAY=2SU"
+	})
+	//@formatter:on
+	public String rrule;
+
+	@Param({ "10", "100", "1000" })
+	public int occurrences;
+
+	private VEvent event;
+
+	@Setup
+	public void setup() {
+		ParseContext context = new ParseContext();
+		context.setVersion(ICalVersion.V2_0);
+		RecurrenceRule property = new RecurrenceRuleScribe().parseText(rrule, ICalDataType.RECUR, new ICalParameters(), context);
+
+		event = new VEvent();
+		event.setDateStart(new Date(1578315600000L)); //2020-01-06 09:00 America/New_York
+		event.setRecurrenceRule(property);
+	}
+
+	@Benchmark
+	public void iterate(Blackhole blackhole) {
+		DateIterator it = Google2445Utils.getDateIterator(event, Corpus.TIMEZONE);
+		for (int i = 0; i < occurrences && it.hasNext(); i++) {
+			blackhole.consume(it.next());
+		}
+	}
+}
@@ -3,6 +3,7 @@ package biweekly.component;
 import java.lang.reflect.Constructor;
 import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -13,6 +14,8 @@ import biweekly.ICalendar;
 import biweekly.Messages;
 import biweekly.ValidationWarnings.WarningsGroup;
 import biweekly.ValidationWarning;
+import biweekly.io.Fingerprints;
+import biweekly.io.UnparsedProperty;
 import biweekly.property.ICalProperty;
 import biweekly.property.RawProperty;
 import biweekly.property.Status;
@@ -50,7 +53,35 @@ import biweekly.util.StringUtils;
  */
 public abstract class ICalComponent {
 	protected final ListMultimap<Class<? extends ICalComponent>, ICalComponent> components;
+
+	/**
+	 * The component's properties. While the component is compacted (see
+	 * {@link #compact}), this multimap is empty and the properties are stored
+	 * elsewhere. It is filled again as soon as one of the property accessor
+	 * methods, such as {@link #getProperties()} or {@link #addProperty}, is
+	 * called. Subclasses should access the properties through those methods
+	 * rather than through this field.
+	 */
 	protected final ListMultimap<Class<? extends ICalProperty>, ICalProperty> properties;
+	private ListMultimap<Class<? extends ICalProperty>, UnparsedProperty> unparsedProperties;
+
+	/*
+	 * The properties of a compacted component (see compact()), or null if the
+	 * component is not compacted. The properties are stored in the order that
+	 * the properties multimap stored them in, so properties of the same class
+	 * are next to each other. The class index table maps each property class
+	 * (compactClasses) to the position of its first property in this array
+	 * (compactOffsets).
+	 */
+	private ICalProperty[] compactProperties;
+	private Class<?>[] compactClasses;
+	private int[] compactOffsets;
+
+	/*
+	 * The sum of the mixed fingerprints of the properties (see fingerprint()),
+	 * or null if it needs to be recomputed.
+	 */
+	private Long propertiesFingerprint;
 
 	public ICalComponent() {
 		components = new ListMultimap<Class<? extends ICalComponent>, ICalComponent>();
@@ -64,7 +95,8 @@ public abstract class ICalComponent {
 	 */
 	protected ICalComponent(ICalComponent original) {
 		this();
-		for (ICalProperty property : original.properties.values()) {
+		original.parseProperties();
+		for (ICalProperty property : original.propertyValues()) {
 			addProperty(property.copy());
 		}
 		for (ICalComponent component : original.components.values()) {
@@ -79,6 +111,11 @@ public abstract class ICalComponent {
 	 * @return the property or null if not found
 	 */
 	public <T extends ICalProperty> T getProperty(Class<T> clazz) {
+		parseProperties(clazz);
+		if (compactProperties != null) {
+			int i = compactIndexOf(clazz);
+			return (i < 0) ? null : clazz.cast(compactProperties[compactOffsets[i]]);
+		}
 		return clazz.cast(properties.first(clazz));
 	}
 
@@ -90,6 +127,7 @@ public abstract class ICalComponent {
 	 * @return the properties
 	 */
 	public <T extends ICalProperty> List<T> getProperties(Class<T> clazz) {
+		parseProperties(clazz);
 		return new ICalPropertyList<T>(clazz);
 	}
 
@@ -98,6 +136,9 @@ public abstract class ICalComponent {
 	 * @return the properties
 	 */
 	public ListMultimap<Class<? extends ICalProperty>, ICalProperty> getProperties() {
+		parseProperties();
+		expand();
+		propertiesFingerprint = null; //the multimap can be modified by the caller
 		return properties;
 	}
 
@@ -106,6 +147,9 @@ public abstract class ICalComponent {
 	 * @param property the property to add
 	 */
 	public void addProperty(ICalProperty property) {
+		parseProperties(property.getClass());
+		expand();
+		propertiesFingerprint = null;
 		properties.put(property.getClass(), property);
 	}
 
@@ -116,6 +160,9 @@ public abstract class ICalComponent {
 	 * @return the replaced properties (this list is immutable)
 	 */
 	public List<ICalProperty> setProperty(ICalProperty property) {
+		parseProperties(property.getClass());
+		expand();
+		propertiesFingerprint = null;
 		return properties.replace(property.getClass(), property);
 	}
 
@@ -130,6 +177,9 @@ public abstract class ICalComponent {
 	 * @return the replaced properties (this list is immutable)
 	 */
 	public <T extends ICalProperty> List<T> setProperty(Class<T> clazz, T property) {
+		parseProperties(clazz);
+		expand();
+		propertiesFingerprint = null;
 		List<ICalProperty> replaced = properties.replace(clazz, property);
 		return castList(replaced, clazz);
 	}
@@ -141,6 +191,9 @@ public abstract class ICalComponent {
 	 * @return true if it was removed, false if it wasn't found
 	 */
 	public <T extends ICalProperty> boolean removeProperty(T property) {
+		parseProperties(property.getClass());
+		expand();
+		propertiesFingerprint = null;
 		return properties.remove(property.getClass(), property);
 	}
 
@@ -152,10 +205,217 @@ public abstract class ICalComponent {
 	 * @return the removed properties (this list is immutable)
 	 */
 	public <T extends ICalProperty> List<T> removeProperties(Class<T> clazz) {
+		parseProperties(clazz);
+		expand();
+		propertiesFingerprint = null;
 		List<ICalProperty> removed = properties.removeAll(clazz);
 		return castList(removed, clazz);
 	}
 
+	/**
+	 * <p>
+	 * Adds a property whose value has not been parsed yet. The property will
+	 * be parsed the first time properties of its class are accessed.
+	 * </p>
+	 * <p>
+	 * This method is used by the readers when lazy parsing is enabled (see
+	 * {@link biweekly.io.text.ICalReader#setLazyParsing}).
+	 * </p>
+	 * @param property the unparsed property
+	 */
+	public void addUnparsedProperty(UnparsedProperty property) {
+		if (unparsedProperties == null) {
+			unparsedProperties = new ListMultimap<Class<? extends ICalProperty>, UnparsedProperty>();
+		}
+		unparsedProperties.put(property.getPropertyClass(), property);
+		propertiesFingerprint = null;
+	}
+
+	/**
+	 * Parses the unparsed properties of the given class.
+	 * @param clazz the property class
+	 */
+	private void parseProperties(Class<? extends ICalProperty> clazz) {
+		if (unparsedProperties == null) {
+			return;
+		}
+
+		/*
+		 * Properties that cannot be parsed are converted to raw properties,
+		 * so all of the properties must be parsed before raw properties can
+		 * be returned.
+		 */
+		if (clazz == RawProperty.class) {
+			parseProperties();
+			return;
+		}
+
+		/*
+		 * Remove the properties before parsing them because parsing them
+		 * calls addProperty().
+		 */
+		List<UnparsedProperty> unparsed = unparsedProperties.removeAll(clazz);
+		if (unparsedProperties.isEmpty()) {
+			unparsedProperties = null;
+		}
+		for (UnparsedProperty property : unparsed) {
+			property.parse(this);
+		}
+	}
+
+	/**
+	 * Parses all of the unparsed properties.
+	 */
+	private void parseProperties() {
+		if (unparsedProperties == null) {
+			return;
+		}
+
+		List<UnparsedProperty> unparsed = unparsedProperties.values();
+		unparsedProperties = null;
+		for (UnparsedProperty property : unparsed) {
+			property.parse(this);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Stores the properties of this component and its sub-components in a
+	 * compact form. This reduces the amount of memory the component uses,
+	 * which is useful when a large number of components are held in memory.
+	 * </p>
+	 * <p>
+	 * The properties are moved out of the {@link #properties} multimap and
+	 * into a single array, in the same order that {@link #getProperties()}
+	 * returns them. A small table records the position of the first property
+	 * of each class in the array.
+	 * </p>
+	 * <p>
+	 * The following methods read directly from the array, and leave the
+	 * component compacted: {@link #getProperty(Class)}, the read methods of
+	 * the list returned by {@link #getProperties(Class)} (such as
+	 * {@code get}, {@code size}, and iteration), {@link #equals},
+	 * {@link #hashCode}, {@link #toString}, {@link #fingerprint},
+	 * {@link #copy}, and {@link #validate}. Calling {@link #getProperties()},
+	 * or adding, removing, or replacing a property (including through a list
+	 * returned by {@link #getProperties(Class)}), converts the component back
+	 * to its normal storage. Lists returned by {@link #getProperties(Class)}
+	 * remain backed by the component. A multimap returned by
+	 * {@link #getProperties()} before the component was compacted is empty
+	 * until the component is converted back.
+	 * </p>
+	 */
+	public void compact() {
+		parseProperties();
+
+		if (compactProperties == null) {
+			Map<Class<? extends ICalProperty>, List<ICalProperty>> map = properties.getMap();
+			ICalProperty[] compactProperties = new ICalProperty[properties.size()];
+			Class<?>[] compactClasses = new Class<?>[map.size()];
+			int[] compactOffsets = new int[map.size()];
+
+			int i = 0, offset = 0;
+			for (Map.Entry<Class<? extends ICalProperty>, List<ICalProperty>> entry : map.entrySet()) {
+				compactClasses[i] = entry.getKey();
+				compactOffsets[i] = offset;
+				for (ICalProperty property : entry.getValue()) {
+					compactProperties[offset++] = property;
+				}
+				i++;
+			}
+
+			properties.clear();
+			this.compactProperties = compactProperties;
+			this.compactClasses = compactClasses;
+			this.compactOffsets = compactOffsets;
+		}
+
+		for (ICalComponent component : components.values()) {
+			component.compact();
+		}
+	}
+
+	/**
+	 * Moves the properties of a compacted component back into the
+	 * {@link #properties} multimap.
+	 */
+	private void expand() {
+		if (compactProperties == null) {
+			return;
+		}
+
+		putCompactProperties(properties);
+		compactProperties = null;
+		compactClasses = null;
+		compactOffsets = null;
+	}
+
+	/**
+	 * Finds a property class in the class index table of a compacted
+	 * component.
+	 * @param clazz the property class
+	 * @return the position of the class in the table or -1 if the component
+	 * has no properties of that class
+	 */
+	private int compactIndexOf(Class<?> clazz) {
+		for (int i = 0; i < compactClasses.length; i++) {
+			if (compactClasses[i] == clazz) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the position in the array of a compacted component that follows
+	 * the last property of a class.
+	 * @param i the position of the class in the class index table
+	 * @return the end position (exclusive)
+	 */
+	private int compactEnd(int i) {
+		return (i + 1 < compactOffsets.length) ? compactOffsets[i + 1] : compactProperties.length;
+	}
+
+	/**
+	 * Gets all of the component's properties without converting a compacted
+	 * component back to its normal storage.
+	 * @return the properties (this list is immutable)
+	 */
+	private List<ICalProperty> propertyValues() {
+		if (compactProperties == null) {
+			return properties.values();
+		}
+		return Collections.unmodifiableList(Arrays.asList(compactProperties));
+	}
+
+	/**
+	 * Gets the component's properties without converting a compacted component
+	 * back to its normal storage.
+	 * @return the properties (changes to this multimap will not update the
+	 * component if the component is compacted)
+	 */
+	private ListMultimap<Class<? extends ICalProperty>, ICalProperty> propertyMap() {
+		if (compactProperties == null) {
+			return properties;
+		}
+
+		ListMultimap<Class<? extends ICalProperty>, ICalProperty> map = new ListMultimap<Class<? extends ICalProperty>, ICalProperty>(compactClasses.length);
+		putCompactProperties(map);
+		return map;
+	}
+
+	/**
+	 * Adds the properties of a compacted component to a multimap.
+	 * @param map the multimap
+	 */
+	@SuppressWarnings("unchecked")
+	private void putCompactProperties(ListMultimap<Class<? extends ICalProperty>, ICalProperty> map) {
+		List<ICalProperty> values = Arrays.asList(compactProperties);
+		for (int i = 0; i < compactClasses.length; i++) {
+			map.putAll((Class<? extends ICalProperty>) compactClasses[i], values.subList(compactOffsets[i], compactEnd(i)));
+		}
+	}
+
 	/**
 	 * Removes a specific sub-component instance from this component.
 	 * @param component the component to remove
@@ -470,7 +730,8 @@ public abstract class ICalComponent {
 		hierarchy.add(this);
 
 		//validate properties
-		for (ICalProperty property : properties.values()) {
+		parseProperties();
+		for (ICalProperty property : propertyValues()) {
 			List<ValidationWarning> propWarnings = property.validate(hierarchy, version);
 			if (!propWarnings.isEmpty()) {
 				warnings.add(new WarningsGroup(property, hierarchy, propWarnings));
@@ -601,7 +862,8 @@ public abstract class ICalComponent {
 		sb.append(StringUtils.NEWLINE);
 
 		depth++;
-		for (ICalProperty property : properties.values()) {
+		parseProperties();
+		for (ICalProperty property : propertyValues()) {
 			StringUtils.repeat(' ', depth * 2, sb);
 			sb.append(property).append(StringUtils.NEWLINE);
 		}
@@ -663,13 +925,60 @@ public abstract class ICalComponent {
 		return Collections.unmodifiableList(casted);
 	}
 
+	/**
+	 * <p>
+	 * Computes a 64-bit fingerprint of this component's content, including its
+	 * properties and sub-components. Unlike {@link #hashCode}, the fingerprint
+	 * does not depend on the order of the properties and sub-components, and
+	 * can be stored and compared across processes (see {@link Fingerprints}).
+	 * This makes it suitable for detecting duplicate or changed components.
+	 * </p>
+	 * <p>
+	 * The fingerprint of the component's properties is cached, and is
+	 * invalidated when properties are added, removed, or replaced through
+	 * this component. If a property object is modified directly (for example,
+	 * by calling one of its setter methods), {@link #invalidateFingerprint}
+	 * must be called for the change to be picked up. Sub-components are
+	 * checked for changes every time this method is called.
+	 * </p>
+	 * @return the fingerprint
+	 */
+	public long fingerprint() {
+		Long propertiesFingerprint = this.propertiesFingerprint;
+		if (propertiesFingerprint == null) {
+			parseProperties();
+			long sum = 0;
+			for (ICalProperty property : propertyValues()) {
+				sum += Fingerprints.mix(property.fingerprint());
+			}
+			this.propertiesFingerprint = propertiesFingerprint = sum;
+		}
+
+		long componentsFingerprint = 0;
+		for (ICalComponent component : components.values()) {
+			componentsFingerprint += Fingerprints.mix(component.fingerprint());
+		}
+
+		return Fingerprints.of(this, propertiesFingerprint, componentsFingerprint);
+	}
+
+	/**
+	 * Discards the cached fingerprint of this component's properties (see
+	 * {@link #fingerprint}). This must be called after a property object that
+	 * belongs to this component is modified directly.
+	 */
+	public void invalidateFingerprint() {
+		propertiesFingerprint = null;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
 
 		int propertiesHash = 1;
-		for (ICalProperty property : properties.values()) {
+		parseProperties();
+		for (ICalProperty property : propertyValues()) {
 			propertiesHash += property.hashCode();
 		}
 		result = prime * result + propertiesHash;
@@ -690,10 +999,12 @@ public abstract class ICalComponent {
 		if (getClass() != obj.getClass()) return false;
 		ICalComponent other = (ICalComponent) obj;
 
-		if (properties.size() != other.properties.size()) return false;
+		parseProperties();
+		other.parseProperties();
+		if (propertyValues().size() != other.propertyValues().size()) return false;
 		if (components.size() != other.components.size()) return false;
 
-		if (!compareMultimaps(properties, other.properties)) return false;
+		if (!compareMultimaps(propertyMap(), other.propertyMap())) return false;
 		if (!compareMultimaps(components, other.components)) return false;
 
 		return true;
@@ -783,6 +1094,8 @@ public abstract class ICalComponent {
 	 * <p>
 	 * This list is backed by the {@link ICalComponent} object. Any changes made
 	 * to the list will affect the {@link ICalComponent} object and vice versa.
+	 * If the component is compacted (see {@link ICalComponent#compact}), the
+	 * list reads from the compacted storage until it is modified.
 	 * </p>
 	 * @param <T> the property class
 	 */
@@ -800,30 +1113,59 @@ public abstract class ICalComponent {
 
 		@Override
 		public void add(int index, T value) {
-			properties.add(index, value);
+			propertiesFingerprint = null;
+			properties().add(index, value);
 		}
 
 		@Override
 		public T remove(int index) {
-			ICalProperty removed = properties.remove(index);
+			propertiesFingerprint = null;
+			ICalProperty removed = properties().remove(index);
 			return cast(removed);
 		}
 
 		@Override
 		public T get(int index) {
-			ICalProperty property = properties.get(index);
+			if (compactProperties != null) {
+				int i = compactIndexOf(propertyClass);
+				int size = (i < 0) ? 0 : compactEnd(i) - compactOffsets[i];
+				if (index < 0 || index >= size) {
+					throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+				}
+				return cast(compactProperties[compactOffsets[i] + index]);
+			}
+
+			ICalProperty property = properties().get(index);
 			return cast(property);
 		}
 
 		@Override
 		public T set(int index, T value) {
-			ICalProperty replaced = properties.set(index, value);
+			propertiesFingerprint = null;
+			ICalProperty replaced = properties().set(index, value);
 			return cast(replaced);
 		}
 
 		@Override
 		public int size() {
-			return properties.size();
+			if (compactProperties != null) {
+				int i = compactIndexOf(propertyClass);
+				return (i < 0) ? 0 : compactEnd(i) - compactOffsets[i];
+			}
+
+			return properties().size();
+		}
+
+		/**
+		 * Gets the component's list of properties of this list's class,
+		 * converting a compacted component back to its normal storage first.
+		 * The list is backed by the {@link #properties} multimap, so it picks
+		 * up the properties again when the component is converted back.
+		 * @return the list
+		 */
+		private List<ICalProperty> properties() {
+			expand();
+			return properties;
 		}
 
 		protected T cast(ICalProperty value) {
@@ -0,0 +1,115 @@
+package biweekly.io;
+
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import biweekly.component.VTimezone;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Caches the {@link VTimezone} components that another
+ * {@link VTimezoneGenerator} generates. Components are cached by timezone ID.
+ * </p>
+ * <p>
+ * Cache lookups do not lock. Each call returns a copy of the cached
+ * component, so callers are free to modify the components they receive.
+ * </p>
+ * <p>
+ * This class is thread-safe if the wrapped generator is thread-safe.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ *
+ * <pre class="brush:java">
+ * VTimezoneGenerator generator = new CachedTimezoneGenerator(new JavaTimezoneGenerator());
+ * VTimezone component = generator.generate(TimeZone.getTimeZone("America/New_York"));
+ * </pre>
+ * @author Michael Angstadt
+ */
+public class CachedTimezoneGenerator implements VTimezoneGenerator {
+	private final VTimezoneGenerator generator;
+	private final ConcurrentMap<String, VTimezone> cache = new ConcurrentHashMap<String, VTimezone>();
+
+	/**
+	 * @param generator the generator to retrieve uncached components from
+	 */
+	public CachedTimezoneGenerator(VTimezoneGenerator generator) {
+		this.generator = generator;
+	}
+
+	/**
+	 * Gets the generator that uncached components are retrieved from.
+	 * @return the generator
+	 */
+	public VTimezoneGenerator getGenerator() {
+		return generator;
+	}
+
+	/**
+	 * Gets a copy of the {@link VTimezone} component for the given timezone,
+	 * generating it if it is not in the cache.
+	 * @param timezone the timezone object
+	 * @return the timezone component
+	 * @throws IllegalArgumentException if a timezone definition cannot be
+	 * generated
+	 */
+	public VTimezone generate(TimeZone timezone) {
+		String id = timezone.getID();
+		VTimezone component = cache.get(id);
+		if (component == null) {
+			/*
+			 * If two threads generate the same component at the same time,
+			 * make sure they both get copies of the same instance.
+			 */
+			component = generator.generate(timezone);
+			VTimezone existing = cache.putIfAbsent(id, component);
+			if (existing != null) {
+				component = existing;
+			}
+		}
+
+		return new VTimezone(component);
+	}
+
+	/**
+	 * Gets the number of components in the cache.
+	 * @return the number of components
+	 */
+	public int size() {
+		return cache.size();
+	}
+
+	/**
+	 * Clears the cache.
+	 */
+	public void clear() {
+		cache.clear();
+	}
+}
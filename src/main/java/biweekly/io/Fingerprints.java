@@ -0,0 +1,192 @@
+package biweekly.io;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import biweekly.ICalDataType;
+import biweekly.ICalVersion;
+import biweekly.component.ICalComponent;
+import biweekly.io.scribe.ScribeIndex;
+import biweekly.io.scribe.component.ICalComponentScribe;
+import biweekly.io.scribe.property.ICalPropertyScribe;
+import biweekly.parameter.ICalParameters;
+import biweekly.property.ICalProperty;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Computes 64-bit fingerprints of components and properties.
+ * </p>
+ * <p>
+ * A property's fingerprint is computed from the way it is written to an
+ * iCalendar 2.0 data stream: its name, its parameters, and its marshalled
+ * value. Date-time values are marshalled in UTC. The order of the parameters
+ * does not matter. A component's fingerprint is computed from its name and the
+ * fingerprints of its properties and sub-components. The order of the
+ * properties and sub-components does not matter.
+ * </p>
+ * <p>
+ * Fingerprints do not depend on {@link Object#hashCode} or on anything else
+ * that can differ between JVMs, so they can be stored and compared across
+ * processes. Because they only contain 64 bits, two different components can
+ * have the same fingerprint, though this is very unlikely.
+ * </p>
+ * <p>
+ * Most callers should use {@link ICalComponent#fingerprint} and
+ * {@link ICalProperty#fingerprint}, which cache the result when possible.
+ * </p>
+ * @author Michael Angstadt
+ */
+public final class Fingerprints {
+	private static final ScribeIndex index = new ScribeIndex();
+	private static final ICalVersion version = ICalVersion.V2_0;
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/**
+	 * Computes the fingerprint of a property.
+	 * @param property the property
+	 * @return the fingerprint
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public static long of(ICalProperty property) {
+		ICalPropertyScribe scribe = index.getPropertyScribe(property);
+		if (scribe == null) {
+			//not a standard property and not a RawProperty, so there is no way to marshal it
+			long hash = hash(hash(FNV_OFFSET_BASIS, property.getClass().getName()), property.toString());
+			return mix(hash);
+		}
+
+		WriteContext context = new WriteContext(version, new TimezoneInfo(), null);
+
+		String value;
+		try {
+			value = scribe.writeText(property, context);
+		} catch (SkipMeException e) {
+			value = null;
+		} catch (DataModelConversionException e) {
+			value = null;
+		}
+
+		ICalParameters parameters = scribe.prepareParameters(property, context);
+		ICalDataType dataType = scribe.dataType(property, version);
+		if (dataType != null && dataType != scribe.defaultDataType(version)) {
+			parameters = new ICalParameters(parameters);
+			parameters.setValue(dataType);
+		}
+
+		String name = scribe.getPropertyName(version);
+		long hash = hash(FNV_OFFSET_BASIS, (name == null) ? "" : name.toUpperCase(Locale.ROOT));
+		hash = hash(hash, '\0');
+		if (value != null) {
+			hash = hash(hash, value);
+		}
+
+		/*
+		 * Sum the hashes of the parameter values so that the order of the
+		 * parameters does not matter.
+		 */
+		long parametersHash = 0;
+		for (Map.Entry<String, List<String>> parameter : parameters) {
+			String parameterName = parameter.getKey();
+			long nameHash = hash(hash(FNV_OFFSET_BASIS, (parameterName == null) ? "" : parameterName), '=');
+			for (String parameterValue : parameter.getValue()) {
+				parametersHash += mix(hash(nameHash, (parameterValue == null) ? "" : parameterValue));
+			}
+		}
+
+		return mix(hash ^ mix(parametersHash + ((value == null) ? 1 : 0)));
+	}
+
+	/**
+	 * Computes the fingerprint of a component.
+	 * @param component the component
+	 * @param propertiesHash the sum of the results of passing the component's
+	 * property fingerprints to {@link #mix}
+	 * @param componentsHash the sum of the results of passing the component's
+	 * sub-component fingerprints to {@link #mix}
+	 * @return the fingerprint
+	 */
+	public static long of(ICalComponent component, long propertiesHash, long componentsHash) {
+		ICalComponentScribe<? extends ICalComponent> scribe = index.getComponentScribe(component);
+		String name = (scribe == null) ? component.getClass().getName() : scribe.getComponentName().toUpperCase(Locale.ROOT);
+
+		long hash = hash(FNV_OFFSET_BASIS, name);
+		hash ^= mix(propertiesHash);
+		hash = hash * FNV_PRIME + mix(componentsHash ^ 0x9e3779b97f4a7c15L);
+		return mix(hash);
+	}
+
+	/**
+	 * Scrambles the bits of a fingerprint so that the sum of several
+	 * fingerprints is evenly distributed.
+	 * @param hash the fingerprint
+	 * @return the scrambled value
+	 */
+	public static long mix(long hash) {
+		//the finalizer of MurmurHash3
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	/**
+	 * Adds a string to an FNV-1a hash.
+	 * @param hash the hash
+	 * @param string the string
+	 * @return the new hash
+	 */
+	private static long hash(long hash, String string) {
+		for (int i = 0; i < string.length(); i++) {
+			hash = hash(hash, string.charAt(i));
+		}
+		return hash;
+	}
+
+	/**
+	 * Adds a character to an FNV-1a hash.
+	 * @param hash the hash
+	 * @param c the character
+	 * @return the new hash
+	 */
+	private static long hash(long hash, char c) {
+		hash ^= c >>> 8;
+		hash *= FNV_PRIME;
+		hash ^= c & 0xff;
+		hash *= FNV_PRIME;
+		return hash;
+	}
+
+	private Fingerprints() {
+		//hide
+	}
+}
@@ -4,6 +4,7 @@ import static biweekly.property.ValuedProperty.getValue;
 import static biweekly.util.Google2445Utils.convertFromRawComponents;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
@@ -34,9 +35,11 @@ import biweekly.util.UtcOffset;
 import biweekly.util.com.google.ical.iter.RecurrenceIterator;
 import biweekly.util.com.google.ical.iter.RecurrenceIteratorFactory;
 import biweekly.util.com.google.ical.util.DTBuilder;
+import biweekly.util.com.google.ical.util.TimeUtils;
 import biweekly.util.com.google.ical.values.DateTimeValue;
 import biweekly.util.com.google.ical.values.DateTimeValueImpl;
 import biweekly.util.com.google.ical.values.DateValue;
+import biweekly.util.com.google.ical.values.DateValueImpl;
 
 /*
  Copyright (c) 2013-2020, Michael Angstadt
@@ -64,24 +67,53 @@ import biweekly.util.com.google.ical.values.DateValue;
  */
 
 /**
- * A timezone that is based on an iCalendar {@link VTimezone} component. This
- * class is not thread safe.
+ * <p>
+ * A timezone that is based on an iCalendar {@link VTimezone} component.
+ * </p>
+ * <p>
+ * When the object is created, the observances of the VTIMEZONE component are
+ * compiled into a table of transitions that ends at a "horizon" year. Offset
+ * lookups for dates that come before the horizon are a binary search over this
+ * table, which does not allocate any objects and is safe to call from multiple
+ * threads. Lookups for dates that come after the horizon fall back to iterating
+ * over the observances' recurrence rules, which is synchronized.
+ * </p>
  * @author Michael Angstadt
  */
 @SuppressWarnings("serial")
 public class ICalTimeZone extends TimeZone {
+	/**
+	 * The default year up to which the timezone transitions are precomputed.
+	 */
+	public static final int DEFAULT_HORIZON_YEAR = 2100;
+
+	private static final long SECS_PER_DAY = 60L * 60 * 24;
+	private static final long UNIX_EPOCH_SECS = TimeUtils.secsSinceEpoch(new DateValueImpl(1970, 1, 1));
+
 	private final VTimezone component;
 	private final Map<Observance, List<DateValue>> observanceDateCache;
 	final List<Observance> sortedObservances;
 	private final int rawOffset;
 	private final TimeZone utc = TimeZone.getTimeZone("UTC");
-	private final Calendar utcCalendar = Calendar.getInstance(utc);
+	private final TransitionTable transitions;
 
 	/**
-	 * Creates a new timezone based on an iCalendar VTIMEZONE component.
+	 * Creates a new timezone based on an iCalendar VTIMEZONE component. The
+	 * timezone transitions are precomputed up to the year
+	 * {@value #DEFAULT_HORIZON_YEAR}.
 	 * @param component the VTIMEZONE component to wrap
 	 */
 	public ICalTimeZone(VTimezone component) {
+		this(component, DEFAULT_HORIZON_YEAR);
+	}
+
+	/**
+	 * Creates a new timezone based on an iCalendar VTIMEZONE component.
+	 * @param component the VTIMEZONE component to wrap
+	 * @param horizonYear the year up to which (inclusive) the timezone
+	 * transitions are precomputed
+	 */
+	public ICalTimeZone(VTimezone component, int horizonYear) {
 		this.component = component;
 
 		int numObservances = component.getStandardTimes().size() + component.getDaylightSavingsTime().size();
@@ -89,6 +121,8 @@ public class ICalTimeZone extends TimeZone {
 
 		sortedObservances = calculateSortedObservances();
 
+		transitions = new TransitionTable(horizonYear);
+
 		rawOffset = calculateRawOffset();
 
 		String id = getValue(component.getTimezoneId());
@@ -165,6 +199,11 @@ public class ICalTimeZone extends TimeZone {
 
 	@Override
 	public int getOffset(int era, int year, int month, int day, int dayOfWeek, int millis) {
+		long wallTime = (TimeUtils.fixedFromGregorian(year, month + 1, day) * SECS_PER_DAY - UNIX_EPOCH_SECS) * 1000 + millis;
+		if (transitions.covers(wallTime)) {
+			return transitions.getOffset(wallTime);
+		}
+
 		int hour = millis / 1000 / 60 / 60;
 		millis -= hour * 1000 * 60 * 60;
 		int minute = millis / 1000 / 60;
@@ -173,30 +212,29 @@ public class ICalTimeZone extends TimeZone {
 
 		Observance observance = getObservance(year, month + 1, day, hour, minute, second);
 		if (observance == null) {
-			/*
-			 * Find the first observance that has a DTSTART property and a
-			 * TZOFFSETFROM property.
-			 */
-			for (Observance obs : sortedObservances) {
-				ICalDate dateStart = getValue(obs.getDateStart());
-				if (dateStart == null) {
-					continue;
-				}
-
-				UtcOffset offsetFrom = getValue(obs.getTimezoneOffsetFrom());
-				if (offsetFrom == null) {
-					continue;
-				}
-
-				return (int) offsetFrom.getMillis();
-			}
-			return 0;
+			return transitions.initialOffset;
 		}
 
 		UtcOffset offsetTo = getValue(observance.getTimezoneOffsetTo());
 		return (offsetTo == null) ? 0 : (int) offsetTo.getMillis();
 	}
 
+	/**
+	 * Gets the UTC offset of the given instant in time. Unlike the other
+	 * methods of this class, the given date is treated as an absolute point in
+	 * time, and is compared against the UTC times at which each timezone
+	 * transition occurs.
+	 * @param date the date (in milliseconds since the epoch)
+	 * @return the UTC offset (in milliseconds)
+	 */
+	@Override
+	public int getOffset(long date) {
+		if (transitions.coversUtc(date)) {
+			return transitions.getUtcOffset(date);
+		}
+		return super.getOffset(date);
+	}
+
 	@Override
 	public int getRawOffset() {
 		return rawOffset;
@@ -225,12 +263,35 @@ public class ICalTimeZone extends TimeZone {
 		return (offset == null) ? 0 : (int) offset.getMillis();
 	}
 
+	/**
+	 * Determines if this timezone has the same UTC offsets and transitions as
+	 * another timezone. Two {@link ICalTimeZone} objects have the same rules if
+	 * their raw offsets and precomputed transition tables are the same.
+	 * Transitions that occur after the horizon year are not compared.
+	 * @param other the other timezone
+	 * @return true if the timezones have the same rules, false if not
+	 */
+	@Override
+	public boolean hasSameRules(TimeZone other) {
+		if (!(other instanceof ICalTimeZone)) {
+			return super.hasSameRules(other);
+		}
+
+		ICalTimeZone that = (ICalTimeZone) other;
+		return rawOffset == that.rawOffset && transitions.hasSameTransitions(that.transitions);
+	}
+
 	@Override
 	public boolean inDaylightTime(Date date) {
 		if (!useDaylightTime()) {
 			return false;
 		}
 
+		long time = date.getTime();
+		if (transitions.covers(time)) {
+			return transitions.inDaylightTime(time);
+		}
+
 		Observance observance = getObservance(date);
 		return (observance == null) ? false : (observance instanceof DaylightSavingsTime);
 	}
@@ -260,11 +321,12 @@ public class ICalTimeZone extends TimeZone {
 	 * @return the timezone information
 	 */
 	public Boundary getObservanceBoundary(Date date) {
+		Calendar utcCalendar = Calendar.getInstance(utc);
 		utcCalendar.setTime(date);
 		int year = utcCalendar.get(Calendar.YEAR);
 		int month = utcCalendar.get(Calendar.MONTH) + 1;
 		int day = utcCalendar.get(Calendar.DATE);
-		int hour = utcCalendar.get(Calendar.HOUR);
+		int hour = utcCalendar.get(Calendar.HOUR_OF_DAY);
 		int minute = utcCalendar.get(Calendar.MINUTE);
 		int second = utcCalendar.get(Calendar.SECOND);
 
@@ -277,6 +339,11 @@ public class ICalTimeZone extends TimeZone {
 	 * @return the observance or null if an observance cannot be found
 	 */
 	public Observance getObservance(Date date) {
+		long time = date.getTime();
+		if (transitions.covers(time)) {
+			return transitions.getObservance(time);
+		}
+
 		Boundary boundary = getObservanceBoundary(date);
 		return (boundary == null) ? null : boundary.getObservanceIn();
 	}
@@ -321,7 +388,7 @@ public class ICalTimeZone extends TimeZone {
 	 * @param second the second
 	 * @return the observance information or null if none was found
 	 */
-	private Boundary getObservanceBoundary(int year, int month, int day, int hour, int minute, int second) {
+	private synchronized Boundary getObservanceBoundary(int year, int month, int day, int hour, int minute, int second) {
 		if (sortedObservances.isEmpty()) {
 			return null;
 		}
@@ -560,6 +627,237 @@ public class ICalTimeZone extends TimeZone {
 		return RecurrenceIteratorFactory.join(first, theRest.toArray(new RecurrenceIterator[0]));
 	}
 
+	/**
+	 * Converts a date value to the number of milliseconds since the Unix
+	 * epoch, as if the date value were in UTC.
+	 * @param value the date value
+	 * @return the number of milliseconds
+	 */
+	private static long toWallTime(DateValue value) {
+		return (TimeUtils.secsSinceEpoch(value) - UNIX_EPOCH_SECS) * 1000;
+	}
+
+	/**
+	 * <p>
+	 * The timezone transitions of the VTIMEZONE component, precomputed up to a
+	 * horizon year. The table is immutable once built.
+	 * </p>
+	 * <p>
+	 * Two sets of arrays are maintained. The "wall" arrays hold the local time
+	 * at which each observance begins (the value of its DTSTART, RDATE, or
+	 * RRULE), encoded as if it were in UTC. These are used to implement the
+	 * lookup methods which, for compatibility with previous versions, compare
+	 * the given date's fields to the observance start times. The "UTC" arrays
+	 * hold the absolute time at which each transition occurs, and are used to
+	 * implement {@link ICalTimeZone#getOffset(long)}.
+	 * </p>
+	 */
+	private class TransitionTable {
+		private final long horizon;
+		private final int initialOffset;
+
+		private final long[] wallTimes;
+		private final int[] wallOffsets;
+		private final boolean[] wallDaylight;
+		private final Observance[] wallObservances;
+
+		private final long[] utcTimes;
+		private final int[] utcOffsets;
+
+		public TransitionTable(int horizonYear) {
+			horizon = toWallTime(new DateValueImpl(horizonYear + 1, 1, 1));
+			initialOffset = calculateInitialOffset();
+
+			List<Transition> list = new ArrayList<Transition>();
+			for (int i = 0; i < sortedObservances.size(); i++) {
+				Observance observance = sortedObservances.get(i);
+
+				/*
+				 * Observance start times that come before the observance's
+				 * DTSTART are never used, so they can be ignored.
+				 */
+				ICalDate dtstart = getValue(observance.getDateStart());
+				long dtstartTime = (dtstart == null) ? Long.MIN_VALUE : toWallTime(convertFromRawComponents(dtstart));
+
+				UtcOffset offsetTo = getValue(observance.getTimezoneOffsetTo());
+				UtcOffset offsetFrom = getValue(observance.getTimezoneOffsetFrom());
+				int offset = (offsetTo == null) ? 0 : (int) offsetTo.getMillis();
+				int offsetBefore = (offsetFrom == null) ? offset : (int) offsetFrom.getMillis();
+
+				RecurrenceIterator it = createIterator(observance);
+				while (it.hasNext()) {
+					DateValue value = it.next();
+					if (value.year() > horizonYear) {
+						break;
+					}
+
+					long wallTime = toWallTime(value);
+					if (wallTime < dtstartTime) {
+						continue;
+					}
+
+					list.add(new Transition(wallTime, wallTime - offsetBefore, i, offset, observance));
+				}
+			}
+
+			int size = list.size();
+			wallTimes = new long[size];
+			wallOffsets = new int[size];
+			wallDaylight = new boolean[size];
+			wallObservances = new Observance[size];
+			utcTimes = new long[size];
+			utcOffsets = new int[size];
+
+			/*
+			 * If two observances start at the same time, the one that comes
+			 * first in the sorted observance list wins. The lookups pick the
+			 * last matching element, so sort those observances in reverse.
+			 */
+			Collections.sort(list, new Comparator<Transition>() {
+				public int compare(Transition left, Transition right) {
+					if (left.wallTime != right.wallTime) {
+						return (left.wallTime < right.wallTime) ? -1 : 1;
+					}
+					return right.index - left.index;
+				}
+			});
+			for (int i = 0; i < size; i++) {
+				Transition transition = list.get(i);
+				wallTimes[i] = transition.wallTime;
+				wallOffsets[i] = transition.offset;
+				wallDaylight[i] = (transition.observance instanceof DaylightSavingsTime);
+				wallObservances[i] = transition.observance;
+			}
+
+			Collections.sort(list, new Comparator<Transition>() {
+				public int compare(Transition left, Transition right) {
+					if (left.utcTime != right.utcTime) {
+						return (left.utcTime < right.utcTime) ? -1 : 1;
+					}
+					return right.index - left.index;
+				}
+			});
+			for (int i = 0; i < size; i++) {
+				Transition transition = list.get(i);
+				utcTimes[i] = transition.utcTime;
+				utcOffsets[i] = transition.offset;
+			}
+		}
+
+		/**
+		 * Gets the offset to use for dates that come before the first
+		 * transition (the TZOFFSETFROM value of the first observance that has
+		 * a DTSTART property).
+		 * @return the offset
+		 */
+		private int calculateInitialOffset() {
+			for (Observance obs : sortedObservances) {
+				ICalDate dateStart = getValue(obs.getDateStart());
+				if (dateStart == null) {
+					continue;
+				}
+
+				UtcOffset offsetFrom = getValue(obs.getTimezoneOffsetFrom());
+				if (offsetFrom == null) {
+					continue;
+				}
+
+				return (int) offsetFrom.getMillis();
+			}
+			return 0;
+		}
+
+		public boolean covers(long wallTime) {
+			return wallTime < horizon;
+		}
+
+		/**
+		 * Determines if this table contains the same transitions as another
+		 * table. The tables of cloned timezones are shared, so they are
+		 * compared by identity first.
+		 * @param other the other table
+		 * @return true if the transitions are the same, false if not
+		 */
+		public boolean hasSameTransitions(TransitionTable other) {
+			if (this == other) return true;
+			if (horizon != other.horizon) return false;
+			if (initialOffset != other.initialOffset) return false;
+			if (!Arrays.equals(utcTimes, other.utcTimes)) return false;
+			if (!Arrays.equals(utcOffsets, other.utcOffsets)) return false;
+			if (!Arrays.equals(wallTimes, other.wallTimes)) return false;
+			if (!Arrays.equals(wallOffsets, other.wallOffsets)) return false;
+			if (!Arrays.equals(wallDaylight, other.wallDaylight)) return false;
+			return true;
+		}
+
+		public boolean coversUtc(long utcTime) {
+			/*
+			 * Subtract a day to account for the fact that the horizon is in
+			 * local time.
+			 */
+			return utcTime < horizon - SECS_PER_DAY * 1000;
+		}
+
+		public int getOffset(long wallTime) {
+			int index = lastIndexAtOrBefore(wallTimes, wallTime);
+			return (index < 0) ? initialOffset : wallOffsets[index];
+		}
+
+		public boolean inDaylightTime(long wallTime) {
+			int index = lastIndexAtOrBefore(wallTimes, wallTime);
+			return (index < 0) ? false : wallDaylight[index];
+		}
+
+		public Observance getObservance(long wallTime) {
+			int index = lastIndexAtOrBefore(wallTimes, wallTime);
+			return (index < 0) ? null : wallObservances[index];
+		}
+
+		public int getUtcOffset(long utcTime) {
+			int index = lastIndexAtOrBefore(utcTimes, utcTime);
+			return (index < 0) ? initialOffset : utcOffsets[index];
+		}
+
+		/**
+		 * Finds the index of the last element in a sorted array that is less
+		 * than or equal to the given value.
+		 * @param array the array
+		 * @param value the value
+		 * @return the index or -1 if all elements are greater than the value
+		 */
+		private int lastIndexAtOrBefore(long[] array, long value) {
+			int low = 0;
+			int high = array.length - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				if (array[mid] <= value) {
+					low = mid + 1;
+				} else {
+					high = mid - 1;
+				}
+			}
+			return high;
+		}
+	}
+
+	/**
+	 * A single timezone transition, used while building the
+	 * {@link TransitionTable}.
+	 */
+	private static class Transition {
+		private final long wallTime, utcTime;
+		private final int index, offset;
+		private final Observance observance;
+
+		public Transition(long wallTime, long utcTime, int index, int offset, Observance observance) {
+			this.wallTime = wallTime;
+			this.utcTime = utcTime;
+			this.index = index;
+			this.offset = offset;
+			this.observance = observance;
+		}
+	}
+
 	/**
 	 * A recurrence iterator that doesn't have any elements.
 	 */
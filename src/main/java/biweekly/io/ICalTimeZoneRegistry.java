@@ -0,0 +1,194 @@
+package biweekly.io;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import biweekly.Messages;
+import biweekly.component.VTimezone;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * A thread-safe cache of {@link ICalTimeZone} objects that can be shared
+ * between multiple parsers.
+ * </p>
+ * <p>
+ * Building an {@link ICalTimeZone} object requires all of its observances to be
+ * expanded, which is expensive. Many iCalendar objects contain identical
+ * VTIMEZONE components (for example, invitations that are sent from the same
+ * mail client). This registry canonicalizes VTIMEZONE components by their
+ * content (see {@link VTimezone#equals}), so that identical components map to
+ * the same {@link ICalTimeZone} instance.
+ * </p>
+ * <p>
+ * The registry is bounded in size. When it is full, the least recently used
+ * timezone is evicted.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ * 
+ * <pre class="brush:java">
+ * ICalTimeZoneRegistry registry = new ICalTimeZoneRegistry();
+ * 
+ * ICalReader reader = new ICalReader(...);
+ * reader.setTimezoneRegistry(registry);
+ * ICalendar ical = reader.readNext();
+ * </pre>
+ * @author Michael Angstadt
+ */
+public class ICalTimeZoneRegistry {
+	/**
+	 * The default maximum number of timezones the registry will hold.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 256;
+
+	private final int maxSize;
+	private final Map<VTimezone, ICalTimeZone> timezones;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Creates a new registry that holds up to {@value #DEFAULT_MAX_SIZE}
+	 * timezones.
+	 */
+	public ICalTimeZoneRegistry() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Creates a new registry.
+	 * @param maxSize the maximum number of timezones to hold
+	 * @throws IllegalArgumentException if the max size is less than 1
+	 */
+	public ICalTimeZoneRegistry(final int maxSize) {
+		if (maxSize < 1) {
+			throw Messages.INSTANCE.getIllegalArgumentException(27);
+		}
+
+		this.maxSize = maxSize;
+		timezones = new LinkedHashMap<VTimezone, ICalTimeZone>(16, 0.75f, true) {
+			private static final long serialVersionUID = -3398530339101426519L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<VTimezone, ICalTimeZone> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Gets the timezone that is associated with the given VTIMEZONE component.
+	 * If the registry does not contain a component with the same content, a new
+	 * {@link ICalTimeZone} object is created and added to the registry.
+	 * @param component the VTIMEZONE component
+	 * @return the timezone
+	 */
+	public ICalTimeZone get(VTimezone component) {
+		synchronized (timezones) {
+			ICalTimeZone timezone = timezones.get(component);
+			if (timezone != null) {
+				hits.incrementAndGet();
+				return timezone;
+			}
+		}
+
+		misses.incrementAndGet();
+
+		/*
+		 * Build the timezone outside of the lock because it can take a while.
+		 * 
+		 * Copy the component so that changes that are made to the original
+		 * component (for example, by the caller of the parser) do not affect
+		 * the cached timezone or its key.
+		 */
+		VTimezone copy = component.copy();
+		ICalTimeZone timezone = new ICalTimeZone(copy);
+
+		synchronized (timezones) {
+			/*
+			 * If another thread added the same component in the meantime, use
+			 * that one so that every caller gets the same instance.
+			 */
+			ICalTimeZone existing = timezones.get(copy);
+			if (existing != null) {
+				return existing;
+			}
+
+			timezones.put(copy, timezone);
+			return timezone;
+		}
+	}
+
+	/**
+	 * Gets the number of lookups that were answered from the registry.
+	 * @return the number of hits
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Gets the number of lookups that required a new {@link ICalTimeZone}
+	 * object to be built.
+	 * @return the number of misses
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Gets the maximum number of timezones the registry will hold.
+	 * @return the max size
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Gets the number of timezones in the registry.
+	 * @return the number of timezones
+	 */
+	public int size() {
+		synchronized (timezones) {
+			return timezones.size();
+		}
+	}
+
+	/**
+	 * Removes all timezones from the registry and resets the hit and miss
+	 * counters.
+	 */
+	public void clear() {
+		synchronized (timezones) {
+			timezones.clear();
+		}
+		hits.set(0);
+		misses.set(0);
+	}
+}
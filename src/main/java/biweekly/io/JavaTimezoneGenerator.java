@@ -0,0 +1,508 @@
+package biweekly.io;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import biweekly.Messages;
+import biweekly.component.DaylightSavingsTime;
+import biweekly.component.Observance;
+import biweekly.component.StandardTime;
+import biweekly.component.VTimezone;
+import biweekly.util.DateTimeComponents;
+import biweekly.util.DayOfWeek;
+import biweekly.util.Frequency;
+import biweekly.util.Recurrence;
+import biweekly.util.UtcOffset;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Generates {@link VTimezone} components from the timezone data that is built
+ * into the JVM. Unlike {@link TzUrlDotOrgGenerator}, this class does not
+ * require network access.
+ * </p>
+ * <p>
+ * The {@link TimeZone} class does not expose its transition rules. For the
+ * JVM's own timezones, the transitions are read from the {@code java.time}
+ * API when it is available (Java 8 and later). Otherwise, they are
+ * reconstructed by sampling the timezone's UTC offset once a day over a range
+ * of years. Transitions that reoccur every year on the same weekday of the
+ * same month (for example, "the second Sunday in March at 2am") are collapsed
+ * into observances that have yearly RRULE properties. All other transitions
+ * are written as individual observances.
+ * </p>
+ * <p>
+ * Generating a component is relatively expensive. Consider wrapping this class
+ * in a {@link CachedTimezoneGenerator}. This class is thread-safe.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ *
+ * <pre class="brush:java">
+ * VTimezoneGenerator generator = new JavaTimezoneGenerator();
+ * VTimezone component = generator.generate(TimeZone.getTimeZone("America/New_York"));
+ * </pre>
+ * @author Michael Angstadt
+ */
+public class JavaTimezoneGenerator implements VTimezoneGenerator {
+	/**
+	 * The year that transitions are searched from by default.
+	 */
+	public static final int DEFAULT_START_YEAR = 1970;
+
+	/**
+	 * The year that transitions are searched until by default.
+	 */
+	public static final int DEFAULT_END_YEAR = 2037;
+
+	private static final long ONE_DAY = 24L * 60 * 60 * 1000;
+	private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+	private final int startYear;
+	private final int endYear;
+
+	/**
+	 * Creates a generator that searches for transitions between
+	 * {@value #DEFAULT_START_YEAR} and {@value #DEFAULT_END_YEAR}.
+	 */
+	public JavaTimezoneGenerator() {
+		this(DEFAULT_START_YEAR, DEFAULT_END_YEAR);
+	}
+
+	/**
+	 * Creates a generator.
+	 * @param startYear the first year to search for transitions in
+	 * @param endYear the last year to search for transitions in. Yearly rules
+	 * that are still in effect at the end of this year are written without an
+	 * end date.
+	 * @throws IllegalArgumentException if the end year comes before the start
+	 * year
+	 */
+	public JavaTimezoneGenerator(int startYear, int endYear) {
+		if (endYear < startYear) {
+			throw Messages.INSTANCE.getIllegalArgumentException(28);
+		}
+		this.startYear = startYear;
+		this.endYear = endYear;
+	}
+
+	/**
+	 * Gets the first year that transitions are searched for in.
+	 * @return the start year
+	 */
+	public int getStartYear() {
+		return startYear;
+	}
+
+	/**
+	 * Gets the last year that transitions are searched for in.
+	 * @return the end year
+	 */
+	public int getEndYear() {
+		return endYear;
+	}
+
+	public VTimezone generate(TimeZone timezone) {
+		Calendar cal = Calendar.getInstance(UTC);
+		cal.clear();
+		cal.set(startYear, Calendar.JANUARY, 1);
+		long start = cal.getTimeInMillis();
+		cal.set(endYear + 1, Calendar.JANUARY, 1);
+		long end = cal.getTimeInMillis();
+
+		VTimezone component = new VTimezone(timezone.getID());
+
+		/*
+		 * Add an observance that defines the timezone's offset at the
+		 * beginning of the search range.
+		 */
+		int initialOffset = timezone.getOffset(start);
+		boolean initialDaylight = timezone.inDaylightTime(new Date(start));
+		Observance initial = createObservance(timezone, initialDaylight, initialOffset, initialOffset);
+		initial.setDateStart(new DateTimeComponents(startYear, 1, 1, 0, 0, 0, false));
+		addObservance(component, initial);
+
+		List<Transition> transitions = findTransitions(timezone, start, end, initialOffset, initialDaylight, cal);
+		for (Series series : group(transitions)) {
+			Transition first = series.first;
+			Observance observance = createObservance(timezone, first.daylight, first.offsetFrom, first.offsetTo);
+			observance.setDateStart(first.getLocalComponents());
+
+			if (series.count > 1) {
+				Integer num = series.useLastWeek() ? -1 : first.weekOfMonth;
+				DayOfWeek dayOfWeek = DayOfWeek.values()[first.dayOfWeek - Calendar.SUNDAY];
+
+				//@formatter:off
+				Recurrence.Builder builder = new Recurrence.Builder(Frequency.YEARLY)
+					.byMonth(first.month)
+					.byDay(num, dayOfWeek);
+				//@formatter:on
+
+				boolean ongoing = series.last.year == endYear && timezone.useDaylightTime();
+				if (!ongoing) {
+					/*
+					 * Some consumers (including ICalTimeZone) compare UNTIL
+					 * against the observance's local times. Moving it forward
+					 * by the offset keeps the last transition in the series
+					 * for timezones that are ahead of UTC. The next instance
+					 * of the rule is a year away, so nothing else is let in.
+					 */
+					builder.until(new Date(series.last.onset + Math.max(0, series.last.offsetFrom)));
+				}
+				observance.setRecurrenceRule(builder.build());
+			}
+
+			addObservance(component, observance);
+		}
+
+		return component;
+	}
+
+	/**
+	 * Finds all the offset transitions that occur in the given time range.
+	 * @param timezone the timezone
+	 * @param start the start of the range
+	 * @param end the end of the range
+	 * @param offset the timezone's offset at the start of the range
+	 * @param daylight the timezone's daylight savings flag at the start of the
+	 * range
+	 * @param cal a calendar in UTC
+	 * @return the transitions, in chronological order
+	 */
+	private static List<Transition> findTransitions(TimeZone timezone, long start, long end, int offset, boolean daylight, Calendar cal) {
+		List<Transition> transitions = new ArrayList<Transition>();
+
+		List<Long> onsets = ZoneRulesReader.findOnsets(timezone, start, end);
+		if (onsets == null) {
+			sample(timezone, start, end, offset, daylight, cal, transitions);
+			return transitions;
+		}
+
+		/*
+		 * Only trust the onsets from java.time where the TimeZone object
+		 * agrees with them. If the TimeZone's offset changes somewhere in
+		 * between two onsets, sample that stretch of time.
+		 */
+		long from = start;
+		onsets.add(end + 1);
+		for (long onset : onsets) {
+			long to = onset - 1;
+			if (timezone.getOffset(to) != offset || timezone.inDaylightTime(new Date(to)) != daylight) {
+				sample(timezone, from, to, offset, daylight, cal, transitions);
+				offset = timezone.getOffset(to);
+				daylight = timezone.inDaylightTime(new Date(to));
+			}
+			if (onset > end) {
+				break;
+			}
+
+			int curOffset = timezone.getOffset(onset);
+			boolean curDaylight = timezone.inDaylightTime(new Date(onset));
+			if (curOffset != offset || curDaylight != daylight) {
+				transitions.add(new Transition(onset, offset, curOffset, curDaylight, cal));
+				offset = curOffset;
+				daylight = curDaylight;
+			}
+			from = onset;
+		}
+		return transitions;
+	}
+
+	/**
+	 * Finds the offset transitions in the given time range by sampling the
+	 * timezone's offset once a day.
+	 * @param timezone the timezone
+	 * @param start the start of the range
+	 * @param end the end of the range
+	 * @param offset the timezone's offset at the start of the range
+	 * @param daylight the timezone's daylight savings flag at the start of the
+	 * range
+	 * @param cal a calendar in UTC
+	 * @param transitions the list to add the transitions to
+	 */
+	private static void sample(TimeZone timezone, long start, long end, int offset, boolean daylight, Calendar cal, List<Transition> transitions) {
+		long prev = start;
+		while (prev < end) {
+			long time = Math.min(prev + ONE_DAY, end);
+			int curOffset = timezone.getOffset(time);
+			boolean curDaylight = timezone.inDaylightTime(new Date(time));
+			if (curOffset == offset && curDaylight == daylight) {
+				prev = time;
+				continue;
+			}
+
+			/*
+			 * Narrow down the exact second the transition occurs at.
+			 */
+			long low = prev;
+			long high = time;
+			while (high - low > 1000) {
+				long mid = low + (high - low) / 2000 * 1000;
+				if (timezone.getOffset(mid) == offset && timezone.inDaylightTime(new Date(mid)) == daylight) {
+					low = mid;
+				} else {
+					high = mid;
+				}
+			}
+
+			transitions.add(new Transition(high, offset, curOffset, curDaylight, cal));
+
+			prev = time;
+			offset = curOffset;
+			daylight = curDaylight;
+		}
+	}
+
+	/**
+	 * Groups transitions that reoccur every year into series.
+	 * @param transitions the transitions, in chronological order
+	 * @return the series, in chronological order
+	 */
+	private static List<Series> group(List<Transition> transitions) {
+		List<Series> seriesList = new ArrayList<Series>();
+		for (Transition transition : transitions) {
+			Series match = null;
+			for (int i = seriesList.size() - 1; i >= 0; i--) {
+				Series series = seriesList.get(i);
+				if (series.accepts(transition)) {
+					match = series;
+					break;
+				}
+			}
+
+			if (match == null) {
+				seriesList.add(new Series(transition));
+			} else {
+				match.add(transition);
+			}
+		}
+		return seriesList;
+	}
+
+	private static Observance createObservance(TimeZone timezone, boolean daylight, int offsetFrom, int offsetTo) {
+		Observance observance = daylight ? new DaylightSavingsTime() : new StandardTime();
+		observance.setTimezoneOffsetFrom(new UtcOffset(offsetFrom));
+		observance.setTimezoneOffsetTo(new UtcOffset(offsetTo));
+
+		/*
+		 * The TimeZone class only knows the names of its current offsets, so
+		 * only name the observances that use those offsets.
+		 */
+		int currentOffset = timezone.getRawOffset() + (daylight ? timezone.getDSTSavings() : 0);
+		if (offsetTo == currentOffset) {
+			observance.addTimezoneName(timezone.getDisplayName(daylight, TimeZone.SHORT, Locale.US));
+		}
+
+		return observance;
+	}
+
+	private static void addObservance(VTimezone component, Observance observance) {
+		if (observance instanceof DaylightSavingsTime) {
+			component.addDaylightSavingsTime((DaylightSavingsTime) observance);
+		} else {
+			component.addStandardTime((StandardTime) observance);
+		}
+	}
+
+	/**
+	 * Reads the transitions of the JVM's own timezones using the
+	 * {@code java.time} API. The API is accessed using reflection because it
+	 * is not available on all of the Java versions that this library supports.
+	 */
+	private static class ZoneRulesReader {
+		private static final ZoneRulesReader instance = create();
+
+		private final Method toZoneId, getRules, nextTransition, getInstant, ofEpochMilli, toEpochMilli;
+
+		private ZoneRulesReader() throws Exception {
+			Class<?> zoneIdClass = Class.forName("java.time.ZoneId");
+			Class<?> zoneRulesClass = Class.forName("java.time.zone.ZoneRules");
+			Class<?> transitionClass = Class.forName("java.time.zone.ZoneOffsetTransition");
+			Class<?> instantClass = Class.forName("java.time.Instant");
+
+			toZoneId = TimeZone.class.getMethod("toZoneId");
+			getRules = zoneIdClass.getMethod("getRules");
+			nextTransition = zoneRulesClass.getMethod("nextTransition", instantClass);
+			getInstant = transitionClass.getMethod("getInstant");
+			ofEpochMilli = instantClass.getMethod("ofEpochMilli", long.class);
+			toEpochMilli = instantClass.getMethod("toEpochMilli");
+		}
+
+		private static ZoneRulesReader create() {
+			try {
+				return new ZoneRulesReader();
+			} catch (Exception e) {
+				//Java 7 or earlier
+				return null;
+			}
+		}
+
+		/**
+		 * Gets the dates of the timezone's offset transitions.
+		 * @param timezone the timezone
+		 * @param start the start of the range (exclusive)
+		 * @param end the end of the range (inclusive)
+		 * @return the transition dates in chronological order or null if they
+		 * cannot be read for this timezone
+		 */
+		public static List<Long> findOnsets(TimeZone timezone, long start, long end) {
+			/*
+			 * Custom TimeZone implementations are not guaranteed to have the
+			 * same rules as the java.time timezone with the same ID.
+			 */
+			if (instance == null || !timezone.getClass().getName().equals("sun.util.calendar.ZoneInfo")) {
+				return null;
+			}
+
+			try {
+				return instance.read(timezone, start, end);
+			} catch (Exception e) {
+				return null;
+			}
+		}
+
+		private List<Long> read(TimeZone timezone, long start, long end) throws Exception {
+			Object rules = getRules.invoke(toZoneId.invoke(timezone));
+
+			List<Long> onsets = new ArrayList<Long>();
+			long time = start;
+			while (true) {
+				Object transition = nextTransition.invoke(rules, ofEpochMilli.invoke(null, time));
+				if (transition == null) {
+					break;
+				}
+
+				time = (Long) toEpochMilli.invoke(getInstant.invoke(transition));
+				if (time > end) {
+					break;
+				}
+				onsets.add(time);
+			}
+			return onsets;
+		}
+	}
+
+	/**
+	 * Represents a change in a timezone's UTC offset.
+	 */
+	private static class Transition {
+		private final long onset;
+		private final int offsetFrom, offsetTo;
+		private final boolean daylight;
+
+		/*
+		 * The local date and time that the transition occurs at, according to
+		 * the offset that was in effect before the transition.
+		 */
+		private final int year, month, date, hour, minute, second;
+		private final int dayOfWeek, weekOfMonth;
+		private final boolean lastWeekOfMonth;
+
+		public Transition(long onset, int offsetFrom, int offsetTo, boolean daylight, Calendar cal) {
+			this.onset = onset;
+			this.offsetFrom = offsetFrom;
+			this.offsetTo = offsetTo;
+			this.daylight = daylight;
+
+			cal.setTimeInMillis(onset + offsetFrom);
+			year = cal.get(Calendar.YEAR);
+			month = cal.get(Calendar.MONTH) + 1;
+			date = cal.get(Calendar.DATE);
+			hour = cal.get(Calendar.HOUR_OF_DAY);
+			minute = cal.get(Calendar.MINUTE);
+			second = cal.get(Calendar.SECOND);
+			dayOfWeek = cal.get(Calendar.DAY_OF_WEEK);
+			weekOfMonth = (date - 1) / 7 + 1;
+			lastWeekOfMonth = date + 7 > cal.getActualMaximum(Calendar.DATE);
+		}
+
+		public DateTimeComponents getLocalComponents() {
+			return new DateTimeComponents(year, month, date, hour, minute, second, false);
+		}
+	}
+
+	/**
+	 * A sequence of transitions that occur in consecutive years on the same
+	 * weekday of the same month.
+	 */
+	private static class Series {
+		private final Transition first;
+		private Transition last;
+		private int count = 1;
+		private boolean sameWeekOfMonth = true, sameLastWeekOfMonth;
+
+		public Series(Transition first) {
+			this.first = first;
+			this.last = first;
+			sameLastWeekOfMonth = first.lastWeekOfMonth;
+		}
+
+		public boolean accepts(Transition transition) {
+			//@formatter:off
+			if (transition.year != last.year + 1 ||
+				transition.daylight != first.daylight ||
+				transition.offsetFrom != first.offsetFrom ||
+				transition.offsetTo != first.offsetTo ||
+				transition.month != first.month ||
+				transition.dayOfWeek != first.dayOfWeek ||
+				transition.hour != first.hour ||
+				transition.minute != first.minute ||
+				transition.second != first.second) {
+				return false;
+			}
+			//@formatter:on
+
+			return (sameWeekOfMonth && transition.weekOfMonth == first.weekOfMonth) || (sameLastWeekOfMonth && transition.lastWeekOfMonth);
+		}
+
+		public void add(Transition transition) {
+			sameWeekOfMonth &= (transition.weekOfMonth == first.weekOfMonth);
+			sameLastWeekOfMonth &= transition.lastWeekOfMonth;
+			last = transition;
+			count++;
+		}
+
+		/**
+		 * Determines whether the rule should be expressed relative to the end
+		 * of the month (e.g. "last Sunday") instead of the beginning (e.g.
+		 * "second Sunday").
+		 * @return true to use the last week of the month, false not to
+		 */
+		public boolean useLastWeek() {
+			if (!sameWeekOfMonth) {
+				return true;
+			}
+			return sameLastWeekOfMonth && first.weekOfMonth >= 4;
+		}
+	}
+}
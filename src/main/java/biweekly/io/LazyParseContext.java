@@ -0,0 +1,132 @@
+package biweekly.io;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import biweekly.ICalVersion;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Holds the information that is needed to parse the properties that a reader
+ * did not parse right away (see
+ * {@link biweekly.io.text.ICalReader#setLazyParsing}). There is one instance
+ * per iCalendar object (or per component, if the components are read one at a
+ * time).
+ * </p>
+ * <p>
+ * The warnings that are encountered while the properties are parsed are
+ * collected in this object.
+ * </p>
+ * @author Michael Angstadt
+ * @see UnparsedProperty
+ */
+public class LazyParseContext {
+	private final ICalVersion version;
+	private final List<ParseWarning> warnings = new ArrayList<ParseWarning>();
+	private TimezoneInfo tzinfo;
+	private Integer binaryDataThreshold;
+	private File binaryDataDirectory;
+
+	/**
+	 * @param version the version of the iCalendar object
+	 * @param context the reader's parse context (its binary data settings are
+	 * copied)
+	 */
+	public LazyParseContext(ICalVersion version, ParseContext context) {
+		this.version = version;
+		binaryDataThreshold = context.getBinaryDataThreshold();
+		binaryDataDirectory = context.getBinaryDataDirectory();
+	}
+
+	/**
+	 * Gets the version of the iCalendar object.
+	 * @return the version
+	 */
+	public ICalVersion getVersion() {
+		return version;
+	}
+
+	/**
+	 * Gets the timezone information that the date-time values of the
+	 * properties are parsed under.
+	 * @return the timezone info or null if not set yet
+	 */
+	public TimezoneInfo getTimezoneInfo() {
+		return tzinfo;
+	}
+
+	/**
+	 * Sets the timezone information that the date-time values of the
+	 * properties are parsed under. The reader sets this once the VTIMEZONE
+	 * components have been read.
+	 * @param tzinfo the timezone info
+	 */
+	public void setTimezoneInfo(TimezoneInfo tzinfo) {
+		this.tzinfo = tzinfo;
+	}
+
+	/**
+	 * Gets the warnings that were encountered while parsing the properties
+	 * that have been parsed so far.
+	 * @return the warnings
+	 */
+	public List<ParseWarning> getWarnings() {
+		return new ArrayList<ParseWarning>(warnings);
+	}
+
+	/**
+	 * Creates a parse context for parsing one of the properties.
+	 * @return the parse context
+	 */
+	ParseContext newParseContext() {
+		ParseContext context = new ParseContext();
+		context.setVersion(version);
+		context.setBinaryDataThreshold(binaryDataThreshold);
+		context.setBinaryDataDirectory(binaryDataDirectory);
+		return context;
+	}
+
+	/**
+	 * Parses the date-time values that were read into the given parse context
+	 * under their proper timezones.
+	 * @param context the parse context
+	 */
+	void assignTimezones(ParseContext context) {
+		TimezoneInfo tzinfo = (this.tzinfo == null) ? new TimezoneInfo() : this.tzinfo;
+		StreamReader.assignTimezones(tzinfo, tzinfo.getDefaultTimezone(), context, warnings);
+	}
+
+	/**
+	 * Adds a warning.
+	 * @param warning the warning
+	 */
+	void addWarning(ParseWarning warning) {
+		warnings.add(warning);
+	}
+}
@@ -1,5 +1,6 @@
 package biweekly.io;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -45,6 +46,8 @@ public class ParseContext {
 	private List<TimezonedDate> floatingDates = new ArrayList<TimezonedDate>();
 	private Integer lineNumber;
 	private String propertyName;
+	private Integer binaryDataThreshold;
+	private File binaryDataDirectory;
 
 	/**
 	 * Gets the version of the iCalendar object being parsed.
@@ -95,6 +98,45 @@ public class ParseContext {
 		this.propertyName = propertyName;
 	}
 
+	/**
+	 * Gets the size above which inline binary values are stored in temporary
+	 * files instead of in memory.
+	 * @return the size in bytes or null if binary values are always stored in
+	 * memory
+	 */
+	public Integer getBinaryDataThreshold() {
+		return binaryDataThreshold;
+	}
+
+	/**
+	 * Sets the size above which inline binary values are stored in temporary
+	 * files instead of in memory.
+	 * @param binaryDataThreshold the size in bytes or null to always store
+	 * binary values in memory
+	 */
+	public void setBinaryDataThreshold(Integer binaryDataThreshold) {
+		this.binaryDataThreshold = binaryDataThreshold;
+	}
+
+	/**
+	 * Gets the directory that the temporary files of large binary values are
+	 * created in.
+	 * @return the directory or null to use the system's temporary directory
+	 */
+	public File getBinaryDataDirectory() {
+		return binaryDataDirectory;
+	}
+
+	/**
+	 * Sets the directory that the temporary files of large binary values are
+	 * created in.
+	 * @param binaryDataDirectory the directory or null to use the system's
+	 * temporary directory
+	 */
+	public void setBinaryDataDirectory(File binaryDataDirectory) {
+		this.binaryDataDirectory = binaryDataDirectory;
+	}
+
 	/**
 	 * Adds a parsed date to this parse context so its timezone can be applied
 	 * to it after the iCalendar object has been parsed (if it has one).
@@ -121,6 +121,17 @@ public class ParseWarning {
 			propertyName(context.getPropertyName());
 		}
 
+		/**
+		 * Initializes the builder with the data from an existing warning.
+		 * @param original the warning to copy
+		 */
+		public Builder(ParseWarning original) {
+			lineNumber = original.lineNumber;
+			propertyName = original.propertyName;
+			code = original.code;
+			message = original.message;
+		}
+
 		/**
 		 * Sets the name of the property that the warning occurred on.
 		 * @param propertyName the property name (e.g. "DTSTART") or null if not
@@ -3,26 +3,36 @@ package biweekly.io;
 import static biweekly.io.DataModelConverter.convert;
 
 import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
 
 import biweekly.ICalendar;
+import biweekly.Messages;
+import biweekly.component.DaylightSavingsTime;
 import biweekly.component.ICalComponent;
+import biweekly.component.StandardTime;
 import biweekly.component.VTimezone;
 import biweekly.io.ParseContext.TimezonedDate;
 import biweekly.io.scribe.ScribeIndex;
 import biweekly.io.scribe.component.ICalComponentScribe;
 import biweekly.io.scribe.property.ICalPropertyScribe;
+import biweekly.property.BinaryProperty;
 import biweekly.property.Daylight;
 import biweekly.property.ICalProperty;
 import biweekly.property.Timezone;
 import biweekly.property.ValuedProperty;
+import biweekly.property.Version;
 import biweekly.util.ICalDate;
 import biweekly.util.ICalDateFormat;
 
@@ -59,6 +69,12 @@ public abstract class StreamReader implements Closeable {
 	protected final List<ParseWarning> warnings = new ArrayList<ParseWarning>();
 	protected ScribeIndex index = new ScribeIndex();
 	protected ParseContext context;
+	private ICalTimeZoneRegistry timezoneRegistry;
+	private Collection<TimezoneAssignment> predefinedTimezones = Collections.emptyList();
+	private Integer binaryDataThreshold;
+	private File binaryDataDirectory;
+	private Set<Class<? extends ICalComponent>> componentFilter;
+	private Set<Class<? extends ICalProperty>> propertyFilter;
 
 	/**
 	 * <p>
@@ -106,6 +122,213 @@ public abstract class StreamReader implements Closeable {
 		this.index = index;
 	}
 
+	/**
+	 * Gets the registry that is used to share {@link ICalTimeZone} objects
+	 * between parsers.
+	 * @return the registry or null if not set
+	 */
+	public ICalTimeZoneRegistry getTimezoneRegistry() {
+		return timezoneRegistry;
+	}
+
+	/**
+	 * <p>
+	 * Sets the registry that is used to share {@link ICalTimeZone} objects
+	 * between parsers (disabled by default).
+	 * </p>
+	 * <p>
+	 * If set, the {@link ICalTimeZone} object for each VTIMEZONE component is
+	 * retrieved from the registry instead of being created from scratch. The
+	 * same registry can be used by multiple readers, including readers that
+	 * are running on different threads.
+	 * </p>
+	 * @param timezoneRegistry the registry or null not to use a registry
+	 */
+	public void setTimezoneRegistry(ICalTimeZoneRegistry timezoneRegistry) {
+		this.timezoneRegistry = timezoneRegistry;
+	}
+
+	/**
+	 * Gets the timezone definitions that date-time values can reference in
+	 * addition to the VTIMEZONE components in the data stream.
+	 * @return the timezones (empty by default)
+	 */
+	public Collection<TimezoneAssignment> getPredefinedTimezones() {
+		return predefinedTimezones;
+	}
+
+	/**
+	 * <p>
+	 * Sets the timezone definitions that date-time values can reference in
+	 * addition to the VTIMEZONE components in the data stream. This is useful
+	 * when a data stream is split into pieces and the VTIMEZONE components are
+	 * only contained in one of them.
+	 * </p>
+	 * <p>
+	 * A predefined timezone is only used if the data stream does not contain
+	 * a VTIMEZONE component with the same ID. Predefined timezones that do
+	 * not have a VTIMEZONE component are ignored. The timezones are added to
+	 * the {@link TimezoneInfo} object of each iCalendar object that is read by
+	 * {@link #readNext}.
+	 * </p>
+	 * @param predefinedTimezones the timezones
+	 */
+	public void setPredefinedTimezones(Collection<TimezoneAssignment> predefinedTimezones) {
+		this.predefinedTimezones = predefinedTimezones;
+	}
+
+	/**
+	 * Gets the size above which inline binary values (such as base64-encoded
+	 * attachments) are stored in temporary files instead of in memory.
+	 * @return the size in bytes or null if binary values are always stored in
+	 * memory (the default)
+	 */
+	public Integer getBinaryDataThreshold() {
+		return binaryDataThreshold;
+	}
+
+	/**
+	 * <p>
+	 * Sets the size above which inline binary values (such as base64-encoded
+	 * attachments) are stored in temporary files instead of in memory
+	 * (disabled by default).
+	 * </p>
+	 * <p>
+	 * The values are decoded into the files in small chunks, and the
+	 * {@link BinaryProperty} objects that are created refer to the files
+	 * instead of holding the data in byte arrays (see
+	 * {@link BinaryProperty#getDataFile} and
+	 * {@link BinaryProperty#getDataStream}). It is the caller's
+	 * responsibility to delete the files when they are no longer needed.
+	 * </p>
+	 * @param binaryDataThreshold the size in bytes or null to always store
+	 * binary values in memory
+	 */
+	public void setBinaryDataThreshold(Integer binaryDataThreshold) {
+		this.binaryDataThreshold = binaryDataThreshold;
+	}
+
+	/**
+	 * Gets the directory that the temporary files of large binary values are
+	 * created in.
+	 * @return the directory or null if the system's temporary directory is
+	 * used (the default)
+	 * @see #setBinaryDataThreshold
+	 */
+	public File getBinaryDataDirectory() {
+		return binaryDataDirectory;
+	}
+
+	/**
+	 * Sets the directory that the temporary files of large binary values are
+	 * created in.
+	 * @param binaryDataDirectory the directory or null to use the system's
+	 * temporary directory
+	 * @see #setBinaryDataThreshold
+	 */
+	public void setBinaryDataDirectory(File binaryDataDirectory) {
+		this.binaryDataDirectory = binaryDataDirectory;
+	}
+
+	/**
+	 * Gets the component and property classes that the reader is limited to.
+	 * @return the classes (empty if the reader reads everything, which is the
+	 * default)
+	 * @see #setFilter
+	 */
+	public Set<Class<?>> getFilter() {
+		Set<Class<?>> filter = new HashSet<Class<?>>();
+		if (componentFilter != null) {
+			filter.addAll(componentFilter);
+		}
+		if (propertyFilter != null) {
+			filter.addAll(propertyFilter);
+		}
+		return filter;
+	}
+
+	/**
+	 * <p>
+	 * Limits the reader to the given component and property classes (by
+	 * default, everything is read). Everything else is skipped as soon as its
+	 * name is read: no scribes are invoked and no objects are created for it.
+	 * </p>
+	 * <p>
+	 * If no component classes are given, all components are read. If no
+	 * property classes are given, all properties are read. Skipping a
+	 * component also skips its properties and sub-components. To keep the
+	 * experimental components or properties, include
+	 * {@link biweekly.component.RawComponent RawComponent} or
+	 * {@link biweekly.property.RawProperty RawProperty}.
+	 * </p>
+	 * <p>
+	 * VCALENDAR and VTIMEZONE components, the properties of VTIMEZONE
+	 * components, and the VERSION, DAYLIGHT, and TZ properties are always
+	 * read because they are needed to parse the rest of the data.
+	 * </p>
+	 * <p>
+	 * <b>Example:</b>
+	 * </p>
+	 *
+	 * <pre class="brush:java">
+	 * reader.setFilter(VEvent.class, DateStart.class, DateEnd.class);
+	 * </pre>
+	 * @param classes the component and property classes to read (an empty
+	 * list to read everything)
+	 * @throws IllegalArgumentException if one of the classes is not a
+	 * component or property class
+	 */
+	@SuppressWarnings("unchecked")
+	public void setFilter(Class<?>... classes) {
+		Set<Class<? extends ICalComponent>> componentFilter = new HashSet<Class<? extends ICalComponent>>();
+		Set<Class<? extends ICalProperty>> propertyFilter = new HashSet<Class<? extends ICalProperty>>();
+		for (Class<?> clazz : classes) {
+			if (ICalComponent.class.isAssignableFrom(clazz)) {
+				componentFilter.add((Class<? extends ICalComponent>) clazz);
+			} else if (ICalProperty.class.isAssignableFrom(clazz)) {
+				propertyFilter.add((Class<? extends ICalProperty>) clazz);
+			} else {
+				throw new IllegalArgumentException(Messages.INSTANCE.getExceptionMessage(30, clazz.getName()));
+			}
+		}
+
+		this.componentFilter = componentFilter.isEmpty() ? null : componentFilter;
+		this.propertyFilter = propertyFilter.isEmpty() ? null : propertyFilter;
+	}
+
+	/**
+	 * Determines if a component should be read, according to the filter (see
+	 * {@link #setFilter}).
+	 * @param clazz the component class
+	 * @return true to read the component, false to skip it
+	 */
+	protected boolean isIncludedComponent(Class<? extends ICalComponent> clazz) {
+		if (componentFilter == null) {
+			return true;
+		}
+		if (clazz == ICalendar.class || clazz == VTimezone.class || clazz == StandardTime.class || clazz == DaylightSavingsTime.class) {
+			return true;
+		}
+		return componentFilter.contains(clazz);
+	}
+
+	/**
+	 * Determines if a property should be read, according to the filter (see
+	 * {@link #setFilter}). Properties that belong to VTIMEZONE components
+	 * should always be read.
+	 * @param clazz the property class
+	 * @return true to read the property, false to skip it
+	 */
+	protected boolean isIncludedProperty(Class<? extends ICalProperty> clazz) {
+		if (propertyFilter == null) {
+			return true;
+		}
+		if (clazz == Version.class || clazz == Daylight.class || clazz == Timezone.class) {
+			return true;
+		}
+		return propertyFilter.contains(clazz);
+	}
+
 	/**
 	 * Gets the warnings from the last iCalendar object that was read.
 	 * @return the warnings or empty list if there were no warnings
@@ -135,7 +358,7 @@ public abstract class StreamReader implements Closeable {
 	 */
 	public ICalendar readNext() throws IOException {
 		warnings.clear();
-		context = new ParseContext();
+		context = newParseContext();
 		ICalendar ical = _readNext();
 		if (ical == null) {
 			return null;
@@ -153,32 +376,104 @@ public abstract class StreamReader implements Closeable {
 	 */
 	protected abstract ICalendar _readNext() throws IOException;
 
+	/**
+	 * Creates a parse context that is configured with this reader's settings.
+	 * @return the parse context
+	 */
+	protected ParseContext newParseContext() {
+		ParseContext context = new ParseContext();
+		context.setBinaryDataThreshold(binaryDataThreshold);
+		context.setBinaryDataDirectory(binaryDataDirectory);
+		return context;
+	}
+
 	private void handleTimezones(ICalendar ical) {
 		TimezoneInfo tzinfo = ical.getTimezoneInfo();
 
-		//convert vCalendar DAYLIGHT and TZ properties to a VTIMEZONE component
-		TimezoneAssignment vcalTimezone = extractVCalTimezone(ical);
-
 		//assign a TimeZone object to each VTIMEZONE component.
 		Iterator<VTimezone> it = ical.getComponents(VTimezone.class).iterator();
 		while (it.hasNext()) {
 			VTimezone component = it.next();
 
-			//make sure the component has an ID
-			String id = ValuedProperty.getValue(component.getTimezoneId());
-			if (id == null || id.trim().isEmpty()) {
+			TimezoneAssignment assignment = createTimezoneAssignment(component);
+			if (assignment == null) {
 				//note: do not remove invalid VTIMEZONE components from the ICalendar object
-				warnings.add(new ParseWarning.Builder().message(39).build());
 				continue;
 			}
 
-			TimeZone timezone = new ICalTimeZone(component);
-			tzinfo.getTimezones().add(new TimezoneAssignment(timezone, component));
+			tzinfo.getTimezones().add(assignment);
 
 			//remove the component from the ICalendar object
 			it.remove();
 		}
 
+		//add the predefined timezones that are not defined in the data stream
+		for (TimezoneAssignment assignment : predefinedTimezones) {
+			VTimezone component = assignment.getComponent();
+			if (component == null) {
+				continue;
+			}
+
+			String id = ValuedProperty.getValue(component.getTimezoneId());
+			if (tzinfo.getTimezoneById(id) == null) {
+				tzinfo.getTimezones().add(assignment);
+			}
+		}
+
+		assignTimezones(ical);
+	}
+
+	/**
+	 * Creates a timezone assignment for a VTIMEZONE component. A warning is
+	 * added if the component does not have a valid ID.
+	 * @param component the VTIMEZONE component
+	 * @return the timezone assignment or null if the component does not have
+	 * an ID
+	 */
+	protected TimezoneAssignment createTimezoneAssignment(VTimezone component) {
+		//make sure the component has an ID
+		String id = ValuedProperty.getValue(component.getTimezoneId());
+		if (id == null || id.trim().isEmpty()) {
+			warnings.add(new ParseWarning.Builder().message(39).build());
+			return null;
+		}
+
+		TimeZone timezone = createTimezone(component);
+		return new TimezoneAssignment(timezone, component);
+	}
+
+	/**
+	 * Parses the date-time values that were read since the last time this
+	 * method was called under their proper timezones, and records their
+	 * timezones in the given iCalendar object's {@link TimezoneInfo}. The
+	 * timezones that the date-time values reference must already be assigned
+	 * to the {@link TimezoneInfo} object.
+	 * @param ical the iCalendar object
+	 */
+	protected void assignTimezones(ICalendar ical) {
+		TimezoneInfo tzinfo = ical.getTimezoneInfo();
+
+		//convert vCalendar DAYLIGHT and TZ properties to a VTIMEZONE component
+		TimezoneAssignment vcalTimezone = extractVCalTimezone(ical);
+		if (vcalTimezone == null) {
+			//the DAYLIGHT and TZ properties may have been converted by a previous call
+			vcalTimezone = tzinfo.getDefaultTimezone();
+		}
+
+		assignTimezones(tzinfo, vcalTimezone, context, warnings);
+	}
+
+	/**
+	 * Parses the date-time values in the given parse context under their
+	 * proper timezones, and records their timezones in the given
+	 * {@link TimezoneInfo} object.
+	 * @param tzinfo the timezone info
+	 * @param vcalTimezone the timezone to parse floating dates under (vCal
+	 * only) or null to treat them as floating
+	 * @param context the parse context
+	 * @param warnings the list to add warnings to
+	 */
+	static void assignTimezones(TimezoneInfo tzinfo, TimezoneAssignment vcalTimezone, ParseContext context, List<ParseWarning> warnings) {
 		if (vcalTimezone != null) {
 			//vCal: parse floating dates according to the DAYLIGHT and TZ properties (which were converted to a VTIMEZONE component)
 			for (TimezonedDate timezonedDate : context.getFloatingDates()) {
@@ -250,6 +545,10 @@ public abstract class StreamReader implements Closeable {
 				property.getParameters().setTimezoneId(null);
 			}
 		}
+
+		//the dates have been processed, so they do not need to be tracked anymore
+		context.getFloatingDates().clear();
+		context.getTimezonedDates().clear();
 	}
 
 	private TimezoneAssignment extractVCalTimezone(ICalendar ical) {
@@ -262,11 +561,15 @@ public abstract class StreamReader implements Closeable {
 			return null;
 		}
 
-		TimeZone icalTimezone = new ICalTimeZone(vcalComponent);
+		TimeZone icalTimezone = createTimezone(vcalComponent);
 		TimezoneInfo tzinfo = ical.getTimezoneInfo();
 		TimezoneAssignment assignment = new TimezoneAssignment(icalTimezone, vcalComponent);
 		tzinfo.setDefaultTimezone(assignment);
 
 		return assignment;
 	}
+
+	private TimeZone createTimezone(VTimezone component) {
+		return (timezoneRegistry == null) ? new ICalTimeZone(component) : timezoneRegistry.get(component);
+	}
 }
@@ -101,6 +101,33 @@ public class TimezoneAssignment {
 		return new TimezoneAssignment(timezone, component);
 	}
 
+	/**
+	 * Creates a timezone whose VTIMEZONE component is generated from the
+	 * timezone data that is built into the JVM. Components are not cached. To
+	 * reuse them, pass a {@link CachedTimezoneGenerator} to
+	 * {@link #generate(TimeZone, VTimezoneGenerator)} instead.
+	 * @param timezone the Java timezone object
+	 * @return the timezone assignment
+	 * @see JavaTimezoneGenerator
+	 */
+	public static TimezoneAssignment generate(TimeZone timezone) {
+		return generate(timezone, new JavaTimezoneGenerator());
+	}
+
+	/**
+	 * Creates a timezone whose VTIMEZONE component is created by the given
+	 * generator.
+	 * @param timezone the Java timezone object
+	 * @param generator the generator
+	 * @return the timezone assignment
+	 * @throws IllegalArgumentException if the generator cannot create a
+	 * VTIMEZONE component for the timezone
+	 */
+	public static TimezoneAssignment generate(TimeZone timezone, VTimezoneGenerator generator) {
+		VTimezone component = generator.generate(timezone);
+		return new TimezoneAssignment(timezone, component);
+	}
+
 	/**
 	 * Gets the Java object associated with the timezone.
 	 * @return the Java object
@@ -6,10 +6,9 @@ import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 
 import biweekly.ICalendar;
 import biweekly.component.VTimezone;
@@ -46,10 +45,11 @@ import biweekly.util.IOUtils;
 /**
  * Downloads {@link VTimezone} components from <a
  * href="http://www.tzurl.org">tzurl.org</a>. This class is thread-safe.
+ * Use {@link JavaTimezoneGenerator} if network access is not available.
  * @author Michael Angstadt
  */
-public class TzUrlDotOrgGenerator {
-	private static final Map<URI, VTimezone> cache = Collections.synchronizedMap(new HashMap<URI, VTimezone>());
+public class TzUrlDotOrgGenerator implements VTimezoneGenerator {
+	private static final Map<URI, VTimezone> cache = new ConcurrentHashMap<URI, VTimezone>();
 	private final String baseUrl;
 
 	/**
@@ -0,0 +1,139 @@
+package biweekly.io;
+
+import biweekly.ICalDataType;
+import biweekly.component.ICalComponent;
+import biweekly.io.scribe.property.ICalPropertyScribe;
+import biweekly.io.scribe.property.RawPropertyScribe;
+import biweekly.parameter.ICalParameters;
+import biweekly.property.ICalProperty;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * A property that was read from a data stream, but whose value has not been
+ * parsed yet. The property is parsed the first time a property of its class
+ * is requested from the component it belongs to.
+ * @author Michael Angstadt
+ * @see biweekly.io.text.ICalReader#setLazyParsing
+ */
+public class UnparsedProperty {
+	private final LazyParseContext lazyContext;
+	private final ICalPropertyScribe<? extends ICalProperty> scribe;
+	private final String name;
+	private final ICalDataType dataType;
+	private final ICalParameters parameters;
+	private final String value;
+	private final Integer lineNumber;
+
+	/**
+	 * @param lazyContext the context the property will be parsed under
+	 * @param scribe the property's scribe
+	 * @param name the property name
+	 * @param dataType the property's data type
+	 * @param parameters the property's parameters
+	 * @param value the unparsed property value
+	 * @param lineNumber the line number the property is on or null if not
+	 * applicable
+	 */
+	public UnparsedProperty(LazyParseContext lazyContext, ICalPropertyScribe<? extends ICalProperty> scribe, String name, ICalDataType dataType, ICalParameters parameters, String value, Integer lineNumber) {
+		this.lazyContext = lazyContext;
+		this.scribe = scribe;
+		this.name = name;
+		this.dataType = dataType;
+		this.parameters = parameters;
+		this.value = value;
+		this.lineNumber = lineNumber;
+	}
+
+	/**
+	 * Gets the class of the property object that this property will be parsed
+	 * into.
+	 * @return the property class
+	 */
+	public Class<? extends ICalProperty> getPropertyClass() {
+		return scribe.getPropertyClass();
+	}
+
+	/**
+	 * Gets the property name.
+	 * @return the property name (e.g. "DTSTART")
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the unparsed property value.
+	 * @return the property value
+	 */
+	public String getValue() {
+		return value;
+	}
+
+	/**
+	 * Parses the property and adds the result to the given component. Any
+	 * warnings are added to the {@link LazyParseContext}.
+	 * @param parent the component the property belongs to
+	 */
+	public void parse(ICalComponent parent) {
+		ParseContext context = lazyContext.newParseContext();
+		context.setLineNumber(lineNumber);
+		context.setPropertyName(name);
+
+		try {
+			ICalProperty property = scribe.parseText(value, dataType, parameters, context);
+			parent.addProperty(property);
+		} catch (SkipMeException e) {
+			//@formatter:off
+			lazyContext.addWarning(new ParseWarning.Builder(context)
+				.message(0, e.getMessage())
+				.build()
+			);
+			//@formatter:on
+		} catch (CannotParseException e) {
+			//@formatter:off
+			lazyContext.addWarning(new ParseWarning.Builder(context)
+				.message(e)
+				.build()
+			);
+			//@formatter:on
+			ICalProperty property = new RawPropertyScribe(name).parseText(value, dataType, parameters, context);
+			parent.addProperty(property);
+		} catch (DataModelConversionException e) {
+			for (ICalProperty property : e.getProperties()) {
+				parent.addProperty(property);
+			}
+			for (ICalComponent component : e.getComponents()) {
+				parent.addComponent(component);
+			}
+		}
+
+		for (ParseWarning warning : context.getWarnings()) {
+			lazyContext.addWarning(warning);
+		}
+		lazyContext.assignTimezones(context);
+	}
+}
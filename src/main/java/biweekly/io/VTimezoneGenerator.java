@@ -0,0 +1,50 @@
+package biweekly.io;
+
+import java.util.TimeZone;
+
+import biweekly.component.VTimezone;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * Generates iCalendar {@link VTimezone} components from Java {@link TimeZone}
+ * objects.
+ * @author Michael Angstadt
+ * @see TzUrlDotOrgGenerator
+ * @see JavaTimezoneGenerator
+ * @see CachedTimezoneGenerator
+ */
+public interface VTimezoneGenerator {
+	/**
+	 * Generates an iCalendar {@link VTimezone} component from a Java
+	 * {@link TimeZone} object.
+	 * @param timezone the timezone object
+	 * @return the timezone component
+	 * @throws IllegalArgumentException if a timezone definition cannot be
+	 * generated
+	 */
+	VTimezone generate(TimeZone timezone) throws IllegalArgumentException;
+}
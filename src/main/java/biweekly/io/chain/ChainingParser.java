@@ -9,6 +9,7 @@ import java.util.List;
 
 import biweekly.ICalendar;
 import biweekly.component.ICalComponent;
+import biweekly.io.ICalTimeZoneRegistry;
 import biweekly.io.ParseWarning;
 import biweekly.io.StreamReader;
 import biweekly.io.scribe.ScribeIndex;
@@ -55,6 +56,8 @@ abstract class ChainingParser<T extends ChainingParser<?>> {
 
 	ScribeIndex index;
 	List<List<ParseWarning>> warnings;
+	ICalTimeZoneRegistry timezoneRegistry;
+	Class<?>[] filter;
 
 	@SuppressWarnings("unchecked")
 	final T this_ = (T) this;
@@ -126,6 +129,31 @@ abstract class ChainingParser<T extends ChainingParser<?>> {
 		return this_;
 	}
 
+	/**
+	 * Sets the registry that is used to share timezone objects between parsers
+	 * (disabled by default).
+	 * @param timezoneRegistry the registry
+	 * @return this
+	 * @see StreamReader#setTimezoneRegistry
+	 */
+	public T timezoneRegistry(ICalTimeZoneRegistry timezoneRegistry) {
+		this.timezoneRegistry = timezoneRegistry;
+		return this_;
+	}
+
+	/**
+	 * Limits the parser to the given component and property classes (by
+	 * default, everything is read).
+	 * @param classes the component and property classes to read (e.g.
+	 * "VEvent.class", "DateStart.class")
+	 * @return this
+	 * @see StreamReader#setFilter
+	 */
+	public T only(Class<?>... classes) {
+		this.filter = classes;
+		return this_;
+	}
+
 	/**
 	 * Reads the first iCalendar object from the stream.
 	 * @return the iCalendar object or null if there are none
@@ -136,6 +164,12 @@ abstract class ChainingParser<T extends ChainingParser<?>> {
 		if (index != null) {
 			reader.setScribeIndex(index);
 		}
+		if (timezoneRegistry != null) {
+			reader.setTimezoneRegistry(timezoneRegistry);
+		}
+		if (filter != null) {
+			reader.setFilter(filter);
+		}
 
 		try {
 			ICalendar ical = reader.readNext();
@@ -160,6 +194,12 @@ abstract class ChainingParser<T extends ChainingParser<?>> {
 		if (index != null) {
 			reader.setScribeIndex(index);
 		}
+		if (timezoneRegistry != null) {
+			reader.setTimezoneRegistry(timezoneRegistry);
+		}
+		if (filter != null) {
+			reader.setFilter(filter);
+		}
 
 		try {
 			List<ICalendar> icals = new ArrayList<ICalendar>();
@@ -20,6 +20,7 @@ import biweekly.ICalDataType;
 import biweekly.ICalVersion;
 import biweekly.ICalendar;
 import biweekly.component.ICalComponent;
+import biweekly.component.VTimezone;
 import biweekly.io.CannotParseException;
 import biweekly.io.ParseWarning;
 import biweekly.io.SkipMeException;
@@ -162,9 +163,17 @@ public class JCalReader extends StreamReader {
 
 			//get the component that the property belongs to
 			ICalComponent parent = components.get(componentHierarchy);
+			if (parent == null) {
+				//the component was skipped because of the filter
+				return;
+			}
 
 			//unmarshal the property
 			ICalPropertyScribe<? extends ICalProperty> scribe = index.getPropertyScribe(propertyName, ICalVersion.V2_0);
+			if (!isIncludedProperty(scribe.getPropertyClass()) && !isInTimezone(componentHierarchy)) {
+				return;
+			}
+
 			try {
 				ICalProperty property = scribe.parseJson(value, dataType, parameters, context);
 				warnings.addAll(context.getWarnings());
@@ -202,10 +211,18 @@ public class JCalReader extends StreamReader {
 		}
 
 		public void readComponent(List<String> parentHierarchy, String componentName) {
+			ICalComponent parent = components.get(parentHierarchy);
+			if (parent == null && !parentHierarchy.isEmpty()) {
+				//the parent component was skipped because of the filter
+				return;
+			}
+
 			ICalComponentScribe<? extends ICalComponent> scribe = index.getComponentScribe(componentName, ICalVersion.V2_0);
-			ICalComponent component = scribe.emptyInstance();
+			if (parent != null && !isIncludedComponent(scribe.getComponentClass())) {
+				return;
+			}
 
-			ICalComponent parent = components.get(parentHierarchy);
+			ICalComponent component = scribe.emptyInstance();
 			if (parent != null) {
 				parent.addComponent(component);
 			}
@@ -215,6 +232,22 @@ public class JCalReader extends StreamReader {
 			components.put(hierarchy, component);
 		}
 
+		/**
+		 * Determines if a component is, or is inside of, a VTIMEZONE
+		 * component.
+		 * @param hierarchy the component hierarchy
+		 * @return true if it is, false if not
+		 */
+		private boolean isInTimezone(List<String> hierarchy) {
+			for (int i = hierarchy.size(); i > 0; i--) {
+				ICalComponent component = components.get(hierarchy.subList(0, i));
+				if (component instanceof VTimezone) {
+					return true;
+				}
+			}
+			return false;
+		}
+
 		public ICalendar getICalendar() {
 			if (components.isEmpty()) {
 				//EOF
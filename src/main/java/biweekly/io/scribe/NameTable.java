@@ -0,0 +1,209 @@
+package biweekly.io.scribe;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met:
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * A hash table that maps case-insensitive names to values. Lookups accept any
+ * {@link CharSequence} and do not create any objects, so a name does not have
+ * to be converted to an upper-case {@link String} before it is looked up.
+ * </p>
+ * <p>
+ * This class is not thread-safe. However, concurrent calls to
+ * {@link #get(CharSequence)} are safe as long as the table is not being
+ * modified.
+ * </p>
+ * @author Michael Angstadt
+ * @param <T> the value type
+ */
+class NameTable<T> {
+	private String[] names;
+	private Object[] values;
+	private int size;
+
+	/**
+	 * Creates an empty table.
+	 */
+	public NameTable() {
+		this(16);
+	}
+
+	/**
+	 * Creates an empty table.
+	 * @param capacity the number of slots to allocate (will be rounded up to
+	 * the next power of two)
+	 */
+	public NameTable(int capacity) {
+		int slots = 2;
+		while (slots < capacity) {
+			slots <<= 1;
+		}
+		names = new String[slots];
+		values = new Object[slots];
+	}
+
+	/**
+	 * Gets the value that is mapped to a name.
+	 * @param name the name (case-insensitive)
+	 * @return the value or null if not found
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(CharSequence name) {
+		int slot = find(name);
+		return (slot < 0) ? null : (T) values[slot];
+	}
+
+	/**
+	 * Maps a name to a value, replacing the existing value, if any.
+	 * @param name the name (case-insensitive)
+	 * @param value the value
+	 */
+	public void put(String name, T value) {
+		int slot = find(name);
+		if (slot >= 0) {
+			values[slot] = value;
+			return;
+		}
+
+		if ((size + 1) * 2 > names.length) {
+			resize(names.length * 2);
+		}
+		insert(toUpperCase(name), value);
+		size++;
+	}
+
+	/**
+	 * Removes a name from the table.
+	 * @param name the name (case-insensitive)
+	 */
+	public void remove(CharSequence name) {
+		int slot = find(name);
+		if (slot < 0) {
+			return;
+		}
+
+		names[slot] = null;
+		values[slot] = null;
+		size--;
+
+		/*
+		 * Re-insert the rest of the probe sequence so that the hole does not
+		 * hide any entries that come after it.
+		 */
+		int mask = names.length - 1;
+		for (int i = (slot + 1) & mask; names[i] != null; i = (i + 1) & mask) {
+			String n = names[i];
+			Object v = values[i];
+			names[i] = null;
+			values[i] = null;
+			insert(n, v);
+		}
+	}
+
+	/**
+	 * Gets the number of names in the table.
+	 * @return the number of names
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Creates a copy of this table.
+	 * @return the copy
+	 */
+	public NameTable<T> copy() {
+		NameTable<T> copy = new NameTable<T>(names.length);
+		System.arraycopy(names, 0, copy.names, 0, names.length);
+		System.arraycopy(values, 0, copy.values, 0, values.length);
+		copy.size = size;
+		return copy;
+	}
+
+	private int find(CharSequence name) {
+		int mask = names.length - 1;
+		for (int i = hash(name) & mask; names[i] != null; i = (i + 1) & mask) {
+			if (equalsIgnoreCase(names[i], name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void insert(String upperName, Object value) {
+		int mask = names.length - 1;
+		int i = hash(upperName) & mask;
+		while (names[i] != null) {
+			i = (i + 1) & mask;
+		}
+		names[i] = upperName;
+		values[i] = value;
+	}
+
+	private void resize(int slots) {
+		String[] oldNames = names;
+		Object[] oldValues = values;
+		names = new String[slots];
+		values = new Object[slots];
+		for (int i = 0; i < oldNames.length; i++) {
+			if (oldNames[i] != null) {
+				insert(oldNames[i], oldValues[i]);
+			}
+		}
+	}
+
+	private static int hash(CharSequence name) {
+		int h = 0;
+		for (int i = 0; i < name.length(); i++) {
+			h = 31 * h + Character.toUpperCase(name.charAt(i));
+		}
+
+		//spread the bits, since the table size is a power of two
+		return h ^ (h >>> 16);
+	}
+
+	private static boolean equalsIgnoreCase(String upperName, CharSequence name) {
+		int length = upperName.length();
+		if (length != name.length()) {
+			return false;
+		}
+
+		for (int i = 0; i < length; i++) {
+			if (upperName.charAt(i) != Character.toUpperCase(name.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String toUpperCase(String name) {
+		char[] chars = name.toCharArray();
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = Character.toUpperCase(chars[i]);
+		}
+		return new String(chars);
+	}
+}
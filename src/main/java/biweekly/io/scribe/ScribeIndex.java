@@ -1,5 +1,6 @@
 package biweekly.io.scribe;
 
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -165,7 +166,7 @@ public class ScribeIndex {
 	}
 
 	//define standard property scribes
-	private static final Map<String, ICalPropertyScribe<? extends ICalProperty>> standardPropByName = new HashMap<String, ICalPropertyScribe<? extends ICalProperty>>();
+	private static final Map<ICalVersion, NameTable<ICalPropertyScribe<? extends ICalProperty>>> standardPropByName = newPropertyNameTables();
 	private static final Map<Class<? extends ICalProperty>, ICalPropertyScribe<? extends ICalProperty>> standardPropByClass = new HashMap<Class<? extends ICalProperty>, ICalPropertyScribe<? extends ICalProperty>>();
 	private static final Map<QName, ICalPropertyScribe<? extends ICalProperty>> standardPropByQName = new HashMap<QName, ICalPropertyScribe<? extends ICalProperty>>();
 	static {
@@ -243,10 +244,22 @@ public class ScribeIndex {
 	private final Map<String, ICalComponentScribe<? extends ICalComponent>> experimentalCompByName = new HashMap<String, ICalComponentScribe<? extends ICalComponent>>(0);
 	private final Map<Class<? extends ICalComponent>, ICalComponentScribe<? extends ICalComponent>> experimentalCompByClass = new HashMap<Class<? extends ICalComponent>, ICalComponentScribe<? extends ICalComponent>>(0);
 
-	private final Map<String, ICalPropertyScribe<? extends ICalProperty>> experimentalPropByName = new HashMap<String, ICalPropertyScribe<? extends ICalProperty>>(0);
+	private final Map<ICalVersion, NameTable<ICalPropertyScribe<? extends ICalProperty>>> experimentalPropByName = newPropertyNameTables();
 	private final Map<Class<? extends ICalProperty>, ICalPropertyScribe<? extends ICalProperty>> experimentalPropByClass = new HashMap<Class<? extends ICalProperty>, ICalPropertyScribe<? extends ICalProperty>>(0);
 	private final Map<QName, ICalPropertyScribe<? extends ICalProperty>> experimentalPropByQName = new HashMap<QName, ICalPropertyScribe<? extends ICalProperty>>(0);
 
+	/**
+	 * The maximum number of {@link RawPropertyScribe} instances to cache.
+	 */
+	private static final int MAX_RAW_PROPERTY_SCRIBES = 256;
+
+	/**
+	 * Caches the scribes of the non-standard properties that have been
+	 * encountered. The table is never modified once it is assigned to this
+	 * field (it is copied on write), so it can be read from multiple threads.
+	 */
+	private volatile NameTable<RawPropertyScribe> rawPropByName = new NameTable<RawPropertyScribe>();
+
 	/**
 	 * Gets a component scribe by name.
 	 * @param componentName the component name (e.g. "VEVENT")
@@ -280,21 +293,31 @@ public class ScribeIndex {
 	 * @return the property scribe or a {@link RawPropertyScribe} if not found
 	 */
 	public ICalPropertyScribe<? extends ICalProperty> getPropertyScribe(String propertyName, ICalVersion version) {
-		propertyName = propertyName.toUpperCase();
+		return getPropertyScribe((CharSequence) propertyName, version);
+	}
 
-		String key = propertyNameKey(propertyName, version);
-		ICalPropertyScribe<? extends ICalProperty> scribe = experimentalPropByName.get(key);
+	/**
+	 * Gets a property scribe by name. This method does not create any objects
+	 * unless the property is a non-standard property that has not been
+	 * encountered before.
+	 * @param propertyName the property name (e.g. "UID", case-insensitive)
+	 * @param version the version of the iCalendar object being parsed
+	 * @return the property scribe or a {@link RawPropertyScribe} if not found
+	 */
+	public ICalPropertyScribe<? extends ICalProperty> getPropertyScribe(CharSequence propertyName, ICalVersion version) {
+		ICalVersion tableVersion = (version == null) ? ICalVersion.V2_0 : version;
+		ICalPropertyScribe<? extends ICalProperty> scribe = experimentalPropByName.get(tableVersion).get(propertyName);
 		if (scribe == null) {
-			scribe = standardPropByName.get(key);
+			scribe = standardPropByName.get(tableVersion).get(propertyName);
 		}
 
 		if (scribe == null) {
-			return new RawPropertyScribe(propertyName);
+			return getRawPropertyScribe(propertyName);
 		}
 
 		if (version != null && !scribe.getSupportedVersions().contains(version)) {
 			//treat the property as a raw property if the current iCal version doesn't support it
-			return new RawPropertyScribe(propertyName);
+			return getRawPropertyScribe(propertyName);
 		}
 
 		return scribe;
@@ -350,7 +373,18 @@ public class ScribeIndex {
 	public ICalPropertyScribe<? extends ICalProperty> getPropertyScribe(ICalProperty property) {
 		if (property instanceof RawProperty) {
 			RawProperty raw = (RawProperty) property;
-			return new RawPropertyScribe(raw.getName());
+			String name = raw.getName();
+			if (name == null) {
+				return new RawPropertyScribe(null);
+			}
+
+			/*
+			 * The scribe determines the name that the property is written
+			 * with, so the cached scribe (which has an upper-case name) can
+			 * only be used if the case matches.
+			 */
+			RawPropertyScribe scribe = rawPropByName.get(name);
+			return (scribe != null && name.equals(scribe.getPropertyName(ICalVersion.V2_0))) ? scribe : new RawPropertyScribe(name);
 		}
 
 		return getPropertyScribe(property.getClass());
@@ -369,7 +403,7 @@ public class ScribeIndex {
 
 		if (scribe == null || !scribe.getSupportedVersions().contains(ICalVersion.V2_0)) {
 			if (XCalNamespaceContext.XCAL_NS.equals(qname.getNamespaceURI())) {
-				return new RawPropertyScribe(qname.getLocalPart().toUpperCase());
+				return getRawPropertyScribe(qname.getLocalPart());
 			}
 			return getPropertyScribe(Xml.class);
 		}
@@ -392,7 +426,7 @@ public class ScribeIndex {
 	 */
 	public void register(ICalPropertyScribe<? extends ICalProperty> scribe) {
 		for (ICalVersion version : ICalVersion.values()) {
-			experimentalPropByName.put(propertyNameKey(scribe, version), scribe);
+			experimentalPropByName.get(version).put(scribe.getPropertyName(version), scribe);
 		}
 		experimentalPropByClass.put(scribe.getPropertyClass(), scribe);
 		experimentalPropByQName.put(scribe.getQName(), scribe);
@@ -413,7 +447,7 @@ public class ScribeIndex {
 	 */
 	public void unregister(ICalPropertyScribe<? extends ICalProperty> scribe) {
 		for (ICalVersion version : ICalVersion.values()) {
-			experimentalPropByName.remove(propertyNameKey(scribe, version));
+			experimentalPropByName.get(version).remove(scribe.getPropertyName(version));
 		}
 		experimentalPropByClass.remove(scribe.getPropertyClass());
 		experimentalPropByQName.remove(scribe.getQName());
@@ -435,17 +469,45 @@ public class ScribeIndex {
 
 	private static void registerStandard(ICalPropertyScribe<? extends ICalProperty> scribe) {
 		for (ICalVersion version : ICalVersion.values()) {
-			standardPropByName.put(propertyNameKey(scribe, version), scribe);
+			standardPropByName.get(version).put(scribe.getPropertyName(version), scribe);
 		}
 		standardPropByClass.put(scribe.getPropertyClass(), scribe);
 		standardPropByQName.put(scribe.getQName(), scribe);
 	}
 
-	private static String propertyNameKey(ICalPropertyScribe<? extends ICalProperty> scribe, ICalVersion version) {
-		return propertyNameKey(scribe.getPropertyName(version), version);
+	/**
+	 * Gets the scribe of a non-standard property, creating it if it is not
+	 * cached.
+	 * @param propertyName the property name
+	 * @return the scribe
+	 */
+	private RawPropertyScribe getRawPropertyScribe(CharSequence propertyName) {
+		NameTable<RawPropertyScribe> table = rawPropByName;
+		RawPropertyScribe scribe = table.get(propertyName);
+		if (scribe != null) {
+			return scribe;
+		}
+
+		String name = propertyName.toString().toUpperCase();
+		scribe = new RawPropertyScribe(name);
+
+		/*
+		 * If another thread adds a scribe at the same time, one of the two
+		 * entries will be lost. This is harmless--the scribe will just be
+		 * created again the next time.
+		 */
+		table = (table.size() < MAX_RAW_PROPERTY_SCRIBES) ? table.copy() : new NameTable<RawPropertyScribe>();
+		table.put(name, scribe);
+		rawPropByName = table;
+
+		return scribe;
 	}
 
-	private static String propertyNameKey(String propertyName, ICalVersion version) {
-		return version.ordinal() + propertyName.toUpperCase();
+	private static Map<ICalVersion, NameTable<ICalPropertyScribe<? extends ICalProperty>>> newPropertyNameTables() {
+		Map<ICalVersion, NameTable<ICalPropertyScribe<? extends ICalProperty>>> tables = new EnumMap<ICalVersion, NameTable<ICalPropertyScribe<? extends ICalProperty>>>(ICalVersion.class);
+		for (ICalVersion version : ICalVersion.values()) {
+			tables.put(version, new NameTable<ICalPropertyScribe<? extends ICalProperty>>());
+		}
+		return tables;
 	}
 }
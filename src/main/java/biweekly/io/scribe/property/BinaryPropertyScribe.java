@@ -1,7 +1,16 @@
 package biweekly.io.scribe.property;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+
 import biweekly.ICalDataType;
 import biweekly.ICalVersion;
+import biweekly.Messages;
 import biweekly.io.ParseContext;
 import biweekly.io.WriteContext;
 import biweekly.io.json.JCalValue;
@@ -9,6 +18,7 @@ import biweekly.io.xml.XCalElement;
 import biweekly.parameter.Encoding;
 import biweekly.parameter.ICalParameters;
 import biweekly.property.BinaryProperty;
+import biweekly.util.IOUtils;
 import biweekly.util.org.apache.commons.codec.binary.Base64;
 
 import com.github.mangstadt.vinnie.io.VObjectPropertyValues;
@@ -53,7 +63,7 @@ public abstract class BinaryPropertyScribe<T extends BinaryProperty> extends ICa
 
 		if (property.getUri() != null) {
 			copy.setEncoding(null);
-		} else if (property.getData() != null) {
+		} else if (property.hasData()) {
 			copy.setEncoding(Encoding.BASE64);
 		}
 
@@ -65,7 +75,7 @@ public abstract class BinaryPropertyScribe<T extends BinaryProperty> extends ICa
 		if (property.getUri() != null) {
 			return (version == ICalVersion.V1_0) ? ICalDataType.URL : ICalDataType.URI;
 		}
-		if (property.getData() != null) {
+		if (property.hasData()) {
 			return ICalDataType.BINARY;
 		}
 		return defaultDataType(version);
@@ -78,9 +88,9 @@ public abstract class BinaryPropertyScribe<T extends BinaryProperty> extends ICa
 			return uri;
 		}
 
-		byte[] data = property.getData();
-		if (data != null) {
-			return Base64.encodeBase64String(data);
+		String base64Data = writeData(property);
+		if (base64Data != null) {
+			return base64Data;
 		}
 
 		return "";
@@ -91,8 +101,7 @@ public abstract class BinaryPropertyScribe<T extends BinaryProperty> extends ICa
 		value = VObjectPropertyValues.unescape(value);
 
 		if (dataType == ICalDataType.BINARY || parameters.getEncoding() == Encoding.BASE64) {
-			byte[] data = Base64.decodeBase64(value);
-			return newInstance(data);
+			return parseData(value, context);
 		}
 
 		return newInstance(value, dataType);
@@ -106,9 +115,9 @@ public abstract class BinaryPropertyScribe<T extends BinaryProperty> extends ICa
 			return;
 		}
 
-		byte[] data = property.getData();
-		if (data != null) {
-			element.append(ICalDataType.BINARY, Base64.encodeBase64String(data));
+		String base64Data = writeData(property);
+		if (base64Data != null) {
+			element.append(ICalDataType.BINARY, base64Data);
 			return;
 		}
 
@@ -124,8 +133,7 @@ public abstract class BinaryPropertyScribe<T extends BinaryProperty> extends ICa
 
 		String base64Data = element.first(ICalDataType.BINARY);
 		if (base64Data != null) {
-			byte[] data = Base64.decodeBase64(base64Data);
-			return newInstance(data);
+			return parseData(base64Data, context);
 		}
 
 		throw missingXmlElements(ICalDataType.URI, ICalDataType.BINARY);
@@ -138,9 +146,9 @@ public abstract class BinaryPropertyScribe<T extends BinaryProperty> extends ICa
 			return JCalValue.single(uri);
 		}
 
-		byte[] data = property.getData();
-		if (data != null) {
-			return JCalValue.single(Base64.encodeBase64String(data));
+		String base64Data = writeData(property);
+		if (base64Data != null) {
+			return JCalValue.single(base64Data);
 		}
 
 		return JCalValue.single("");
@@ -151,13 +159,211 @@ public abstract class BinaryPropertyScribe<T extends BinaryProperty> extends ICa
 		String valueStr = value.asSingle();
 
 		if (dataType == ICalDataType.BINARY) {
-			byte[] data = Base64.decodeBase64(valueStr);
-			return newInstance(data);
+			return parseData(valueStr, context);
 		}
 
 		return newInstance(valueStr, dataType);
 	}
 
+	/**
+	 * Decodes a base64 value. If the value is larger than the threshold
+	 * defined in the parse context, it is decoded into a temporary file
+	 * instead of into memory.
+	 * @param base64Data the base64 value
+	 * @param context the parse context
+	 * @return the property object
+	 */
+	private T parseData(String base64Data, ParseContext context) {
+		Integer threshold = context.getBinaryDataThreshold();
+		if (threshold != null && decodedLength(base64Data) > threshold) {
+			File file = null;
+			try {
+				file = File.createTempFile("biweekly", ".bin", context.getBinaryDataDirectory());
+				file.deleteOnExit();
+				decodeBase64(base64Data, file);
+
+				T property = newInstance((byte[]) null);
+				property.setDataFile(file);
+				return property;
+			} catch (IOException e) {
+				if (file != null) {
+					file.delete();
+				}
+				context.addWarning(43, e.getMessage());
+			}
+		}
+
+		byte[] data = Base64.decodeBase64(base64Data);
+		return newInstance(data);
+	}
+
+	/**
+	 * Determines whether the property's value should be written with
+	 * {@link #writeData(BinaryProperty, Writer)} instead of
+	 * {@link #writeText}. This is the case when the property's binary data is
+	 * stored in a file.
+	 * @param property the property
+	 * @return true to stream the value, false not to
+	 */
+	public boolean isStreamed(T property) {
+		return property.getUri() == null && property.getDataFile() != null;
+	}
+
+	/**
+	 * Base64-encodes a property's binary data directly to a writer. Unlike
+	 * {@link #writeText}, the encoded value is never held in memory all at
+	 * once.
+	 * @param property the property
+	 * @param writer the writer
+	 * @throws IOException if there's a problem reading the binary data or
+	 * writing to the writer
+	 */
+	public void writeData(T property, Writer writer) throws IOException {
+		encodeBase64(property, writer);
+	}
+
+	/**
+	 * Base64-encodes a property's binary data. xCal and jCal values must be
+	 * built as strings, so the encoded value is held in memory even if the
+	 * data is stored in a file.
+	 * @param property the property
+	 * @return the base64 value or null if the property does not have binary
+	 * data
+	 * @throws IllegalStateException if the data is stored in a file and
+	 * there's a problem reading the file
+	 */
+	private static String writeData(BinaryProperty property) {
+		if (property.getDataFile() == null) {
+			byte[] data = property.getData();
+			return (data == null) ? null : Base64.encodeBase64String(data);
+		}
+
+		long encodedLength = (property.getDataLength() + 2) / 3 * 4;
+		StringBuilder sb = new StringBuilder((int) Math.min(encodedLength, Integer.MAX_VALUE - 8));
+		try {
+			encodeBase64(property, sb);
+		} catch (IOException e) {
+			throw new IllegalStateException(Messages.INSTANCE.getExceptionMessage(32, e.getMessage()), e);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * The number of base64 characters that are decoded at a time (must be a
+	 * multiple of 4).
+	 */
+	private static final int DECODE_CHUNK_SIZE = 8192;
+
+	/**
+	 * The number of bytes that are encoded at a time (must be a multiple of
+	 * 3).
+	 */
+	private static final int ENCODE_CHUNK_SIZE = 6144;
+
+	/**
+	 * Calculates the number of bytes a base64 string decodes to. Like
+	 * {@link #decodeBase64(String, File)}, invalid characters (such as
+	 * whitespace) are ignored and counting stops at the first padding
+	 * character.
+	 * @param base64Data the base64 string
+	 * @return the number of decoded bytes
+	 */
+	private static long decodedLength(String base64Data) {
+		long count = 0;
+		for (int i = 0; i < base64Data.length(); i++) {
+			char c = base64Data.charAt(i);
+			if (c == '=') {
+				break;
+			}
+			if (c < 128 && Base64.isBase64((byte) c)) {
+				count++;
+			}
+		}
+		return count * 3 / 4;
+	}
+
+	/**
+	 * Decodes a base64 string into a file, one chunk at a time. Like
+	 * {@link Base64#decodeBase64(String)}, invalid characters are ignored and
+	 * decoding stops at the first padding character.
+	 * @param base64Data the base64 string
+	 * @param file the file to write to
+	 * @throws IOException if there's a problem writing to the file
+	 */
+	private static void decodeBase64(String base64Data, File file) throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		try {
+			byte[] chunk = new byte[DECODE_CHUNK_SIZE];
+			int size = 0;
+			for (int i = 0; i < base64Data.length(); i++) {
+				char c = base64Data.charAt(i);
+				if (c >= 128 || !Base64.isBase64((byte) c)) {
+					continue;
+				}
+
+				chunk[size++] = (byte) c;
+				if (c == '=') {
+					break;
+				}
+
+				if (size == chunk.length) {
+					out.write(Base64.decodeBase64(chunk));
+					size = 0;
+				}
+			}
+
+			if (size > 0) {
+				out.write(Base64.decodeBase64(Arrays.copyOf(chunk, size)));
+			}
+		} finally {
+			IOUtils.closeQuietly(out);
+		}
+	}
+
+	/**
+	 * Base64-encodes a property's binary data, one chunk at a time.
+	 * @param property the property
+	 * @param out the object to write the base64 characters to
+	 * @throws IOException if there's a problem reading the binary data or
+	 * writing the base64 characters
+	 */
+	private static void encodeBase64(BinaryProperty property, Appendable out) throws IOException {
+		InputStream in = property.getDataStream();
+		if (in == null) {
+			return;
+		}
+
+		try {
+			byte[] chunk = new byte[ENCODE_CHUNK_SIZE];
+			int size;
+			while ((size = fill(in, chunk)) > 0) {
+				out.append(Base64.encodeBase64String((size == chunk.length) ? chunk : Arrays.copyOf(chunk, size)));
+			}
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+	}
+
+	/**
+	 * Reads from a stream until the buffer is full or the end of the stream is
+	 * reached.
+	 * @param in the stream
+	 * @param buffer the buffer
+	 * @return the number of bytes read
+	 * @throws IOException if there's a problem reading from the stream
+	 */
+	private static int fill(InputStream in, byte[] buffer) throws IOException {
+		int size = 0;
+		while (size < buffer.length) {
+			int read = in.read(buffer, size, buffer.length - size);
+			if (read < 0) {
+				break;
+			}
+			size += read;
+		}
+		return size;
+	}
+
 	/**
 	 * Creates a property object from the given binary data.
 	 * @param data the data
@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
@@ -15,11 +16,16 @@ import biweekly.ICalDataType;
 import biweekly.ICalVersion;
 import biweekly.ICalendar;
 import biweekly.component.ICalComponent;
+import biweekly.component.VTimezone;
 import biweekly.io.CannotParseException;
 import biweekly.io.DataModelConversionException;
+import biweekly.io.LazyParseContext;
 import biweekly.io.ParseWarning;
 import biweekly.io.SkipMeException;
 import biweekly.io.StreamReader;
+import biweekly.io.TimezoneAssignment;
+import biweekly.io.TimezoneInfo;
+import biweekly.io.UnparsedProperty;
 import biweekly.io.scribe.ScribeIndex;
 import biweekly.io.scribe.component.ICalComponentScribe;
 import biweekly.io.scribe.property.ICalPropertyScribe;
@@ -27,6 +33,7 @@ import biweekly.io.scribe.property.RawPropertyScribe;
 import biweekly.parameter.Encoding;
 import biweekly.parameter.ICalParameters;
 import biweekly.property.ICalProperty;
+import biweekly.util.MappedUtf8Reader;
 import biweekly.util.Utf8Reader;
 
 import com.github.mangstadt.vinnie.VObjectProperty;
@@ -81,6 +88,11 @@ import com.github.mangstadt.vinnie.io.VObjectReader;
  *   if (reader != null) reader.close();
  * }
  * </pre>
+ * <p>
+ * Large files can be read one component at a time with
+ * {@link #readNextComponent} or {@link #readComponents}, so that the entire
+ * iCalendar object does not have to be held in memory.
+ * </p>
  * @author Michael Angstadt
  * @see <a href="http://www.imc.org/pdi/pdiproddev.html">1.0 specs</a>
  * @see <a href="https://tools.ietf.org/html/rfc2445">RFC 2445</a>
@@ -92,6 +104,12 @@ public class ICalReader extends StreamReader {
 	private final VObjectReader reader;
 	private final ICalVersion defaultVersion;
 
+	private VObjectDataListenerImpl componentListener;
+	private ICalendar currentCalendar;
+	private final List<TimezoneAssignment> currentTimezones = new ArrayList<TimezoneAssignment>();
+	private boolean lazyParsing = false;
+	private LazyParseContext lazyParseContext;
+
 	/**
 	 * Creates a new iCalendar reader.
 	 * @param str the string to read from
@@ -148,6 +166,34 @@ public class ICalReader extends StreamReader {
 		this(new BufferedReader(new Utf8Reader(file)), defaultVersion);
 	}
 
+	/**
+	 * Creates a new iCalendar reader that memory-maps the given file. This is
+	 * faster than {@link #ICalReader(File)} for large files. The data must be
+	 * encoded in UTF-8.
+	 * @param channel the file channel to read from (reading starts at the
+	 * channel's current position, closing the iCalendar reader closes the
+	 * channel)
+	 * @throws IOException if there's a problem getting the size of the file
+	 */
+	public ICalReader(FileChannel channel) throws IOException {
+		this(channel, ICalVersion.V2_0);
+	}
+
+	/**
+	 * Creates a new iCalendar reader that memory-maps the given file. This is
+	 * faster than {@link #ICalReader(File, ICalVersion)} for large files. The
+	 * data must be encoded in UTF-8.
+	 * @param channel the file channel to read from (reading starts at the
+	 * channel's current position, closing the iCalendar reader closes the
+	 * channel)
+	 * @param defaultVersion the version to assume the iCalendar object is in
+	 * until a VERSION property is encountered (defaults to 2.0)
+	 * @throws IOException if there's a problem getting the size of the file
+	 */
+	public ICalReader(FileChannel channel, ICalVersion defaultVersion) throws IOException {
+		this(new MappedUtf8Reader(channel), defaultVersion);
+	}
+
 	/**
 	 * Creates a new iCalendar reader.
 	 * @param reader the reader to read from
@@ -244,17 +290,222 @@ public class ICalReader extends StreamReader {
 		return defaultVersion;
 	}
 
+	/**
+	 * Gets whether the values of the properties are parsed the first time they
+	 * are accessed, instead of when they are read (disabled by default).
+	 * @return true if lazy parsing is enabled, false if not
+	 * @see #setLazyParsing(boolean)
+	 */
+	public boolean isLazyParsing() {
+		return lazyParsing;
+	}
+
+	/**
+	 * <p>
+	 * Sets whether the values of the properties are parsed the first time they
+	 * are accessed, instead of when they are read (disabled by default).
+	 * </p>
+	 * <p>
+	 * When enabled, the reader only stores the name, parameters, and value of
+	 * each property. The property object is created the first time a property
+	 * of its class is retrieved from the component (for example, by calling
+	 * {@link ICalComponent#getProperty(Class)}). This saves time when only a
+	 * few properties of each component are used.
+	 * </p>
+	 * <p>
+	 * The warnings that occur while parsing these properties are not returned
+	 * by {@link #getWarnings}. They can be retrieved from the
+	 * {@link LazyParseContext} object instead (see
+	 * {@link #getLazyParseContext}).
+	 * </p>
+	 * <p>
+	 * This setting only applies to version 2.0 iCalendar objects. The
+	 * properties of VTIMEZONE components are always parsed right away.
+	 * </p>
+	 * @param enable true to enable lazy parsing, false to disable it
+	 */
+	public void setLazyParsing(boolean enable) {
+		this.lazyParsing = enable;
+	}
+
+	/**
+	 * Gets the object that holds the warnings of the properties that were
+	 * parsed lazily (see {@link #setLazyParsing}). There is one of these
+	 * objects for each iCalendar object returned by {@link #readNext}, and one
+	 * for each component returned by {@link #readNextComponent}.
+	 * @return the context of the last object that was read or null if no
+	 * properties were parsed lazily
+	 */
+	public LazyParseContext getLazyParseContext() {
+		return lazyParseContext;
+	}
+
 	@Override
 	protected ICalendar _readNext() throws IOException {
-		VObjectDataListenerImpl listener = new VObjectDataListenerImpl();
+		lazyParseContext = null;
+		VObjectDataListenerImpl listener = new VObjectDataListenerImpl(false);
 		reader.parse(listener);
+		if (listener.ical != null && listener.lazyParseContext != null) {
+			lazyParseContext = listener.lazyParseContext;
+			lazyParseContext.setTimezoneInfo(listener.ical.getTimezoneInfo());
+		}
 		return listener.ical;
 	}
 
+	/**
+	 * <p>
+	 * Reads the next top-level component (such as a VEVENT) from the data
+	 * stream. Components are returned as soon as they have been read, without
+	 * waiting for the rest of the iCalendar object. Once a component has been
+	 * returned, the reader does not hold a reference to it, so memory usage
+	 * does not depend on the size of the data stream.
+	 * </p>
+	 * <p>
+	 * VTIMEZONE components are not returned. Instead, they are used to parse
+	 * the date-time values of the components that come after them. If a
+	 * component references a timezone that has not been defined yet, its
+	 * TZID is treated as an Olsen ID, as {@link #readNext} does. Most
+	 * iCalendar objects define their VTIMEZONE components first.
+	 * </p>
+	 * <p>
+	 * The iCalendar object that the component belongs to can be retrieved by
+	 * calling {@link #getCurrentCalendar}. Its {@link TimezoneInfo} object
+	 * contains the timezone information of the returned component. The
+	 * warnings that were encountered while reading the component can be
+	 * retrieved by calling {@link #getWarnings}.
+	 * </p>
+	 * <p>
+	 * This method should not be mixed with calls to {@link #readNext} on the
+	 * same reader.
+	 * </p>
+	 * @return the next component or null if there are no more
+	 * @throws IOException if there's a problem reading from the stream
+	 */
+	public ICalComponent readNextComponent() throws IOException {
+		if (componentListener == null) {
+			componentListener = new VObjectDataListenerImpl(true);
+		}
+
+		warnings.clear();
+		lazyParseContext = null;
+		while (true) {
+			componentListener.stopped = false;
+			reader.parse(componentListener);
+			if (!componentListener.stopped) {
+				//end of stream
+				return null;
+			}
+
+			ICalComponent component = componentListener.completedComponent;
+			if (component == null) {
+				//"END:VCALENDAR" was reached
+				continue;
+			}
+			componentListener.completedComponent = null;
+
+			ICalendar ical = currentCalendar;
+			ical.setVersion(context.getVersion());
+
+			if (component instanceof VTimezone) {
+				TimezoneAssignment assignment = createTimezoneAssignment((VTimezone) component);
+				if (assignment != null) {
+					currentTimezones.add(assignment);
+					ical.getTimezoneInfo().getTimezones().add(assignment);
+					continue;
+				}
+			}
+
+			/*
+			 * Give each component its own TimezoneInfo object so that the
+			 * timezone assignments of previous components can be garbage
+			 * collected.
+			 */
+			TimezoneInfo previous = ical.getTimezoneInfo();
+			TimezoneInfo tzinfo = new TimezoneInfo();
+			tzinfo.getTimezones().addAll(currentTimezones);
+			tzinfo.setDefaultTimezone(previous.getDefaultTimezone());
+			ical.setTimezoneInfo(tzinfo);
+
+			assignTimezones(ical);
+
+			lazyParseContext = componentListener.lazyParseContext;
+			if (lazyParseContext != null) {
+				componentListener.lazyParseContext = null;
+				lazyParseContext.setTimezoneInfo(tzinfo);
+			}
+			return component;
+		}
+	}
+
+	/**
+	 * Reads the remaining top-level components from the data stream, passing
+	 * each one to the given handler as soon as it has been read. See
+	 * {@link #readNextComponent} for details.
+	 * @param handler the handler
+	 * @throws IOException if there's a problem reading from the stream
+	 */
+	public void readComponents(ComponentHandler handler) throws IOException {
+		ICalComponent component;
+		while ((component = readNextComponent()) != null) {
+			handler.handle(component, currentCalendar, getWarnings());
+		}
+	}
+
+	/**
+	 * Gets the iCalendar object that the last component returned by
+	 * {@link #readNextComponent} belongs to. The object contains the
+	 * iCalendar's properties and timezone information, but not its
+	 * components.
+	 * @return the iCalendar object or null if no components have been read
+	 */
+	public ICalendar getCurrentCalendar() {
+		return currentCalendar;
+	}
+
+	/**
+	 * Receives the components that are read by
+	 * {@link ICalReader#readComponents}.
+	 * @author Michael Angstadt
+	 */
+	public interface ComponentHandler {
+		/**
+		 * Called when a top-level component has been read.
+		 * @param component the component
+		 * @param ical the iCalendar object the component belongs to (see
+		 * {@link ICalReader#getCurrentCalendar})
+		 * @param warnings the warnings that were encountered while reading the
+		 * component
+		 */
+		void handle(ICalComponent component, ICalendar ical, List<ParseWarning> warnings);
+	}
+
 	private class VObjectDataListenerImpl implements VObjectDataListener {
+		private final boolean componentsOnly;
 		private ICalendar ical = null;
 		private ICalVersion version = defaultVersion;
 		private ComponentStack stack = new ComponentStack();
+		private LazyParseContext lazyParseContext;
+
+		/*
+		 * The depth of the component that is being skipped because of the
+		 * filter (0 if no component is being skipped).
+		 */
+		private int skipDepth = 0;
+
+		/*
+		 * Used by readNextComponent().
+		 */
+		private ICalComponent completedComponent;
+		private boolean stopped;
+
+		/**
+		 * @param componentsOnly true to stop after each top-level component is
+		 * read and to not add those components to the iCalendar object, false
+		 * to read the entire iCalendar object
+		 */
+		public VObjectDataListenerImpl(boolean componentsOnly) {
+			this.componentsOnly = componentsOnly;
+		}
 
 		public void onComponentBegin(String name, Context vobjectContext) {
 			//ignore everything until a VCALENDAR component is read
@@ -262,16 +513,31 @@ public class ICalReader extends StreamReader {
 				return;
 			}
 
-			ICalComponent parentComponent = stack.peek();
+			if (skipDepth > 0) {
+				skipDepth++;
+				return;
+			}
 
 			ICalComponentScribe<? extends ICalComponent> scribe = index.getComponentScribe(name, version);
+			if (ical != null && !isIncludedComponent(scribe.getComponentClass())) {
+				skipDepth = 1;
+				return;
+			}
+
+			ICalComponent parentComponent = stack.peek();
 			ICalComponent component = scribe.emptyInstance();
 			stack.push(component);
 
 			if (parentComponent == null) {
 				ical = (ICalendar) component;
+				if (componentsOnly) {
+					version = defaultVersion;
+					context = newParseContext();
+					currentCalendar = ical;
+					currentTimezones.clear();
+				}
 				context.setVersion(version);
-			} else {
+			} else if (!componentsOnly || parentComponent != ical) {
 				parentComponent.addComponent(component);
 			}
 		}
@@ -282,35 +548,58 @@ public class ICalReader extends StreamReader {
 				return;
 			}
 
+			if (skipDepth > 0) {
+				skipDepth--;
+				return;
+			}
+
 			/*
 			 * VObjectDataListener guarantees correct ordering of component
 			 * begin/end callback invocations (see javadocs), so we can pop
 			 * blindly without checking if the component name matches.
 			 */
-			stack.pop();
+			ICalComponent component = stack.pop();
 
 			//stop reading when "END:VCALENDAR" is reached
 			if (stack.isEmpty()) {
-				vobjectContext.stop();
+				if (componentsOnly) {
+					ical = null;
+				}
+				stop(vobjectContext);
+				return;
 			}
+
+			//stop reading when a top-level component is complete
+			if (componentsOnly && stack.size() == 1) {
+				completedComponent = component;
+				stop(vobjectContext);
+			}
+		}
+
+		private void stop(Context vobjectContext) {
+			stopped = true;
+			vobjectContext.stop();
 		}
 
 		public void onProperty(VObjectProperty vobjectProperty, Context vobjectContext) {
 			//VCALENDAR component not read yet, ignore
-			if (ical == null) {
+			if (ical == null || skipDepth > 0) {
 				return;
 			}
 
 			String propertyName = vobjectProperty.getName();
-			ICalParameters parameters = new ICalParameters(vobjectProperty.getParameters().getMap());
+			ICalPropertyScribe<? extends ICalProperty> scribe = index.getPropertyScribe(propertyName, version);
+			if (!isIncludedProperty(scribe.getPropertyClass()) && !stack.contains(VTimezone.class)) {
+				return;
+			}
+
+			ICalParameters parameters = ICalParameters.fromMap(vobjectProperty.getParameters().getMap());
 			String value = vobjectProperty.getValue();
-			
+
 			context.getWarnings().clear();
 			context.setLineNumber(vobjectContext.getLineNumber());
 			context.setPropertyName(propertyName);
 
-			ICalPropertyScribe<? extends ICalProperty> scribe = index.getPropertyScribe(propertyName, version);
-
 			//process nameless parameters
 			processNamelessParameters(parameters, version);
 
@@ -323,6 +612,15 @@ public class ICalReader extends StreamReader {
 			}
 
 			ICalComponent parentComponent = stack.peek();
+			if (isLazy()) {
+				if (lazyParseContext == null) {
+					lazyParseContext = new LazyParseContext(version, context);
+				}
+				parentComponent.addUnparsedProperty(new UnparsedProperty(lazyParseContext, scribe, propertyName, dataType, parameters, value, context.getLineNumber()));
+				warnings.addAll(context.getWarnings());
+				return;
+			}
+
 			try {
 				ICalProperty property = scribe.parseText(value, dataType, parameters, context);
 				parentComponent.addProperty(property);
@@ -366,7 +664,7 @@ public class ICalReader extends StreamReader {
 
 		public void onWarning(com.github.mangstadt.vinnie.io.Warning warning, VObjectProperty property, Exception thrown, Context vobjectContext) {
 			//VCALENDAR component not read yet, ignore
-			if (ical == null) {
+			if (ical == null || skipDepth > 0) {
 				return;
 			}
 
@@ -380,6 +678,28 @@ public class ICalReader extends StreamReader {
 			//@formatter:on
 		}
 
+		/**
+		 * Determines whether the current property should be parsed lazily.
+		 * @return true to parse it lazily, false to parse it now
+		 */
+		private boolean isLazy() {
+			if (!lazyParsing || version == ICalVersion.V1_0) {
+				return false;
+			}
+
+			/*
+			 * In component mode, the properties of the VCALENDAR component
+			 * are parsed right away because they do not belong to the
+			 * component that is returned.
+			 */
+			if (componentsOnly && stack.size() < 2) {
+				return false;
+			}
+
+			//VTIMEZONE components are needed in order to parse the other properties
+			return !stack.contains(VTimezone.class);
+		}
+
 		private boolean isVCalendarComponent(String componentName) {
 			return VCALENDAR_COMPONENT_NAME.equals(componentName);
 		}
@@ -475,6 +795,20 @@ public class ICalReader extends StreamReader {
 		public int size() {
 			return components.size();
 		}
+
+		/**
+		 * Determines if the stack contains a component of the given class.
+		 * @param clazz the component class
+		 * @return true if it does, false if not
+		 */
+		public boolean contains(Class<? extends ICalComponent> clazz) {
+			for (ICalComponent component : components) {
+				if (component.getClass() == clazz) {
+					return true;
+				}
+			}
+			return false;
+		}
 	}
 
 	/**
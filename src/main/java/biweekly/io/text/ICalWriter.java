@@ -8,7 +8,10 @@ import java.io.Flushable;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.Collection;
 import java.util.List;
 
@@ -22,15 +25,19 @@ import biweekly.io.DataModelConverter.VCalTimezoneProperties;
 import biweekly.io.SkipMeException;
 import biweekly.io.StreamWriter;
 import biweekly.io.scribe.component.ICalComponentScribe;
+import biweekly.io.scribe.property.BinaryPropertyScribe;
 import biweekly.io.scribe.property.ICalPropertyScribe;
 import biweekly.parameter.ICalParameters;
+import biweekly.property.BinaryProperty;
 import biweekly.property.Daylight;
 import biweekly.property.ICalProperty;
 import biweekly.property.Timezone;
 import biweekly.property.Version;
+import biweekly.util.Utf8BufferWriter;
 import biweekly.util.Utf8Writer;
 
 import com.github.mangstadt.vinnie.VObjectParameters;
+import com.github.mangstadt.vinnie.io.FoldedLineWriter;
 import com.github.mangstadt.vinnie.io.VObjectWriter;
 
 /*
@@ -97,6 +104,22 @@ import com.github.mangstadt.vinnie.io.VObjectWriter;
  * writer.getVObjectWriter().getFoldedLineWriter().setIndent("\t");
  *
  * </pre>
+ * 
+ * <p>
+ * <b>Writing to a reusable byte buffer:</b>
+ * </p>
+ * 
+ * <pre class="brush:java">
+ * Utf8BufferWriter buffer = new Utf8BufferWriter();
+ * ICalWriter writer = new ICalWriter(buffer, ICalVersion.V2_0);
+ * writer.write(ical);
+ * writer.flush();
+ * ByteBuffer bytes = buffer.toByteBuffer();
+ * 
+ * //reuse the buffer
+ * buffer.reset();
+ * writer.write(ical2);
+ * </pre>
  * @author Michael Angstadt
  * @see <a href="http://www.imc.org/pdi/pdiproddev.html">1.0 specs</a>
  * @see <a href="https://tools.ietf.org/html/rfc2445">RFC 2445</a>
@@ -115,6 +138,17 @@ public class ICalWriter extends StreamWriter implements Flushable {
 		this((targetVersion == ICalVersion.V1_0) ? new OutputStreamWriter(out) : new Utf8Writer(out), targetVersion);
 	}
 
+	/**
+	 * Creates a new iCalendar writer that encodes the data directly into a
+	 * byte buffer, which is written to the given channel whenever it fills up
+	 * and when {@link #flush} is called (see {@link Utf8BufferWriter}).
+	 * @param channel the channel to write to
+	 * @param targetVersion the iCalendar version to adhere to
+	 */
+	public ICalWriter(WritableByteChannel channel, ICalVersion targetVersion) {
+		this((targetVersion == ICalVersion.V1_0) ? new OutputStreamWriter(Channels.newOutputStream(channel)) : new Utf8BufferWriter(channel), targetVersion);
+	}
+
 	/**
 	 * Creates a new iCalendar writer.
 	 * @param file the file to write to
@@ -289,10 +323,16 @@ public class ICalWriter extends StreamWriter implements Flushable {
 	private void writeProperty(ICalProperty property) throws IOException {
 		ICalPropertyScribe scribe = index.getPropertyScribe(property);
 
+		/*
+		 * Binary data that is stored in a file is streamed to the output
+		 * stream instead of being marshalled into a string.
+		 */
+		boolean streamed = (scribe instanceof BinaryPropertyScribe) && ((BinaryPropertyScribe) scribe).isStreamed((BinaryProperty) property);
+
 		//marshal property
 		String value;
 		try {
-			value = scribe.writeText(property, context);
+			value = streamed ? "" : scribe.writeText(property, context);
 		} catch (SkipMeException e) {
 			return;
 		} catch (DataModelConversionException e) {
@@ -324,7 +364,44 @@ public class ICalWriter extends StreamWriter implements Flushable {
 		String propertyName = scribe.getPropertyName(getTargetVersion());
 
 		//write property to data stream
-		writer.writeProperty(null, propertyName, new VObjectParameters(parameters.getMap()), value);
+		VObjectParameters vobjectParameters = new VObjectParameters(parameters.getMap());
+		if (streamed) {
+			writeStreamedProperty(propertyName, vobjectParameters, (BinaryPropertyScribe) scribe, (BinaryProperty) property);
+		} else {
+			writer.writeProperty(null, propertyName, vobjectParameters, value);
+		}
+	}
+
+	/**
+	 * Writes a property whose binary data is streamed from a file.
+	 * @param propertyName the property name
+	 * @param parameters the property parameters
+	 * @param scribe the property scribe
+	 * @param property the property
+	 * @throws IOException if there's a problem reading the binary data or
+	 * writing to the data stream
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private void writeStreamedProperty(String propertyName, VObjectParameters parameters, BinaryPropertyScribe scribe, BinaryProperty property) throws IOException {
+		/*
+		 * Let vinnie write everything that comes before the property value,
+		 * so that the parameters are encoded in the same way as they are for
+		 * all the other properties. Line folding is disabled here, since it is
+		 * applied when the text is written to the data stream.
+		 */
+		StringWriter sw = new StringWriter();
+		VObjectWriter prefixWriter = new VObjectWriter(sw, writer.getSyntaxStyle());
+		prefixWriter.getFoldedLineWriter().setLineLength(null);
+		prefixWriter.setCaretEncodingEnabled(writer.isCaretEncodingEnabled());
+		prefixWriter.writeProperty(null, propertyName, parameters, "");
+
+		String prefix = sw.toString();
+		prefix = prefix.substring(0, prefix.length() - 2); //remove the newline
+
+		FoldedLineWriter out = writer.getFoldedLineWriter();
+		out.write(prefix);
+		scribe.writeData(property, out);
+		out.writeln();
 	}
 
 	/**
@@ -0,0 +1,670 @@
+package biweekly.io.text;
+
+import static biweekly.util.StringUtils.afterPrefixIgnoreCase;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import biweekly.ICalVersion;
+import biweekly.Messages;
+import biweekly.ICalendar;
+import biweekly.component.ICalComponent;
+import biweekly.component.VTimezone;
+import biweekly.io.ParseWarning;
+import biweekly.io.TimezoneAssignment;
+import biweekly.io.TimezoneInfo;
+import biweekly.io.scribe.ScribeIndex;
+import biweekly.property.ICalProperty;
+import biweekly.property.ValuedProperty;
+import biweekly.util.DateTimeComponents;
+import biweekly.util.Utf8Reader;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Parses {@link ICalendar} objects from a plain-text iCalendar data stream,
+ * using multiple threads to parse the components of each iCalendar object.
+ * </p>
+ * <p>
+ * Each iCalendar object is split into chunks of top-level components (such
+ * as VEVENTs) while it is read. Each chunk is handed to the given
+ * {@link ExecutorService} as soon as it is complete, so parsing overlaps with
+ * reading. Each chunk is parsed by its own {@link ICalReader}, which has
+ * access to the VTIMEZONE components of the iCalendar object (see
+ * {@link ICalReader#setPredefinedTimezones}). The properties of the iCalendar
+ * object are parsed on the calling thread, and the results are merged in
+ * document order. Parse warnings refer to the line numbers of the original
+ * data stream.
+ * </p>
+ * <p>
+ * The chunks only see the VTIMEZONE components that come before the first
+ * top-level component, which is where they are usually located. If a
+ * VTIMEZONE component (or a VERSION property) comes later, the chunks are
+ * parsed again once the entire iCalendar object has been read. The number of
+ * chunks that are waiting to be parsed is limited (see
+ * {@link #setMaxPendingChunks}), which keeps the reader from getting too far
+ * ahead of the executor.
+ * </p>
+ * <p>
+ * This class is only worthwhile for large iCalendar objects. The entire
+ * iCalendar object is held in memory while it is parsed.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ *
+ * <pre class="brush:java">
+ * ExecutorService executor = Executors.newFixedThreadPool(4);
+ * ParallelICalReader reader = null;
+ * try {
+ *   reader = new ParallelICalReader(new File("icals.ics"), executor);
+ *   ICalendar ical;
+ *   while ((ical = reader.readNext()) != null) {
+ *     //...
+ *   }
+ * } finally {
+ *   if (reader != null) reader.close();
+ *   executor.shutdown();
+ * }
+ * </pre>
+ * @author Michael Angstadt
+ */
+public class ParallelICalReader implements Closeable {
+	/**
+	 * The default number of top-level components that each chunk contains.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 512;
+
+	/**
+	 * The default number of chunks that can be waiting to be parsed.
+	 */
+	public static final int DEFAULT_MAX_PENDING_CHUNKS = 16;
+
+	private static final String NEWLINE = "\r\n";
+
+	private final BufferedReader reader;
+	private final ExecutorService executor;
+	private final List<ParseWarning> warnings = new ArrayList<ParseWarning>();
+	private ScribeIndex index = new ScribeIndex();
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+	private int maxPendingChunks = DEFAULT_MAX_PENDING_CHUNKS;
+	private int lineNumber = 0;
+
+	/**
+	 * Creates a new parallel iCalendar reader.
+	 * @param in the input stream to read from
+	 * @param executor the executor that will parse the chunks (it is not shut
+	 * down when this reader is closed)
+	 */
+	public ParallelICalReader(InputStream in, ExecutorService executor) {
+		this(new Utf8Reader(in), executor);
+	}
+
+	/**
+	 * Creates a new parallel iCalendar reader.
+	 * @param file the file to read from
+	 * @param executor the executor that will parse the chunks (it is not shut
+	 * down when this reader is closed)
+	 * @throws FileNotFoundException if the file doesn't exist
+	 */
+	public ParallelICalReader(File file, ExecutorService executor) throws FileNotFoundException {
+		this(new Utf8Reader(file), executor);
+	}
+
+	/**
+	 * Creates a new parallel iCalendar reader.
+	 * @param reader the reader to read from
+	 * @param executor the executor that will parse the chunks (it is not shut
+	 * down when this reader is closed)
+	 */
+	public ParallelICalReader(Reader reader, ExecutorService executor) {
+		this.reader = (reader instanceof BufferedReader) ? (BufferedReader) reader : new BufferedReader(reader);
+		this.executor = executor;
+	}
+
+	/**
+	 * Gets the maximum number of top-level components each chunk contains.
+	 * @return the chunk size
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * Sets the maximum number of top-level components each chunk contains
+	 * (defaults to {@value #DEFAULT_CHUNK_SIZE}).
+	 * @param chunkSize the chunk size
+	 * @throws IllegalArgumentException if the chunk size is less than one
+	 */
+	public void setChunkSize(int chunkSize) {
+		if (chunkSize < 1) {
+			throw Messages.INSTANCE.getIllegalArgumentException(29);
+		}
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Gets the maximum number of chunks that can be waiting to be parsed.
+	 * @return the maximum number of pending chunks
+	 */
+	public int getMaxPendingChunks() {
+		return maxPendingChunks;
+	}
+
+	/**
+	 * Sets the maximum number of chunks that can be waiting to be parsed
+	 * (defaults to {@value #DEFAULT_MAX_PENDING_CHUNKS}). When this limit is
+	 * reached, the reader waits for the oldest chunk to finish before reading
+	 * any further.
+	 * @param maxPendingChunks the maximum number of pending chunks
+	 * @throws IllegalArgumentException if the value is less than one
+	 */
+	public void setMaxPendingChunks(int maxPendingChunks) {
+		if (maxPendingChunks < 1) {
+			throw Messages.INSTANCE.getIllegalArgumentException(34);
+		}
+		this.maxPendingChunks = maxPendingChunks;
+	}
+
+	/**
+	 * Gets the object that manages the component/property scribes.
+	 * @return the scribe index
+	 */
+	public ScribeIndex getScribeIndex() {
+		return index;
+	}
+
+	/**
+	 * Sets the object that manages the component/property scribes. The scribe
+	 * index is shared by all the parsing threads, so it must not be modified
+	 * while an iCalendar object is being read.
+	 * @param index the scribe index
+	 */
+	public void setScribeIndex(ScribeIndex index) {
+		this.index = index;
+	}
+
+	/**
+	 * Gets the warnings from the last iCalendar object that was read.
+	 * @return the warnings or empty list if there were no warnings
+	 */
+	public List<ParseWarning> getWarnings() {
+		return new ArrayList<ParseWarning>(warnings);
+	}
+
+	/**
+	 * Reads all iCalendar objects from the data stream.
+	 * @return the iCalendar objects
+	 * @throws IOException if there's a problem reading from the stream
+	 */
+	public List<ICalendar> readAll() throws IOException {
+		List<ICalendar> icals = new ArrayList<ICalendar>();
+		ICalendar ical;
+		while ((ical = readNext()) != null) {
+			icals.add(ical);
+		}
+		return icals;
+	}
+
+	/**
+	 * Reads the next iCalendar object from the data stream.
+	 * @return the next iCalendar object or null if there are no more
+	 * @throws IOException if there's a problem reading from the stream
+	 */
+	public ICalendar readNext() throws IOException {
+		warnings.clear();
+
+		Batch batch = new Batch();
+		if (!split(batch)) {
+			return null;
+		}
+		return batch.finish();
+	}
+
+	/**
+	 * Reads the lines of the next iCalendar object, sorts them into chunks,
+	 * and submits each chunk to the executor as soon as it is complete.
+	 * @param batch receives the lines of the iCalendar object
+	 * @return true if an iCalendar object was found, false if the end of the
+	 * stream was reached
+	 * @throws IOException if there's a problem reading from the stream
+	 */
+	private boolean split(Batch batch) throws IOException {
+		//ignore everything until a VCALENDAR component is read
+		String line;
+		while (true) {
+			line = nextLine();
+			if (line == null) {
+				return false;
+			}
+
+			String componentName = afterPrefixIgnoreCase(line, "BEGIN:");
+			if (componentName != null && componentName.trim().equalsIgnoreCase("VCALENDAR")) {
+				break;
+			}
+		}
+
+		Chunk header = batch.header;
+		header.add(line, lineNumber);
+
+		int depth = 1;
+		Chunk chunk = null;
+		Chunk target = null;
+		boolean inPrelude = false;
+		while ((line = nextLine()) != null) {
+			boolean folded = !line.isEmpty() && (line.charAt(0) == ' ' || line.charAt(0) == '\t');
+			if (!folded) {
+				if (afterPrefixIgnoreCase(line, "BEGIN:") != null) {
+					if (depth == 1) {
+						String componentName = afterPrefixIgnoreCase(line, "BEGIN:").trim();
+						if (componentName.equalsIgnoreCase("VTIMEZONE")) {
+							batch.headerChanged();
+							target = header;
+						} else {
+							batch.seal();
+							if (chunk == null) {
+								chunk = new Chunk();
+							}
+							chunk.components++;
+							target = chunk;
+						}
+					}
+					depth++;
+				} else if (afterPrefixIgnoreCase(line, "END:") != null) {
+					depth--;
+					if (depth == 0) {
+						//"END:VCALENDAR" was reached
+						header.add(line, lineNumber);
+						if (chunk != null) {
+							batch.submit(chunk);
+						}
+						return true;
+					}
+				} else if (depth == 1) {
+					inPrelude = isPreludeProperty(line);
+					if (inPrelude) {
+						batch.headerChanged();
+					}
+				}
+			}
+
+			if (depth == 1 && target == null && inPrelude) {
+				batch.prelude.add(line, -1);
+			}
+
+			(target == null ? header : target).add(line, lineNumber);
+
+			if (depth == 1) {
+				if (target != null && target == chunk && chunk.components == chunkSize) {
+					batch.submit(chunk);
+					chunk = null;
+				}
+				target = null;
+			}
+		}
+
+		if (chunk != null) {
+			batch.submit(chunk);
+		}
+		return true;
+	}
+
+	private static boolean isPreludeProperty(String line) {
+		for (String name : new String[] { "VERSION", "DAYLIGHT", "TZ" }) {
+			String after = afterPrefixIgnoreCase(line, name);
+			if (after != null && !after.isEmpty() && (after.charAt(0) == ':' || after.charAt(0) == ';')) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private String nextLine() throws IOException {
+		String line = reader.readLine();
+		if (line != null) {
+			lineNumber++;
+		}
+		return line;
+	}
+
+	private ICalReader createReader(String text) {
+		ICalReader reader = new ICalReader(text, ICalVersion.V2_0);
+		reader.setScribeIndex(index);
+		return reader;
+	}
+
+	/**
+	 * Adds the warnings of a chunk, converting their line numbers to the line
+	 * numbers of the original data stream.
+	 * @param chunkWarnings the warnings
+	 * @param chunk the chunk
+	 */
+	private void addWarnings(List<ParseWarning> chunkWarnings, Chunk chunk) {
+		for (ParseWarning warning : chunkWarnings) {
+			Integer chunkLineNumber = warning.getLineNumber();
+			if (chunkLineNumber == null) {
+				warnings.add(warning);
+				continue;
+			}
+
+			int lineNumber = chunk.getOriginalLineNumber(chunkLineNumber);
+			if (lineNumber < 0) {
+				//the warning is about a prelude property, which was already reported when the header was parsed
+				continue;
+			}
+
+			warnings.add(new ParseWarning.Builder(warning).lineNumber(lineNumber).build());
+		}
+	}
+
+	/**
+	 * Copies the timezone assignments of a component's properties from one
+	 * {@link TimezoneInfo} object to another.
+	 * @param component the component
+	 * @param from the object to copy from
+	 * @param to the object to copy to
+	 */
+	private static void copyTimezones(ICalComponent component, TimezoneInfo from, TimezoneInfo to) {
+		for (ICalProperty property : component.getProperties().values()) {
+			TimezoneAssignment assignment = from.getTimezone(property);
+			if (assignment != null) {
+				/*
+				 * The chunk may have been parsed using the timezones of an
+				 * earlier parse of the header, so look up the timezone's
+				 * counterpart.
+				 */
+				VTimezone vtimezone = assignment.getComponent();
+				String id = (vtimezone == null) ? null : ValuedProperty.getValue(vtimezone.getTimezoneId());
+				TimezoneAssignment counterpart = (id == null) ? null : to.getTimezoneById(id);
+				to.setTimezone(property, (counterpart == null) ? assignment : counterpart);
+			}
+			if (from.isFloating(property)) {
+				to.setFloating(property, true);
+			}
+		}
+
+		for (ICalComponent subComponent : component.getComponents().values()) {
+			copyTimezones(subComponent, from, to);
+		}
+	}
+
+	private static ChunkResult get(Future<ChunkResult> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e.getMessage(), e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause.getMessage(), cause);
+		}
+	}
+
+	/**
+	 * Closes the input stream.
+	 * @throws IOException if there's a problem closing the input stream
+	 */
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	/**
+	 * Holds the state of the iCalendar object that is currently being read.
+	 */
+	private class Batch {
+		private final Chunk header = new Chunk();
+		private final Chunk prelude = new Chunk();
+		private final List<Chunk> chunks = new ArrayList<Chunk>();
+		private final List<Future<ChunkResult>> futures = new ArrayList<Future<ChunkResult>>();
+		private final List<ChunkResult> results = new ArrayList<ChunkResult>();
+		private final TimeZone globalTimezone = DateTimeComponents.getGlobalTimeZone();
+
+		/**
+		 * The timezones that the chunks are parsed with.
+		 */
+		private List<TimezoneAssignment> timezones;
+
+		/**
+		 * Whether the chunks have started to be submitted, meaning that any
+		 * further changes to the header are not seen by the chunks that have
+		 * already been submitted.
+		 */
+		private boolean sealed = false;
+
+		/**
+		 * Whether the header changed after the chunks started to be
+		 * submitted.
+		 */
+		private boolean stale = false;
+
+		/**
+		 * Parses the VTIMEZONE components that have been read so far, so that
+		 * the chunks can reference them. This is called when the first
+		 * top-level component is reached.
+		 * @throws IOException if there's a problem parsing the header
+		 */
+		public void seal() throws IOException {
+			if (sealed) {
+				return;
+			}
+			sealed = true;
+
+			ICalReader headerReader = createReader(header.toString() + "END:VCALENDAR" + NEWLINE);
+			ICalendar ical = headerReader.readNext();
+			timezones = new ArrayList<TimezoneAssignment>(ical.getTimezoneInfo().getTimezones());
+		}
+
+		/**
+		 * Records that a VTIMEZONE component or a prelude property was read.
+		 */
+		public void headerChanged() {
+			if (sealed) {
+				stale = true;
+			}
+		}
+
+		/**
+		 * Submits a chunk to the executor, first waiting for the oldest
+		 * pending chunk if too many chunks are pending.
+		 * @param chunk the chunk
+		 * @throws IOException if a chunk that was waited on could not be
+		 * parsed
+		 */
+		public void submit(Chunk chunk) throws IOException {
+			chunks.add(chunk);
+			enqueue(chunk);
+		}
+
+		/**
+		 * Parses the iCalendar object's properties and merges the chunks into
+		 * it.
+		 * @return the iCalendar object
+		 * @throws IOException if a chunk could not be parsed
+		 */
+		public ICalendar finish() throws IOException {
+			ICalReader headerReader = createReader(header.toString());
+			ICalendar ical = headerReader.readNext();
+			addWarnings(headerReader.getWarnings(), header);
+
+			TimezoneInfo tzinfo = ical.getTimezoneInfo();
+			drain(0);
+
+			if (stale) {
+				//parse the chunks again, now that the whole header is known
+				timezones = new ArrayList<TimezoneAssignment>(tzinfo.getTimezones());
+				futures.clear();
+				results.clear();
+				for (Chunk chunk : chunks) {
+					enqueue(chunk);
+				}
+				drain(0);
+			}
+
+			//merge the results in document order
+			for (int i = 0; i < results.size(); i++) {
+				ChunkResult result = results.get(i);
+				addWarnings(result.warnings, chunks.get(i));
+
+				ICalendar chunkIcal = result.ical;
+				if (chunkIcal == null) {
+					continue;
+				}
+
+				TimezoneInfo chunkTzinfo = chunkIcal.getTimezoneInfo();
+				for (ICalComponent component : chunkIcal.getComponents().values()) {
+					copyTimezones(component, chunkTzinfo, tzinfo);
+					ical.addComponent(component);
+				}
+			}
+
+			return ical;
+		}
+
+		private void enqueue(Chunk chunk) throws IOException {
+			drain(maxPendingChunks - 1);
+
+			/*
+			 * Every chunk gets the iCalendar object's VERSION property (and the
+			 * vCal DAYLIGHT and TZ properties), so that its components are
+			 * parsed in the same way as they would be if the whole object was
+			 * parsed at once.
+			 */
+			final String text = chunk.toString(prelude);
+			final List<TimezoneAssignment> timezones = this.timezones;
+			futures.add(executor.submit(new Callable<ChunkResult>() {
+				public ChunkResult call() throws Exception {
+					//parse floating dates the same way the calling thread would
+					DateTimeComponents.assignGlobally(globalTimezone);
+					try {
+						ICalReader chunkReader = createReader(text);
+						chunkReader.setPredefinedTimezones(timezones);
+						ICalendar chunkIcal = chunkReader.readNext();
+						return new ChunkResult(chunkIcal, chunkReader.getWarnings());
+					} finally {
+						DateTimeComponents.clearGlobalTimeZone();
+					}
+				}
+			}));
+		}
+
+		/**
+		 * Waits for the oldest pending chunks to be parsed.
+		 * @param maxPending the number of chunks that may remain pending
+		 * @throws IOException if a chunk could not be parsed
+		 */
+		private void drain(int maxPending) throws IOException {
+			while (futures.size() - results.size() > maxPending) {
+				results.add(get(futures.get(results.size())));
+			}
+		}
+	}
+
+	/**
+	 * A group of lines that is parsed as a single iCalendar object.
+	 */
+	private static class Chunk {
+		private final StringBuilder text = new StringBuilder();
+		private final List<Integer> lineNumbers = new ArrayList<Integer>();
+		private int components = 0;
+
+		/*
+		 * The number of lines that are added to the beginning of the chunk
+		 * when it is wrapped in a VCALENDAR component.
+		 */
+		private int wrapperLines = 0;
+
+		/**
+		 * Adds a line to the chunk.
+		 * @param line the line
+		 * @param lineNumber the line's line number in the original data
+		 * stream
+		 */
+		public void add(String line, int lineNumber) {
+			text.append(line).append(NEWLINE);
+			lineNumbers.add(lineNumber);
+		}
+
+		/**
+		 * Converts a line number of this chunk's text to the line number of
+		 * the original data stream.
+		 * @param chunkLineNumber the line number of this chunk's text
+		 * @return the original line number or -1 if the line does not come
+		 * from the original data stream
+		 */
+		public int getOriginalLineNumber(int chunkLineNumber) {
+			int index = chunkLineNumber - 1 - wrapperLines;
+			return (index < 0 || index >= lineNumbers.size()) ? -1 : lineNumbers.get(index);
+		}
+
+		/**
+		 * Wraps this chunk's lines in a VCALENDAR component.
+		 * @param prelude the properties to add to the beginning of the
+		 * VCALENDAR component
+		 * @return the text to parse
+		 */
+		public String toString(Chunk prelude) {
+			wrapperLines = 1 + prelude.lineNumbers.size();
+			return "BEGIN:VCALENDAR" + NEWLINE + prelude.text + text + "END:VCALENDAR" + NEWLINE;
+		}
+
+		@Override
+		public String toString() {
+			return text.toString();
+		}
+	}
+
+	private static class ChunkResult {
+		private final ICalendar ical;
+		private final List<ParseWarning> warnings;
+
+		public ChunkResult(ICalendar ical, List<ParseWarning> warnings) {
+			this.ical = ical;
+			this.warnings = warnings;
+		}
+	}
+}
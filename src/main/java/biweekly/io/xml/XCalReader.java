@@ -43,8 +43,8 @@ import org.xml.sax.helpers.DefaultHandler;
 import biweekly.ICalVersion;
 import biweekly.ICalendar;
 import biweekly.component.ICalComponent;
+import biweekly.component.VTimezone;
 import biweekly.io.CannotParseException;
-import biweekly.io.ParseContext;
 import biweekly.io.ParseWarning;
 import biweekly.io.SkipMeException;
 import biweekly.io.StreamReader;
@@ -164,7 +164,7 @@ public class XCalReader extends StreamReader {
 	protected ICalendar _readNext() throws IOException {
 		readICal = null;
 		warnings.clear();
-		context = new ParseContext();
+		context = newParseContext();
 		thrown = null;
 
 		if (!thread.started) {
@@ -252,6 +252,12 @@ public class XCalReader extends StreamReader {
 		private ICalComponent curComponent;
 		private ICalParameters parameters;
 
+		/*
+		 * The depth of the element that is being skipped because of the
+		 * filter (0 if no element is being skipped).
+		 */
+		private int skipDepth = 0;
+
 		@Override
 		public void characters(char[] buffer, int start, int length) throws SAXException {
 			characterBuffer.append(buffer, start, length);
@@ -259,8 +265,13 @@ public class XCalReader extends StreamReader {
 
 		@Override
 		public void startElement(String namespace, String localName, String qName, Attributes attributes) throws SAXException {
-			QName qname = new QName(namespace, localName);
 			String textContent = emptyCharacterBuffer();
+			if (skipDepth > 0) {
+				skipDepth++;
+				return;
+			}
+
+			QName qname = new QName(namespace, localName);
 
 			if (structure.isEmpty()) {
 				//<icalendar>
@@ -304,6 +315,11 @@ public class XCalReader extends StreamReader {
 					//start component element
 					if (XCAL_NS.equals(namespace)) {
 						ICalComponentScribe<? extends ICalComponent> scribe = index.getComponentScribe(localName, ICalVersion.V2_0);
+						if (!isIncludedComponent(scribe.getComponentClass())) {
+							skipDepth = 1;
+							return;
+						}
+
 						curComponent = scribe.emptyInstance();
 
 						ICalComponent parent = componentStack.getLast();
@@ -315,6 +331,11 @@ public class XCalReader extends StreamReader {
 
 				case properties:
 					//start property element
+					if (!isIncludedProperty(index.getPropertyScribe(qname).getPropertyClass()) && !isInTimezone()) {
+						skipDepth = 1;
+						return;
+					}
+
 					propertyElement = createElement(namespace, localName, attributes);
 					parameters = new ICalParameters();
 					parent = propertyElement;
@@ -365,6 +386,10 @@ public class XCalReader extends StreamReader {
 		@Override
 		public void endElement(String namespace, String localName, String qName) throws SAXException {
 			String textContent = emptyCharacterBuffer();
+			if (skipDepth > 0) {
+				skipDepth--;
+				return;
+			}
 
 			if (structure.isEmpty()) {
 				//no <icalendar> elements were read yet
@@ -477,6 +502,23 @@ public class XCalReader extends StreamReader {
 			}
 		}
 
+		/**
+		 * Determines if the current component is, or is inside of, a VTIMEZONE
+		 * component.
+		 * @return true if it is, false if not
+		 */
+		private boolean isInTimezone() {
+			if (curComponent instanceof VTimezone) {
+				return true;
+			}
+			for (ICalComponent component : componentStack) {
+				if (component instanceof VTimezone) {
+					return true;
+				}
+			}
+			return false;
+		}
+
 		private String emptyCharacterBuffer() {
 			String textContent = characterBuffer.toString();
 			characterBuffer.setLength(0);
@@ -317,10 +317,10 @@ public class ICalParameters extends ListMultimap<String, String> {
 	 */
 	public ICalParameters() {
 		/*
-		 * Initialize map size to 0 because most properties don't use any
-		 * parameters.
+		 * Most properties have few or no parameters, so use a map that is
+		 * optimized for small sizes.
 		 */
-		super(0);
+		super(new ParameterMap());
 	}
 
 	/**
@@ -328,7 +328,10 @@ public class ICalParameters extends ListMultimap<String, String> {
 	 * @param parameters the list to copy
 	 */
 	public ICalParameters(ICalParameters parameters) {
-		super(parameters);
+		this();
+		for (Map.Entry<String, List<String>> entry : parameters) {
+			putAll(entry.getKey(), entry.getValue());
+		}
 	}
 
 	/**
@@ -351,6 +354,45 @@ public class ICalParameters extends ListMultimap<String, String> {
 		super(map);
 	}
 
+	/**
+	 * <p>
+	 * Creates a parameter list that takes ownership of the value lists in the
+	 * given map. The map itself is not retained, so the parameter list uses
+	 * less memory than one that is backed by the map (see
+	 * {@link #ICalParameters(Map)}). This is meant to be used by parsers that
+	 * create a new map for each property.
+	 * </p>
+	 * <p>
+	 * The given map and its value lists should NOT be modified after being
+	 * passed into this method.
+	 * </p>
+	 * @param map the map
+	 * @return the parameter list
+	 */
+	public static ICalParameters fromMap(Map<String, List<String>> map) {
+		ICalParameters parameters = new ICalParameters();
+		if (map.isEmpty()) {
+			return parameters;
+		}
+
+		Map<String, List<String>> target = parameters.getMap();
+		for (Map.Entry<String, List<String>> entry : map.entrySet()) {
+			List<String> values = entry.getValue();
+			if (values.isEmpty()) {
+				continue;
+			}
+
+			String key = parameters.sanitizeKey(entry.getKey());
+			List<String> existing = target.get(key);
+			if (existing == null) {
+				target.put(key, values);
+			} else {
+				existing.addAll(values);
+			}
+		}
+		return parameters;
+	}
+
 	/**
 	 * <p>
 	 * Gets the ALTREP (alternate representation) parameter value.
@@ -1405,7 +1447,18 @@ public class ICalParameters extends ListMultimap<String, String> {
 
 	@Override
 	protected String sanitizeKey(String key) {
-		return (key == null) ? null : key.toUpperCase();
+		if (key == null) {
+			return null;
+		}
+
+		//most keys are already in upper case, so avoid creating a new string
+		for (int i = 0; i < key.length(); i++) {
+			char c = key.charAt(i);
+			if ((c >= 'a' && c <= 'z') || c > 0x7f) {
+				return key.toUpperCase();
+			}
+		}
+		return key;
 	}
 
 	@Override
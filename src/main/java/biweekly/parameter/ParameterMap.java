@@ -0,0 +1,226 @@
+package biweekly.parameter;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * The map that backs {@link ICalParameters} objects. Most properties have
+ * between zero and three parameters, so the entries are stored in a small
+ * array instead of in a hash table. An empty map does not allocate any
+ * storage. The map switches to a {@link LinkedHashMap} if more than
+ * {@value #INLINE_ENTRIES} parameters are added.
+ * </p>
+ * <p>
+ * Keys are compared with {@link String#equals}. {@link ICalParameters}
+ * normalizes them before they reach this map.
+ * </p>
+ * @author Michael Angstadt
+ */
+class ParameterMap extends AbstractMap<String, List<String>> {
+	private static final int INLINE_ENTRIES = 3;
+	private static final Object[] EMPTY = {};
+
+	/**
+	 * The entries, stored as alternating keys and values.
+	 */
+	private Object[] entries = EMPTY;
+	private int size = 0;
+	private Map<String, List<String>> overflow;
+
+	@Override
+	public int size() {
+		return (overflow == null) ? size : overflow.size();
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return (overflow == null) ? indexOf(key) >= 0 : overflow.containsKey(key);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<String> get(Object key) {
+		if (overflow != null) {
+			return overflow.get(key);
+		}
+
+		int index = indexOf(key);
+		return (index < 0) ? null : (List<String>) entries[index + 1];
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<String> put(String key, List<String> value) {
+		if (overflow != null) {
+			return overflow.put(key, value);
+		}
+
+		int index = indexOf(key);
+		if (index >= 0) {
+			List<String> old = (List<String>) entries[index + 1];
+			entries[index + 1] = value;
+			return old;
+		}
+
+		if (size == INLINE_ENTRIES) {
+			overflow = new LinkedHashMap<String, List<String>>();
+			for (int i = 0; i < size * 2; i += 2) {
+				overflow.put((String) entries[i], (List<String>) entries[i + 1]);
+			}
+			overflow.put(key, value);
+			entries = EMPTY;
+			size = 0;
+			return null;
+		}
+
+		Object[] grown = new Object[(size + 1) * 2];
+		System.arraycopy(entries, 0, grown, 0, size * 2);
+		grown[size * 2] = key;
+		grown[size * 2 + 1] = value;
+		entries = grown;
+		size++;
+		return null;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<String> remove(Object key) {
+		if (overflow != null) {
+			return overflow.remove(key);
+		}
+
+		int index = indexOf(key);
+		if (index < 0) {
+			return null;
+		}
+
+		List<String> old = (List<String>) entries[index + 1];
+		removeAt(index);
+		return old;
+	}
+
+	@Override
+	public void clear() {
+		entries = EMPTY;
+		size = 0;
+		overflow = null;
+	}
+
+	@Override
+	public Set<Map.Entry<String, List<String>>> entrySet() {
+		if (overflow != null) {
+			return overflow.entrySet();
+		}
+
+		return new AbstractSet<Map.Entry<String, List<String>>>() {
+			@Override
+			public Iterator<Map.Entry<String, List<String>>> iterator() {
+				if (overflow != null) {
+					return overflow.entrySet().iterator();
+				}
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return ParameterMap.this.size();
+			}
+		};
+	}
+
+	private int indexOf(Object key) {
+		for (int i = 0; i < size * 2; i += 2) {
+			Object k = entries[i];
+			if (k == key || (k != null && k.equals(key))) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void removeAt(int index) {
+		if (size == 1) {
+			entries = EMPTY;
+			size = 0;
+			return;
+		}
+
+		Object[] shrunk = new Object[(size - 1) * 2];
+		System.arraycopy(entries, 0, shrunk, 0, index);
+		System.arraycopy(entries, index + 2, shrunk, index, size * 2 - index - 2);
+		entries = shrunk;
+		size--;
+	}
+
+	private class EntryIterator implements Iterator<Map.Entry<String, List<String>>> {
+		private int next = 0;
+		private int last = -1;
+
+		public boolean hasNext() {
+			return next < size * 2;
+		}
+
+		@SuppressWarnings("unchecked")
+		public Map.Entry<String, List<String>> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			final int index = next;
+			last = index;
+			next += 2;
+
+			return new SimpleEntry<String, List<String>>((String) entries[index], (List<String>) entries[index + 1]) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public List<String> setValue(List<String> value) {
+					entries[index + 1] = value;
+					return super.setValue(value);
+				}
+			};
+		}
+
+		public void remove() {
+			if (last < 0) {
+				throw new IllegalStateException();
+			}
+
+			removeAt(last);
+			next = last;
+			last = -1;
+		}
+	}
+}
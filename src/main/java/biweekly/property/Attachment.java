@@ -116,6 +116,12 @@ public class Attachment extends BinaryProperty {
 		contentId = null;
 	}
 
+	@Override
+	public void setDataFile(File dataFile) {
+		super.setDataFile(dataFile);
+		contentId = null;
+	}
+
 	@Override
 	public void setUri(String uri) {
 		super.setUri(uri);
@@ -138,11 +144,12 @@ public class Attachment extends BinaryProperty {
 		this.contentId = contentId;
 		uri = null;
 		data = null;
+		dataFile = null;
 	}
 
 	@Override
 	protected void validate(List<ICalComponent> components, ICalVersion version, List<ValidationWarning> warnings) {
-		if (uri == null && data == null && contentId == null) {
+		if (uri == null && !hasData() && contentId == null) {
 			warnings.add(new ValidationWarning(26));
 		}
 	}
@@ -1,13 +1,17 @@
 package biweekly.property;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import biweekly.ICalVersion;
+import biweekly.Messages;
 import biweekly.ValidationWarning;
 import biweekly.component.ICalComponent;
 import biweekly.util.Gobble;
@@ -43,6 +47,7 @@ import biweekly.util.Gobble;
  */
 public class BinaryProperty extends ICalProperty {
 	protected byte[] data;
+	protected File dataFile;
 	protected String uri;
 
 	/**
@@ -72,20 +77,34 @@ public class BinaryProperty extends ICalProperty {
 	}
 
 	/**
-	 * Copy constructor.
+	 * Copy constructor. If the original property's data is stored in a file
+	 * (see {@link #getDataFile}), the copy refers to the same file. The file
+	 * is not copied.
 	 * @param original the property to make a copy of
 	 */
 	public BinaryProperty(BinaryProperty original) {
 		super(original);
 		data = (original.data == null) ? null : original.data.clone();
+		dataFile = original.dataFile;
 		uri = original.uri;
 	}
 
 	/**
-	 * Gets the property's binary data.
+	 * Gets the property's binary data. If the data is stored in a file (see
+	 * {@link #getDataFile}), the file is read into memory every time this
+	 * method is called. Use {@link #getDataStream} to avoid this.
 	 * @return the binary data or null if not set
+	 * @throws IllegalStateException if the data is stored in a file and
+	 * there's a problem reading the file
 	 */
 	public byte[] getData() {
+		if (data == null && dataFile != null) {
+			try {
+				return new Gobble(dataFile).asByteArray();
+			} catch (IOException e) {
+				throw unreadableDataFile(e);
+			}
+		}
 		return data;
 	}
 
@@ -95,9 +114,92 @@ public class BinaryProperty extends ICalProperty {
 	 */
 	public void setData(byte[] data) {
 		this.data = data;
+		dataFile = null;
+		uri = null;
+	}
+
+	/**
+	 * Gets the file that the property's binary data is stored in. The parsers
+	 * store large binary values in temporary files if they are configured to
+	 * do so (see {@link biweekly.io.StreamReader#setBinaryDataThreshold}).
+	 * These files are deleted when the JVM exits. Call
+	 * {@link #deleteDataFile} to delete them sooner.
+	 * @return the file or null if the data is not stored in a file
+	 */
+	public File getDataFile() {
+		return dataFile;
+	}
+
+	/**
+	 * Deletes the file that the property's binary data is stored in, and
+	 * removes the binary data from the property. Copies of this property
+	 * refer to the same file, so their data is deleted too.
+	 * @return true if the file was deleted, false if the data is not stored in
+	 * a file or the file could not be deleted
+	 */
+	public boolean deleteDataFile() {
+		if (dataFile == null) {
+			return false;
+		}
+
+		boolean deleted = dataFile.delete();
+		dataFile = null;
+		return deleted;
+	}
+
+	/**
+	 * Sets the file that contains the property's binary data. Unlike the
+	 * {@link #BinaryProperty(File)} constructor, the file is not read into
+	 * memory. It is read when the property is written.
+	 * @param dataFile the file
+	 */
+	public void setDataFile(File dataFile) {
+		this.dataFile = dataFile;
+		data = null;
 		uri = null;
 	}
 
+	/**
+	 * Determines if the property has binary data, either in memory or in a
+	 * file.
+	 * @return true if the property has binary data, false if not
+	 */
+	public boolean hasData() {
+		return data != null || dataFile != null;
+	}
+
+	/**
+	 * Opens a stream to the property's binary data. This does not read the
+	 * data into memory if the data is stored in a file.
+	 * @return the stream or null if the property does not have binary data
+	 * @throws IOException if there's a problem opening the file the data is
+	 * stored in
+	 */
+	public InputStream getDataStream() throws IOException {
+		if (data != null) {
+			return new ByteArrayInputStream(data);
+		}
+		if (dataFile != null) {
+			return new FileInputStream(dataFile);
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the size of the property's binary data.
+	 * @return the size in bytes or -1 if the property does not have binary
+	 * data
+	 */
+	public long getDataLength() {
+		if (data != null) {
+			return data.length;
+		}
+		if (dataFile != null) {
+			return dataFile.length();
+		}
+		return -1;
+	}
+
 	/**
 	 * Gets the property's URI.
 	 * @return the URI (e.g. "http://example.com/image.png") or null if not set
@@ -113,6 +215,7 @@ public class BinaryProperty extends ICalProperty {
 	public void setUri(String uri) {
 		this.uri = uri;
 		data = null;
+		dataFile = null;
 	}
 
 	@Override
@@ -127,7 +230,7 @@ public class BinaryProperty extends ICalProperty {
 
 	@Override
 	protected void validate(List<ICalComponent> components, ICalVersion version, List<ValidationWarning> warnings) {
-		if (uri == null && data == null) {
+		if (uri == null && !hasData()) {
 			warnings.add(new ValidationWarning(26));
 		}
 	}
@@ -136,15 +239,24 @@ public class BinaryProperty extends ICalProperty {
 	protected Map<String, Object> toStringValues() {
 		Map<String, Object> values = new LinkedHashMap<String, Object>();
 		values.put("data", (data == null) ? "null" : "length: " + data.length);
+		values.put("dataFile", dataFile);
 		values.put("uri", uri);
 		return values;
 	}
 
+	/*
+	 * Binary data that is stored in memory is compared by content. Binary data
+	 * that is stored in a file is compared by file, so the file is never read.
+	 * This means that a property whose data is stored in a file is not equal
+	 * to a property that holds the same bytes in memory.
+	 */
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
 		int result = super.hashCode();
 		result = prime * result + Arrays.hashCode(data);
+		result = prime * result + ((dataFile == null) ? 0 : dataFile.hashCode());
 		result = prime * result + ((uri == null) ? 0 : uri.hashCode());
 		return result;
 	}
@@ -158,6 +270,18 @@ public class BinaryProperty extends ICalProperty {
 			if (other.uri != null) return false;
 		} else if (!uri.equals(other.uri)) return false;
 		if (!Arrays.equals(data, other.data)) return false;
+		if (dataFile == null) {
+			if (other.dataFile != null) return false;
+		} else if (!dataFile.equals(other.dataFile)) return false;
 		return true;
 	}
+
+	/**
+	 * Creates the exception that is thrown when the data file cannot be read.
+	 * @param e the cause
+	 * @return the exception
+	 */
+	private static IllegalStateException unreadableDataFile(IOException e) {
+		return new IllegalStateException(Messages.INSTANCE.getExceptionMessage(32, e.getMessage()), e);
+	}
 }
@@ -12,6 +12,7 @@ import biweekly.ICalendar;
 import biweekly.Messages;
 import biweekly.ValidationWarning;
 import biweekly.component.ICalComponent;
+import biweekly.io.Fingerprints;
 import biweekly.parameter.ICalParameters;
 
 /*
@@ -438,6 +439,25 @@ public abstract class ICalProperty {
 		}
 	}
 
+	/**
+	 * <p>
+	 * Computes a 64-bit fingerprint of this property's content. The
+	 * fingerprint is computed from the way the property is written to an
+	 * iCalendar data stream, so it does not depend on the order of the
+	 * parameters and can be compared across processes (see
+	 * {@link Fingerprints}).
+	 * </p>
+	 * <p>
+	 * The fingerprint is not cached, since property objects can be modified in
+	 * many different ways. {@link ICalComponent#fingerprint}, which includes
+	 * the fingerprints of the component's properties, is cached.
+	 * </p>
+	 * @return the fingerprint
+	 */
+	public long fingerprint() {
+		return Fingerprints.of(this);
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -134,7 +134,7 @@ public class Image extends BinaryProperty {
 	@Override
 	protected void validate(List<ICalComponent> components, ICalVersion version, List<ValidationWarning> warnings) {
 		super.validate(components, version, warnings);
-		if (data != null && getFormatType() == null) {
+		if (hasData() && getFormatType() == null) {
 			warnings.add(new ValidationWarning(56));
 		}
 	}
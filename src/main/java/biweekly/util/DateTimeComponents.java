@@ -7,8 +7,6 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.Locale;
 import java.util.TimeZone;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import biweekly.Messages;
 
@@ -62,16 +60,17 @@ import biweekly.Messages;
  */
 public final class DateTimeComponents implements Comparable<DateTimeComponents>, Serializable {
 	private static final long serialVersionUID = 7668029303206402368L;
-	private static final Pattern regex = Pattern.compile("^(\\d{4})-?(\\d{2})-?(\\d{2})(T(\\d{2}):?(\\d{2}):?(\\d{2})(Z?))?.*");
 	private final int year, month, date, hour, minute, second;
 	private final boolean hasTime, utc;
 
 
 	private static final TimeZone builtInDefaultTimezone = TimeZone.getDefault();
-	private static final ThreadLocal<TimeZone> defaultTimeZoneTL = new ThreadLocal<TimeZone>();
-	static {
-		defaultTimeZoneTL.set(builtInDefaultTimezone);
-	}
+	private static final ThreadLocal<TimeZone> defaultTimeZoneTL = new ThreadLocal<TimeZone>() {
+		@Override
+		protected TimeZone initialValue() {
+			return builtInDefaultTimezone;
+		}
+	};
 
 	/**
 	 * This methods allows to override the default timezone used to parse date components.
@@ -85,6 +84,15 @@ public final class DateTimeComponents implements Comparable<DateTimeComponents>,
 		defaultTimeZoneTL.set(tz);
 	}
 
+	/**
+	 * Gets the timezone that is used to parse date components on the current
+	 * thread (see {@link #assignGlobally}).
+	 * @return the timezone
+	 */
+	public static TimeZone getGlobalTimeZone() {
+		return defaultTimeZoneTL.get();
+	}
+
 	/**
 	 * reset the fallback TimeZone back to its default value. has to be called to clear the current thread
 	 */
@@ -114,37 +122,19 @@ public final class DateTimeComponents implements Comparable<DateTimeComponents>,
 	 * @throws IllegalArgumentException if the date string cannot be parsed
 	 */
 	public static DateTimeComponents parse(String dateString, Boolean hasTime) {
-		Matcher m = regex.matcher(dateString);
-		if (!m.find()) {
+		DateTimeScanner scanner = new DateTimeScanner(dateString);
+		if (!scanner.scanComponents()) {
 			throw Messages.INSTANCE.getIllegalArgumentException(19, dateString);
 		}
 
-		int i = 1;
-		int year = Integer.parseInt(m.group(i++));
-		int month = Integer.parseInt(m.group(i++));
-		int date = Integer.parseInt(m.group(i++));
-
-		i++; //skip
-
-		String hourStr = m.group(i++);
 		if (hasTime == null) {
-			hasTime = (hourStr != null);
+			hasTime = scanner.hasTime;
 		}
 		if (!hasTime) {
-			return new DateTimeComponents(year, month, date);
+			return new DateTimeComponents(scanner.year, scanner.month, scanner.date);
 		}
 
-		int hour = (hourStr == null) ? 0 : Integer.parseInt(hourStr);
-
-		String minuteStr = m.group(i++);
-		int minute = (minuteStr == null) ? 0 : Integer.parseInt(minuteStr);
-
-		String secondStr = m.group(i++);
-		int second = (secondStr == null) ? 0 : Integer.parseInt(secondStr);
-
-		boolean utc = "Z".equals(m.group(i++));
-
-		return new DateTimeComponents(year, month, date, hour, minute, second, utc);
+		return new DateTimeComponents(scanner.year, scanner.month, scanner.date, scanner.hour, scanner.minute, scanner.second, scanner.hasOffset);
 	}
 
 	/**
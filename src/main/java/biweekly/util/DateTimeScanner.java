@@ -0,0 +1,253 @@
+package biweekly.util;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Scans the fields of an ISO-8601 date or date-time string directly into
+ * primitive fields. Both basic and extended formats are supported, with or
+ * without a UTC offset (e.g. "20130722", "2013-07-22T17:25:00",
+ * "20130722T172500.5-0500").
+ * </p>
+ * <p>
+ * Unlike a regular expression, the scanner does not create any intermediate
+ * strings. Date values are parsed a lot while reading iCalendar objects, so
+ * this noticeably reduces the amount of garbage that parsing creates.
+ * </p>
+ * @author Michael Angstadt
+ */
+final class DateTimeScanner {
+	private final CharSequence value;
+	private final int length;
+	private int pos;
+
+	int year, month, date, hour, minute, second, millisecond, offsetMillis;
+	boolean hasTime, hasOffset;
+
+	/**
+	 * @param value the string to scan
+	 */
+	DateTimeScanner(CharSequence value) {
+		this.value = value;
+		this.length = value.length();
+	}
+
+	/**
+	 * Scans the value the way {@link DateTimeComponents#parse(String, Boolean)}
+	 * expects. The only offset that is recognized is "Z", and any text that
+	 * comes after the value is ignored.
+	 * @return true if the value starts with a valid date, false if not
+	 */
+	boolean scanComponents() {
+		if (!scanDate()) {
+			return false;
+		}
+
+		hasTime = scanTime();
+		if (hasTime && peek('Z')) {
+			hasOffset = true;
+		}
+		return true;
+	}
+
+	/**
+	 * Scans the value the way {@link ICalDateFormat#parse(String)} expects. The
+	 * value may contain fractional seconds and a UTC offset, and it may not be
+	 * followed by any other text.
+	 * @return true if the entire value is a valid date or date-time, false if
+	 * not
+	 */
+	boolean scanTimestamp() {
+		if (!scanDate()) {
+			return false;
+		}
+		if (pos == length) {
+			return true;
+		}
+
+		hasTime = scanTime();
+		if (!hasTime) {
+			return false;
+		}
+
+		if (peek('.')) {
+			pos++;
+			if (!scanFraction()) {
+				return false;
+			}
+		}
+
+		if (pos == length) {
+			return true;
+		}
+
+		return scanOffset() && pos == length;
+	}
+
+	private boolean scanDate() {
+		year = digits(4);
+		if (year < 0) {
+			return false;
+		}
+
+		skip('-');
+		month = digits(2);
+		if (month < 0) {
+			return false;
+		}
+
+		skip('-');
+		date = digits(2);
+		return date >= 0;
+	}
+
+	private boolean scanTime() {
+		if (!peek('T')) {
+			return false;
+		}
+
+		int start = pos;
+		pos++;
+
+		hour = digits(2);
+		if (hour >= 0) {
+			skip(':');
+			minute = digits(2);
+			if (minute >= 0) {
+				skip(':');
+				second = digits(2);
+				if (second >= 0) {
+					return true;
+				}
+			}
+		}
+
+		pos = start;
+		hour = minute = second = 0;
+		return false;
+	}
+
+	private boolean scanFraction() {
+		/*
+		 * Only the first nine digits are significant. This is more than enough
+		 * to round to the nearest millisecond.
+		 */
+		int numerator = 0, denominator = 1, count = 0;
+		while (pos < length) {
+			int digit = digit(value.charAt(pos));
+			if (digit < 0) {
+				break;
+			}
+			if (count < 9) {
+				numerator = numerator * 10 + digit;
+				denominator *= 10;
+			}
+			count++;
+			pos++;
+		}
+		if (count == 0) {
+			return false;
+		}
+
+		//round half up
+		millisecond = (int) ((numerator * 2000L + denominator) / (denominator * 2L));
+		return true;
+	}
+
+	private boolean scanOffset() {
+		char c = value.charAt(pos);
+		if (c == 'Z') {
+			pos++;
+			hasOffset = true;
+			return true;
+		}
+
+		int sign;
+		if (c == '+') {
+			sign = 1;
+		} else if (c == '-') {
+			sign = -1;
+		} else {
+			return false;
+		}
+		pos++;
+
+		int offsetHour = digits(2);
+		if (offsetHour < 0) {
+			return false;
+		}
+
+		int offsetMinute = 0;
+		if (pos < length) {
+			skip(':');
+			offsetMinute = digits(2);
+			if (offsetMinute < 0) {
+				return false;
+			}
+		}
+
+		hasOffset = true;
+		offsetMillis = sign * (offsetHour * 60 * 60 * 1000 + offsetMinute * 60 * 1000);
+		return true;
+	}
+
+	/**
+	 * Reads a fixed number of digits.
+	 * @param count the number of digits to read
+	 * @return the parsed number or -1 if there aren't enough digits
+	 */
+	private int digits(int count) {
+		if (pos + count > length) {
+			return -1;
+		}
+
+		int number = 0;
+		for (int i = 0; i < count; i++) {
+			int digit = digit(value.charAt(pos + i));
+			if (digit < 0) {
+				return -1;
+			}
+			number = number * 10 + digit;
+		}
+
+		pos += count;
+		return number;
+	}
+
+	private boolean peek(char c) {
+		return pos < length && value.charAt(pos) == c;
+	}
+
+	private void skip(char c) {
+		if (peek(c)) {
+			pos++;
+		}
+	}
+
+	private static int digit(char c) {
+		return (c >= '0' && c <= '9') ? c - '0' : -1;
+	}
+}
@@ -5,10 +5,9 @@ import java.text.FieldPosition;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.GregorianCalendar;
 import java.util.Locale;
 import java.util.TimeZone;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /*
  Copyright (c) 2013-2020, Michael Angstadt
@@ -47,31 +46,31 @@ public enum ICalDateFormat {
 	 * Example: 20120701
 	 */
 	DATE_BASIC(
-	"yyyyMMdd"),
+	"yyyyMMdd", false, false, Offset.NONE),
 	
 	/**
 	 * Example: 2012-07-01
 	 */
 	DATE_EXTENDED(
-	"yyyy-MM-dd"),
+	"yyyy-MM-dd", false, true, Offset.NONE),
 	
 	/**
 	 * Example: 20120701T142110-0500
 	 */
 	DATE_TIME_BASIC(
-	"yyyyMMdd'T'HHmmssZ"),
+	"yyyyMMdd'T'HHmmssZ", true, false, Offset.NUMERIC),
 	
 	/**
 	 * Example: 20120701T142110
 	 */
 	DATE_TIME_BASIC_WITHOUT_TZ(
-	"yyyyMMdd'T'HHmmss"),
+	"yyyyMMdd'T'HHmmss", true, false, Offset.NONE),
 	
 	/**
 	 * Example: 2012-07-01T14:21:10-05:00
 	 */
 	DATE_TIME_EXTENDED(
-	"yyyy-MM-dd'T'HH:mm:ssZ"){
+	"yyyy-MM-dd'T'HH:mm:ssZ", true, true, Offset.NUMERIC){
 		@Override
 		public DateFormat getDateFormat(TimeZone timezone) {
 			DateFormat df = new SimpleDateFormat(formatStr, Locale.ROOT){
@@ -100,17 +99,17 @@ public enum ICalDateFormat {
 	 * Example: 2012-07-01T14:21:10
 	 */
 	DATE_TIME_EXTENDED_WITHOUT_TZ(
-	"yyyy-MM-dd'T'HH:mm:ss"),
+	"yyyy-MM-dd'T'HH:mm:ss", true, true, Offset.NONE),
 	
 	/**
 	 * Example: 20120701T192110Z
 	 */
 	UTC_TIME_BASIC(
-	"yyyyMMdd'T'HHmmss'Z'"){
+	"yyyyMMdd'T'HHmmss'Z'", true, false, Offset.UTC){
 		@Override
 		public DateFormat getDateFormat(TimeZone timezone) {
 			//always use the UTC timezone
-			timezone = TimeZone.getTimeZone("UTC");
+			timezone = UTC;
 			return super.getDateFormat(timezone);
 		}
 	},
@@ -119,27 +118,47 @@ public enum ICalDateFormat {
 	 * Example: 2012-07-01T19:21:10Z
 	 */
 	UTC_TIME_EXTENDED(
-	"yyyy-MM-dd'T'HH:mm:ss'Z'"){
+	"yyyy-MM-dd'T'HH:mm:ss'Z'", true, true, Offset.UTC){
 		@Override
 		public DateFormat getDateFormat(TimeZone timezone) {
 			//always use the UTC timezone
-			timezone = TimeZone.getTimeZone("UTC");
+			timezone = UTC;
 			return super.getDateFormat(timezone);
 		}
 	};
 	//@formatter:on
 
+	private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+	/**
+	 * The first day of the Gregorian calendar (October 15, 1582). Dates before
+	 * this are in the Julian calendar, so they are formatted by
+	 * {@link GregorianCalendar}.
+	 */
+	private static final long GREGORIAN_CUTOVER = -12219292800000L;
+
+	private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000;
+
 	/**
 	 * The {@link SimpleDateFormat} format string used for parsing dates.
 	 */
 	protected final String formatStr;
 
+	private final boolean time, extended;
+	private final Offset offset;
+
 	/**
 	 * @param formatStr the {@link SimpleDateFormat} format string used for
 	 * parsing dates.
+	 * @param time true if the format includes the time, false if not
+	 * @param extended true if the format is extended, false if basic
+	 * @param offset how the format writes the UTC offset
 	 */
-	ICalDateFormat(String formatStr) {
+	ICalDateFormat(String formatStr, boolean time, boolean extended, Offset offset) {
 		this.formatStr = formatStr;
+		this.time = time;
+		this.extended = extended;
+		this.offset = offset;
 	}
 
 	/**
@@ -183,8 +202,126 @@ public enum ICalDateFormat {
 	 * @return the date string
 	 */
 	public String format(Date date, TimeZone timezone) {
-		DateFormat df = getDateFormat(timezone);
-		return df.format(date);
+		StringBuilder sb = new StringBuilder(25);
+		format(date.getTime(), timezone, sb);
+		return sb.toString();
+	}
+
+	/**
+	 * <p>
+	 * Formats a date in this ISO format, appending it to the given
+	 * {@link StringBuilder}.
+	 * </p>
+	 * <p>
+	 * Unlike {@link #getDateFormat}, this method does not create any
+	 * {@link DateFormat} or {@link Calendar} objects, so it is much cheaper to
+	 * call for every date that is written. It is thread-safe.
+	 * </p>
+	 * @param millis the date to format (in milliseconds since the epoch)
+	 * @param timezone the timezone to format the date in or null for the
+	 * default timezone
+	 * @param sb the buffer to append the date string to
+	 */
+	public void format(long millis, TimeZone timezone, StringBuilder sb) {
+		TimeZone formatTimezone = timezone;
+		if (offset == Offset.UTC) {
+			timezone = UTC;
+		} else if (timezone == null) {
+			timezone = TimeZone.getDefault();
+		}
+
+		/*
+		 * TimeZone implementations look up their offsets from precomputed
+		 * transition tables, so this does not need to be cached.
+		 */
+		int offsetMillis = timezone.getOffset(millis);
+		long local = millis + offsetMillis;
+
+		/*
+		 * GregorianCalendar decides which calendar to use based on the local
+		 * date, not the UTC instant.
+		 */
+		if (local < GREGORIAN_CUTOVER) {
+			sb.append(getDateFormat(formatTimezone).format(new Date(millis)));
+			return;
+		}
+		long days = floorDiv(local, MILLIS_PER_DAY);
+		int millisOfDay = (int) (local - days * MILLIS_PER_DAY);
+
+		/*
+		 * Convert the number of days since the epoch to a year, month, and
+		 * date. See: http://howardhinnant.github.io/date_algorithms.html
+		 */
+		long z = days + 719468;
+		long era = floorDiv(z, 146097);
+		int dayOfEra = (int) (z - era * 146097);
+		int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		int mp = (5 * dayOfYear + 2) / 153;
+		int date = dayOfYear - (153 * mp + 2) / 5 + 1;
+		int month = (mp < 10) ? mp + 3 : mp - 9;
+		long year = era * 400 + yearOfEra + ((month <= 2) ? 1 : 0);
+
+		appendYear(year, sb);
+		if (extended) {
+			sb.append('-');
+		}
+		appendTwoDigits(month, sb);
+		if (extended) {
+			sb.append('-');
+		}
+		appendTwoDigits(date, sb);
+
+		if (!time) {
+			return;
+		}
+
+		int secondOfDay = millisOfDay / 1000;
+		sb.append('T');
+		appendTwoDigits(secondOfDay / 3600, sb);
+		if (extended) {
+			sb.append(':');
+		}
+		appendTwoDigits(secondOfDay / 60 % 60, sb);
+		if (extended) {
+			sb.append(':');
+		}
+		appendTwoDigits(secondOfDay % 60, sb);
+
+		switch (offset) {
+		case UTC:
+			sb.append('Z');
+			break;
+		case NUMERIC:
+			int offsetMinutes = offsetMillis / (60 * 1000);
+			sb.append((offsetMinutes < 0) ? '-' : '+');
+			offsetMinutes = Math.abs(offsetMinutes);
+			appendTwoDigits(offsetMinutes / 60, sb);
+			if (extended) {
+				sb.append(':');
+			}
+			appendTwoDigits(offsetMinutes % 60, sb);
+			break;
+		case NONE:
+			break;
+		}
+	}
+
+	private static void appendYear(long year, StringBuilder sb) {
+		if (year < 1000) {
+			sb.append((year < 100) ? ((year < 10) ? "000" : "00") : "0");
+		}
+		sb.append(year);
+	}
+
+	private static void appendTwoDigits(int value, StringBuilder sb) {
+		sb.append((char) ('0' + value / 10));
+		sb.append((char) ('0' + value % 10));
+	}
+
+	private static long floorDiv(long x, long y) {
+		long q = x / y;
+		return (x % y < 0) ? q - 1 : q;
 	}
 
 	/**
@@ -209,12 +346,12 @@ public enum ICalDateFormat {
 	 * accepted ISO8601 formats
 	 */
 	public static Date parse(String dateStr, TimeZone timezone) {
-		TimestampPattern p = new TimestampPattern(dateStr);
-		if (!p.matches()) {
+		DateTimeScanner scanner = new DateTimeScanner(dateStr);
+		if (!scanner.scanTimestamp()) {
 			throw parseException(dateStr);
 		}
 
-		if (p.hasOffset()) {
+		if (scanner.hasOffset) {
 			timezone = TimeZone.getTimeZone("UTC");
 		} else if (timezone == null) {
 			timezone = TimeZone.getDefault();
@@ -223,118 +360,24 @@ public enum ICalDateFormat {
 		Calendar c = Calendar.getInstance(timezone);
 		c.clear();
 
-		c.set(Calendar.YEAR, p.year());
-		c.set(Calendar.MONTH, p.month() - 1);
-		c.set(Calendar.DATE, p.date());
+		c.set(Calendar.YEAR, scanner.year);
+		c.set(Calendar.MONTH, scanner.month - 1);
+		c.set(Calendar.DATE, scanner.date);
 
-		if (p.hasTime()) {
-			c.set(Calendar.HOUR_OF_DAY, p.hour());
-			c.set(Calendar.MINUTE, p.minute());
-			c.set(Calendar.SECOND, p.second());
-			c.set(Calendar.MILLISECOND, p.millisecond());
+		if (scanner.hasTime) {
+			c.set(Calendar.HOUR_OF_DAY, scanner.hour);
+			c.set(Calendar.MINUTE, scanner.minute);
+			c.set(Calendar.SECOND, scanner.second);
+			c.set(Calendar.MILLISECOND, scanner.millisecond);
 
-			if (p.hasOffset()) {
-				c.set(Calendar.ZONE_OFFSET, p.offsetMillis());
+			if (scanner.hasOffset) {
+				c.set(Calendar.ZONE_OFFSET, scanner.offsetMillis);
 			}
 		}
 
 		return c.getTime();
 	}
 
-	/**
-	 * Wrapper for a complex regular expression that parses multiple date
-	 * formats.
-	 */
-	private static class TimestampPattern {
-		//@formatter:off
-		private static final Pattern regex = Pattern.compile(
-			"^(\\d{4})-?(\\d{2})-?(\\d{2})" +
-			"(" +
-				"T(\\d{2}):?(\\d{2}):?(\\d{2})(\\.\\d+)?" +
-				"(" +
-					"Z|([-+])((\\d{2})|((\\d{2}):?(\\d{2})))" +
-				")?" +
-			")?$"
-		);
-		//@formatter:on
-
-		private final Matcher m;
-		private final boolean matches;
-
-		public TimestampPattern(String str) {
-			m = regex.matcher(str);
-			matches = m.find();
-		}
-
-		public boolean matches() {
-			return matches;
-		}
-
-		public int year() {
-			return parseInt(1);
-		}
-
-		public int month() {
-			return parseInt(2);
-		}
-
-		public int date() {
-			return parseInt(3);
-		}
-
-		public boolean hasTime() {
-			return m.group(5) != null;
-		}
-
-		public int hour() {
-			return parseInt(5);
-		}
-
-		public int minute() {
-			return parseInt(6);
-		}
-
-		public int second() {
-			return parseInt(7);
-		}
-
-		public int millisecond() {
-			if (m.group(8) == null) {
-				return 0;
-			}
-
-			double ms = Double.parseDouble(m.group(8)) * 1000;
-			return (int) Math.round(ms);
-		}
-
-		public boolean hasOffset() {
-			return m.group(9) != null;
-		}
-
-		public int offsetMillis() {
-			if (m.group(9).equals("Z")) {
-				return 0;
-			}
-
-			int positive = m.group(10).equals("+") ? 1 : -1;
-
-			int offsetHour, offsetMinute;
-			if (m.group(12) != null) {
-				offsetHour = parseInt(12);
-				offsetMinute = 0;
-			} else {
-				offsetHour = parseInt(14);
-				offsetMinute = parseInt(15);
-			}
-
-			return (offsetHour * 60 * 60 * 1000 + offsetMinute * 60 * 1000) * positive;
-		}
-
-		private int parseInt(int group) {
-			return Integer.parseInt(m.group(group));
-		}
-	}
-
 	/**
 	 * Determines whether a date string has a time component.
 	 * @param dateStr the date string (e.g. "20130601T120000")
@@ -373,6 +416,26 @@ public enum ICalDateFormat {
 		return "GMT".equals(timezone.getID()) && !"GMT".equalsIgnoreCase(timezoneId) ? null : timezone;
 	}
 
+	/**
+	 * Describes how a date format writes the UTC offset.
+	 */
+	private enum Offset {
+		/**
+		 * The offset is not written.
+		 */
+		NONE,
+
+		/**
+		 * The date is converted to UTC and a "Z" is written.
+		 */
+		UTC,
+
+		/**
+		 * The offset is written as a number (e.g. "-0500").
+		 */
+		NUMERIC
+	}
+
 	private static IllegalArgumentException parseException(String dateStr) {
 		return new IllegalArgumentException("Date string \"" + dateStr + "\" is not in a valid ISO-8601 format.");
 	}
@@ -0,0 +1,455 @@
+package biweekly.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import biweekly.ICalendar;
+import biweekly.component.ICalComponent;
+import biweekly.io.Fingerprints;
+import biweekly.property.DateTimeStamp;
+import biweekly.property.ICalProperty;
+import biweekly.property.LastModified;
+import biweekly.property.RecurrenceId;
+import biweekly.property.Sequence;
+import biweekly.property.Uid;
+import biweekly.property.ValuedProperty;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Determines which components were added, removed, or modified between two
+ * versions of an iCalendar object, such as two downloads of the same feed.
+ * </p>
+ * <p>
+ * Components are matched by their {@link Uid UID} and
+ * {@link RecurrenceId RECURRENCE-ID}. A matching pair is considered modified
+ * if its {@link Sequence SEQUENCE} or {@link LastModified LAST-MODIFIED}
+ * values differ, and unchanged if it has a LAST-MODIFIED value and its
+ * SEQUENCE, LAST-MODIFIED, and {@link DateTimeStamp DTSTAMP} values are the
+ * same. Otherwise, a hash of the component's content (excluding DTSTAMP,
+ * which many servers regenerate on every request) is compared. Components without a UID cannot be matched and
+ * are always considered added.
+ * </p>
+ * <p>
+ * The previous version does not have to be held in memory. The state of each
+ * component (see {@link #getStates}) can be stored after each comparison and
+ * passed into the constructor the next time. The components of the new
+ * version can then be passed into {@link #compare} one at a time as they are
+ * read (for example, with
+ * {@link biweekly.io.text.ICalReader#readNextComponent}). Unchanged
+ * components are not retained, and only the properties listed above are
+ * accessed unless the content hash has to be computed. Combined with lazy
+ * parsing (see {@link biweekly.io.text.ICalReader#setLazyParsing}), this
+ * means that the rest of their properties are never parsed.
+ * </p>
+ * <p>
+ * <b>Examples:</b>
+ * </p>
+ *
+ * <pre class="brush:java">
+ * //compare two iCalendar objects
+ * ICalendarDiff diff = ICalendarDiff.diff(previous, current);
+ * List&lt;ICalComponent&gt; added = diff.getAdded();
+ * List&lt;ICalComponent&gt; modified = diff.getModified();
+ * List&lt;ICalComponent&gt; removed = diff.getRemovedComponents();
+ *
+ * //compare a data stream to the stored states of the previous version
+ * Map&lt;ICalendarDiff.ComponentKey, ICalendarDiff.ComponentState&gt; states = ...
+ * ICalendarDiff diff = new ICalendarDiff(states);
+ * ICalReader reader = new ICalReader(file);
+ * reader.setLazyParsing(true);
+ * ICalComponent component;
+ * while ((component = reader.readNextComponent()) != null) {
+ *   diff.compare(component);
+ * }
+ * states = diff.getStates();
+ * </pre>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ * @author Michael Angstadt
+ */
+public class ICalendarDiff {
+	private final Map<ComponentKey, ComponentState> previousStates;
+	private final Map<ComponentKey, ICalComponent> previousComponents;
+	private final Map<ComponentKey, ComponentState> states = new LinkedHashMap<ComponentKey, ComponentState>();
+	private final List<ICalComponent> added = new ArrayList<ICalComponent>();
+	private final List<ICalComponent> modified = new ArrayList<ICalComponent>();
+
+	/**
+	 * Creates a diff that treats every component as added.
+	 */
+	public ICalendarDiff() {
+		this(Collections.<ComponentKey, ComponentState> emptyMap());
+	}
+
+	/**
+	 * Creates a diff that compares components to the stored states of the
+	 * previous version.
+	 * @param previousStates the states of the previous version's components
+	 * (see {@link #getStates})
+	 */
+	public ICalendarDiff(Map<ComponentKey, ComponentState> previousStates) {
+		this(previousStates, null);
+	}
+
+	private ICalendarDiff(Map<ComponentKey, ComponentState> previousStates, Map<ComponentKey, ICalComponent> previousComponents) {
+		this.previousStates = previousStates;
+		this.previousComponents = previousComponents;
+	}
+
+	/**
+	 * Compares the VEVENT, VTODO, and VJOURNAL components of two iCalendar
+	 * objects.
+	 * @param previous the previous version
+	 * @param current the current version
+	 * @return the diff
+	 */
+	public static ICalendarDiff diff(ICalendar previous, ICalendar current) {
+		Map<ComponentKey, ComponentState> previousStates = new HashMap<ComponentKey, ComponentState>();
+		Map<ComponentKey, ICalComponent> previousComponents = new LinkedHashMap<ComponentKey, ICalComponent>();
+		for (ICalComponent component : getComponents(previous)) {
+			ComponentKey key = ComponentKey.of(component);
+			if (key != null) {
+				previousStates.put(key, ComponentState.of(component, contentHash(component)));
+				previousComponents.put(key, component);
+			}
+		}
+
+		ICalendarDiff diff = new ICalendarDiff(previousStates, previousComponents);
+		for (ICalComponent component : getComponents(current)) {
+			diff.compare(component);
+		}
+		return diff;
+	}
+
+	private static List<ICalComponent> getComponents(ICalendar ical) {
+		List<ICalComponent> components = new ArrayList<ICalComponent>();
+		components.addAll(ical.getEvents());
+		components.addAll(ical.getTodos());
+		components.addAll(ical.getJournals());
+		return components;
+	}
+
+	/**
+	 * Compares a component from the current version to the previous version.
+	 * @param component the component
+	 * @return the result of the comparison
+	 */
+	public Change compare(ICalComponent component) {
+		ComponentKey key = ComponentKey.of(component);
+		if (key == null) {
+			added.add(component);
+			return Change.ADDED;
+		}
+
+		ComponentState previous = previousStates.get(key);
+		if (previous == null) {
+			states.put(key, ComponentState.of(component, contentHash(component)));
+			added.add(component);
+			return Change.ADDED;
+		}
+
+		ComponentState current = ComponentState.of(component, previous.contentHash);
+		Change change;
+		if (!eq(previous.sequence, current.sequence)) {
+			change = Change.MODIFIED;
+		} else if (previous.lastModified != null && current.lastModified != null && !previous.lastModified.equals(current.lastModified)) {
+			change = Change.MODIFIED;
+		} else if (current.lastModified != null && current.lastModified.equals(previous.lastModified) && eq(previous.dateTimestamp, current.dateTimestamp)) {
+			//the content is assumed to be the same, so the previous hash is kept
+			change = Change.UNCHANGED;
+		} else {
+			long hash = contentHash(component);
+			if (hash == previous.contentHash) {
+				change = Change.UNCHANGED;
+			} else {
+				change = Change.MODIFIED;
+				current = current.withContentHash(hash);
+			}
+		}
+
+		if (change == Change.MODIFIED) {
+			if (current.contentHash == previous.contentHash) {
+				//the hash was not computed above
+				current = current.withContentHash(contentHash(component));
+			}
+			modified.add(component);
+		}
+
+		states.put(key, current);
+		return change;
+	}
+
+	/**
+	 * Gets the components that were added.
+	 * @return the added components
+	 */
+	public List<ICalComponent> getAdded() {
+		return Collections.unmodifiableList(added);
+	}
+
+	/**
+	 * Gets the components that were modified (the current versions).
+	 * @return the modified components
+	 */
+	public List<ICalComponent> getModified() {
+		return Collections.unmodifiableList(modified);
+	}
+
+	/**
+	 * Gets the keys of the components that were removed. This should be called
+	 * after all of the current version's components have been compared.
+	 * @return the keys of the removed components
+	 */
+	public List<ComponentKey> getRemoved() {
+		List<ComponentKey> removed = new ArrayList<ComponentKey>();
+		for (ComponentKey key : previousStates.keySet()) {
+			if (!states.containsKey(key)) {
+				removed.add(key);
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Gets the components that were removed. This is only supported if the
+	 * diff was created with {@link #diff(ICalendar, ICalendar)}.
+	 * @return the removed components
+	 * @throws IllegalStateException if the previous version's components are
+	 * not available
+	 */
+	public List<ICalComponent> getRemovedComponents() {
+		if (previousComponents == null) {
+			throw new IllegalStateException();
+		}
+
+		List<ICalComponent> removed = new ArrayList<ICalComponent>();
+		for (Map.Entry<ComponentKey, ICalComponent> entry : previousComponents.entrySet()) {
+			if (!states.containsKey(entry.getKey())) {
+				removed.add(entry.getValue());
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Gets the states of the components that have been compared. These can be
+	 * stored and passed into the constructor the next time the iCalendar
+	 * object is compared.
+	 * @return the states
+	 */
+	public Map<ComponentKey, ComponentState> getStates() {
+		return Collections.unmodifiableMap(states);
+	}
+
+	/**
+	 * Computes a hash of a component's content. This is the component's
+	 * fingerprint (see {@link ICalComponent#fingerprint}), except that the
+	 * DTSTAMP property is excluded because its value often changes even when
+	 * nothing else does. The hash can be compared across processes.
+	 * @param component the component
+	 * @return the hash
+	 */
+	private static long contentHash(ICalComponent component) {
+		long propertiesHash = 0;
+		for (ICalProperty property : component.getProperties().values()) {
+			if (property instanceof DateTimeStamp) {
+				continue;
+			}
+			propertiesHash += Fingerprints.mix(property.fingerprint());
+		}
+
+		long componentsHash = 0;
+		for (ICalComponent subComponent : component.getComponents().values()) {
+			componentsHash += Fingerprints.mix(subComponent.fingerprint());
+		}
+
+		return Fingerprints.of(component, propertiesHash, componentsHash);
+	}
+
+	private static boolean eq(Object one, Object two) {
+		return (one == null) ? two == null : one.equals(two);
+	}
+
+	private static Long time(Date date) {
+		return (date == null) ? null : date.getTime();
+	}
+
+	/**
+	 * The result of comparing a component to the previous version.
+	 */
+	public enum Change {
+		ADDED, MODIFIED, UNCHANGED
+	}
+
+	/**
+	 * Identifies a component across versions of an iCalendar object.
+	 */
+	public static final class ComponentKey {
+		private final String uid;
+		private final Long recurrenceId;
+
+		/**
+		 * @param uid the value of the UID property
+		 * @param recurrenceId the value of the RECURRENCE-ID property, in
+		 * milliseconds since the epoch, or null if the component does not have
+		 * one
+		 */
+		public ComponentKey(String uid, Long recurrenceId) {
+			this.uid = uid;
+			this.recurrenceId = recurrenceId;
+		}
+
+		/**
+		 * Creates the key of a component.
+		 * @param component the component
+		 * @return the key or null if the component does not have a UID
+		 */
+		public static ComponentKey of(ICalComponent component) {
+			String uid = ValuedProperty.getValue(component.getProperty(Uid.class));
+			if (uid == null) {
+				return null;
+			}
+
+			ICalDate recurrenceId = ValuedProperty.getValue(component.getProperty(RecurrenceId.class));
+			return new ComponentKey(uid, time(recurrenceId));
+		}
+
+		/**
+		 * Gets the value of the UID property.
+		 * @return the UID
+		 */
+		public String getUid() {
+			return uid;
+		}
+
+		/**
+		 * Gets the value of the RECURRENCE-ID property.
+		 * @return the recurrence ID, in milliseconds since the epoch, or null
+		 * if not set
+		 */
+		public Long getRecurrenceId() {
+			return recurrenceId;
+		}
+
+		@Override
+		public int hashCode() {
+			return uid.hashCode() * 31 + ((recurrenceId == null) ? 0 : recurrenceId.hashCode());
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) return true;
+			if (obj == null) return false;
+			if (getClass() != obj.getClass()) return false;
+			ComponentKey other = (ComponentKey) obj;
+			return uid.equals(other.uid) && eq(recurrenceId, other.recurrenceId);
+		}
+
+		@Override
+		public String toString() {
+			return (recurrenceId == null) ? uid : uid + " " + recurrenceId;
+		}
+	}
+
+	/**
+	 * The values that are used to determine whether a component has changed.
+	 */
+	public static final class ComponentState {
+		private final Integer sequence;
+		private final Long lastModified;
+		private final Long dateTimestamp;
+		private final long contentHash;
+
+		/**
+		 * @param sequence the value of the SEQUENCE property or null if not
+		 * set
+		 * @param lastModified the value of the LAST-MODIFIED property, in
+		 * milliseconds since the epoch, or null if not set
+		 * @param dateTimestamp the value of the DTSTAMP property, in
+		 * milliseconds since the epoch, or null if not set
+		 * @param contentHash the hash of the component's content
+		 */
+		public ComponentState(Integer sequence, Long lastModified, Long dateTimestamp, long contentHash) {
+			this.sequence = sequence;
+			this.lastModified = lastModified;
+			this.dateTimestamp = dateTimestamp;
+			this.contentHash = contentHash;
+		}
+
+		private static ComponentState of(ICalComponent component, long contentHash) {
+			Integer sequence = ValuedProperty.getValue(component.getProperty(Sequence.class));
+			Date lastModified = ValuedProperty.getValue(component.getProperty(LastModified.class));
+			Date dateTimestamp = ValuedProperty.getValue(component.getProperty(DateTimeStamp.class));
+			return new ComponentState(sequence, time(lastModified), time(dateTimestamp), contentHash);
+		}
+
+		private ComponentState withContentHash(long contentHash) {
+			return new ComponentState(sequence, lastModified, dateTimestamp, contentHash);
+		}
+
+		/**
+		 * Gets the value of the SEQUENCE property.
+		 * @return the sequence or null if not set
+		 */
+		public Integer getSequence() {
+			return sequence;
+		}
+
+		/**
+		 * Gets the value of the LAST-MODIFIED property.
+		 * @return the value, in milliseconds since the epoch, or null if not
+		 * set
+		 */
+		public Long getLastModified() {
+			return lastModified;
+		}
+
+		/**
+		 * Gets the value of the DTSTAMP property.
+		 * @return the value, in milliseconds since the epoch, or null if not
+		 * set
+		 */
+		public Long getDateTimestamp() {
+			return dateTimestamp;
+		}
+
+		/**
+		 * Gets the hash of the component's content.
+		 * @return the hash
+		 */
+		public long getContentHash() {
+			return contentHash;
+		}
+	}
+}
@@ -0,0 +1,242 @@
+package biweekly.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Reads UTF-8 characters from a file by memory-mapping it. The bytes are
+ * decoded directly into the caller's buffer, so no intermediate byte or
+ * character buffers are used, and runs of ASCII characters (which make up
+ * most of a typical iCalendar file) are copied with a single comparison per
+ * byte.
+ * </p>
+ * <p>
+ * Files larger than 2GB are supported. The file is mapped one region at a
+ * time, starting at the channel's current position.
+ * </p>
+ * <p>
+ * Malformed byte sequences are replaced with the Unicode replacement
+ * character (U+FFFD), as {@link Utf8Reader} does.
+ * </p>
+ * @author Michael Angstadt
+ */
+public class MappedUtf8Reader extends Reader {
+	private static final char REPLACEMENT = '\uFFFD';
+
+	private final FileChannel channel;
+	private final long regionSize;
+	private final long size;
+
+	private MappedByteBuffer buffer;
+	private long bufferStart;
+	private char pendingLowSurrogate;
+	private final char[] single = new char[1];
+
+	/**
+	 * Creates a new memory-mapped UTF-8 reader. Closing the reader closes the
+	 * channel.
+	 * @param channel the file channel to read from
+	 * @throws IOException if there's a problem getting the size or position of
+	 * the channel
+	 */
+	public MappedUtf8Reader(FileChannel channel) throws IOException {
+		this(channel, 64 * 1024 * 1024);
+	}
+
+	/**
+	 * Creates a new memory-mapped UTF-8 reader. Closing the reader closes the
+	 * channel.
+	 * @param channel the file channel to read from
+	 * @param regionSize the maximum number of bytes to map at once (must be at
+	 * least 4)
+	 * @throws IOException if there's a problem getting the size or position of
+	 * the channel
+	 */
+	MappedUtf8Reader(FileChannel channel, long regionSize) throws IOException {
+		this.channel = channel;
+		this.regionSize = regionSize;
+		size = channel.size();
+		bufferStart = channel.position();
+	}
+
+	@Override
+	public int read() throws IOException {
+		MappedByteBuffer buffer = this.buffer;
+		if (pendingLowSurrogate == 0 && buffer != null && buffer.hasRemaining()) {
+			int pos = buffer.position();
+			byte b = buffer.get(pos);
+			if (b >= 0) {
+				buffer.position(pos + 1);
+				return b;
+			}
+		}
+
+		int read = read(single, 0, 1);
+		return (read < 0) ? -1 : single[0];
+	}
+
+	@Override
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+
+		int n = off;
+		int end = off + len;
+		if (pendingLowSurrogate != 0) {
+			cbuf[n++] = pendingLowSurrogate;
+			pendingLowSurrogate = 0;
+		}
+
+		while (n < end) {
+			MappedByteBuffer buffer = this.buffer;
+			if (buffer == null || !buffer.hasRemaining()) {
+				buffer = map(bufferPosition());
+				if (buffer == null) {
+					break;
+				}
+			}
+
+			int pos = buffer.position();
+			int limit = buffer.limit();
+
+			//ASCII fast path
+			while (n < end && pos < limit) {
+				byte b = buffer.get(pos);
+				if (b < 0) {
+					break;
+				}
+				cbuf[n++] = (char) b;
+				pos++;
+			}
+
+			if (n == end || pos == limit) {
+				buffer.position(pos);
+				continue;
+			}
+
+			int b0 = buffer.get(pos) & 0xff;
+			int length, min, codePoint;
+			if (b0 >= 0xc2 && b0 <= 0xdf) {
+				length = 2;
+				min = 0x80;
+				codePoint = b0 & 0x1f;
+			} else if (b0 >= 0xe0 && b0 <= 0xef) {
+				length = 3;
+				min = 0x800;
+				codePoint = b0 & 0x0f;
+			} else if (b0 >= 0xf0 && b0 <= 0xf4) {
+				length = 4;
+				min = 0x10000;
+				codePoint = b0 & 0x07;
+			} else {
+				//stray continuation byte or invalid lead byte
+				cbuf[n++] = REPLACEMENT;
+				buffer.position(pos + 1);
+				continue;
+			}
+
+			if (limit - pos < length && bufferStart + limit < size) {
+				//the sequence crosses into the next region
+				buffer.position(pos);
+				map(bufferPosition());
+				continue;
+			}
+
+			int i = 1;
+			for (; i < length && pos + i < limit; i++) {
+				int b = buffer.get(pos + i) & 0xff;
+				if ((b & 0xc0) != 0x80) {
+					break;
+				}
+				codePoint = (codePoint << 6) | (b & 0x3f);
+			}
+
+			if (i < length || codePoint < min || codePoint > Character.MAX_CODE_POINT || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+				//skip the lead byte and the continuation bytes that were valid
+				cbuf[n++] = REPLACEMENT;
+				buffer.position(pos + i);
+				continue;
+			}
+
+			buffer.position(pos + length);
+			if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+				cbuf[n++] = (char) codePoint;
+				continue;
+			}
+
+			cbuf[n++] = (char) ((codePoint >>> 10) + (Character.MIN_HIGH_SURROGATE - (Character.MIN_SUPPLEMENTARY_CODE_POINT >>> 10)));
+			char low = (char) ((codePoint & 0x3ff) + Character.MIN_LOW_SURROGATE);
+			if (n < end) {
+				cbuf[n++] = low;
+			} else {
+				pendingLowSurrogate = low;
+			}
+		}
+
+		int read = n - off;
+		return (read == 0) ? -1 : read;
+	}
+
+	@Override
+	public boolean ready() {
+		return pendingLowSurrogate != 0 || bufferPosition() < size;
+	}
+
+	@Override
+	public void close() throws IOException {
+		buffer = null;
+		channel.close();
+	}
+
+	private long bufferPosition() {
+		return (buffer == null) ? bufferStart : bufferStart + buffer.position();
+	}
+
+	/**
+	 * Maps the next region of the file.
+	 * @param start the file position to start the region at
+	 * @return the mapped region or null if the end of the file has been
+	 * reached
+	 * @throws IOException if there's a problem mapping the file
+	 */
+	private MappedByteBuffer map(long start) throws IOException {
+		if (start >= size) {
+			return null;
+		}
+
+		long length = Math.min(regionSize, size - start);
+		buffer = channel.map(MapMode.READ_ONLY, start, length);
+		bufferStart = start;
+		return buffer;
+	}
+}
@@ -0,0 +1,557 @@
+package biweekly.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TimeZone;
+
+import biweekly.ICalendar;
+import biweekly.component.VEvent;
+import biweekly.io.TimezoneAssignment;
+import biweekly.io.TimezoneInfo;
+import biweekly.property.DateEnd;
+import biweekly.property.DateStart;
+import biweekly.property.DurationProperty;
+import biweekly.property.RecurrenceId;
+import biweekly.property.ValuedProperty;
+import biweekly.util.com.google.ical.compat.javautil.DateIterator;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Answers "what is on the calendar between T1 and T2" queries for the
+ * {@link VEvent} components of an {@link ICalendar} object.
+ * </p>
+ * <p>
+ * The recurrence rules of each event are expanded lazily, up to a "horizon".
+ * Occurrences that start before the horizon are stored in a timeline that is
+ * sorted by start date. The timeline is also split into buckets by duration
+ * (each bucket holds durations that are within a factor of two of each
+ * other), and each bucket is sorted by start date as well. A range query
+ * binary searches each bucket, only going back as far as the longest
+ * duration in that bucket. This way, a single long event does not force
+ * every query to scan the short events that start before the range. The
+ * horizon is extended automatically when a query asks for a time range that
+ * extends past it.
+ * </p>
+ * <p>
+ * Events that have a {@link RecurrenceId} property are treated as overrides of
+ * the recurring event that has the same {@link biweekly.property.Uid UID}. The
+ * instance of the recurring event that they replace is left out of the index.
+ * </p>
+ * <p>
+ * The end date of each occurrence is computed from the event's
+ * {@link DateEnd} or {@link DurationProperty} property. If neither is present,
+ * then events whose start date has a time component are treated as having a
+ * zero duration, and events whose start date does not have a time component
+ * are treated as lasting for one day (see RFC 5545 p.54).
+ * </p>
+ * <p>
+ * <b>Examples:</b>
+ * </p>
+ *
+ * <pre class="brush:java">
+ * ICalendar ical = ...
+ * OccurrenceIndex index = new OccurrenceIndex(ical);
+ * List&lt;OccurrenceIndex.Occurrence&gt; occurrences = index.getOccurrences(from, to);
+ * </pre>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ * @author Michael Angstadt
+ */
+public class OccurrenceIndex {
+	private static final long ONE_DAY = 1000L * 60 * 60 * 24;
+
+	/**
+	 * The events whose occurrences have not been fully added to the timeline
+	 * yet, sorted by the start date of their next occurrence.
+	 */
+	private final PriorityQueue<Series> pending = new PriorityQueue<Series>();
+
+	/**
+	 * The occurrences in the timeline, sorted by start date.
+	 */
+	private final List<Occurrence> timeline = new ArrayList<Occurrence>();
+
+	/**
+	 * The timeline, split up by duration. The bucket at index "n" holds the
+	 * occurrences whose duration in milliseconds has a bit length of "n" (see
+	 * {@link #bucketIndex}).
+	 */
+	private final Bucket[] buckets = new Bucket[65];
+
+	private long horizon = Long.MIN_VALUE;
+
+	/**
+	 * Creates an index of the events in the given iCalendar object. No
+	 * recurrence rules are expanded until the index is first queried.
+	 * @param ical the iCalendar object
+	 */
+	public OccurrenceIndex(ICalendar ical) {
+		this(ical.getEvents(), ical.getTimezoneInfo());
+	}
+
+	/**
+	 * Creates an index of the events in the given iCalendar object.
+	 * @param ical the iCalendar object
+	 * @param horizon the date up to which recurrence rules are expanded
+	 * immediately
+	 */
+	public OccurrenceIndex(ICalendar ical, Date horizon) {
+		this(ical);
+		extendHorizon(horizon);
+	}
+
+	/**
+	 * Creates an index of the given events.
+	 * @param events the events
+	 * @param tzinfo the timezone information that was generated when the
+	 * events were parsed (used to determine the timezone to expand each event's
+	 * recurrence rule in)
+	 */
+	public OccurrenceIndex(List<VEvent> events, TimezoneInfo tzinfo) {
+		/*
+		 * Group the overrides (events with a RECURRENCE-ID property) by UID.
+		 */
+		Map<String, Set<Long>> overriddenDates = new HashMap<String, Set<Long>>();
+		for (VEvent event : events) {
+			String uid = ValuedProperty.getValue(event.getUid());
+			ICalDate recurrenceId = ValuedProperty.getValue(event.getRecurrenceId());
+			if (uid == null || recurrenceId == null) {
+				continue;
+			}
+
+			Set<Long> dates = overriddenDates.get(uid);
+			if (dates == null) {
+				dates = new HashSet<Long>();
+				overriddenDates.put(uid, dates);
+			}
+			dates.add(recurrenceId.getTime());
+		}
+
+		for (VEvent event : events) {
+			DateStart dtstart = event.getDateStart();
+			ICalDate start = ValuedProperty.getValue(dtstart);
+			if (start == null) {
+				continue;
+			}
+
+			boolean override = (event.getRecurrenceId() != null);
+			DateIterator it;
+			Set<Long> skip;
+			if (override) {
+				it = null;
+				skip = Collections.emptySet();
+			} else {
+				it = Google2445Utils.getDateIterator(event, getTimezone(dtstart, tzinfo));
+
+				String uid = ValuedProperty.getValue(event.getUid());
+				skip = (uid == null) ? null : overriddenDates.get(uid);
+				if (skip == null) {
+					skip = Collections.emptySet();
+				}
+			}
+
+			Series series = new Series(event, start, it, skip);
+			if (series.advance()) {
+				pending.add(series);
+			}
+		}
+	}
+
+	/**
+	 * Gets the occurrences that overlap the given time range. The horizon is
+	 * extended if necessary.
+	 * @param from the start of the range (inclusive)
+	 * @param to the end of the range (exclusive)
+	 * @return the occurrences, sorted by start date (this list is immutable)
+	 */
+	public List<Occurrence> getOccurrences(Date from, Date to) {
+		long fromMillis = from.getTime();
+		long toMillis = to.getTime();
+		if (toMillis <= fromMillis) {
+			return Collections.emptyList();
+		}
+
+		extendHorizon(toMillis);
+
+		int[] found = new int[16];
+		int count = 0;
+		for (Bucket bucket : buckets) {
+			if (bucket == null) {
+				continue;
+			}
+
+			/*
+			 * Only occurrences that start less than "maxDuration" milliseconds
+			 * before the range can overlap with it.
+			 */
+			long lowerBound = (fromMillis < Long.MIN_VALUE + bucket.maxDuration) ? Long.MIN_VALUE : fromMillis - bucket.maxDuration;
+			for (int i = bucket.firstIndexAtOrAfter(lowerBound); i < bucket.size && bucket.starts[i] < toMillis; i++) {
+				int position = bucket.positions[i];
+				if (timeline.get(position).overlaps(fromMillis, toMillis)) {
+					if (count == found.length) {
+						found = Arrays.copyOf(found, count * 2);
+					}
+					found[count++] = position;
+				}
+			}
+		}
+
+		//put the occurrences back in timeline order
+		Arrays.sort(found, 0, count);
+		List<Occurrence> occurrences = new ArrayList<Occurrence>(count);
+		for (int i = 0; i < count; i++) {
+			occurrences.add(timeline.get(found[i]));
+		}
+		return Collections.unmodifiableList(occurrences);
+	}
+
+	/**
+	 * Gets the date up to which the recurrence rules have been expanded.
+	 * @return the horizon or null if nothing has been expanded yet
+	 */
+	public Date getHorizon() {
+		return (horizon == Long.MIN_VALUE) ? null : new Date(horizon);
+	}
+
+	/**
+	 * Expands the recurrence rules up to the given date. Has no effect if the
+	 * horizon is already past the given date.
+	 * @param horizon the new horizon
+	 */
+	public void extendHorizon(Date horizon) {
+		extendHorizon(horizon.getTime());
+	}
+
+	/**
+	 * Gets the number of occurrences that have been expanded so far.
+	 * @return the number of occurrences
+	 */
+	public int size() {
+		return timeline.size();
+	}
+
+	private void extendHorizon(long newHorizon) {
+		if (newHorizon <= horizon) {
+			return;
+		}
+
+		/*
+		 * The occurrences added here always start at or after the old horizon,
+		 * and all the occurrences already in the timeline start before it, so
+		 * they can simply be appended to the end of the timeline.
+		 */
+		Series series;
+		while ((series = pending.peek()) != null && series.nextStart < newHorizon) {
+			pending.poll();
+			add(series.createOccurrence());
+			if (series.advance()) {
+				pending.add(series);
+			}
+		}
+
+		horizon = newHorizon;
+	}
+
+	private void add(Occurrence occurrence) {
+		long start = occurrence.start.getTime();
+		long duration = occurrence.end.getTime() - start;
+
+		int index = bucketIndex(duration);
+		Bucket bucket = buckets[index];
+		if (bucket == null) {
+			bucket = buckets[index] = new Bucket();
+		}
+		bucket.add(start, duration, timeline.size());
+
+		timeline.add(occurrence);
+	}
+
+	/**
+	 * Determines which bucket an occurrence belongs in. Durations in the same
+	 * bucket are within a factor of two of each other.
+	 * @param duration the duration of the occurrence in milliseconds
+	 * @return the bucket index
+	 */
+	private static int bucketIndex(long duration) {
+		return 64 - Long.numberOfLeadingZeros(Math.max(0, duration));
+	}
+
+	/**
+	 * Determines the timezone to expand a recurrence rule in.
+	 * @param dtstart the start date property
+	 * @param tzinfo the timezone info
+	 * @return the timezone
+	 */
+	private static TimeZone getTimezone(DateStart dtstart, TimezoneInfo tzinfo) {
+		if (tzinfo != null) {
+			TimezoneAssignment assignment = tzinfo.getTimezone(dtstart);
+			if (assignment != null) {
+				return assignment.getTimeZone();
+			}
+			if (tzinfo.isFloating(dtstart)) {
+				return TimeZone.getDefault();
+			}
+		}
+		return TimeZone.getTimeZone("UTC");
+	}
+
+	/**
+	 * The occurrences in the timeline whose durations fall in the same range.
+	 */
+	private static class Bucket {
+		/**
+		 * The start dates of the occurrences (sorted), used for binary
+		 * searching.
+		 */
+		private long[] starts = new long[16];
+
+		/**
+		 * The positions of the occurrences in the timeline (same order as
+		 * {@link #starts}).
+		 */
+		private int[] positions = new int[16];
+
+		private int size = 0;
+
+		/**
+		 * The longest duration of all the occurrences in this bucket. Used to
+		 * find occurrences that start before the query range, but that end
+		 * inside of it.
+		 */
+		private long maxDuration = 0;
+
+		public void add(long start, long duration, int position) {
+			if (size == starts.length) {
+				starts = Arrays.copyOf(starts, size * 2);
+				positions = Arrays.copyOf(positions, size * 2);
+			}
+			starts[size] = start;
+			positions[size] = position;
+			size++;
+
+			if (duration > maxDuration) {
+				maxDuration = duration;
+			}
+		}
+
+		/**
+		 * Finds the index of the first occurrence that starts at or after the
+		 * given date.
+		 * @param millis the date
+		 * @return the index
+		 */
+		public int firstIndexAtOrAfter(long millis) {
+			int low = 0;
+			int high = size;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (starts[mid] < millis) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+	}
+
+	/**
+	 * Represents a single occurrence of an event.
+	 */
+	public static class Occurrence {
+		private final VEvent event;
+		private final ICalDate start;
+		private final ICalDate end;
+
+		private Occurrence(VEvent event, ICalDate start, ICalDate end) {
+			this.event = event;
+			this.start = start;
+			this.end = end;
+		}
+
+		/**
+		 * Gets the event this is an occurrence of. If the occurrence was
+		 * overridden, this will be the overriding event (the one with the
+		 * {@link RecurrenceId} property).
+		 * @return the event
+		 */
+		public VEvent getEvent() {
+			return event;
+		}
+
+		/**
+		 * Gets the start date of the occurrence.
+		 * @return the start date
+		 */
+		public ICalDate getStart() {
+			return start;
+		}
+
+		/**
+		 * Gets the end date of the occurrence.
+		 * @return the end date
+		 */
+		public ICalDate getEnd() {
+			return end;
+		}
+
+		/**
+		 * Determines whether this occurrence overrides an instance of a
+		 * recurring event.
+		 * @return true if this occurrence came from an event with a
+		 * {@link RecurrenceId} property, false if not
+		 */
+		public boolean isOverride() {
+			return event.getRecurrenceId() != null;
+		}
+
+		private boolean overlaps(long from, long to) {
+			long s = start.getTime();
+			long e = end.getTime();
+			if (s == e) {
+				//zero-length occurrences overlap the range if they start inside of it
+				return s >= from && s < to;
+			}
+			return s < to && e > from;
+		}
+
+		@Override
+		public String toString() {
+			return "Occurrence [start=" + start + ", end=" + end + ", uid=" + ValuedProperty.getValue(event.getUid()) + "]";
+		}
+	}
+
+	/**
+	 * The occurrences of a single event that have not been added to the
+	 * timeline yet.
+	 */
+	private static class Series implements Comparable<Series> {
+		private final VEvent event;
+		private final ICalDate start;
+		private final DateIterator it;
+		private final Set<Long> skip;
+		private final long durationMillis;
+		private final Duration duration;
+		private boolean consumed = false;
+
+		private long nextStart;
+
+		/**
+		 * @param event the event
+		 * @param start the event's start date
+		 * @param it the event's recurrence iterator or null if the event only
+		 * has a single occurrence
+		 * @param skip the dates of the occurrences that are overridden by other
+		 * events
+		 */
+		public Series(VEvent event, ICalDate start, DateIterator it, Set<Long> skip) {
+			this.event = event;
+			this.start = start;
+			this.it = it;
+			this.skip = skip;
+
+			DurationProperty durationProperty = event.getDuration();
+			Duration duration = ValuedProperty.getValue(durationProperty);
+			ICalDate end = ValuedProperty.getValue(event.getDateEnd());
+
+			if (start.hasTime()) {
+				durationMillis = (end == null) ? 0 : Math.max(0, end.getTime() - start.getTime());
+			} else {
+				/*
+				 * Dates without time components are added to using a Calendar
+				 * so that days that are 23 or 25 hours long (due to daylight
+				 * savings time) are handled correctly.
+				 */
+				durationMillis = 0;
+				if (end != null) {
+					int days = (int) Math.round((end.getTime() - start.getTime()) / (double) ONE_DAY);
+					duration = Duration.builder().days(Math.max(0, days)).build();
+				} else if (duration == null) {
+					duration = Duration.builder().days(1).build();
+				}
+			}
+			this.duration = duration;
+		}
+
+		/**
+		 * Moves to the next occurrence.
+		 * @return true if there is another occurrence, false if not
+		 */
+		public boolean advance() {
+			if (it == null) {
+				if (consumed) {
+					return false;
+				}
+				consumed = true;
+				nextStart = start.getTime();
+				return true;
+			}
+
+			while (it.hasNext()) {
+				long next = it.next().getTime();
+				if (!skip.contains(next)) {
+					nextStart = next;
+					return true;
+				}
+			}
+			return false;
+		}
+
+		public Occurrence createOccurrence() {
+			ICalDate occurrenceStart = new ICalDate(new Date(nextStart), start.hasTime());
+
+			Date end;
+			if (duration != null) {
+				end = duration.add(occurrenceStart);
+				if (end.before(occurrenceStart)) {
+					end = occurrenceStart;
+				}
+			} else {
+				end = new Date(nextStart + durationMillis);
+			}
+			ICalDate occurrenceEnd = new ICalDate(end, start.hasTime());
+
+			return new Occurrence(event, occurrenceStart, occurrenceEnd);
+		}
+
+		public int compareTo(Series that) {
+			if (nextStart < that.nextStart) return -1;
+			if (nextStart > that.nextStart) return 1;
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,322 @@
+package biweekly.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Encodes characters in UTF-8 directly into a growable byte array. No
+ * intermediate character or byte buffers are used.
+ * </p>
+ * <p>
+ * The bytes can either be retrieved with {@link #toByteBuffer} (which does not
+ * copy them) and the writer reused by calling {@link #reset}, or they can be
+ * written to a {@link WritableByteChannel} whenever the buffer fills up and
+ * when {@link #flush} is called.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ *
+ * <pre class="brush:java">
+ * Utf8BufferWriter buffer = new Utf8BufferWriter();
+ * for (ICalendar ical : icals) {
+ *   buffer.reset();
+ *   ICalWriter writer = new ICalWriter(buffer, ICalVersion.V2_0);
+ *   writer.write(ical);
+ *   writer.flush();
+ *   ByteBuffer bytes = buffer.toByteBuffer();
+ *   //...
+ * }
+ * </pre>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ * @author Michael Angstadt
+ */
+public class Utf8BufferWriter extends Writer {
+	private static final byte REPLACEMENT = '?';
+
+	private final WritableByteChannel channel;
+	private byte[] buffer;
+	private int count;
+	private char pendingHighSurrogate;
+
+	/**
+	 * Creates a new writer with an initial capacity of 8KB.
+	 */
+	public Utf8BufferWriter() {
+		this(8192);
+	}
+
+	/**
+	 * Creates a new writer.
+	 * @param initialCapacity the initial size of the byte buffer
+	 */
+	public Utf8BufferWriter(int initialCapacity) {
+		this(null, initialCapacity);
+	}
+
+	/**
+	 * Creates a new writer that writes to a channel. The buffer is written to
+	 * the channel whenever it fills up and when {@link #flush} is called.
+	 * Closing the writer closes the channel.
+	 * @param channel the channel to write to
+	 */
+	public Utf8BufferWriter(WritableByteChannel channel) {
+		this(channel, 8192);
+	}
+
+	/**
+	 * Creates a new writer that writes to a channel. The buffer is written to
+	 * the channel whenever it fills up and when {@link #flush} is called.
+	 * Closing the writer closes the channel.
+	 * @param channel the channel to write to
+	 * @param capacity the size of the byte buffer (must be at least 4)
+	 */
+	public Utf8BufferWriter(WritableByteChannel channel, int capacity) {
+		this.channel = channel;
+		buffer = new byte[Math.max(capacity, 4)];
+	}
+
+	@Override
+	public void write(int c) throws IOException {
+		reserve(1);
+		encode((char) c);
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		int end = off + len;
+		while (off < end) {
+			int chunk = reserve(end - off);
+			int chunkEnd = off + chunk;
+
+			//ASCII fast path
+			byte[] buffer = this.buffer;
+			int count = this.count;
+			if (pendingHighSurrogate == 0) {
+				while (off < chunkEnd) {
+					char c = cbuf[off];
+					if (c >= 0x80) {
+						break;
+					}
+					buffer[count++] = (byte) c;
+					off++;
+				}
+			}
+			this.count = count;
+
+			while (off < chunkEnd) {
+				encode(cbuf[off++]);
+			}
+		}
+	}
+
+	@Override
+	public void write(String str, int off, int len) throws IOException {
+		int end = off + len;
+		while (off < end) {
+			int chunk = reserve(end - off);
+			int chunkEnd = off + chunk;
+
+			//ASCII fast path
+			byte[] buffer = this.buffer;
+			int count = this.count;
+			if (pendingHighSurrogate == 0) {
+				while (off < chunkEnd) {
+					char c = str.charAt(off);
+					if (c >= 0x80) {
+						break;
+					}
+					buffer[count++] = (byte) c;
+					off++;
+				}
+			}
+			this.count = count;
+
+			while (off < chunkEnd) {
+				encode(str.charAt(off++));
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of bytes in the buffer.
+	 * @return the number of bytes
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Gets the contents of the buffer without copying them. The returned
+	 * buffer is only valid until the next time this writer is written to or
+	 * reset.
+	 * @return the contents of the buffer
+	 */
+	public ByteBuffer toByteBuffer() {
+		return ByteBuffer.wrap(buffer, 0, count).slice();
+	}
+
+	/**
+	 * Gets a copy of the contents of the buffer.
+	 * @return the contents of the buffer
+	 */
+	public byte[] toByteArray() {
+		byte[] copy = new byte[count];
+		System.arraycopy(buffer, 0, copy, 0, count);
+		return copy;
+	}
+
+	/**
+	 * Empties the buffer so that the writer can be reused. The buffer's
+	 * capacity is retained.
+	 */
+	public void reset() {
+		count = 0;
+		pendingHighSurrogate = 0;
+	}
+
+	/**
+	 * Writes the contents of the buffer to the channel, if this writer has
+	 * one.
+	 * @throws IOException if there's a problem writing to the channel
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (channel == null) {
+			return;
+		}
+
+		ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, count);
+		while (bytes.hasRemaining()) {
+			channel.write(bytes);
+		}
+		count = 0;
+	}
+
+	/**
+	 * Flushes the writer and closes the channel, if this writer has one.
+	 * @throws IOException if there's a problem writing to or closing the
+	 * channel
+	 */
+	@Override
+	public void close() throws IOException {
+		if (pendingHighSurrogate != 0) {
+			reserve(1);
+			buffer[count++] = REPLACEMENT;
+			pendingHighSurrogate = 0;
+		}
+
+		if (channel != null) {
+			flush();
+			channel.close();
+		}
+	}
+
+	/**
+	 * Makes room in the buffer for some characters. If the writer has a
+	 * channel, the buffer is flushed when it is full. Otherwise, the buffer is
+	 * enlarged.
+	 * @param chars the number of characters that will be written
+	 * @return the number of characters that there is guaranteed room for
+	 * (always at least 1)
+	 * @throws IOException if there's a problem flushing the buffer
+	 */
+	private int reserve(int chars) throws IOException {
+		/*
+		 * Each char takes up at most 3 bytes (surrogate pairs take up 4 bytes
+		 * for 2 chars), plus 1 byte in case a surrogate pair that was started
+		 * in a previous call turns out to be unpaired.
+		 */
+		int free = buffer.length - count;
+		if (free > chars * 3L) {
+			return chars;
+		}
+
+		if (channel != null) {
+			flush();
+			return Math.min(chars, (buffer.length - 1) / 3);
+		}
+
+		long needed = count + chars * 3L + 1;
+		int newLength = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(needed, buffer.length * 2L));
+		byte[] newBuffer = new byte[newLength];
+		System.arraycopy(buffer, 0, newBuffer, 0, count);
+		buffer = newBuffer;
+		return Math.min(chars, Math.max(1, (newLength - count - 1) / 3));
+	}
+
+	/**
+	 * Encodes a single character. There must be at least 4 bytes of free
+	 * space in the buffer.
+	 * @param c the character
+	 */
+	private void encode(char c) {
+		byte[] buffer = this.buffer;
+		int count = this.count;
+
+		if (pendingHighSurrogate != 0) {
+			char high = pendingHighSurrogate;
+			pendingHighSurrogate = 0;
+			if (Character.isLowSurrogate(c)) {
+				int codePoint = Character.toCodePoint(high, c);
+				buffer[count++] = (byte) (0xf0 | (codePoint >> 18));
+				buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+				buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+				buffer[count++] = (byte) (0x80 | (codePoint & 0x3f));
+				this.count = count;
+				return;
+			}
+
+			//unpaired high surrogate
+			buffer[count++] = REPLACEMENT;
+		}
+
+		if (c < 0x80) {
+			buffer[count++] = (byte) c;
+		} else if (c < 0x800) {
+			buffer[count++] = (byte) (0xc0 | (c >> 6));
+			buffer[count++] = (byte) (0x80 | (c & 0x3f));
+		} else if (Character.isHighSurrogate(c)) {
+			pendingHighSurrogate = c;
+		} else if (Character.isLowSurrogate(c)) {
+			//unpaired low surrogate
+			buffer[count++] = REPLACEMENT;
+		} else {
+			buffer[count++] = (byte) (0xe0 | (c >> 12));
+			buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+			buffer[count++] = (byte) (0x80 | (c & 0x3f));
+		}
+
+		this.count = count;
+	}
+}
@@ -40,22 +40,27 @@
 package biweekly.util.com.google.ical.iter;
 
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.NoSuchElementException;
-import java.util.PriorityQueue;
 
 import biweekly.util.com.google.ical.values.DateValue;
 
 /**
  * A recurrence iterator that combines multiple recurrence iterators into one.
+ * The iterators are merged using a binary heap that is ordered by the packed
+ * form of each iterator's next date (see {@link PackedDateValue}).
  * @author mikesamuel+svn@gmail.com (Mike Samuel)
  * @author Michael Angstadt
  */
-final class CompoundIteratorImpl implements RecurrenceIterator {
+final class CompoundIteratorImpl implements PackedRecurrenceIterator {
 	/**
-	 * A queue that keeps the earliest dates at the head.
+	 * A binary heap that keeps the earliest dates at the head.
 	 */
-	private final PriorityQueue<HeapElement> queue;
+	private final HeapElement[] queue;
+
+	/**
+	 * The number of elements in the heap.
+	 */
+	private int queueSize;
 
 	private HeapElement pending;
 
@@ -75,18 +80,18 @@ final class CompoundIteratorImpl implements RecurrenceIterator {
 	 * @param exclusions iterators whose elements should not be included
 	 */
 	CompoundIteratorImpl(Collection<RecurrenceIterator> inclusions, Collection<RecurrenceIterator> exclusions) {
-		queue = new PriorityQueue<HeapElement>(inclusions.size() + exclusions.size(), HeapElement.CMP);
+		queue = new HeapElement[inclusions.size() + exclusions.size()];
 		for (RecurrenceIterator it : inclusions) {
 			HeapElement el = new HeapElement(true, it);
 			if (el.shift()) {
-				queue.add(el);
+				add(el);
 				++nInclusionsRemaining;
 			}
 		}
 		for (RecurrenceIterator it : exclusions) {
 			HeapElement el = new HeapElement(false, it);
 			if (el.shift()) {
-				queue.add(el);
+				add(el);
 			}
 		}
 	}
@@ -107,17 +112,31 @@ final class CompoundIteratorImpl implements RecurrenceIterator {
 		return head;
 	}
 
+	public long nextPacked() {
+		requirePending();
+		if (pending == null) {
+			return PackedDateValue.NONE;
+		}
+		long head = pending.comparable();
+		reattach(pending);
+		pending = null;
+		return head;
+	}
+
 	public void remove() {
 		throw new UnsupportedOperationException();
 	}
 
 	public void advanceTo(DateValue newStart) {
-		long newStartCmp = DateValueComparison.comparable(newStart);
+		advanceTo(DateValueComparison.comparable(newStart));
+	}
+
+	public void advanceTo(long newStartCmp) {
 		if (pending != null) {
 			if (pending.comparable() >= newStartCmp) {
 				return;
 			}
-			pending.advanceTo(newStart);
+			pending.advanceTo(newStartCmp);
 			reattach(pending);
 			pending = null;
 		}
@@ -126,9 +145,9 @@ final class CompoundIteratorImpl implements RecurrenceIterator {
 		 * Pull each element off the stack in turn, and advance it. Once we
 		 * reach one we don't need to advance, we're done.
 		 */
-		while (nInclusionsRemaining != 0 && !queue.isEmpty() && queue.peek().comparable() < newStartCmp) {
-			HeapElement el = queue.poll();
-			el.advanceTo(newStart);
+		while (nInclusionsRemaining != 0 && queueSize > 0 && queue[0].comparable() < newStartCmp) {
+			HeapElement el = poll();
+			el.advanceTo(newStartCmp);
 			reattach(el);
 		}
 	}
@@ -140,14 +159,14 @@ final class CompoundIteratorImpl implements RecurrenceIterator {
 	 */
 	private void reattach(HeapElement el) {
 		if (el.shift()) {
-			queue.add(el);
+			add(el);
 		} else if (el.inclusion) {
 			/*
 			 * If we have no live inclusions, then the rest are exclusions which
 			 * we can safely discard.
 			 */
 			if (--nInclusionsRemaining == 0) {
-				queue.clear();
+				clear();
 			}
 		}
 	}
@@ -162,11 +181,11 @@ final class CompoundIteratorImpl implements RecurrenceIterator {
 		}
 
 		long exclusionComparable = Long.MIN_VALUE;
-		while (nInclusionsRemaining != 0 && !queue.isEmpty()) {
+		while (nInclusionsRemaining != 0 && queueSize > 0) {
 			//find a candidate that is not excluded
 			HeapElement inclusion = null;
 			do {
-				HeapElement candidate = queue.poll();
+				HeapElement candidate = poll();
 				if (candidate.inclusion) {
 					if (exclusionComparable != candidate.comparable()) {
 						inclusion = candidate;
@@ -179,7 +198,7 @@ final class CompoundIteratorImpl implements RecurrenceIterator {
 				if (nInclusionsRemaining == 0) {
 					return;
 				}
-			} while (!queue.isEmpty());
+			} while (queueSize > 0);
 			if (inclusion == null) {
 				return;
 			}
@@ -192,8 +211,8 @@ final class CompoundIteratorImpl implements RecurrenceIterator {
 			 * ordering different than the comparable value.
 			 */
 			boolean excluded = exclusionComparable == inclusionComparable;
-			while (!queue.isEmpty() && queue.peek().comparable() == inclusionComparable) {
-				HeapElement match = queue.poll();
+			while (queueSize > 0 && queue[0].comparable() == inclusionComparable) {
+				HeapElement match = poll();
 				excluded |= !match.inclusion;
 				reattach(match);
 				if (nInclusionsRemaining == 0) {
@@ -207,6 +226,64 @@ final class CompoundIteratorImpl implements RecurrenceIterator {
 			reattach(inclusion);
 		}
 	}
+
+	/**
+	 * Adds an element to the heap.
+	 * @param el the element
+	 */
+	private void add(HeapElement el) {
+		long comparable = el.comparable();
+		int i = queueSize++;
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			HeapElement p = queue[parent];
+			if (p.comparable() <= comparable) {
+				break;
+			}
+			queue[i] = p;
+			i = parent;
+		}
+		queue[i] = el;
+	}
+
+	/**
+	 * Removes the element with the earliest date from the heap.
+	 * @return the element
+	 */
+	private HeapElement poll() {
+		HeapElement head = queue[0];
+		HeapElement last = queue[--queueSize];
+		queue[queueSize] = null;
+		if (queueSize > 0) {
+			long comparable = last.comparable();
+			int i = 0;
+			int half = queueSize >>> 1;
+			while (i < half) {
+				int child = (i << 1) + 1;
+				int right = child + 1;
+				if (right < queueSize && queue[right].comparable() < queue[child].comparable()) {
+					child = right;
+				}
+				if (comparable <= queue[child].comparable()) {
+					break;
+				}
+				queue[i] = queue[child];
+				i = child;
+			}
+			queue[i] = last;
+		}
+		return head;
+	}
+
+	/**
+	 * Removes all elements from the heap.
+	 */
+	private void clear() {
+		for (int i = 0; i < queueSize; i++) {
+			queue[i] = null;
+		}
+		queueSize = 0;
+	}
 }
 
 final class HeapElement {
@@ -219,25 +296,33 @@ final class HeapElement {
 	private final RecurrenceIterator it;
 
 	/**
-	 * The {@link DateValueComparison#comparable} for {@link #head}.
+	 * The iterator, if it supports packed dates.
+	 */
+	private final PackedRecurrenceIterator packedIt;
+
+	/**
+	 * The {@link DateValueComparison#comparable} for the head (this is also
+	 * the head's packed form).
 	 */
 	private long comparable;
 
 	/**
-	 * The last value removed from the iterator (in UTC).
+	 * The last value removed from the iterator (in UTC). This is only set if
+	 * the iterator does not support packed dates.
 	 */
 	private DateValue head;
 
 	HeapElement(boolean inclusion, RecurrenceIterator it) {
 		this.inclusion = inclusion;
 		this.it = it;
+		packedIt = (it instanceof PackedRecurrenceIterator) ? (PackedRecurrenceIterator) it : null;
 	}
 
 	/**
 	 * Gets the last value removed from the iterator.
 	 */
 	DateValue head() {
-		return head;
+		return (packedIt == null) ? head : PackedDateValue.toDateValue(comparable);
 	}
 
 	/**
@@ -258,32 +343,30 @@ final class HeapElement {
 		if (!it.hasNext()) {
 			return false;
 		}
-		head = it.next();
-		comparable = DateValueComparison.comparable(head);
+		if (packedIt == null) {
+			head = it.next();
+			comparable = DateValueComparison.comparable(head);
+		} else {
+			comparable = packedIt.nextPacked();
+		}
 		return true;
 	}
 
 	/**
 	 * Advances the underlying iterator to the given date value.
-	 * @param newStartUtc the date to advance to (in UTC)
+	 * @param newStartUtc the packed date to advance to (in UTC)
 	 * @see RecurrenceIterator#advanceTo
 	 */
-	void advanceTo(DateValue newStartUtc) {
-		it.advanceTo(newStartUtc);
+	void advanceTo(long newStartUtc) {
+		if (packedIt == null) {
+			it.advanceTo(PackedDateValue.toDateValue(newStartUtc));
+		} else {
+			packedIt.advanceTo(newStartUtc);
+		}
 	}
 
 	@Override
 	public String toString() {
-		return "[" + head.toString() + ", " + (inclusion ? "inclusion" : "exclusion") + "]";
+		return "[" + head() + ", " + (inclusion ? "inclusion" : "exclusion") + "]";
 	}
-
-	/**
-	 * Compares two heap elements by comparing their heads.
-	 */
-	static final Comparator<HeapElement> CMP = new Comparator<HeapElement>() {
-		public int compare(HeapElement a, HeapElement b) {
-			long ac = a.comparable(), bc = b.comparable();
-			return ac < bc ? -1 : ac == bc ? 0 : 1;
-		}
-	};
 }
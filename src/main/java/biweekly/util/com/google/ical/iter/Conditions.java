@@ -39,7 +39,6 @@
 
 package biweekly.util.com.google.ical.iter;
 
-import biweekly.util.com.google.ical.util.Predicate;
 import biweekly.util.com.google.ical.values.DateValue;
 
 /**
@@ -54,12 +53,13 @@ final class Conditions {
 	 * @param count the number of dates to count before the condition fails
 	 * @return the condition
 	 */
-	static Predicate<DateValue> countCondition(final int count) {
-		return new Predicate<DateValue>() {
+	static DatePredicate countCondition(final int count) {
+		return new DatePredicate() {
 			private static final long serialVersionUID = -3770774958208833665L;
 			int count_ = count;
 
-			public boolean apply(DateValue value) {
+			@Override
+			boolean apply(long value) {
 				return --count_ >= 0;
 			}
 
@@ -76,12 +76,14 @@ final class Conditions {
 	 * @param until the date
 	 * @return the condition
 	 */
-	static Predicate<DateValue> untilCondition(final DateValue until) {
-		return new Predicate<DateValue>() {
+	static DatePredicate untilCondition(final DateValue until) {
+		return new DatePredicate() {
 			private static final long serialVersionUID = -130394842437801858L;
+			private final long untilPacked = PackedDateValue.pack(until);
 
-			public boolean apply(DateValue date) {
-				return date.compareTo(until) <= 0;
+			@Override
+			boolean apply(long date) {
+				return date <= untilPacked;
 			}
 
 			@Override
@@ -0,0 +1,111 @@
+package biweekly.util.com.google.ical.iter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import biweekly.util.com.google.ical.util.Predicate;
+import biweekly.util.com.google.ical.values.DateValue;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * A predicate that operates on dates that have been packed into longs (see
+ * {@link PackedDateValue}). This lets filters and conditions be applied to
+ * every generated instance without creating {@link DateValue} objects.
+ * @author Michael Angstadt
+ */
+abstract class DatePredicate implements Predicate<DateValue> {
+	private static final long serialVersionUID = -2409236418262617423L;
+
+	/**
+	 * Applies this predicate to a packed date.
+	 * @param date the packed date
+	 * @return the value of this predicate when applied to the date
+	 */
+	abstract boolean apply(long date);
+
+	public final boolean apply(DateValue date) {
+		return apply(PackedDateValue.pack(date));
+	}
+
+	/**
+	 * Gets a predicate that always returns true.
+	 * @return the predicate
+	 */
+	static DatePredicate alwaysTrue() {
+		return ALWAYS_TRUE;
+	}
+
+	private static final DatePredicate ALWAYS_TRUE = new DatePredicate() {
+		private static final long serialVersionUID = 4693294591757312432L;
+
+		@Override
+		boolean apply(long date) {
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			return "true";
+		}
+	};
+
+	/**
+	 * Combines multiple predicates into one using a logical AND.
+	 * @param predicates the predicates to combine
+	 * @return the combined predicate
+	 */
+	static DatePredicate and(List<DatePredicate> predicates) {
+		List<DatePredicate> components = new ArrayList<DatePredicate>(predicates.size());
+		for (DatePredicate predicate : predicates) {
+			if (predicate != ALWAYS_TRUE) {
+				components.add(predicate);
+			}
+		}
+
+		switch (components.size()) {
+		case 0:
+			return ALWAYS_TRUE;
+		case 1:
+			return components.get(0);
+		}
+
+		final DatePredicate[] array = components.toArray(new DatePredicate[components.size()]);
+		return new DatePredicate() {
+			private static final long serialVersionUID = -6093016101853612591L;
+
+			@Override
+			boolean apply(long date) {
+				for (DatePredicate predicate : array) {
+					if (!predicate.apply(date)) {
+						return false;
+					}
+				}
+				return true;
+			}
+		};
+	}
+}
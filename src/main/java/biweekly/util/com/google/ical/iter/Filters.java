@@ -42,11 +42,8 @@ package biweekly.util.com.google.ical.iter;
 import biweekly.util.ByDay;
 import biweekly.util.DayOfWeek;
 import biweekly.util.com.google.ical.util.DTBuilder;
-import biweekly.util.com.google.ical.util.Predicate;
-import biweekly.util.com.google.ical.util.Predicates;
 import biweekly.util.com.google.ical.util.TimeUtils;
 import biweekly.util.com.google.ical.values.DateValue;
-import biweekly.util.com.google.ical.values.TimeValue;
 
 /**
  * <p>
@@ -65,6 +62,8 @@ import biweekly.util.com.google.ical.values.TimeValue;
  * </p>
  * <p>
  * A filter returns true to indicate the item is included in the recurrence.
+ * Filters operate on packed dates (see {@link PackedDateValue}) so that they
+ * can be applied to every generated instance without creating any objects.
  * </p>
  * @author mikesamuel+svn@gmail.com (Mike Samuel)
  * @author Michael Angstadt
@@ -78,12 +77,16 @@ class Filters {
 	 * @param weekStart the day of the week that the week starts on
 	 * @return the filter
 	 */
-	static Predicate<DateValue> byDayFilter(final ByDay[] days, final boolean weeksInYear, final DayOfWeek weekStart) {
-		return new Predicate<DateValue>() {
+	static DatePredicate byDayFilter(final ByDay[] days, final boolean weeksInYear, final DayOfWeek weekStart) {
+		return new DatePredicate() {
 			private static final long serialVersionUID = 1636822853835207274L;
 
-			public boolean apply(DateValue date) {
-				DayOfWeek dow = TimeUtils.dayOfWeek(date);
+			@Override
+			boolean apply(long date) {
+				int year = PackedDateValue.year(date);
+				int month = PackedDateValue.month(date);
+				int day = PackedDateValue.day(date);
+				DayOfWeek dow = TimeUtils.dayOfWeek(year, month, day);
 				int nDays;
 				DayOfWeek firstDayOfWeek;
 
@@ -91,13 +94,13 @@ class Filters {
 				//in [0, lengthOfMonthOrYear - 1]
 				int instance;
 				if (weeksInYear) {
-					nDays = TimeUtils.yearLength(date.year());
-					firstDayOfWeek = TimeUtils.firstDayOfWeekInMonth(date.year(), 1);
-					instance = TimeUtils.dayOfYear(date.year(), date.month(), date.day());
+					nDays = TimeUtils.yearLength(year);
+					firstDayOfWeek = TimeUtils.firstDayOfWeekInMonth(year, 1);
+					instance = TimeUtils.dayOfYear(year, month, day);
 				} else {
-					nDays = TimeUtils.monthLength(date.year(), date.month());
-					firstDayOfWeek = TimeUtils.firstDayOfWeekInMonth(date.year(), date.month());
-					instance = date.day() - 1;
+					nDays = TimeUtils.monthLength(year, month);
+					firstDayOfWeek = TimeUtils.firstDayOfWeekInMonth(year, month);
+					instance = day - 1;
 				}
 
 				//which week of the year or month does this date fall on?
@@ -121,16 +124,17 @@ class Filters {
 				 */
 
 				for (int i = days.length - 1; i >= 0; i--) {
-					ByDay day = days[i];
+					ByDay byDay = days[i];
 
-					if (day.getDay() == dow) {
-						Integer weekNo = day.getNum();
-						if (weekNo == null || weekNo == 0) {
+					if (byDay.getDay() == dow) {
+						Integer num = byDay.getNum();
+						if (num == null || num == 0) {
 							return true;
 						}
 
+						int weekNo = num;
 						if (weekNo < 0) {
-							weekNo = Util.invertWeekdayNum(day, firstDayOfWeek, nDays);
+							weekNo = Util.invertWeekdayNum(byDay, firstDayOfWeek, nDays);
 						}
 
 						if (dateWeekNo == weekNo) {
@@ -148,18 +152,20 @@ class Filters {
 	 * @param monthDays days of the month (values must be in range [-31,31])
 	 * @return the filter
 	 */
-	static Predicate<DateValue> byMonthDayFilter(final int[] monthDays) {
-		return new Predicate<DateValue>() {
+	static DatePredicate byMonthDayFilter(final int[] monthDays) {
+		return new DatePredicate() {
 			private static final long serialVersionUID = -1618039447294490037L;
 
-			public boolean apply(DateValue date) {
-				int nDays = TimeUtils.monthLength(date.year(), date.month());
+			@Override
+			boolean apply(long date) {
+				int nDays = TimeUtils.monthLength(PackedDateValue.year(date), PackedDateValue.month(date));
+				int dateDay = PackedDateValue.day(date);
 				for (int i = monthDays.length - 1; i >= 0; i--) {
 					int day = monthDays[i];
 					if (day < 0) {
 						day += nDays + 1;
 					}
-					if (day == date.day()) {
+					if (day == dateDay) {
 						return true;
 					}
 				}
@@ -177,19 +183,20 @@ class Filters {
 	 * @param dtStart the filter will start at the week that contains this date
 	 * @return the filter
 	 */
-	static Predicate<DateValue> weekIntervalFilter(final int interval, final DayOfWeek weekStart, final DateValue dtStart) {
-		return new Predicate<DateValue>() {
+	static DatePredicate weekIntervalFilter(final int interval, final DayOfWeek weekStart, final DateValue dtStart) {
+		return new DatePredicate() {
 			private static final long serialVersionUID = 7059994888520369846L;
 			//the latest day with day of week weekStart on or before dtStart
-			DateValue wkStart;
+			int wkStart;
 			{
 				DTBuilder wkStartB = new DTBuilder(dtStart);
 				wkStartB.day -= (7 + TimeUtils.dayOfWeek(dtStart).getCalendarConstant() - weekStart.getCalendarConstant()) % 7;
-				wkStart = wkStartB.toDate();
+				wkStart = PackedDateValue.fixed(PackedDateValue.packDate(wkStartB));
 			}
 
-			public boolean apply(DateValue date) {
-				int daysBetween = TimeUtils.daysBetween(date, wkStart);
+			@Override
+			boolean apply(long date) {
+				int daysBetween = PackedDateValue.fixed(date) - wkStart;
 				if (daysBetween < 0) {
 					//date must be before dtStart.  Shouldn't occur in practice.
 					daysBetween += (interval * 7 * (1 + daysBetween / (-7 * interval)));
@@ -208,24 +215,24 @@ class Filters {
 	 * @param hours hours of the day (values must be in range [0,23])
 	 * @return the filter
 	 */
-	static Predicate<DateValue> byHourFilter(int[] hours) {
+	static DatePredicate byHourFilter(int[] hours) {
 		int hoursByBit = 0;
 		for (int hour : hours) {
 			hoursByBit |= 1 << hour;
 		}
 		if ((hoursByBit & LOW_24_BITS) == LOW_24_BITS) {
-			return Predicates.alwaysTrue();
+			return DatePredicate.alwaysTrue();
 		}
 		final int bitField = hoursByBit;
-		return new Predicate<DateValue>() {
+		return new DatePredicate() {
 			private static final long serialVersionUID = -6284974028385246889L;
 
-			public boolean apply(DateValue date) {
-				if (!(date instanceof TimeValue)) {
+			@Override
+			boolean apply(long date) {
+				if (!PackedDateValue.hasTime(date)) {
 					return false;
 				}
-				TimeValue tv = (TimeValue) date;
-				return (bitField & (1 << tv.hour())) != 0;
+				return (bitField & (1 << PackedDateValue.hour(date))) != 0;
 			}
 		};
 	}
@@ -235,24 +242,24 @@ class Filters {
 	 * @param minutes minutes of the hour (values must be in range [0,59])
 	 * @return the filter
 	 */
-	static Predicate<DateValue> byMinuteFilter(int[] minutes) {
+	static DatePredicate byMinuteFilter(int[] minutes) {
 		long minutesByBit = 0;
 		for (int minute : minutes) {
 			minutesByBit |= 1L << minute;
 		}
 		if ((minutesByBit & LOW_60_BITS) == LOW_60_BITS) {
-			return Predicates.alwaysTrue();
+			return DatePredicate.alwaysTrue();
 		}
 		final long bitField = minutesByBit;
-		return new Predicate<DateValue>() {
+		return new DatePredicate() {
 			private static final long serialVersionUID = 5028303473420393470L;
 
-			public boolean apply(DateValue date) {
-				if (!(date instanceof TimeValue)) {
+			@Override
+			boolean apply(long date) {
+				if (!PackedDateValue.hasTime(date)) {
 					return false;
 				}
-				TimeValue tv = (TimeValue) date;
-				return (bitField & (1L << tv.minute())) != 0;
+				return (bitField & (1L << PackedDateValue.minute(date))) != 0;
 			}
 		};
 	}
@@ -262,24 +269,24 @@ class Filters {
 	 * @param seconds seconds of the minute (values must be in rage [0,59])
 	 * @return the filter
 	 */
-	static Predicate<DateValue> bySecondFilter(int[] seconds) {
+	static DatePredicate bySecondFilter(int[] seconds) {
 		long secondsByBit = 0;
 		for (int second : seconds) {
 			secondsByBit |= 1L << second;
 		}
 		if ((secondsByBit & LOW_60_BITS) == LOW_60_BITS) {
-			return Predicates.alwaysTrue();
+			return DatePredicate.alwaysTrue();
 		}
 		final long bitField = secondsByBit;
-		return new Predicate<DateValue>() {
+		return new DatePredicate() {
 			private static final long serialVersionUID = 4109739845053177924L;
 
-			public boolean apply(DateValue date) {
-				if (!(date instanceof TimeValue)) {
+			@Override
+			boolean apply(long date) {
+				if (!PackedDateValue.hasTime(date)) {
 					return false;
 				}
-				TimeValue tv = (TimeValue) date;
-				return (bitField & (1L << tv.second())) != 0;
+				return (bitField & (1L << PackedDateValue.second(date))) != 0;
 			}
 		};
 	}
@@ -46,7 +46,6 @@ import biweekly.util.DayOfWeek;
 import biweekly.util.com.google.ical.util.DTBuilder;
 import biweekly.util.com.google.ical.util.TimeUtils;
 import biweekly.util.com.google.ical.values.DateValue;
-import biweekly.util.com.google.ical.values.DateValueImpl;
 import biweekly.util.com.google.ical.values.TimeValue;
 
 /**
@@ -207,7 +206,7 @@ final class Generators {
 						 * new month and the old date and extend it to make it
 						 * an integer multiple of interval.
 						 */
-						int daysBetween = TimeUtils.daysBetween(new DateValueImpl(builder.year, builder.month, 1), new DateValueImpl(year, month, date));
+						int daysBetween = TimeUtils.daysBetween(builder.year, builder.month, 1, year, month, date);
 						ndate = ((interval - (daysBetween % interval)) % interval) + 1;
 						if (ndate > nDays) {
 							/*
@@ -717,7 +716,9 @@ final class Generators {
 			int year = dtStart.year();
 			int month = dtStart.month();
 			/** list of generated dates for the current month */
-			int[] posDates;
+			final int[] posDates = new int[31];
+			/** number of dates in posDates */
+			int nPosDates;
 			/** index of next date to return */
 			int i = 0;
 
@@ -726,7 +727,7 @@ final class Generators {
 			}
 
 			private void convertDatesToAbsolute() {
-				IntSet posDates = new IntSet();
+				long posDates = 0;
 				int nDays = TimeUtils.monthLength(year, month);
 				for (int j = 0; j < udates.length; ++j) {
 					int date = udates[j];
@@ -734,10 +735,10 @@ final class Generators {
 						date += nDays + 1;
 					}
 					if (date >= 1 && date <= nDays) {
-						posDates.add(date);
+						posDates |= 1L << date;
 					}
 				}
-				this.posDates = posDates.toIntArray();
+				nPosDates = Util.daysOfMonth(posDates, this.posDates);
 			}
 
 			@Override
@@ -750,7 +751,7 @@ final class Generators {
 
 					i = 0;
 				}
-				if (i >= posDates.length) {
+				if (i >= nPosDates) {
 					return false;
 				}
 				builder.day = posDates[i++];
@@ -780,14 +781,16 @@ final class Generators {
 			int year = dtStart.year();
 			int month = dtStart.month();
 			/** list of generated dates for the current month */
-			int[] dates;
+			final int[] dates = new int[31];
+			/** number of dates in the list */
+			int nDates;
 			/** index of next date to return */
 			int i = 0;
 
 			{
 				generateDates();
 				int day = dtStart.day();
-				while (i < dates.length && dates[i] < day) {
+				while (i < nDates && dates[i] < day) {
 					++i;
 				}
 			}
@@ -819,24 +822,24 @@ final class Generators {
 				 * Iterate through days and resolve each [week, day of week]
 				 * pair to a day of the month.
 				 */
-				IntSet udates = new IntSet();
+				long udates = 0;
 				for (ByDay day : udays) {
 					if (day.getNum() != null && day.getNum() != 0) {
 						int date = Util.dayNumToDate(dow0, nDays, day.getNum(), day.getDay(), d0, nDaysInMonth);
 						if (date != 0) {
-							udates.add(date);
+							udates |= 1L << date;
 						}
 					} else {
 						int wn = w0 + 6;
 						for (int w = w0; w <= wn; ++w) {
 							int date = Util.dayNumToDate(dow0, nDays, w, day.getDay(), d0, nDaysInMonth);
 							if (date != 0) {
-								udates.add(date);
+								udates |= 1L << date;
 							}
 						}
 					}
 				}
-				dates = udates.toIntArray();
+				nDates = Util.daysOfMonth(udates, dates);
 			}
 
 			@Override
@@ -849,7 +852,7 @@ final class Generators {
 					//start at the beginning of the month
 					i = 0;
 				}
-				if (i >= dates.length) {
+				if (i >= nDates) {
 					return false;
 				}
 				builder.day = dates[i++];
@@ -881,7 +884,9 @@ final class Generators {
 			/** number of weeks in the last year seen */
 			int weeksInYear;
 			/** dates generated anew for each month seen */
-			int[] dates;
+			final int[] dates = new int[31];
+			/** number of dates in the list */
+			int nDates;
 			/** index into dates */
 			int i = 0;
 
@@ -937,7 +942,7 @@ final class Generators {
 				int nDays = TimeUtils.monthLength(year, month);
 
 				//generate the dates in the month
-				IntSet udates = new IntSet();
+				long udates = 0;
 				for (int weekNo : uWeekNumbers) {
 					if (weekNo < 0) {
 						weekNo += weeksInYear + 1;
@@ -946,12 +951,12 @@ final class Generators {
 						for (int d = 0; d < 7; ++d) {
 							int date = ((weekNo - 1) * 7 + d + doyOfStartOfWeek1 - doyOfMonth1) + 1;
 							if (date >= 1 && date <= nDays) {
-								udates.add(date);
+								udates |= 1L << date;
 							}
 						}
 					}
 				}
-				dates = udates.toIntArray();
+				nDates = Util.daysOfMonth(udates, dates);
 			}
 
 			@Override
@@ -971,7 +976,7 @@ final class Generators {
 					i = 0;
 				}
 
-				if (i >= dates.length) {
+				if (i >= nDates) {
 					return false;
 				}
 				builder.day = dates[i++];
@@ -998,7 +1003,8 @@ final class Generators {
 		return new Generator() {
 			int year = dtStart.year();
 			int month = dtStart.month();
-			int[] dates;
+			final int[] dates = new int[31];
+			int nDates;
 			int i = 0;
 
 			{
@@ -1010,17 +1016,17 @@ final class Generators {
 				int doyOfMonth1 = TimeUtils.dayOfYear(year, month, 1);
 				int nDays = TimeUtils.monthLength(year, month);
 				int nYearDays = TimeUtils.yearLength(year);
-				IntSet udates = new IntSet();
+				long udates = 0;
 				for (int yearDay : uYearDays) {
 					if (yearDay < 0) {
 						yearDay += nYearDays + 1;
 					}
 					int date = yearDay - doyOfMonth1;
 					if (date >= 1 && date <= nDays) {
-						udates.add(date);
+						udates |= 1L << date;
 					}
 				}
-				dates = udates.toIntArray();
+				nDates = Util.daysOfMonth(udates, dates);
 			}
 
 			@Override
@@ -1033,7 +1039,7 @@ final class Generators {
 
 					i = 0;
 				}
-				if (i >= dates.length) {
+				if (i >= nDates) {
 					return false;
 				}
 				builder.day = dates[i++];
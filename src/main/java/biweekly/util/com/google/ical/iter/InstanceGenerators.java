@@ -39,20 +39,19 @@
 
 package biweekly.util.com.google.ical.iter;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 import biweekly.util.DayOfWeek;
 import biweekly.util.Frequency;
 import biweekly.util.com.google.ical.util.DTBuilder;
-import biweekly.util.com.google.ical.util.Predicate;
 import biweekly.util.com.google.ical.util.TimeUtils;
 import biweekly.util.com.google.ical.values.DateValue;
 import biweekly.util.com.google.ical.values.TimeValue;
 
 /**
  * Factory for generators that operate on groups of generators to generate full
- * dates.
+ * dates. Candidate dates are handled in packed form (see
+ * {@link PackedDateValue}), so no objects are created per instance.
  * @author mikesamuel+svn@gmail.com (Mike Samuel)
  * @author Michael Angstadt
  */
@@ -61,7 +60,7 @@ class InstanceGenerators {
 	 * A collector that yields each date in the period without doing any set
 	 * collecting.
 	 */
-	static Generator serialInstanceGenerator(final Predicate<? super DateValue> filter, final Generator yearGenerator, final Generator monthGenerator, final Generator dayGenerator, final Generator hourGenerator, final Generator minuteGenerator, final Generator secondGenerator) {
+	static Generator serialInstanceGenerator(final DatePredicate filter, final Generator yearGenerator, final Generator monthGenerator, final Generator dayGenerator, final Generator hourGenerator, final Generator minuteGenerator, final Generator secondGenerator) {
 		if (skipSubDayGenerators(hourGenerator, minuteGenerator, secondGenerator)) {
 			//fast case for generators that are not more frequent than daily
 			return new Generator() {
@@ -81,7 +80,7 @@ class InstanceGenerators {
 							}
 						}
 						//apply filters to generated dates
-					} while (!filter.apply(builder.toDateTime()));
+					} while (!filter.apply(PackedDateValue.packDateTime(builder)));
 
 					return true;
 				}
@@ -113,7 +112,7 @@ class InstanceGenerators {
 							}
 						}
 						//apply filters to generated dates
-					} while (!filter.apply(builder.toDateTime()));
+					} while (!filter.apply(PackedDateValue.packDateTime(builder)));
 					//TODO: maybe group the filters into different kinds so we don't
 					//apply filters that only affect days to every second.
 
@@ -123,7 +122,7 @@ class InstanceGenerators {
 		}
 	}
 
-	static Generator bySetPosInstanceGenerator(int[] setPos, final Frequency freq, final DayOfWeek wkst, final Predicate<? super DateValue> filter, final Generator yearGenerator, final Generator monthGenerator, final Generator dayGenerator, final Generator hourGenerator, final Generator minuteGenerator, final Generator secondGenerator) {
+	static Generator bySetPosInstanceGenerator(int[] setPos, final Frequency freq, final DayOfWeek wkst, final DatePredicate filter, final Generator yearGenerator, final Generator monthGenerator, final Generator dayGenerator, final Generator hourGenerator, final Generator minuteGenerator, final Generator secondGenerator) {
 		final int[] uSetPos = Util.uniquify(setPos);
 
 		final Generator serialInstanceGenerator = serialInstanceGenerator(filter, yearGenerator, monthGenerator, dayGenerator, hourGenerator, minuteGenerator, secondGenerator);
@@ -133,7 +132,7 @@ class InstanceGenerators {
 		final boolean allPositive = uSetPos[0] > 0;
 
 		return new Generator() {
-			DateValue pushback = null;
+			long pushback = PackedDateValue.NONE;
 
 			/**
 			 * Is this the first instance we generate? We need to know so that
@@ -146,10 +145,22 @@ class InstanceGenerators {
 			 */
 			boolean done = false;
 
+			/**
+			 * The elements in the current set. Reused for each set.
+			 */
+			long[] dates = new long[16];
+			int nDates;
+
+			/**
+			 * The absolute positions of the current set. Reused for each set.
+			 */
+			final int[] absSetPos = new int[uSetPos.length];
+
 			/**
 			 * The elements in the current set, filtered by set pos.
 			 */
-			List<DateValue> candidates;
+			final long[] candidates = new long[uSetPos.length];
+			int nCandidates;
 
 			/**
 			 * Index into candidates. The number of elements in candidates
@@ -159,7 +170,7 @@ class InstanceGenerators {
 
 			@Override
 			public boolean generate(DTBuilder builder) throws IteratorShortCircuitingException {
-				while (candidates == null || i >= candidates.size()) {
+				while (i >= nCandidates) {
 					if (done) {
 						return false;
 					}
@@ -168,13 +179,13 @@ class InstanceGenerators {
 					 * (1) Make sure that builder is appropriately initialized
 					 * so that we only generate instances in the next set.
 					 */
-					DateValue d0 = null;
-					if (pushback != null) {
+					long d0 = PackedDateValue.NONE;
+					if (pushback != PackedDateValue.NONE) {
 						d0 = pushback;
-						builder.year = d0.year();
-						builder.month = d0.month();
-						builder.day = d0.day();
-						pushback = null;
+						builder.year = PackedDateValue.year(d0);
+						builder.month = PackedDateValue.month(d0);
+						builder.day = PackedDateValue.day(d0);
+						pushback = PackedDateValue.NONE;
 					} else if (!first) {
 						/*
 						 * We need to skip ahead to the next item since we
@@ -195,13 +206,13 @@ class InstanceGenerators {
 							break;
 						case WEEKLY:
 							//consume because just incrementing date doesn't do anything
-							DateValue nextWeek = Util.nextWeekStart(builder.toDateTime(), wkst);
+							long nextWeek = Util.nextWeekStart(PackedDateValue.packDateTime(builder), wkst);
 							do {
 								if (!serialInstanceGenerator.generate(builder)) {
 									return false;
 								}
-							} while (builder.compareTo(nextWeek) < 0);
-							d0 = builder.toDateTime();
+							} while (PackedDateValue.packDate(builder) < nextWeek);
+							d0 = PackedDateValue.packDateTime(builder);
 							break;
 						default:
 							break;
@@ -214,9 +225,9 @@ class InstanceGenerators {
 					 * (2) Build a set of the dates in the year/month/week that
 					 * match the other rule.
 					 */
-					List<DateValue> dates = new ArrayList<DateValue>();
-					if (d0 != null) {
-						dates.add(d0);
+					nDates = 0;
+					if (d0 != PackedDateValue.NONE) {
+						add(d0);
 					}
 
 					/*
@@ -236,7 +247,7 @@ class InstanceGenerators {
 					 */
 					int limit = allPositive ? maxPos : Integer.MAX_VALUE;
 
-					while (limit > dates.size()) {
+					while (limit > nDates) {
 						if (!serialInstanceGenerator.generate(builder)) {
 							/*
 							 * If we can't generate any, then make sure we
@@ -251,15 +262,15 @@ class InstanceGenerators {
 							done = true;
 							break;
 						}
-						DateValue d = builder.toDateTime();
+						long d = PackedDateValue.packDateTime(builder);
 						boolean contained;
-						if (d0 == null) {
+						if (d0 == PackedDateValue.NONE) {
 							d0 = d;
 							contained = true;
 						} else {
 							switch (freq) {
 							case WEEKLY:
-								int nb = TimeUtils.daysBetween(d, d0);
+								int nb = PackedDateValue.fixed(d) - PackedDateValue.fixed(d0);
 								/*
 								 * Two dates (d, d0) are in the same week if
 								 * there isn't a whole week in between them and
@@ -269,17 +280,17 @@ class InstanceGenerators {
 								//@formatter:off
 			                    contained =
 				                    nb < 7 &&
-				                    ((7 + TimeUtils.dayOfWeek(d).getCalendarConstant()
+				                    ((7 + dayOfWeek(d).getCalendarConstant()
 				                         - wkst.getCalendarConstant()) % 7) >
-				                    ((7 + TimeUtils.dayOfWeek(d0).getCalendarConstant()
+				                    ((7 + dayOfWeek(d0).getCalendarConstant()
 				                        - wkst.getCalendarConstant()) % 7);
 			                    //@formatter:on
 								break;
 							case MONTHLY:
-								contained = d0.month() == d.month() && d0.year() == d.year();
+								contained = PackedDateValue.month(d0) == PackedDateValue.month(d) && PackedDateValue.year(d0) == PackedDateValue.year(d);
 								break;
 							case YEARLY:
-								contained = d0.year() == d.year();
+								contained = PackedDateValue.year(d0) == PackedDateValue.year(d);
 								break;
 							default:
 								done = true;
@@ -287,7 +298,7 @@ class InstanceGenerators {
 							}
 						}
 						if (contained) {
-							dates.add(d);
+							add(d);
 						} else {
 							//reached end of the set
 							pushback = d; //save d so we can use it later
@@ -299,53 +310,241 @@ class InstanceGenerators {
 					 * (3) Resolve the positions to absolute positions and order
 					 * them.
 					 */
-					int[] absSetPos;
-					if (allPositive) {
-						absSetPos = uSetPos;
-					} else {
-						IntSet uAbsSetPos = new IntSet();
-						for (int p : uSetPos) {
-							if (p < 0) {
-								p = dates.size() + p + 1;
-							}
-							uAbsSetPos.add(p);
+					int nAbsSetPos = uSetPos.length;
+					for (int j = 0; j < nAbsSetPos; j++) {
+						int p = uSetPos[j];
+						if (p < 0) {
+							p = nDates + p + 1;
 						}
-						absSetPos = uAbsSetPos.toIntArray();
+						absSetPos[j] = p;
+					}
+					if (!allPositive) {
+						Arrays.sort(absSetPos);
 					}
 
-					candidates = new ArrayList<DateValue>();
-					for (int p : absSetPos) {
-						if (p >= 1 && p <= dates.size()) { // p is 1-indexed
-							candidates.add(dates.get(p - 1));
+					nCandidates = 0;
+					for (int j = 0; j < nAbsSetPos; j++) {
+						int p = absSetPos[j];
+						if (j > 0 && p == absSetPos[j - 1]) {
+							//skip duplicates
+							continue;
+						}
+						if (p >= 1 && p <= nDates) { // p is 1-indexed
+							candidates[nCandidates++] = dates[p - 1];
 						}
 					}
 					i = 0;
-					if (candidates.isEmpty()) {
-						//none in this region, so keep looking
-						candidates = null;
-						continue;
-					}
+
+					//if there are none in this region, keep looking
 				}
 
 				/*
 				 * (5) Emit a date. It will be checked against the end condition
 				 * and dtStart elsewhere.
 				 */
-				DateValue d = candidates.get(i++);
-				builder.year = d.year();
-				builder.month = d.month();
-				builder.day = d.day();
-				if (d instanceof TimeValue) {
-					TimeValue t = (TimeValue) d;
-					builder.hour = t.hour();
-					builder.minute = t.minute();
-					builder.second = t.second();
+				PackedDateValue.copyTo(candidates[i++], builder);
+				return true;
+			}
+
+			private void add(long date) {
+				if (nDates == dates.length) {
+					long[] larger = new long[dates.length * 2];
+					System.arraycopy(dates, 0, larger, 0, nDates);
+					dates = larger;
+				}
+				dates[nDates++] = date;
+			}
+		};
+	}
+
+	/**
+	 * <p>
+	 * A collector that yields the same dates as
+	 * {@link #serialInstanceGenerator}, but computes them a month at a time.
+	 * This is only valid for rules whose days all have the same times (see
+	 * {@link #timesOfDay}) and whose filter only looks at the date.
+	 * </p>
+	 * <p>
+	 * The dates of each month are the product of the month's days and the
+	 * times of day, so the day generator is called once per day, the filter is
+	 * applied once per day, and the hour, minute, and second generators are
+	 * not called at all. The dates are then yielded in order by indexing into
+	 * the product.
+	 * </p>
+	 * <p>
+	 * The first month may start part way through a day, so it is generated
+	 * one date at a time. The same goes for a month that the builder is moved
+	 * into from the outside (for example, when the iterator is advanced).
+	 * </p>
+	 * @param timesOfDay the time of day fields of each date (as returned by
+	 * {@link #timesOfDay})
+	 */
+	static Generator batchInstanceGenerator(final DatePredicate filter, final long[] timesOfDay, final Generator yearGenerator, final Generator monthGenerator, final Generator dayGenerator, Generator hourGenerator, Generator minuteGenerator, Generator secondGenerator) {
+		final Generator serialInstanceGenerator = serialInstanceGenerator(filter, yearGenerator, monthGenerator, dayGenerator, hourGenerator, minuteGenerator, secondGenerator);
+
+		return new Generator() {
+			/**
+			 * The days of the current month that match the filter (packed
+			 * dates). Reused for each month.
+			 */
+			long[] days = new long[31];
+			int nDays;
+
+			/**
+			 * The position of the last date that was yielded.
+			 */
+			int dayIndex, timeIndex;
+
+			/**
+			 * The month that the days belong to.
+			 */
+			int year, month;
+
+			/**
+			 * Are the dates currently being yielded from {@link #days}?
+			 */
+			boolean batch;
+
+			@Override
+			boolean generate(DTBuilder builder) throws IteratorShortCircuitingException {
+				if (batch && builder.year == year && builder.month == month) {
+					if (++timeIndex == timesOfDay.length) {
+						timeIndex = 0;
+						if (++dayIndex == nDays && !nextMonth(builder)) {
+							return false;
+						}
+					}
+					PackedDateValue.copyTo(days[dayIndex] + timesOfDay[timeIndex], builder);
+					return true;
 				}
+
+				int prevYear = builder.year;
+				int prevMonth = builder.month;
+				batch = false;
+				if (!serialInstanceGenerator.generate(builder)) {
+					return false;
+				}
+				if (builder.year == prevYear && builder.month == prevMonth) {
+					return true;
+				}
+
+				/*
+				 * The serial generator crossed into a new month, so all of the
+				 * generators have started over and the date is the first time
+				 * on the first day of the month.
+				 */
+				long date = PackedDateValue.packDateTime(builder);
+				long day = PackedDateValue.date(date);
+				if (date != day + timesOfDay[0]) {
+					return true;
+				}
+
+				year = builder.year;
+				month = builder.month;
+				nDays = 0;
+				addDay(day);
+				addDays(builder);
+				dayIndex = timeIndex = 0;
+				batch = true;
+
+				PackedDateValue.copyTo(date, builder);
+				return true;
+			}
+
+			/**
+			 * Moves on to the next month that has any days that match the
+			 * filter.
+			 * @param builder the builder
+			 * @return false if there are no more months
+			 * @throws IteratorShortCircuitingException if the year generator
+			 * gives up
+			 */
+			private boolean nextMonth(DTBuilder builder) throws IteratorShortCircuitingException {
+				do {
+					while (!monthGenerator.generate(builder)) {
+						if (!yearGenerator.generate(builder)) {
+							batch = false;
+							return false;
+						}
+					}
+					year = builder.year;
+					month = builder.month;
+					nDays = 0;
+					addDays(builder);
+				} while (nDays == 0);
+
+				dayIndex = 0;
 				return true;
 			}
+
+			private void addDays(DTBuilder builder) throws IteratorShortCircuitingException {
+				while (dayGenerator.generate(builder)) {
+					long day = PackedDateValue.packDate(builder);
+					if (filter.apply(day + timesOfDay[0])) {
+						addDay(day);
+					}
+				}
+			}
+
+			private void addDay(long day) {
+				if (nDays == days.length) {
+					long[] larger = new long[days.length * 2];
+					System.arraycopy(days, 0, larger, 0, nDays);
+					days = larger;
+				}
+				days[nDays++] = day;
+			}
 		};
 	}
 
+	/**
+	 * Gets the times of day that each instance of a DAILY, WEEKLY, MONTHLY, or
+	 * YEARLY recurrence can fall on. These are the same for every day, and
+	 * come from the BYHOUR, BYMINUTE, and BYSECOND rule parts.
+	 * @param hours the BYHOUR values
+	 * @param minutes the BYMINUTE values
+	 * @param seconds the BYSECOND values
+	 * @param dtStart the start date (provides the values of the rule parts that
+	 * are empty)
+	 * @return the time of day fields of each instance (in the form of a packed
+	 * date-time whose date fields are zero) in ascending order, or null if
+	 * every day only has one time or any of the values are out of range
+	 */
+	static long[] timesOfDay(int[] hours, int[] minutes, int[] seconds, DateValue dtStart) {
+		TimeValue dtStartTime = TimeUtils.timeOf(dtStart);
+		int[] uhours = (hours.length == 0) ? new int[] { dtStartTime.hour() } : Util.uniquify(hours);
+		int[] uminutes = (minutes.length == 0) ? new int[] { dtStartTime.minute() } : Util.uniquify(minutes);
+		int[] useconds = (seconds.length == 0) ? new int[] { dtStartTime.second() } : Util.uniquify(seconds);
+
+		long size = (long) uhours.length * uminutes.length * useconds.length;
+		if (size == 1) {
+			return null;
+		}
+
+		/*
+		 * Out of range values roll over into the next day when the builder is
+		 * normalized, so the days would not all have the same times.
+		 */
+		if (uhours[0] < 0 || uhours[uhours.length - 1] > 23 || uminutes[0] < 0 || uminutes[uminutes.length - 1] > 59 || useconds[0] < 0 || useconds[useconds.length - 1] > 59) {
+			return null;
+		}
+
+		long[] times = new long[(int) size];
+		int i = 0;
+		for (int hour : uhours) {
+			for (int minute : uminutes) {
+				for (int second : useconds) {
+					times[i++] = PackedDateValue.packDateTime(0, 0, 0, hour, minute, second);
+				}
+			}
+		}
+		return times;
+	}
+
+	private static DayOfWeek dayOfWeek(long date) {
+		return TimeUtils.dayOfWeek(PackedDateValue.year(date), PackedDateValue.month(date), PackedDateValue.day(date));
+	}
+
 	static boolean skipSubDayGenerators(Generator hourGenerator, Generator minuteGenerator, Generator secondGenerator) {
 		return secondGenerator instanceof SingleValueGenerator && minuteGenerator instanceof SingleValueGenerator && hourGenerator instanceof SingleValueGenerator;
 	}
@@ -0,0 +1,318 @@
+package biweekly.util.com.google.ical.iter;
+
+import biweekly.util.com.google.ical.util.DTBuilder;
+import biweekly.util.com.google.ical.util.TimeUtils;
+import biweekly.util.com.google.ical.util.TimeZoneConverter;
+import biweekly.util.com.google.ical.values.DateTimeValueImpl;
+import biweekly.util.com.google.ical.values.DateValue;
+import biweekly.util.com.google.ical.values.DateValueImpl;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Packs dates and date-times into primitive longs so that the recurrence
+ * engine can generate, filter, and compare them without allocating
+ * {@link DateValue} objects.
+ * </p>
+ * <p>
+ * The encoding is the same one that {@link DateValueComparison#comparable}
+ * uses, so packed values can be compared with the standard relational
+ * operators and sort in the same order as {@link DateValue#compareTo}. From
+ * most significant to least significant, the bits are laid out as follows:
+ * </p>
+ *
+ * <pre>
+ * year (38 bits, signed) | month (4) | day (5) | hour (5) | minute (6) | second + 1 (6)
+ * </pre>
+ * <p>
+ * Dates that do not have a time component have all 17 time bits set to zero.
+ * Because the seconds are offset by one, a date-time at midnight is never
+ * equal to the date on its own.
+ * </p>
+ * @author Michael Angstadt
+ */
+final class PackedDateValue {
+	/**
+	 * Represents the absence of a value (for example, when an iterator is
+	 * exhausted). This value can never be produced by packing a date.
+	 */
+	static final long NONE = Long.MIN_VALUE;
+
+	private static final int TIME_BITS = 17;
+	private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+	private static final long SECS_PER_DAY = 24L * 60 * 60;
+
+	/**
+	 * Packs a date value.
+	 * @param date the date value
+	 * @return the packed value
+	 */
+	static long pack(DateValue date) {
+		return DateValueComparison.comparable(date);
+	}
+
+	/**
+	 * Packs a date.
+	 * @param year the year
+	 * @param month the month (1-12)
+	 * @param day the day of the month
+	 * @return the packed value
+	 */
+	static long packDate(int year, int month, int day) {
+		return ((((long) year << 4) + month << 5) + day) << TIME_BITS;
+	}
+
+	/**
+	 * Packs a date-time.
+	 * @param year the year
+	 * @param month the month (1-12)
+	 * @param day the day of the month
+	 * @param hour the hour
+	 * @param minute the minute
+	 * @param second the second
+	 * @return the packed value
+	 */
+	static long packDateTime(int year, int month, int day, int hour, int minute, int second) {
+		return packDate(year, month, day) + (((hour << 6) + minute << 6) + second + 1);
+	}
+
+	/**
+	 * Normalizes a builder and packs its date fields.
+	 * @param builder the builder
+	 * @return the packed date
+	 */
+	static long packDate(DTBuilder builder) {
+		builder.normalize();
+		return packDate(builder.year, builder.month, builder.day);
+	}
+
+	/**
+	 * Normalizes a builder and packs its date and time fields.
+	 * @param builder the builder
+	 * @return the packed date-time
+	 */
+	static long packDateTime(DTBuilder builder) {
+		builder.normalize();
+		return packDateTime(builder.year, builder.month, builder.day, builder.hour, builder.minute, builder.second);
+	}
+
+	/**
+	 * Determines if a packed value has a time component.
+	 * @param packed the packed value
+	 * @return true if it has a time component, false if it is just a date
+	 */
+	static boolean hasTime(long packed) {
+		return (packed & TIME_MASK) != 0;
+	}
+
+	/**
+	 * Removes the time component from a packed value.
+	 * @param packed the packed value
+	 * @return the packed date
+	 */
+	static long date(long packed) {
+		return packed & ~TIME_MASK;
+	}
+
+	static int year(long packed) {
+		return (int) (packed >> 26);
+	}
+
+	static int month(long packed) {
+		return (int) (packed >> 22) & 0xf;
+	}
+
+	static int day(long packed) {
+		return (int) (packed >> TIME_BITS) & 0x1f;
+	}
+
+	/**
+	 * Gets the hour of a packed value. The result is undefined if the value
+	 * does not have a time component.
+	 * @param packed the packed value
+	 * @return the hour
+	 */
+	static int hour(long packed) {
+		return (int) (packed >> 12) & 0x1f;
+	}
+
+	/**
+	 * Gets the minute of a packed value. The result is undefined if the value
+	 * does not have a time component.
+	 * @param packed the packed value
+	 * @return the minute
+	 */
+	static int minute(long packed) {
+		return (int) (packed >> 6) & 0x3f;
+	}
+
+	/**
+	 * Gets the second of a packed value. The result is undefined if the value
+	 * does not have a time component.
+	 * @param packed the packed value
+	 * @return the second
+	 */
+	static int second(long packed) {
+		return ((int) packed & 0x3f) - 1;
+	}
+
+	/**
+	 * Calculates the number of days between the Dershowitz/Reingold epoch and
+	 * a packed value's date.
+	 * @param packed the packed value
+	 * @return the number of days
+	 * @see TimeUtils#fixedFromGregorian(int, int, int)
+	 */
+	static int fixed(long packed) {
+		return TimeUtils.fixedFromGregorian(year(packed), month(packed), day(packed));
+	}
+
+	/**
+	 * Calculates the number of seconds between the Dershowitz/Reingold epoch
+	 * and a packed value. Dates without a time component are treated as
+	 * midnight.
+	 * @param packed the packed value
+	 * @return the number of seconds
+	 * @see TimeUtils#secsSinceEpoch
+	 */
+	static long secsSinceEpoch(long packed) {
+		long secs = fixed(packed) * SECS_PER_DAY;
+		if (hasTime(packed)) {
+			secs += (hour(packed) * 60L + minute(packed)) * 60 + second(packed);
+		}
+		return secs;
+	}
+
+	/**
+	 * Packs the date-time that is a given number of seconds after the
+	 * Dershowitz/Reingold epoch.
+	 * @param secsSinceEpoch the number of seconds
+	 * @return the packed date-time
+	 * @see TimeUtils#timeFromSecsSinceEpoch
+	 */
+	static long fromSecsSinceEpoch(long secsSinceEpoch) {
+		int secsInDay = (int) (secsSinceEpoch % SECS_PER_DAY);
+		int daysSinceEpoch = (int) (secsSinceEpoch / SECS_PER_DAY);
+		int approx = (int) ((daysSinceEpoch + 10) * 400L / 146097);
+		int year = (daysSinceEpoch >= TimeUtils.fixedFromGregorian(approx + 1, 1, 1)) ? approx + 1 : approx;
+		int jan1 = TimeUtils.fixedFromGregorian(year, 1, 1);
+		int priorDays = daysSinceEpoch - jan1;
+		int march1 = TimeUtils.fixedFromGregorian(year, 3, 1);
+		int correction = (daysSinceEpoch < march1) ? 0 : TimeUtils.isLeapYear(year) ? 1 : 2;
+		int month = (12 * (priorDays + correction) + 373) / 367;
+		int month1 = TimeUtils.fixedFromGregorian(year, month, 1);
+		int day = daysSinceEpoch - month1 + 1;
+		int second = secsInDay % 60;
+		int minutesInDay = secsInDay / 60;
+		int minute = minutesInDay % 60;
+		int hour = minutesInDay / 60;
+		return packDateTime(year, month, day, hour, minute, second);
+	}
+
+	/**
+	 * Packs the date that is a given number of days after the
+	 * Dershowitz/Reingold epoch.
+	 * @param fixed the number of days
+	 * @return the packed date
+	 * @see #fixed
+	 */
+	static long fromFixed(int fixed) {
+		return date(fromSecsSinceEpoch(fixed * SECS_PER_DAY));
+	}
+
+	/**
+	 * Converts a packed local value to UTC. Dates without a time component
+	 * are returned as-is.
+	 * @param packed the packed value (in the converter's timezone)
+	 * @param converter the timezone converter
+	 * @return the packed value in UTC
+	 * @see TimeZoneConverter#toUtc(DateValue)
+	 */
+	static long toUtc(long packed, TimeZoneConverter converter) {
+		if (!hasTime(packed) || year(packed) == 0) {
+			return packed;
+		}
+
+		long localSecs = secsSinceEpoch(packed);
+		long utcSecs = converter.toUtcSecs(localSecs);
+		return (utcSecs == localSecs) ? packed : fromSecsSinceEpoch(utcSecs);
+	}
+
+	/**
+	 * Converts a packed UTC value to local time. Dates without a time
+	 * component are returned as-is.
+	 * @param packed the packed value (in UTC)
+	 * @param converter the timezone converter
+	 * @return the packed value in the converter's timezone
+	 * @see TimeZoneConverter#fromUtc(DateValue)
+	 */
+	static long fromUtc(long packed, TimeZoneConverter converter) {
+		if (!hasTime(packed) || year(packed) == 0) {
+			return packed;
+		}
+
+		long utcSecs = secsSinceEpoch(packed);
+		long localSecs = converter.fromUtcSecs(utcSecs);
+		return (utcSecs == localSecs) ? packed : fromSecsSinceEpoch(localSecs);
+	}
+
+	/**
+	 * Copies the fields of a packed value to a builder. The builder's time
+	 * fields are left alone if the value does not have a time component.
+	 * @param packed the packed value
+	 * @param builder the builder
+	 */
+	static void copyTo(long packed, DTBuilder builder) {
+		builder.year = year(packed);
+		builder.month = month(packed);
+		builder.day = day(packed);
+		if (hasTime(packed)) {
+			builder.hour = hour(packed);
+			builder.minute = minute(packed);
+			builder.second = second(packed);
+		}
+	}
+
+	/**
+	 * Unpacks a packed value.
+	 * @param packed the packed value
+	 * @return the date value or null if the value is {@link #NONE}
+	 */
+	static DateValue toDateValue(long packed) {
+		if (packed == NONE) {
+			return null;
+		}
+		if (hasTime(packed)) {
+			return new DateTimeValueImpl(year(packed), month(packed), day(packed), hour(packed), minute(packed), second(packed));
+		}
+		return new DateValueImpl(year(packed), month(packed), day(packed));
+	}
+
+	private PackedDateValue() {
+		//uninstantiable
+	}
+}
@@ -0,0 +1,52 @@
+package biweekly.util.com.google.ical.iter;
+
+import biweekly.util.com.google.ical.values.DateValue;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * A recurrence iterator that can return its dates in packed form (see
+ * {@link PackedDateValue}). Callers that only need to compare dates or
+ * convert them to timestamps can use this interface to iterate over a
+ * recurrence without creating a {@link DateValue} object for each date.
+ * @author Michael Angstadt
+ */
+interface PackedRecurrenceIterator extends RecurrenceIterator {
+	/**
+	 * Returns the next date in the series.
+	 * @return the next packed date (in UTC) or {@link PackedDateValue#NONE} if
+	 * there are no more dates
+	 * @see #next
+	 */
+	long nextPacked();
+
+	/**
+	 * Skips all dates in the series that come before the given date.
+	 * @param newStartUtc the packed date to advance to (in UTC)
+	 * @see #advanceTo(DateValue)
+	 */
+	void advanceTo(long newStartUtc);
+}
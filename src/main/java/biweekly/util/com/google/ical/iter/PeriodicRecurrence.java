@@ -0,0 +1,494 @@
+package biweekly.util.com.google.ical.iter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.TreeSet;
+
+import biweekly.util.ByDay;
+import biweekly.util.DayOfWeek;
+import biweekly.util.Frequency;
+import biweekly.util.ICalDate;
+import biweekly.util.Recurrence;
+import biweekly.util.com.google.ical.util.TimeUtils;
+import biweekly.util.com.google.ical.util.TimeZoneConverter;
+import biweekly.util.com.google.ical.values.DateValue;
+import biweekly.util.com.google.ical.values.TimeValue;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Calculates the instances of simple recurrence rules directly, without
+ * iterating over them. This works for rules whose instances follow a fixed
+ * pattern that repeats every N days or every N months:
+ * </p>
+ * <ul>
+ * <li>DAILY, optionally with BYDAY (without numeric prefixes) if the interval
+ * is 1</li>
+ * <li>WEEKLY, optionally with BYDAY (without numeric prefixes)</li>
+ * <li>MONTHLY, optionally with BYMONTHDAY, as long as every month has the
+ * given days</li>
+ * <li>YEARLY, optionally with BYMONTH and BYMONTHDAY, as long as every year has
+ * the given days</li>
+ * </ul>
+ * <p>
+ * Any INTERVAL, COUNT, or UNTIL value is supported. The time of each instance
+ * is the time of the start date.
+ * </p>
+ * <p>
+ * The instances are numbered starting at zero. They are the same instances
+ * that {@link RRuleIteratorImpl} returns, in the same order.
+ * </p>
+ * @author Michael Angstadt
+ */
+final class PeriodicRecurrence {
+	/**
+	 * Instances after this year are treated as if they do not exist, so that
+	 * the date arithmetic cannot overflow.
+	 */
+	private static final int MAX_YEAR = 1000000;
+	private static final int MAX_FIXED = TimeUtils.fixedFromGregorian(MAX_YEAR, 1, 1);
+
+	/**
+	 * The lengths of each month in a non-leap year.
+	 */
+	private static final int[] MIN_MONTH_LENGTHS = { 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+
+	/**
+	 * True if the pattern repeats every N days, false if it repeats every N
+	 * months.
+	 */
+	private final boolean dayBased;
+
+	/**
+	 * The start of the first period. This is either a fixed day (see
+	 * {@link TimeUtils#fixedFromGregorian}) or a month number (the year
+	 * multiplied by 12, plus the zero-based month).
+	 */
+	private final int base;
+
+	/**
+	 * The length of each period, in days or months.
+	 */
+	private final int period;
+
+	/**
+	 * The offset of each instance from the start of its period, in days or
+	 * months, sorted in ascending order.
+	 */
+	private final int[] offsets;
+
+	/**
+	 * The day of the month of each instance (month-based patterns only).
+	 * Negative values count from the end of the month.
+	 */
+	private final int[] days;
+
+	/**
+	 * The number of instances in the first period that come before the start
+	 * date.
+	 */
+	private final int skip;
+
+	private final boolean hasTime;
+	private final int hour, minute, second;
+	private final TimeZoneConverter tzConverter;
+
+	/**
+	 * The value of the COUNT rule part, or -1 if there isn't one.
+	 */
+	private final int count;
+
+	/**
+	 * The UNTIL value (packed, in UTC), or {@link PackedDateValue#NONE} if
+	 * there isn't one.
+	 */
+	private final long untilUtc;
+
+	private PeriodicRecurrence(boolean dayBased, int base, int period, int[] offsets, int[] days, DateValue dtStart, TimeZone tzid, int count, long untilUtc) {
+		this.dayBased = dayBased;
+		this.base = base;
+		this.period = period;
+		this.offsets = offsets;
+		this.days = days;
+		this.count = count;
+		this.untilUtc = untilUtc;
+
+		hasTime = dtStart instanceof TimeValue;
+		if (hasTime) {
+			TimeValue time = (TimeValue) dtStart;
+			hour = time.hour();
+			minute = time.minute();
+			second = time.second();
+			tzConverter = new TimeZoneConverter(tzid);
+		} else {
+			hour = minute = second = 0;
+			tzConverter = null;
+		}
+
+		//every instance has the same time of day, so only the dates need to be compared
+		long start = PackedDateValue.packDate(dtStart.year(), dtStart.month(), dtStart.day());
+		int skip = 0;
+		while (skip < offsets.length && localDate(skip) < start) {
+			skip++;
+		}
+		this.skip = skip;
+	}
+
+	/**
+	 * Creates a {@link PeriodicRecurrence} object for a recurrence rule.
+	 * @param rrule the recurrence rule
+	 * @param dtStart the start date of the series
+	 * @param tzid the timezone to iterate in
+	 * @return the object or null if the rule is too complex to be calculated
+	 * directly
+	 */
+	static PeriodicRecurrence create(Recurrence rrule, DateValue dtStart, TimeZone tzid) {
+		if (!rrule.getByHour().isEmpty() || !rrule.getByMinute().isEmpty() || !rrule.getBySecond().isEmpty() || !rrule.getByYearDay().isEmpty() || !rrule.getByWeekNo().isEmpty() || !rrule.getBySetPos().isEmpty()) {
+			return null;
+		}
+
+		Frequency freq = rrule.getFrequency();
+		if (freq == null) {
+			freq = Frequency.YEARLY;
+		}
+
+		int interval = toInt(rrule.getInterval());
+		if (interval <= 0) {
+			interval = 1;
+		}
+
+		DayOfWeek wkst = rrule.getWorkweekStarts();
+		if (wkst == null) {
+			wkst = DayOfWeek.MONDAY;
+		}
+
+		int count = (rrule.getCount() == null || rrule.getCount() == 0) ? -1 : Math.max(rrule.getCount(), 0);
+
+		long untilUtc = PackedDateValue.NONE;
+		ICalDate until = rrule.getUntil();
+		if (count < 0 && until != null) {
+			untilUtc = PackedDateValue.pack(RecurrenceIteratorFactory.toUntilUtc(until, dtStart));
+		}
+
+		List<ByDay> byDay = rrule.getByDay();
+		List<Integer> byMonthDay = rrule.getByMonthDay();
+		List<Integer> byMonth = rrule.getByMonth();
+		int startFixed = TimeUtils.fixedFromGregorian(dtStart.year(), dtStart.month(), dtStart.day());
+
+		switch (freq) {
+		case DAILY:
+		case WEEKLY: {
+			if (!byMonthDay.isEmpty() || !byMonth.isEmpty()) {
+				return null;
+			}
+
+			boolean[] weekdays = weekdays(byDay);
+			if (weekdays == null) {
+				return null;
+			}
+
+			int base, period;
+			List<Integer> offsets = new ArrayList<Integer>();
+			if (freq == Frequency.DAILY) {
+				/*
+				 * The iterator ignores the interval of DAILY rules that have a
+				 * BYDAY rule part, so leave those to the iterator.
+				 */
+				if (interval > 1 && !byDay.isEmpty()) {
+					return null;
+				}
+
+				//the pattern repeats once both the interval and the week line up
+				base = startFixed;
+				period = (interval % 7 == 0) ? interval : interval * 7;
+				for (int i = 0; i < period; i += interval) {
+					if (weekdays[weekday(base + i)]) {
+						offsets.add(i);
+					}
+				}
+			} else if (byDay.isEmpty()) {
+				base = startFixed;
+				period = interval * 7;
+				offsets.add(0);
+			} else {
+				//start at the beginning of the week that the start date is in
+				base = startFixed - (weekday(startFixed) - wkst.ordinal() + 7) % 7;
+				period = interval * 7;
+				for (int i = 0; i < 7; i++) {
+					if (weekdays[weekday(base + i)]) {
+						offsets.add(i);
+					}
+				}
+			}
+
+			if (offsets.isEmpty()) {
+				return null;
+			}
+			return new PeriodicRecurrence(true, base, period, toIntArray(offsets), null, dtStart, tzid, count, untilUtc);
+		}
+		case MONTHLY:
+		case YEARLY: {
+			if (!byDay.isEmpty()) {
+				return null;
+			}
+
+			TreeSet<Integer> months = new TreeSet<Integer>();
+			int base, period;
+			if (freq == Frequency.MONTHLY) {
+				if (!byMonth.isEmpty()) {
+					return null;
+				}
+				base = dtStart.year() * 12 + dtStart.month() - 1;
+				period = interval;
+				months.add(0);
+			} else {
+				base = dtStart.year() * 12;
+				period = interval * 12;
+				if (!byMonth.isEmpty()) {
+					for (Integer month : byMonth) {
+						if (month == null || month < 1 || month > 12) {
+							return null;
+						}
+						months.add(month - 1);
+					}
+				} else if (!byMonthDay.isEmpty()) {
+					for (int month = 0; month < 12; month++) {
+						months.add(month);
+					}
+				} else {
+					months.add(dtStart.month() - 1);
+				}
+			}
+
+			TreeSet<Integer> monthDays = new TreeSet<Integer>();
+			if (byMonthDay.isEmpty()) {
+				monthDays.add(dtStart.day());
+			} else {
+				for (Integer day : byMonthDay) {
+					if (day == null) {
+						return null;
+					}
+					monthDays.add(day);
+				}
+			}
+
+			/*
+			 * Every day must exist in every month it is used in. And the days
+			 * must all count from the same end of the month, so that their
+			 * order is the same in every month.
+			 */
+			if (monthDays.first() < 0 && monthDays.last() > 0) {
+				return null;
+			}
+			int[] offsets = new int[months.size() * monthDays.size()];
+			int[] days = new int[offsets.length];
+			int i = 0;
+			for (Integer month : months) {
+				int minLength = (freq == Frequency.MONTHLY) ? 28 : MIN_MONTH_LENGTHS[month];
+				for (Integer day : monthDays) {
+					if (day == 0 || Math.abs(day) > minLength) {
+						return null;
+					}
+					offsets[i] = month;
+					days[i] = day;
+					i++;
+				}
+			}
+			return new PeriodicRecurrence(false, base, period, offsets, days, dtStart, tzid, count, untilUtc);
+		}
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Gets an instance of the recurrence.
+	 * @param index the index of the instance (zero-based)
+	 * @return the instance (packed, in UTC) or {@link PackedDateValue#NONE} if
+	 * there is no instance at that index
+	 */
+	long get(long index) {
+		if (index < 0 || count >= 0 && index >= count) {
+			return PackedDateValue.NONE;
+		}
+
+		long instance = instance(index);
+		if (instance == PackedDateValue.NONE || untilUtc != PackedDateValue.NONE && instance > untilUtc) {
+			return PackedDateValue.NONE;
+		}
+		return instance;
+	}
+
+	/**
+	 * Counts the number of instances in the recurrence.
+	 * @return the number of instances or -1 if the recurrence has no end
+	 */
+	long size() {
+		if (count >= 0) {
+			return count;
+		}
+		if (untilUtc == PackedDateValue.NONE) {
+			return -1;
+		}
+		return indexOf(untilUtc + 1);
+	}
+
+	/**
+	 * Finds the first instance that is on or after the given date.
+	 * @param dateUtc the date (packed, in UTC)
+	 * @return the index of the instance, or the number of instances if there
+	 * are none
+	 */
+	long indexOf(long dateUtc) {
+		//find an upper bound, then do a binary search
+		long low = 0;
+		long high = 1;
+		while (before(high - 1, dateUtc)) {
+			low = high;
+			high *= 2;
+		}
+
+		while (low < high) {
+			long mid = (low + high) >>> 1;
+			if (before(mid, dateUtc)) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+
+		long size = (count >= 0) ? count : Long.MAX_VALUE;
+		return Math.min(low, size);
+	}
+
+	/**
+	 * Determines if an instance comes before the given date. Indexes past the
+	 * end of the (unbounded) instance sequence are never before the date.
+	 */
+	private boolean before(long index, long dateUtc) {
+		long instance = instance(index);
+		return instance != PackedDateValue.NONE && instance < dateUtc;
+	}
+
+	/**
+	 * Calculates an instance, ignoring the COUNT and UNTIL rule parts.
+	 * @param index the index of the instance
+	 * @return the instance (packed, in UTC) or {@link PackedDateValue#NONE}
+	 * if it is too far in the future
+	 */
+	private long instance(long index) {
+		long date = localDate(index + skip);
+		if (date == PackedDateValue.NONE) {
+			return date;
+		}
+		if (!hasTime) {
+			return date;
+		}
+
+		long local = PackedDateValue.packDateTime(PackedDateValue.year(date), PackedDateValue.month(date), PackedDateValue.day(date), hour, minute, second);
+		return PackedDateValue.toUtc(local, tzConverter);
+	}
+
+	/**
+	 * Calculates the date of an instance of the pattern.
+	 * @param n the position of the instance in the pattern, counting from the
+	 * start of the first period
+	 * @return the date (packed, in local time) or {@link PackedDateValue#NONE}
+	 * if it is too far in the future
+	 */
+	private long localDate(long n) {
+		long periods = n / offsets.length;
+		int i = (int) (n % offsets.length);
+
+		if (dayBased) {
+			long fixed = base + periods * period + offsets[i];
+			if (fixed >= MAX_FIXED) {
+				return PackedDateValue.NONE;
+			}
+			return PackedDateValue.fromFixed((int) fixed);
+		}
+
+		long month = base + periods * period + offsets[i];
+		if (month >= MAX_YEAR * 12L) {
+			return PackedDateValue.NONE;
+		}
+		int year = (int) (month / 12);
+		int monthOfYear = (int) (month % 12) + 1;
+		int day = days[i];
+		if (day < 0) {
+			day += TimeUtils.monthLength(year, monthOfYear) + 1;
+		}
+		return PackedDateValue.packDate(year, monthOfYear, day);
+	}
+
+	/**
+	 * Gets the weekdays in a BYDAY rule part.
+	 * @param byDay the BYDAY values
+	 * @return the weekdays, indexed by {@link DayOfWeek#ordinal}, or null if
+	 * any of the values have a numeric prefix
+	 */
+	private static boolean[] weekdays(List<ByDay> byDay) {
+		boolean[] weekdays = new boolean[7];
+		if (byDay.isEmpty()) {
+			for (int i = 0; i < weekdays.length; i++) {
+				weekdays[i] = true;
+			}
+			return weekdays;
+		}
+
+		for (ByDay day : byDay) {
+			if (day.getNum() != null && day.getNum() != 0 || day.getDay() == null) {
+				return null;
+			}
+			weekdays[day.getDay().ordinal()] = true;
+		}
+		return weekdays;
+	}
+
+	/**
+	 * Gets the day of the week of a fixed day.
+	 * @param fixed the fixed day
+	 * @return the day of the week, as a {@link DayOfWeek#ordinal}
+	 */
+	private static int weekday(int fixed) {
+		int weekday = fixed % 7;
+		return (weekday < 0) ? weekday + 7 : weekday;
+	}
+
+	private static int toInt(Integer integer) {
+		return (integer == null) ? 0 : integer;
+	}
+
+	private static int[] toIntArray(List<Integer> list) {
+		int[] array = new int[list.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = list.get(i);
+		}
+		return array;
+	}
+}
@@ -49,8 +49,9 @@ import biweekly.util.com.google.ical.values.DateValue;
  * @author mikesamuel+svn@gmail.com (Mike Samuel)
  * @author Michael Angstadt
  */
-final class RDateIteratorImpl implements RecurrenceIterator {
+final class RDateIteratorImpl implements PackedRecurrenceIterator {
 	private final DateValue[] datesUtc;
+	private final long[] packedUtc;
 	private int i;
 
 	/**
@@ -61,6 +62,11 @@ final class RDateIteratorImpl implements RecurrenceIterator {
 		datesUtc = datesUtc.clone();
 		Arrays.sort(datesUtc);
 		this.datesUtc = removeDuplicates(datesUtc);
+
+		packedUtc = new long[this.datesUtc.length];
+		for (int i = 0; i < packedUtc.length; i++) {
+			packedUtc[i] = PackedDateValue.pack(this.datesUtc[i]);
+		}
 	}
 
 	public boolean hasNext() {
@@ -74,13 +80,20 @@ final class RDateIteratorImpl implements RecurrenceIterator {
 		return datesUtc[i++];
 	}
 
+	public long nextPacked() {
+		return (i < packedUtc.length) ? packedUtc[i++] : PackedDateValue.NONE;
+	}
+
 	public void remove() {
 		throw new UnsupportedOperationException();
 	}
 
 	public void advanceTo(DateValue newStartUtc) {
-		long startCmp = DateValueComparison.comparable(newStartUtc);
-		while (i < datesUtc.length && startCmp > DateValueComparison.comparable(datesUtc[i])) {
+		advanceTo(PackedDateValue.pack(newStartUtc));
+	}
+
+	public void advanceTo(long newStartUtc) {
+		while (i < packedUtc.length && newStartUtc > packedUtc[i]) {
 			++i;
 		}
 	}
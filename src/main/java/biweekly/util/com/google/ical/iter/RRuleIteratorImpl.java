@@ -42,23 +42,23 @@ package biweekly.util.com.google.ical.iter;
 import java.util.TimeZone;
 
 import biweekly.util.com.google.ical.util.DTBuilder;
-import biweekly.util.com.google.ical.util.Predicate;
-import biweekly.util.com.google.ical.util.TimeUtils;
+import biweekly.util.com.google.ical.util.TimeZoneConverter;
 import biweekly.util.com.google.ical.values.DateValue;
-import biweekly.util.com.google.ical.values.DateValueImpl;
 import biweekly.util.com.google.ical.values.TimeValue;
 
 /**
- * Iterates over dates in an RRULE or EXRULE series.
+ * Iterates over dates in an RRULE or EXRULE series. Dates are generated,
+ * filtered, and converted to UTC in packed form (see {@link PackedDateValue}),
+ * so a {@link DateValue} object is only created when {@link #next} is called.
  * @author mikesamuel+svn@gmail.com (Mike Samuel)
  * @author Michael Angstadt
  */
-final class RRuleIteratorImpl implements RecurrenceIterator {
+final class RRuleIteratorImpl implements PackedRecurrenceIterator {
 	/**
 	 * Determines when the recurrence ends. The condition is applied
 	 * <b>after</b> the date is converted to UTC.
 	 */
-	private final Predicate<? super DateValue> condition;
+	private final DatePredicate condition;
 
 	/**
 	 * Applies the various period generators to generate an entire date. This
@@ -80,9 +80,18 @@ final class RRuleIteratorImpl implements RecurrenceIterator {
 	private final Generator monthGenerator;
 
 	/**
-	 * A date that has been computed but not yet yielded to the user.
+	 * The day, hour, and minute generators, or null if the hour, minute, and
+	 * second are the same for every instance. These must be restarted when
+	 * {@link #advanceTo} skips over months, since they still hold the time of
+	 * day that the iterator was at before it was advanced.
 	 */
-	private DateValue pendingUtc;
+	private final Generator[] timeOfDayGenerators;
+
+	/**
+	 * A date that has been computed but not yet yielded to the user (packed,
+	 * or {@link PackedDateValue#NONE} if there isn't one).
+	 */
+	private long pendingUtc = PackedDateValue.NONE;
 
 	/**
 	 * Used to build successive dates. At the start of the building process,
@@ -97,9 +106,9 @@ final class RRuleIteratorImpl implements RecurrenceIterator {
 	private boolean done;
 
 	/**
-	 * The start date of the recurrence.
+	 * True if the start date of the recurrence has a time component.
 	 */
-	private final DateValue dtStart;
+	private final boolean dtStartHasTime;
 
 	/**
 	 * False iff shortcutting advance would break the semantics of the
@@ -111,9 +120,10 @@ final class RRuleIteratorImpl implements RecurrenceIterator {
 	/**
 	 * The timezone that resultant dates should be converted <b>from</b>. All
 	 * date fields, parameters, and local variables in this class are in this
-	 * timezone, unless they carry the UTC suffix.
+	 * timezone, unless they carry the UTC suffix. The converter caches the
+	 * timezone's UTC offsets, so converting each instance is cheap.
 	 */
-	private final TimeZone tzid;
+	private final TimeZoneConverter tzConverter;
 
 	/**
 	 * Creates the iterator.
@@ -131,15 +141,16 @@ final class RRuleIteratorImpl implements RecurrenceIterator {
 	 * @param canShortcutAdvance false iff shortcutting advance would break the
 	 * semantics of the iteration, true if not
 	 */
-	RRuleIteratorImpl(DateValue dtStart, TimeZone tzid, Predicate<? super DateValue> condition, Generator instanceGenerator, ThrottledGenerator yearGenerator, Generator monthGenerator, Generator dayGenerator, Generator hourGenerator, Generator minuteGenerator, Generator secondGenerator, boolean canShortcutAdvance) {
+	RRuleIteratorImpl(DateValue dtStart, TimeZone tzid, DatePredicate condition, Generator instanceGenerator, ThrottledGenerator yearGenerator, Generator monthGenerator, Generator dayGenerator, Generator hourGenerator, Generator minuteGenerator, Generator secondGenerator, boolean canShortcutAdvance) {
 
 		this.condition = condition;
 		this.instanceGenerator = instanceGenerator;
 		this.yearGenerator = yearGenerator;
 		this.monthGenerator = monthGenerator;
-		this.dtStart = dtStart;
-		this.tzid = tzid;
+		this.dtStartHasTime = dtStart instanceof TimeValue;
+		this.tzConverter = new TimeZoneConverter(tzid);
 		this.canShortcutAdvance = canShortcutAdvance;
+		this.timeOfDayGenerators = InstanceGenerators.skipSubDayGenerators(hourGenerator, minuteGenerator, secondGenerator) ? null : new Generator[] { dayGenerator, hourGenerator, minuteGenerator };
 
 		int initWorkLimit = 1000;
 
@@ -182,21 +193,22 @@ final class RRuleIteratorImpl implements RecurrenceIterator {
 			done = true;
 		}
 
+		long dtStartUtc = PackedDateValue.toUtc(PackedDateValue.pack(dtStart), tzConverter);
 		while (!done) {
 			pendingUtc = generateInstance();
-			if (pendingUtc == null) {
+			if (pendingUtc == PackedDateValue.NONE) {
 				done = true;
 				break;
 			}
 
-			if (pendingUtc.compareTo(TimeUtils.toUtc(dtStart, tzid)) >= 0) {
+			if (pendingUtc >= dtStartUtc) {
 				/*
 				 * We only apply the condition to the ones past dtStart to avoid
 				 * counting useless instances.
 				 */
 				if (!condition.apply(pendingUtc)) {
 					done = true;
-					pendingUtc = null;
+					pendingUtc = PackedDateValue.NONE;
 				}
 				break;
 			}
@@ -209,18 +221,22 @@ final class RRuleIteratorImpl implements RecurrenceIterator {
 	}
 
 	public boolean hasNext() {
-		if (pendingUtc == null) {
+		if (pendingUtc == PackedDateValue.NONE) {
 			fetchNext();
 		}
-		return pendingUtc != null;
+		return pendingUtc != PackedDateValue.NONE;
 	}
 
 	public DateValue next() {
-		if (pendingUtc == null) {
+		return PackedDateValue.toDateValue(nextPacked());
+	}
+
+	public long nextPacked() {
+		if (pendingUtc == PackedDateValue.NONE) {
 			fetchNext();
 		}
-		DateValue next = pendingUtc;
-		pendingUtc = null;
+		long next = pendingUtc;
+		pendingUtc = PackedDateValue.NONE;
 		return next;
 	}
 
@@ -229,47 +245,57 @@ final class RRuleIteratorImpl implements RecurrenceIterator {
 	}
 
 	public void advanceTo(DateValue dateUtc) {
+		advanceTo(PackedDateValue.pack(dateUtc));
+	}
+
+	public void advanceTo(long dateUtc) {
 		/*
 		 * Don't throw away a future pending date since the iterators will not
 		 * generate it again.
 		 */
-		if (pendingUtc != null && dateUtc.compareTo(pendingUtc) <= 0) {
+		if (pendingUtc != PackedDateValue.NONE && dateUtc <= pendingUtc) {
 			return;
 		}
 
-		DateValue dateLocal = TimeUtils.fromUtc(dateUtc, tzid);
+		long dateLocal = PackedDateValue.fromUtc(dateUtc, tzConverter);
+		int dateLocalYear = PackedDateValue.year(dateLocal);
+		int dateLocalMonth = PackedDateValue.month(dateLocal);
 
 		//short-circuit if we're already past dateUtc
-		if (dateLocal.compareTo(builder.toDate()) <= 0) {
+		if (dateLocal <= PackedDateValue.packDate(builder)) {
 			return;
 		}
 
-		pendingUtc = null;
+		pendingUtc = PackedDateValue.NONE;
 
 		try {
 			if (canShortcutAdvance) {
+				boolean skipped = false;
+
 				//skip years before date.year
-				if (builder.year < dateLocal.year()) {
+				if (builder.year < dateLocalYear) {
 					do {
 						if (!yearGenerator.generate(builder)) {
 							done = true;
 							return;
 						}
-					} while (builder.year < dateLocal.year());
+					} while (builder.year < dateLocalYear);
 					while (!monthGenerator.generate(builder)) {
 						if (!yearGenerator.generate(builder)) {
 							done = true;
 							return;
 						}
 					}
+					skipped = true;
 				}
 				
-				if (builder.month < dateLocal.month()) {
+				if (builder.month < dateLocalMonth) {
 					builder.day = 1;
 				}
 
 				//skip months before date.year/date.month
-				while (builder.year == dateLocal.year() && builder.month < dateLocal.month()) {
+				while (builder.year == dateLocalYear && builder.month < dateLocalMonth) {
+					skipped = true;
 					while (!monthGenerator.generate(builder)) {
 						//if there are more years available fetch one
 						if (!yearGenerator.generate(builder)) {
@@ -279,12 +305,19 @@ final class RRuleIteratorImpl implements RecurrenceIterator {
 						}
 					}
 				}
+
+				if (skipped && timeOfDayGenerators != null) {
+					restartTimeOfDay();
+					if (done) {
+						return;
+					}
+				}
 			}
 
 			//consume any remaining instances
 			while (!done) {
-				DateValue dUtc = generateInstance();
-				if (dUtc == null) {
+				long dUtc = generateInstance();
+				if (dUtc == PackedDateValue.NONE) {
 					done = true;
 					return;
 				}
@@ -294,7 +327,7 @@ final class RRuleIteratorImpl implements RecurrenceIterator {
 					return;
 				}
 
-				if (dUtc.compareTo(dateUtc) >= 0) {
+				if (dUtc >= dateUtc) {
 					pendingUtc = dUtc;
 					break;
 				}
@@ -304,16 +337,45 @@ final class RRuleIteratorImpl implements RecurrenceIterator {
 		}
 	}
 
+	/**
+	 * Moves the day, hour, and minute generators to the first instance of the
+	 * builder's month, moving on to later months if there are none.
+	 * @throws Generator.IteratorShortCircuitingException if the year generator
+	 * gives up
+	 */
+	private void restartTimeOfDay() throws Generator.IteratorShortCircuitingException {
+		int workLimit = 1000;
+		for (int i = 0; i < timeOfDayGenerators.length;) {
+			if (timeOfDayGenerators[i].generate(builder)) {
+				++i;
+			} else if (i > 0) {
+				--i;
+			} else {
+				while (!monthGenerator.generate(builder)) {
+					if (!yearGenerator.generate(builder)) {
+						done = true;
+						return;
+					}
+				}
+			}
+
+			if (--workLimit == 0) {
+				done = true;
+				return;
+			}
+		}
+	}
+
 	/** calculates and stored the next date in this recurrence. */
 	private void fetchNext() {
-		if (pendingUtc != null || done) {
+		if (pendingUtc != PackedDateValue.NONE || done) {
 			return;
 		}
 
-		DateValue dUtc = generateInstance();
+		long dUtc = generateInstance();
 
 		//check the exit condition
-		if (dUtc == null || !condition.apply(dUtc)) {
+		if (dUtc == PackedDateValue.NONE || !condition.apply(dUtc)) {
 			done = true;
 			return;
 		}
@@ -322,33 +384,33 @@ final class RRuleIteratorImpl implements RecurrenceIterator {
 		yearGenerator.workDone();
 	}
 
-	private static final DateValue MIN_DATE = new DateValueImpl(Integer.MIN_VALUE, 1, 1);
+	private static final long MIN_DATE = PackedDateValue.packDate(Integer.MIN_VALUE, 1, 1);
 
 	/**
 	 * Make sure the iterator is monotonically increasing. The local time is
 	 * guaranteed to be monotonic, but because of daylight savings shifts, the
 	 * time in UTC may not be.
 	 */
-	private DateValue lastUtc_ = MIN_DATE;
+	private long lastUtc_ = MIN_DATE;
 
 	/**
 	 * Generates a date.
-	 * @return a date value in UTC or null if a date value could not be
-	 * generated
+	 * @return a packed date in UTC or {@link PackedDateValue#NONE} if a date
+	 * could not be generated
 	 */
-	private DateValue generateInstance() {
+	private long generateInstance() {
 		try {
 			do {
 				if (!instanceGenerator.generate(builder)) {
-					return null;
+					return PackedDateValue.NONE;
 				}
-				DateValue dUtc = dtStart instanceof TimeValue ? TimeUtils.toUtc(builder.toDateTime(), tzid) : builder.toDate();
-				if (dUtc.compareTo(lastUtc_) > 0) {
+				long dUtc = dtStartHasTime ? PackedDateValue.toUtc(PackedDateValue.packDateTime(builder), tzConverter) : PackedDateValue.packDate(builder);
+				if (dUtc > lastUtc_) {
 					return dUtc;
 				}
 			} while (true);
 		} catch (Generator.IteratorShortCircuitingException ex) {
-			return null;
+			return PackedDateValue.NONE;
 		}
 	}
 }
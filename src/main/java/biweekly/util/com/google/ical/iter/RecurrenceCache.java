@@ -0,0 +1,477 @@
+package biweekly.util.com.google.ical.iter;
+
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import biweekly.Messages;
+import biweekly.util.ByDay;
+import biweekly.util.DayOfWeek;
+import biweekly.util.Frequency;
+import biweekly.util.Google2445Utils;
+import biweekly.util.ICalDate;
+import biweekly.util.Recurrence;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * A thread-safe cache that speeds up the repeated expansion of the same
+ * recurrence rules. This is useful when the same recurring events are expanded
+ * many times over (for example, a server that displays a company-wide meeting
+ * to each of its users).
+ * </p>
+ * <p>
+ * Each entry is keyed by the recurrence rule, the start date, and the timezone.
+ * Timezones are compared by ID and by their rules (see
+ * {@link TimeZone#hasSameRules}). The rule is normalized before it is used as
+ * a key, so rules that only differ in the order of their BYxxx parts share the
+ * same entry. An entry holds a recurrence iterator, along with a sorted array
+ * of the occurrences that fall within the window of time that was most
+ * recently asked for. Queries that fall inside of this window are answered
+ * with a binary search. Queries that fall after the window slide it forward by
+ * reading more occurrences from the iterator. Queries that fall before the
+ * window cause the iterator to be rebuilt.
+ * </p>
+ * <p>
+ * The cache is bounded in size. When it is full, the least recently used entry
+ * is evicted. Entries are also evicted when they become older than the cache's
+ * time to live.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ *
+ * <pre class="brush:java">
+ * RecurrenceCache cache = new RecurrenceCache();
+ *
+ * long[] buffer = new long[256];
+ * int count = cache.expand(rrule, start, timezone, from, to, buffer);
+ * </pre>
+ * @author Michael Angstadt
+ * @see RecurrenceExpander
+ */
+public class RecurrenceCache {
+	/**
+	 * The default maximum number of entries the cache will hold.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 256;
+
+	/**
+	 * The default amount of time an entry will stay in the cache (one hour).
+	 */
+	public static final long DEFAULT_TIME_TO_LIVE = 60 * 60 * 1000;
+
+	/**
+	 * The maximum number of occurrences an entry will hold on to between
+	 * queries.
+	 */
+	private static final int MAX_WINDOW_SIZE = 1024;
+
+	/**
+	 * The number of occurrences that are read from an iterator at a time.
+	 */
+	private static final int CHUNK_SIZE = 32;
+
+	private final int maxSize;
+	private final long timeToLive;
+	private final Map<Key, CacheEntry> entries;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Creates a new cache that holds up to {@value #DEFAULT_MAX_SIZE} entries
+	 * for up to one hour each.
+	 */
+	public RecurrenceCache() {
+		this(DEFAULT_MAX_SIZE, DEFAULT_TIME_TO_LIVE);
+	}
+
+	/**
+	 * Creates a new cache.
+	 * @param maxSize the maximum number of entries to hold
+	 * @param timeToLive the amount of time an entry will stay in the cache
+	 * after it is created (in milliseconds)
+	 * @throws IllegalArgumentException if the max size or the time to live is
+	 * less than 1
+	 */
+	public RecurrenceCache(final int maxSize, long timeToLive) {
+		if (maxSize < 1) {
+			throw Messages.INSTANCE.getIllegalArgumentException(35);
+		}
+		if (timeToLive < 1) {
+			throw Messages.INSTANCE.getIllegalArgumentException(31);
+		}
+
+		this.maxSize = maxSize;
+		this.timeToLive = timeToLive;
+		entries = new LinkedHashMap<Key, CacheEntry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 2787924526478926394L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, CacheEntry> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Writes the occurrences of a recurrence rule that fall within the given
+	 * window to a buffer. This method behaves the same way as
+	 * {@link RecurrenceExpander#expand(Recurrence, ICalDate, TimeZone, long, long, long[])}.
+	 * @param recurrence the recurrence rule
+	 * @param start the start date of the series (typically, the value of the
+	 * DTSTART property)
+	 * @param timezone the timezone to iterate in. This is needed in order to
+	 * account for when the iterator passes over a daylight savings boundary.
+	 * @param fromMillis the start of the window, in milliseconds since the
+	 * epoch (inclusive)
+	 * @param toMillis the end of the window, in milliseconds since the epoch
+	 * (exclusive)
+	 * @param buffer the buffer to write the occurrences to
+	 * @return the number of occurrences written to the buffer. If this is equal
+	 * to the length of the buffer, there may be more occurrences in the window.
+	 */
+	public int expand(Recurrence recurrence, ICalDate start, TimeZone timezone, long fromMillis, long toMillis, long[] buffer) {
+		if (fromMillis >= toMillis || buffer.length == 0) {
+			return 0;
+		}
+
+		CacheEntry entry = get(new Key(normalize(recurrence), start.getTime(), timezone));
+		return entry.expand(fromMillis, toMillis, buffer);
+	}
+
+	private CacheEntry get(Key key) {
+		long now = System.currentTimeMillis();
+		synchronized (entries) {
+			CacheEntry entry = entries.get(key);
+			if (entry != null && now - entry.created < timeToLive) {
+				hits.incrementAndGet();
+				return entry;
+			}
+
+			misses.incrementAndGet();
+
+			/*
+			 * Do not build the iterator while holding the lock. The entry
+			 * builds it the first time it is used, so that threads which miss
+			 * on the same key at the same time only build it once.
+			 *
+			 * Copy the timezone so that changes that are made to the original
+			 * object do not affect the cached entry or its key.
+			 */
+			key = new Key(key.recurrence, key.start, (TimeZone) key.timezone.clone());
+			entry = new CacheEntry(key, now);
+			entries.put(key, entry);
+			return entry;
+		}
+	}
+
+	/**
+	 * Gets the number of lookups that were answered by an existing entry.
+	 * @return the number of hits
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Gets the number of lookups that required a new entry to be created.
+	 * @return the number of misses
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Gets the maximum number of entries the cache will hold.
+	 * @return the max size
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Gets the amount of time an entry will stay in the cache.
+	 * @return the time to live (in milliseconds)
+	 */
+	public long getTimeToLive() {
+		return timeToLive;
+	}
+
+	/**
+	 * Gets the number of entries in the cache, including any that have
+	 * expired but have not been evicted yet.
+	 * @return the number of entries
+	 */
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * Removes all entries from the cache and resets the hit and miss counters.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+		hits.set(0);
+		misses.set(0);
+	}
+
+	/**
+	 * Creates a copy of a recurrence rule that contains only the parts that
+	 * affect iteration, with its BYxxx parts sorted and de-duplicated and
+	 * its default values filled in.
+	 * @param recurrence the recurrence rule
+	 * @return the normalized rule
+	 */
+	static Recurrence normalize(Recurrence recurrence) {
+		Frequency frequency = recurrence.getFrequency();
+		if (frequency == null) {
+			frequency = Frequency.YEARLY;
+		}
+
+		Integer interval = recurrence.getInterval();
+		if (interval != null && interval <= 1) {
+			interval = null;
+		}
+
+		DayOfWeek workweekStarts = recurrence.getWorkweekStarts();
+		if (workweekStarts == null) {
+			workweekStarts = DayOfWeek.MONDAY;
+		}
+
+		TreeSet<ByDay> byDay = new TreeSet<ByDay>(BY_DAY_ORDER);
+		byDay.addAll(recurrence.getByDay());
+
+		//@formatter:off
+		Recurrence.Builder builder = new Recurrence.Builder(frequency)
+			.interval(interval)
+			.count(recurrence.getCount())
+			.until(recurrence.getUntil())
+			.bySecond(new TreeSet<Integer>(recurrence.getBySecond()))
+			.byMinute(new TreeSet<Integer>(recurrence.getByMinute()))
+			.byHour(new TreeSet<Integer>(recurrence.getByHour()))
+			.byMonthDay(new TreeSet<Integer>(recurrence.getByMonthDay()))
+			.byYearDay(new TreeSet<Integer>(recurrence.getByYearDay()))
+			.byWeekNo(new TreeSet<Integer>(recurrence.getByWeekNo()))
+			.byMonth(new TreeSet<Integer>(recurrence.getByMonth()))
+			.bySetPos(new TreeSet<Integer>(recurrence.getBySetPos()))
+			.workweekStarts(workweekStarts);
+		//@formatter:on
+
+		for (ByDay day : byDay) {
+			builder.byDay(day.getNum(), day.getDay());
+		}
+		return builder.build();
+	}
+
+	private static final Comparator<ByDay> BY_DAY_ORDER = new Comparator<ByDay>() {
+		public int compare(ByDay a, ByDay b) {
+			int numA = (a.getNum() == null) ? 0 : a.getNum();
+			int numB = (b.getNum() == null) ? 0 : b.getNum();
+			if (numA != numB) {
+				return (numA < numB) ? -1 : 1;
+			}
+			return a.getDay().compareTo(b.getDay());
+		}
+	};
+
+	private static class Key {
+		private final Recurrence recurrence;
+		private final long start;
+		private final TimeZone timezone;
+
+		public Key(Recurrence recurrence, long start, TimeZone timezone) {
+			this.recurrence = recurrence;
+			this.start = start;
+			this.timezone = timezone;
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + recurrence.hashCode();
+			result = prime * result + (int) (start ^ (start >>> 32));
+			result = prime * result + timezone.getID().hashCode();
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) return true;
+			if (obj == null) return false;
+			if (getClass() != obj.getClass()) return false;
+			Key other = (Key) obj;
+			if (start != other.start) return false;
+			if (!recurrence.equals(other.recurrence)) return false;
+
+			/*
+			 * Not all TimeZone classes override equals() (ICalTimeZone does
+			 * not), so compare the rules instead.
+			 */
+			if (!timezone.getID().equals(other.timezone.getID())) return false;
+			if (!timezone.hasSameRules(other.timezone)) return false;
+			return true;
+		}
+	}
+
+	/**
+	 * A recurrence iterator, along with all of its occurrences that fall
+	 * within a window of time. The iterator is always positioned at the end
+	 * of the window.
+	 */
+	private static class CacheEntry {
+		private final Key key;
+		private final long created;
+		private final long[] chunk = new long[CHUNK_SIZE];
+
+		private RecurrenceIterator iterator;
+		private long[] occurrences = new long[CHUNK_SIZE];
+		private int size;
+
+		/**
+		 * The start of the window (inclusive).
+		 */
+		private long windowStart;
+
+		/**
+		 * The end of the window (exclusive), or {@link Long#MAX_VALUE} if the
+		 * iterator is exhausted.
+		 */
+		private long windowEnd;
+
+		public CacheEntry(Key key, long created) {
+			this.key = key;
+			this.created = created;
+		}
+
+		public synchronized int expand(long fromMillis, long toMillis, long[] buffer) {
+			if (iterator == null || fromMillis < windowStart) {
+				//iterators cannot go backwards
+				ICalDate start = new ICalDate(new Date(key.start));
+				iterator = Google2445Utils.createRecurrenceIterator(key.recurrence, start, key.timezone);
+				windowStart = windowEnd = fromMillis;
+				size = 0;
+			} else if (fromMillis > windowEnd) {
+				//skip ahead
+				windowStart = windowEnd = fromMillis;
+				size = 0;
+			}
+
+			int first = indexOf(fromMillis);
+			while (windowEnd < toMillis && size - first < buffer.length) {
+				int read = RecurrenceExpander.expand(iterator, windowEnd, Long.MAX_VALUE, chunk);
+				first -= makeRoom(read, first);
+				System.arraycopy(chunk, 0, occurrences, size, read);
+				size += read;
+
+				windowEnd = (read < chunk.length) ? Long.MAX_VALUE : chunk[read - 1] + 1;
+			}
+
+			int count = 0;
+			for (int i = first; i < size && count < buffer.length; i++) {
+				long millis = occurrences[i];
+				if (millis >= toMillis) {
+					break;
+				}
+				buffer[count++] = millis;
+			}
+
+			if (size > MAX_WINDOW_SIZE) {
+				discard(size - MAX_WINDOW_SIZE);
+			}
+
+			return count;
+		}
+
+		/**
+		 * Makes room at the end of the occurrences array, first by discarding
+		 * occurrences that come before the current query, then by growing the
+		 * array.
+		 * @param room the number of free slots needed
+		 * @param first the index of the first occurrence in the current query
+		 * @return the number of occurrences that were discarded
+		 */
+		private int makeRoom(int room, int first) {
+			if (size + room <= occurrences.length) {
+				return 0;
+			}
+
+			int discarded = 0;
+			if (size + room > MAX_WINDOW_SIZE && first > 0) {
+				discarded = Math.min(first, size + room - MAX_WINDOW_SIZE);
+				discard(discarded);
+			}
+
+			if (size + room > occurrences.length) {
+				long[] copy = new long[Math.max(occurrences.length * 2, size + room)];
+				System.arraycopy(occurrences, 0, copy, 0, size);
+				occurrences = copy;
+			}
+
+			return discarded;
+		}
+
+		/**
+		 * Removes occurrences from the start of the window.
+		 * @param count the number of occurrences to remove
+		 */
+		private void discard(int count) {
+			windowStart = occurrences[count - 1] + 1;
+			size -= count;
+			System.arraycopy(occurrences, count, occurrences, 0, size);
+		}
+
+		/**
+		 * Finds the first occurrence that is on or after the given time.
+		 * @param millis the time
+		 * @return the index of the occurrence, or the number of occurrences if
+		 * there are none
+		 */
+		private int indexOf(long millis) {
+			int low = 0;
+			int high = size;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (occurrences[mid] < millis) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+	}
+}
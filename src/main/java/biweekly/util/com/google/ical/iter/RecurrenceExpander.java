@@ -0,0 +1,245 @@
+package biweekly.util.com.google.ical.iter;
+
+import java.util.TimeZone;
+
+import biweekly.util.Google2445Utils;
+import biweekly.util.ICalDate;
+import biweekly.util.Recurrence;
+import biweekly.util.com.google.ical.util.TimeUtils;
+import biweekly.util.com.google.ical.values.DateValue;
+import biweekly.util.com.google.ical.values.TimeValue;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met:
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Expands recurrences into arrays of epoch milliseconds. This is an
+ * alternative to
+ * {@link biweekly.util.com.google.ical.compat.javautil.DateIteratorFactory
+ * DateIteratorFactory} for callers that only need the start instant of each
+ * occurrence. No {@link java.util.Date} or {@link java.util.Calendar} objects
+ * are created for the occurrences, and the caller's buffer can be reused
+ * across calls.
+ * </p>
+ * <p>
+ * The occurrences are written in ascending order. If the buffer fills up
+ * before the end of the window is reached, call the method again, passing in
+ * the last value written plus one as the start of the window.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ *
+ * <pre class="brush:java">
+ * long[] buffer = new long[256];
+ * long from = ...;
+ * long to = ...;
+ * int count;
+ * do {
+ *   count = RecurrenceExpander.expand(rrule, start, timezone, from, to, buffer);
+ *   for (int i = 0; i &lt; count; i++) {
+ *     //...
+ *   }
+ *   if (count == 0) {
+ *     break;
+ *   }
+ *   from = buffer[count - 1] + 1;
+ * } while (count == buffer.length);
+ * </pre>
+ * @author Michael Angstadt
+ */
+public final class RecurrenceExpander {
+	private static final long SECS_PER_DAY = 24L * 60 * 60;
+	private static final long MILLIS_PER_DAY = SECS_PER_DAY * 1000;
+
+	/**
+	 * The number of days between the Dershowitz/Reingold epoch and 1970-01-01.
+	 */
+	private static final int UNIX_EPOCH_FIXED = TimeUtils.fixedFromGregorian(1970, 1, 1);
+
+	/**
+	 * The furthest date that iterators will be advanced to (the start of the
+	 * year 10000).
+	 */
+	private static final long MAX_ADVANCE_SECS = TimeUtils.fixedFromGregorian(10000, 1, 1) * SECS_PER_DAY;
+
+	/**
+	 * Writes the occurrences of a recurrence rule that fall within the given
+	 * window to a buffer.
+	 * @param recurrence the recurrence rule
+	 * @param start the start date of the series (typically, the value of the
+	 * DTSTART property)
+	 * @param timezone the timezone to iterate in. This is needed in order to
+	 * account for when the iterator passes over a daylight savings boundary.
+	 * @param fromMillis the start of the window, in milliseconds since the
+	 * epoch (inclusive)
+	 * @param toMillis the end of the window, in milliseconds since the epoch
+	 * (exclusive)
+	 * @param buffer the buffer to write the occurrences to
+	 * @return the number of occurrences written to the buffer. If this is equal
+	 * to the length of the buffer, there may be more occurrences in the window.
+	 */
+	public static int expand(Recurrence recurrence, ICalDate start, TimeZone timezone, long fromMillis, long toMillis, long[] buffer) {
+		RecurrenceIterator it = Google2445Utils.createRecurrenceIterator(recurrence, start, timezone);
+		return expand(it, fromMillis, toMillis, buffer);
+	}
+
+	/**
+	 * Writes the dates of a recurrence iterator that fall within the given
+	 * window to a buffer. The iterator is advanced past the last date that was
+	 * written.
+	 * @param it the recurrence iterator (can be a combination of RRULEs,
+	 * RDATEs, etc)
+	 * @param fromMillis the start of the window, in milliseconds since the
+	 * epoch (inclusive)
+	 * @param toMillis the end of the window, in milliseconds since the epoch
+	 * (exclusive)
+	 * @param buffer the buffer to write the dates to
+	 * @return the number of dates written to the buffer. If this is equal to
+	 * the length of the buffer, there may be more dates in the window.
+	 */
+	public static int expand(RecurrenceIterator it, long fromMillis, long toMillis, long[] buffer) {
+		if (fromMillis >= toMillis || buffer.length == 0) {
+			return 0;
+		}
+
+		if (it instanceof PackedRecurrenceIterator) {
+			return expand((PackedRecurrenceIterator) it, fromMillis, toMillis, buffer);
+		}
+
+		long from = toPacked(fromMillis);
+		if (from != PackedDateValue.NONE) {
+			it.advanceTo(PackedDateValue.toDateValue(from));
+		}
+
+		int count = 0;
+		while (count < buffer.length && it.hasNext()) {
+			long millis = toMillis(it.next());
+			if (millis >= toMillis) {
+				break;
+			}
+
+			/*
+			 * The iterator may return a date that is slightly before the
+			 * window if the window starts in the middle of a second.
+			 */
+			if (millis < fromMillis) {
+				continue;
+			}
+
+			buffer[count++] = millis;
+		}
+		return count;
+	}
+
+	/**
+	 * Same as {@link #expand(RecurrenceIterator, long, long, long[])}, but
+	 * reads the dates from the iterator in packed form, so no {@link DateValue}
+	 * objects are created at all.
+	 */
+	private static int expand(PackedRecurrenceIterator it, long fromMillis, long toMillis, long[] buffer) {
+		long from = toPacked(fromMillis);
+		if (from != PackedDateValue.NONE) {
+			it.advanceTo(from);
+		}
+
+		int count = 0;
+		while (count < buffer.length && it.hasNext()) {
+			long millis = toMillis(it.nextPacked());
+			if (millis >= toMillis) {
+				break;
+			}
+
+			//see above
+			if (millis < fromMillis) {
+				continue;
+			}
+
+			buffer[count++] = millis;
+		}
+		return count;
+	}
+
+	/**
+	 * Converts a {@link DateValue} object to milliseconds since the epoch.
+	 * Dates without a time component are treated as midnight.
+	 * @param dateUtc the date value (in UTC)
+	 * @return the number of milliseconds since the epoch
+	 */
+	static long toMillis(DateValue dateUtc) {
+		long days = TimeUtils.fixedFromGregorian(dateUtc.year(), dateUtc.month(), dateUtc.day()) - UNIX_EPOCH_FIXED;
+		long millis = days * MILLIS_PER_DAY;
+		if (dateUtc instanceof TimeValue) {
+			TimeValue time = (TimeValue) dateUtc;
+			millis += ((time.hour() * 60L + time.minute()) * 60 + time.second()) * 1000;
+		}
+		return millis;
+	}
+
+	/**
+	 * Converts a packed date value to milliseconds since the epoch. Dates
+	 * without a time component are treated as midnight.
+	 * @param packedUtc the packed date value (in UTC)
+	 * @return the number of milliseconds since the epoch
+	 */
+	private static long toMillis(long packedUtc) {
+		return (PackedDateValue.secsSinceEpoch(packedUtc) - UNIX_EPOCH_FIXED * SECS_PER_DAY) * 1000;
+	}
+
+	/**
+	 * Converts milliseconds since the epoch to a packed date value.
+	 * @param millis the number of milliseconds since the epoch
+	 * @return the packed date value (in UTC) or {@link PackedDateValue#NONE}
+	 * if the date is before the year 1
+	 */
+	private static long toPacked(long millis) {
+		long secs = millis / 1000;
+		if (millis % 1000 < 0) {
+			secs--;
+		}
+		secs += UNIX_EPOCH_FIXED * SECS_PER_DAY;
+		if (secs < SECS_PER_DAY) {
+			return PackedDateValue.NONE;
+		}
+		if (secs > MAX_ADVANCE_SECS) {
+			//advancing to an earlier date is harmless, the window is enforced anyway
+			secs = MAX_ADVANCE_SECS;
+		}
+
+		/*
+		 * Treat midnight as a date value so that advancing to it will not skip
+		 * over any all-day occurrences on that date (see DateIteratorFactory).
+		 */
+		if (secs % SECS_PER_DAY == 0) {
+			return PackedDateValue.fromFixed((int) (secs / SECS_PER_DAY));
+		}
+		return PackedDateValue.fromSecsSinceEpoch(secs);
+	}
+
+	private RecurrenceExpander() {
+		// uninstantiable
+	}
+}
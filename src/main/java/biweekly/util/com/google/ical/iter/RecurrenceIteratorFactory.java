@@ -53,8 +53,6 @@ import biweekly.util.Frequency;
 import biweekly.util.Google2445Utils;
 import biweekly.util.ICalDate;
 import biweekly.util.Recurrence;
-import biweekly.util.com.google.ical.util.Predicate;
-import biweekly.util.com.google.ical.util.Predicates;
 import biweekly.util.com.google.ical.util.TimeUtils;
 import biweekly.util.com.google.ical.values.DateTimeValue;
 import biweekly.util.com.google.ical.values.DateTimeValueImpl;
@@ -247,7 +245,7 @@ public class RecurrenceIteratorFactory {
 		 * reimplement some of the more prolific generators as filters.
 		 */
 		// TODO(msamuel): don't need a list here
-		List<Predicate<? super DateValue>> filters = new ArrayList<Predicate<? super DateValue>>();
+		List<DatePredicate> filters = new ArrayList<DatePredicate>();
 
 		switch (freq) {
 		case SECONDLY:
@@ -400,7 +398,7 @@ public class RecurrenceIteratorFactory {
 		 * The condition tells the iterator when to halt. The condition is
 		 * exclusive, so the date that triggers it will not be included.
 		 */
-		Predicate<DateValue> condition;
+		DatePredicate condition;
 		if (count != 0) {
 			condition = Conditions.countCondition(count);
 
@@ -414,58 +412,189 @@ public class RecurrenceIteratorFactory {
 			 */
 			canShortcutAdvance = false;
 		} else if (until != null) {
-			DateValue untilUtc;
-			if (until.hasTime()) {
-				TimeZone utc = TimeZone.getTimeZone("UTC");
-				untilUtc = Google2445Utils.convert(until, utc);
-			} else {
-				//treat the ICalDate object as a timezone-less, calendar date
-				Calendar c = Calendar.getInstance();
-				c.setTime(until);
-				untilUtc = new DateValueImpl( //@formatter:off
-					c.get(Calendar.YEAR),
-					c.get(Calendar.MONTH) + 1,
-					c.get(Calendar.DAY_OF_MONTH)
-				); //@formatter:on
-			}
-
-			if ((untilUtc instanceof TimeValue) != (dtStart instanceof TimeValue)) {
-				// TODO(msamuel): warn
-				if (dtStart instanceof TimeValue) {
-					untilUtc = TimeUtils.dayStart(untilUtc);
-				} else {
-					untilUtc = TimeUtils.toDateValue(untilUtc);
-				}
-			}
+			DateValue untilUtc = toUntilUtc(until, dtStart);
 			condition = Conditions.untilCondition(untilUtc);
 		} else {
-			condition = Predicates.alwaysTrue();
+			condition = DatePredicate.alwaysTrue();
 		}
 
 		//combine filters into a single function
-		Predicate<? super DateValue> filter;
-		switch (filters.size()) {
-		case 0:
-			filter = Predicates.<DateValue> alwaysTrue();
-			break;
-		case 1:
-			filter = filters.get(0);
-			break;
-		default:
-			filter = Predicates.and(filters);
-			break;
-		}
+		DatePredicate filter = DatePredicate.and(filters);
 
 		Generator instanceGenerator;
 		if (bySetPos.length > 0) {
 			instanceGenerator = InstanceGenerators.bySetPosInstanceGenerator(bySetPos, freq, wkst, filter, yearGenerator, monthGenerator, dayGenerator, hourGenerator, minuteGenerator, secondGenerator);
 		} else {
-			instanceGenerator = InstanceGenerators.serialInstanceGenerator(filter, yearGenerator, monthGenerator, dayGenerator, hourGenerator, minuteGenerator, secondGenerator);
+			/*
+			 * If the rule is not more frequent than daily, then every day has
+			 * the same times and the filters only look at the date, so the
+			 * instances can be computed a month at a time.
+			 */
+			long[] timesOfDay = (freq.compareTo(Frequency.DAILY) >= 0) ? InstanceGenerators.timesOfDay(byHour, byMinute, bySecond, start) : null;
+			if (timesOfDay == null) {
+				instanceGenerator = InstanceGenerators.serialInstanceGenerator(filter, yearGenerator, monthGenerator, dayGenerator, hourGenerator, minuteGenerator, secondGenerator);
+			} else {
+				instanceGenerator = InstanceGenerators.batchInstanceGenerator(filter, timesOfDay, yearGenerator, monthGenerator, dayGenerator, hourGenerator, minuteGenerator, secondGenerator);
+			}
 		}
 
 		return new RRuleIteratorImpl(dtStart, tzid, condition, instanceGenerator, yearGenerator, monthGenerator, dayGenerator, hourGenerator, minuteGenerator, secondGenerator, canShortcutAdvance);
 	}
 
+	/**
+	 * <p>
+	 * Gets the instance of a recurrence rule at the given position.
+	 * </p>
+	 * <p>
+	 * Simple DAILY, WEEKLY, MONTHLY, and YEARLY rules (rules that only use
+	 * the BYDAY, BYMONTHDAY, and BYMONTH rule parts in basic ways) are
+	 * calculated directly in constant time. Other rules are iterated over.
+	 * </p>
+	 * @param rrule the recurrence rule
+	 * @param dtStart the start date of the series
+	 * @param tzid the timezone that the start date is in, as well as the
+	 * timezone to iterate in
+	 * @param index the position of the instance (zero-based)
+	 * @return the instance (in UTC) or null if the recurrence does not have
+	 * that many instances
+	 */
+	public static DateValue getInstance(Recurrence rrule, DateValue dtStart, TimeZone tzid, int index) {
+		if (index < 0) {
+			return null;
+		}
+
+		PeriodicRecurrence periodic = PeriodicRecurrence.create(rrule, dtStart, tzid);
+		if (periodic != null) {
+			return PackedDateValue.toDateValue(periodic.get(index));
+		}
+
+		RecurrenceIterator it = createRecurrenceIterator(rrule, dtStart, tzid);
+		for (int i = 0; i < index && it.hasNext(); i++) {
+			it.next();
+		}
+		return it.hasNext() ? it.next() : null;
+	}
+
+	/**
+	 * <p>
+	 * Gets the last instance of a recurrence rule.
+	 * </p>
+	 * <p>
+	 * Simple DAILY, WEEKLY, MONTHLY, and YEARLY rules (rules that only use
+	 * the BYDAY, BYMONTHDAY, and BYMONTH rule parts in basic ways) are
+	 * calculated directly in logarithmic time. Other rules are iterated over.
+	 * </p>
+	 * @param rrule the recurrence rule
+	 * @param dtStart the start date of the series
+	 * @param tzid the timezone that the start date is in, as well as the
+	 * timezone to iterate in
+	 * @return the last instance (in UTC) or null if the recurrence has no
+	 * instances or does not have a COUNT or UNTIL rule part
+	 */
+	public static DateValue getLastInstance(Recurrence rrule, DateValue dtStart, TimeZone tzid) {
+		if (isUnbounded(rrule)) {
+			return null;
+		}
+
+		PeriodicRecurrence periodic = PeriodicRecurrence.create(rrule, dtStart, tzid);
+		if (periodic != null) {
+			return PackedDateValue.toDateValue(periodic.get(periodic.size() - 1));
+		}
+
+		DateValue last = null;
+		RecurrenceIterator it = createRecurrenceIterator(rrule, dtStart, tzid);
+		while (it.hasNext()) {
+			last = it.next();
+		}
+		return last;
+	}
+
+	/**
+	 * <p>
+	 * Counts the instances of a recurrence rule.
+	 * </p>
+	 * <p>
+	 * Simple DAILY, WEEKLY, MONTHLY, and YEARLY rules (rules that only use
+	 * the BYDAY, BYMONTHDAY, and BYMONTH rule parts in basic ways) are
+	 * calculated directly in logarithmic time. Other rules are iterated over.
+	 * </p>
+	 * @param rrule the recurrence rule
+	 * @param dtStart the start date of the series
+	 * @param tzid the timezone that the start date is in, as well as the
+	 * timezone to iterate in
+	 * @param fromUtc only count the instances that are on or after this date
+	 * (in UTC), or null to count all of the instances
+	 * @return the number of instances or -1 if the recurrence does not have a
+	 * COUNT or UNTIL rule part
+	 */
+	public static int countInstances(Recurrence rrule, DateValue dtStart, TimeZone tzid, DateValue fromUtc) {
+		if (isUnbounded(rrule)) {
+			return -1;
+		}
+
+		PeriodicRecurrence periodic = PeriodicRecurrence.create(rrule, dtStart, tzid);
+		if (periodic != null) {
+			long size = periodic.size();
+			if (fromUtc != null) {
+				size -= Math.min(size, periodic.indexOf(PackedDateValue.pack(fromUtc)));
+			}
+			return (int) Math.min(size, Integer.MAX_VALUE);
+		}
+
+		/*
+		 * Don't call advanceTo(), because the iterator gives up if it has to
+		 * advance too far without being asked for any instances.
+		 */
+		long from = (fromUtc == null) ? PackedDateValue.NONE : PackedDateValue.pack(fromUtc);
+		RecurrenceIterator it = createRecurrenceIterator(rrule, dtStart, tzid);
+		int count = 0;
+		while (it.hasNext()) {
+			if (PackedDateValue.pack(it.next()) >= from) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static boolean isUnbounded(Recurrence rrule) {
+		return toInt(rrule.getCount()) == 0 && rrule.getUntil() == null;
+	}
+
+	/**
+	 * Converts the UNTIL value of a recurrence rule to the form used by the
+	 * until condition.
+	 * @param until the UNTIL value
+	 * @param dtStart the start date of the series
+	 * @return the UNTIL value in UTC, with a time component only if the start
+	 * date has one
+	 */
+	static DateValue toUntilUtc(ICalDate until, DateValue dtStart) {
+		DateValue untilUtc;
+		if (until.hasTime()) {
+			TimeZone utc = TimeZone.getTimeZone("UTC");
+			untilUtc = Google2445Utils.convert(until, utc);
+		} else {
+			//treat the ICalDate object as a timezone-less, calendar date
+			Calendar c = Calendar.getInstance();
+			c.setTime(until);
+			untilUtc = new DateValueImpl( //@formatter:off
+				c.get(Calendar.YEAR),
+				c.get(Calendar.MONTH) + 1,
+				c.get(Calendar.DAY_OF_MONTH)
+			); //@formatter:on
+		}
+
+		if ((untilUtc instanceof TimeValue) != (dtStart instanceof TimeValue)) {
+			// TODO(msamuel): warn
+			if (dtStart instanceof TimeValue) {
+				untilUtc = TimeUtils.dayStart(untilUtc);
+			} else {
+				untilUtc = TimeUtils.toDateValue(untilUtc);
+			}
+		}
+		return untilUtc;
+	}
+
 	/**
 	 * Generates a recurrence iterator that iterates over the union of the given
 	 * recurrence iterators.
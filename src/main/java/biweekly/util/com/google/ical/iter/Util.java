@@ -72,6 +72,37 @@ class Util {
 		return builder.toDate();
 	}
 
+	/**
+	 * Advances the given packed date to the next date that falls on the given
+	 * weekday. This is the same as {@link #nextWeekStart(DateValue, DayOfWeek)}
+	 * except that no objects are created.
+	 * @param date the packed date
+	 * @param weekday the day of the week that the week starts on
+	 * @return the resultant packed date (without a time component)
+	 */
+	static long nextWeekStart(long date, DayOfWeek weekday) {
+		DayOfWeek dow = TimeUtils.dayOfWeek(PackedDateValue.year(date), PackedDateValue.month(date), PackedDateValue.day(date));
+		int days = (7 - ((7 + (dow.getCalendarConstant() - weekday.getCalendarConstant())) % 7)) % 7;
+		return (days == 0) ? PackedDateValue.date(date) : PackedDateValue.fromFixed(PackedDateValue.fixed(date) + days);
+	}
+
+	/**
+	 * Writes the days of the month that are contained in a bit mask to an
+	 * array, in ascending order.
+	 * @param days the bit mask (bit N is set if day N of the month is
+	 * included)
+	 * @param out the array to write the days to (must have room for 31 days)
+	 * @return the number of days written
+	 */
+	static int daysOfMonth(long days, int[] out) {
+		int n = 0;
+		while (days != 0) {
+			out[n++] = Long.numberOfTrailingZeros(days);
+			days &= days - 1;
+		}
+		return n;
+	}
+
 	/**
 	 * Returns a sorted copy of an integer array with duplicate values removed.
 	 * @param ints the integer array
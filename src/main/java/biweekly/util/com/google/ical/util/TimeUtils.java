@@ -72,43 +72,6 @@ public class TimeUtils {
 		return ZULU;
 	}
 
-	/**
-	 * Get a "time_t" in milliseconds given a number of seconds since the
-	 * Dershowitz/Reingold epoch relative to a given timezone.
-	 * @param epochSecs the number of seconds since the Dershowitz/Reingold
-	 * epoch relative to the given timezone
-	 * @param zone timezone against which epochSecs applies
-	 * @return the number of milliseconds since 00:00:00 Jan 1, 1970 GMT
-	 */
-	private static long timetMillisFromEpochSecs(long epochSecs, TimeZone zone) {
-		DateTimeValue date = timeFromSecsSinceEpoch(epochSecs);
-		Calendar cal = new GregorianCalendar(zone);
-		cal.clear();
-		cal.set(date.year(), date.month() - 1, date.day(), date.hour(), date.minute(), date.second());
-		return cal.getTimeInMillis();
-	}
-
-	private static DateTimeValue convert(DateTimeValue time, TimeZone zone, int sense) {
-		if (zone == null || zone.hasSameRules(ZULU) || time.year() == 0) {
-			return time;
-		}
-
-		TimeZone epochTz, dateTimeValueTz;
-		if (sense > 0) {
-			//time is in UTC; convert to time in zone provided
-			epochTz = ZULU;
-			dateTimeValueTz = zone;
-		} else {
-			//time is in local time; convert to UTC
-			epochTz = zone;
-			dateTimeValueTz = ZULU;
-		}
-
-		long epochSeconds = secsSinceEpoch(time);
-		long timetMillis = timetMillisFromEpochSecs(epochSeconds, epochTz);
-		return toDateTimeValue(timetMillis, dateTimeValueTz);
-	}
-
 	/**
 	 * Converts a {@link DateValue} from UTC to another timezone.
 	 * @param date the date value (in UTC)
@@ -126,7 +89,7 @@ public class TimeUtils {
 	 * @return the converted date-time value
 	 */
 	public static DateTimeValue fromUtc(DateTimeValue date, TimeZone zone) {
-		return convert(date, zone, +1);
+		return new TimeZoneConverter(zone).fromUtc(date);
 	}
 
 	/**
@@ -136,7 +99,7 @@ public class TimeUtils {
 	 * @return the converted date value
 	 */
 	public static DateValue toUtc(DateValue date, TimeZone zone) {
-		return (date instanceof TimeValue) ? convert((DateTimeValue) date, zone, -1) : date;
+		return new TimeZoneConverter(zone).toUtc(date);
 	}
 
 	/**
@@ -292,7 +255,18 @@ public class TimeUtils {
 	 * @return the day of the week
 	 */
 	public static DayOfWeek dayOfWeek(DateValue date) {
-		int dayIndex = fixedFromGregorian(date.year(), date.month(), date.day()) % 7;
+		return dayOfWeek(date.year(), date.month(), date.day());
+	}
+
+	/**
+	 * Gets the day of the week the given date falls on.
+	 * @param year the year
+	 * @param month the month (1-12)
+	 * @param day the day of the month
+	 * @return the day of the week
+	 */
+	public static DayOfWeek dayOfWeek(int year, int month, int day) {
+		int dayIndex = fixedFromGregorian(year, month, day) % 7;
 		if (dayIndex < 0) {
 			dayIndex += 7;
 		}
@@ -0,0 +1,255 @@
+package biweekly.util.com.google.ical.util;
+
+import java.util.Date;
+import java.util.SimpleTimeZone;
+import java.util.TimeZone;
+
+import biweekly.util.com.google.ical.values.DateTimeValue;
+import biweekly.util.com.google.ical.values.DateValue;
+import biweekly.util.com.google.ical.values.TimeValue;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Converts date-time values between UTC and a timezone without creating any
+ * {@link java.util.Calendar} objects.
+ * </p>
+ * <p>
+ * The UTC offsets are retrieved from {@link TimeZone#getOffset(long)}, which
+ * looks them up in the timezone's own transition data (the JDK's timezones
+ * and {@link biweekly.io.ICalTimeZone} both search a precomputed table). In
+ * addition, the offset of the most recently converted day is cached: one day
+ * for conversions to UTC and one day for conversions from UTC. When
+ * consecutive date-time values fall on the same day (for example, the
+ * instances of a recurrence rule with a BYHOUR or BYMINUTE part), converting
+ * each one only takes a few integer operations. Days on which the UTC offset
+ * changes are not cached, since the offset depends on the time of day.
+ * </p>
+ * <p>
+ * Local times that fall within a daylight savings gap or overlap are resolved
+ * the same way {@link java.util.GregorianCalendar} resolves them.
+ * </p>
+ * <p>
+ * This class is not thread-safe. Each recurrence iterator creates its own
+ * instance.
+ * </p>
+ * @author Michael Angstadt
+ */
+public final class TimeZoneConverter {
+	private static final long SECS_PER_DAY = 24L * 60 * 60;
+
+	/**
+	 * The number of seconds between the Dershowitz/Reingold epoch and
+	 * 1970-01-01.
+	 */
+	private static final long UNIX_EPOCH_SECS = TimeUtils.fixedFromGregorian(1970, 1, 1) * SECS_PER_DAY;
+
+	/**
+	 * The largest possible UTC offset, in either direction.
+	 */
+	private static final long MAX_OFFSET_SECS = 18 * 60 * 60;
+
+	private final TimeZone zone;
+	private final boolean utc;
+	private final long rawOffset;
+	private final long dstSavings;
+	private final boolean resolveByWallTime;
+
+	private long localDay = Long.MIN_VALUE;
+	private long localDayOffset;
+	private boolean localDayUniform;
+
+	private long utcDay = Long.MIN_VALUE;
+	private long utcDayOffset;
+	private boolean utcDayUniform;
+
+	/**
+	 * @param zone the timezone (null to treat all values as UTC)
+	 */
+	public TimeZoneConverter(TimeZone zone) {
+		this.zone = zone;
+		utc = (zone == null || zone.hasSameRules(TimeUtils.utcTimezone()));
+		rawOffset = (zone == null) ? 0 : zone.getRawOffset() / 1000;
+		dstSavings = (zone == null) ? 0 : zone.getDSTSavings() / 1000;
+
+		/*
+		 * GregorianCalendar looks up the offsets of the JDK's own timezones
+		 * by wall time, and the offsets of all other timezones (such as
+		 * ICalTimeZone) by standard time.
+		 */
+		resolveByWallTime = (zone != null && zone.getClass().getName().equals("sun.util.calendar.ZoneInfo"));
+	}
+
+	/**
+	 * Converts a local date value to UTC. Date values that do not have a time
+	 * component are returned as-is.
+	 * @param date the date value (in the local timezone)
+	 * @return the converted date value
+	 */
+	public DateValue toUtc(DateValue date) {
+		return (date instanceof TimeValue) ? toUtc((DateTimeValue) date) : date;
+	}
+
+	/**
+	 * Converts a local date-time value to UTC.
+	 * @param date the date-time value (in the local timezone)
+	 * @return the converted date-time value
+	 */
+	public DateTimeValue toUtc(DateTimeValue date) {
+		if (utc || date.year() == 0) {
+			return date;
+		}
+
+		long localSecs = TimeUtils.secsSinceEpoch(date);
+		return TimeUtils.timeFromSecsSinceEpoch(toUtcSecs(localSecs));
+	}
+
+	/**
+	 * Converts a UTC date value to the local timezone. Date values that do not
+	 * have a time component are returned as-is.
+	 * @param date the date value (in UTC)
+	 * @return the converted date value
+	 */
+	public DateValue fromUtc(DateValue date) {
+		return (date instanceof DateTimeValue) ? fromUtc((DateTimeValue) date) : date;
+	}
+
+	/**
+	 * Converts a UTC date-time value to the local timezone.
+	 * @param date the date-time value (in UTC)
+	 * @return the converted date-time value
+	 */
+	public DateTimeValue fromUtc(DateTimeValue date) {
+		if (utc || date.year() == 0) {
+			return date;
+		}
+
+		long utcSecs = TimeUtils.secsSinceEpoch(date);
+		return TimeUtils.timeFromSecsSinceEpoch(fromUtcSecs(utcSecs));
+	}
+
+	/**
+	 * Converts a local time to UTC.
+	 * @param localSecs the local time, in seconds since the Dershowitz/Reingold
+	 * epoch
+	 * @return the UTC time, in seconds since the Dershowitz/Reingold epoch
+	 */
+	public long toUtcSecs(long localSecs) {
+		if (utc) {
+			return localSecs;
+		}
+
+		long day = floorDiv(localSecs, SECS_PER_DAY);
+		if (day != localDay) {
+			long dayStart = day * SECS_PER_DAY;
+			localDayOffset = localOffset(dayStart);
+			localDayUniform = (localOffset(dayStart + SECS_PER_DAY - 1) == localDayOffset);
+			localDay = day;
+		}
+
+		long offset = localDayUniform ? localDayOffset : localOffset(localSecs);
+		return localSecs - offset;
+	}
+
+	/**
+	 * Converts a UTC time to local time.
+	 * @param utcSecs the UTC time, in seconds since the Dershowitz/Reingold
+	 * epoch
+	 * @return the local time, in seconds since the Dershowitz/Reingold epoch
+	 */
+	public long fromUtcSecs(long utcSecs) {
+		if (utc) {
+			return utcSecs;
+		}
+
+		long day = floorDiv(utcSecs, SECS_PER_DAY);
+		if (day != utcDay) {
+			long dayStart = day * SECS_PER_DAY;
+			utcDayOffset = utcOffset(dayStart);
+			utcDayUniform = (utcOffset(dayStart + SECS_PER_DAY - 1) == utcDayOffset);
+			utcDay = day;
+		}
+
+		long offset = utcDayUniform ? utcDayOffset : utcOffset(utcSecs);
+		return utcSecs + offset;
+	}
+
+	/**
+	 * Gets the UTC offset of a local time.
+	 * @param localSecs the local time, in seconds since the
+	 * Dershowitz/Reingold epoch
+	 * @return the offset in seconds
+	 */
+	private long localOffset(long localSecs) {
+		if (!resolveByWallTime) {
+			/*
+			 * Treat the local time as standard time. SimpleTimeZone looks up
+			 * the offset of the resulting instant. For all other timezones,
+			 * GregorianCalendar only asks whether the instant is in daylight
+			 * savings time, and adds the timezone's DST savings if it is.
+			 */
+			long standardSecs = localSecs - rawOffset;
+			if (zone instanceof SimpleTimeZone) {
+				return utcOffset(standardSecs);
+			}
+
+			Date standardTime = new Date((standardSecs - UNIX_EPOCH_SECS) * 1000);
+			return zone.inDaylightTime(standardTime) ? rawOffset + dstSavings : rawOffset;
+		}
+
+		long before = utcOffset(localSecs - MAX_OFFSET_SECS);
+		long after = utcOffset(localSecs + MAX_OFFSET_SECS);
+		if (before == after) {
+			return before;
+		}
+
+		/*
+		 * There is a transition near the local time. The offset after the
+		 * transition applies if the local time is at or past the point where
+		 * the transition happens in local time. This means that times within
+		 * a gap use the offset before the transition and times within an
+		 * overlap use the offset after the transition.
+		 */
+		return (utcOffset(localSecs - after) == after) ? after : before;
+	}
+
+	/**
+	 * Gets the UTC offset at a given instant.
+	 * @param utcSecs the instant, in seconds since the Dershowitz/Reingold
+	 * epoch
+	 * @return the offset in seconds
+	 */
+	private long utcOffset(long utcSecs) {
+		long millis = (utcSecs - UNIX_EPOCH_SECS) * 1000;
+		return zone.getOffset(millis) / 1000;
+	}
+
+	private static long floorDiv(long x, long y) {
+		long q = x / y;
+		return (x % y < 0) ? q - 1 : q;
+	}
+}
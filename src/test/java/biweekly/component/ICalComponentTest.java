@@ -24,10 +24,12 @@ import org.junit.Test;
 import biweekly.ICalDataType;
 import biweekly.ValidationWarning;
 import biweekly.property.Description;
+import biweekly.property.ICalProperty;
 import biweekly.property.Location;
 import biweekly.property.RawProperty;
 import biweekly.property.Status;
 import biweekly.property.Summary;
+import biweekly.util.ListMultimap;
 
 /*
  Copyright (c) 2013-2020, Michael Angstadt
@@ -653,6 +655,137 @@ public class ICalComponentTest {
 		assertNotEquals(two, one);
 	}
 
+	@Test
+	public void compact() {
+		ICalComponentImpl component = new ICalComponentImpl();
+		Summary summary1 = new Summary("one");
+		Location location = new Location("location");
+		Summary summary2 = new Summary("two");
+		component.addProperty(summary1);
+		component.addProperty(location);
+		component.addProperty(summary2);
+		RawComponent subComponent = component.addExperimentalComponent("COMP");
+		subComponent.addExperimentalProperty("NAME", "value");
+
+		ICalComponentImpl expected = new ICalComponentImpl();
+		expected.addProperty(new Summary("one"));
+		expected.addProperty(new Location("location"));
+		expected.addProperty(new Summary("two"));
+		expected.addExperimentalComponent("COMP").addExperimentalProperty("NAME", "value");
+
+		String toString = component.toString();
+		long fingerprint = component.fingerprint();
+		List<Summary> summaries = component.getProperties(Summary.class);
+		component.compact();
+
+		assertSame(summary1, component.getProperty(Summary.class));
+		assertSame(location, component.getProperty(Location.class));
+		assertNull(component.getProperty(Description.class));
+		assertEquals(asList(summary1, summary2), component.getProperties(Summary.class));
+		assertEquals(asList(), component.getProperties(Description.class));
+		assertEqualsAndHash(expected, component);
+		assertEquals(toString, component.toString());
+		assertEquals(fingerprint, component.fingerprint());
+
+		//previously returned lists are still backed by the component
+		assertEquals(asList(summary1, summary2), summaries);
+		Summary summary3 = new Summary("three");
+		summaries.add(summary3);
+
+		//modifying the component converts it back to the normal storage
+		Description description = new Description("description");
+		component.addProperty(description);
+		assertEquals(asList(summary1, summary2, summary3, location, description), component.getProperties().values());
+		assertEquals(asList(summary1, summary2, summary3), component.getProperties(Summary.class));
+		assertEquals(asList(summary1, summary2, summary3), summaries);
+		assertEquals("value", subComponent.getExperimentalProperty("NAME").getValue());
+
+		//properties of the same class are stored together
+		component.compact();
+		assertEquals(asList(summary1, summary2, summary3, location, description), component.getProperties().values());
+	}
+
+	@Test
+	public void compact_multimap() {
+		ICalComponentImpl component = new ICalComponentImpl();
+		Summary summary = new Summary("one");
+		component.addProperty(summary);
+		ListMultimap<Class<? extends ICalProperty>, ICalProperty> properties = component.getProperties();
+		component.compact();
+
+		//the field is never null, but it is empty while compacted
+		assertTrue(component.properties.isEmpty());
+		assertTrue(properties.isEmpty());
+
+		assertSame(properties, component.getProperties());
+		assertEquals(asList(summary), properties.values());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void compact_list_index_out_of_bounds() {
+		ICalComponentImpl component = new ICalComponentImpl();
+		component.addProperty(new Summary("one"));
+		List<Summary> summaries = component.getProperties(Summary.class);
+		component.compact();
+		summaries.get(1);
+	}
+
+	@Test
+	public void fingerprint() {
+		ICalComponentImpl one = new ICalComponentImpl();
+		one.addExperimentalProperty("PROP", "one");
+		one.addExperimentalProperty("PROP", "two").addParameter("A", "a");
+		one.addProperty(new Summary("summary"));
+		one.addExperimentalComponent("COMP").addExperimentalProperty("NAME", "value");
+
+		ICalComponentImpl two = new ICalComponentImpl();
+		two.addExperimentalComponent("COMP").addExperimentalProperty("NAME", "value");
+		two.addProperty(new Summary("summary"));
+		RawProperty property = two.addExperimentalProperty("PROP", "two");
+		property.addParameter("A", "a");
+		two.addExperimentalProperty("PROP", "one");
+
+		//order does not matter
+		assertEquals(one.fingerprint(), two.fingerprint());
+
+		//modifying the component through its methods invalidates the fingerprint
+		long fingerprint = two.fingerprint();
+		two.addExperimentalProperty("PROP", "three");
+		assertNotEquals(fingerprint, two.fingerprint());
+		two.removeExperimentalProperties("PROP");
+		assertNotEquals(fingerprint, two.fingerprint());
+		two.getProperties(RawProperty.class).add(property);
+		two.addExperimentalProperty("PROP", "one");
+		assertEquals(fingerprint, two.fingerprint());
+
+		//modifying a property directly requires the fingerprint to be invalidated
+		property.setValue("changed");
+		two.invalidateFingerprint();
+		assertNotEquals(fingerprint, two.fingerprint());
+		property.setValue("two");
+		two.invalidateFingerprint();
+		assertEquals(fingerprint, two.fingerprint());
+
+		//sub-components are always checked
+		two.getExperimentalComponent("COMP").addExperimentalProperty("NAME2", "value");
+		assertNotEquals(fingerprint, two.fingerprint());
+	}
+
+	@Test
+	public void fingerprint_multiple_identical_properties() {
+		ICalComponentImpl one = new ICalComponentImpl();
+		one.addExperimentalProperty("PROP", "one");
+		one.addExperimentalProperty("PROP", "one");
+		one.addExperimentalProperty("PROP", "two");
+
+		ICalComponentImpl two = new ICalComponentImpl();
+		two.addExperimentalProperty("PROP", "one");
+		two.addExperimentalProperty("PROP", "two");
+		two.addExperimentalProperty("PROP", "two");
+
+		assertNotEquals(one.fingerprint(), two.fingerprint());
+	}
+
 	@Test
 	public void toString_() {
 		//@formatter:off
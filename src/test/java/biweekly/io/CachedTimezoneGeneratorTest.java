@@ -0,0 +1,86 @@
+package biweekly.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+import biweekly.component.VTimezone;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class CachedTimezoneGeneratorTest {
+	@Test
+	public void cache() {
+		CountingGenerator counter = new CountingGenerator();
+		CachedTimezoneGenerator generator = new CachedTimezoneGenerator(counter);
+
+		VTimezone one = generator.generate(TimeZone.getTimeZone("America/New_York"));
+		VTimezone two = generator.generate(TimeZone.getTimeZone("America/New_York"));
+		VTimezone three = generator.generate(TimeZone.getTimeZone("Europe/London"));
+
+		assertNotSame(one, two);
+		assertEquals(one, two);
+		assertNotSame(one, three);
+		assertEquals(2, counter.count);
+
+		//modifying a returned component does not affect the cache
+		one.setLastModified(new Date());
+		assertNull(generator.generate(TimeZone.getTimeZone("America/New_York")).getLastModified());
+		assertEquals(2, generator.size());
+
+		generator.clear();
+		assertEquals(0, generator.size());
+		assertNotSame(one, generator.generate(TimeZone.getTimeZone("America/New_York")));
+		assertEquals(3, counter.count);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void not_found() {
+		CachedTimezoneGenerator generator = new CachedTimezoneGenerator(new VTimezoneGenerator() {
+			public VTimezone generate(TimeZone timezone) {
+				throw new IllegalArgumentException();
+			}
+		});
+		generator.generate(TimeZone.getTimeZone("America/New_York"));
+	}
+
+	private static class CountingGenerator implements VTimezoneGenerator {
+		private int count;
+
+		public VTimezone generate(TimeZone timezone) {
+			count++;
+			return new VTimezone(timezone.getID());
+		}
+	}
+}
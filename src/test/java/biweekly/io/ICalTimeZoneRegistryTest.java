@@ -0,0 +1,157 @@
+package biweekly.io;
+
+import static biweekly.util.TestUtils.vtimezoneNewYork;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import biweekly.ICalendar;
+import biweekly.component.StandardTime;
+import biweekly.component.VTimezone;
+import biweekly.io.text.ICalReader;
+import biweekly.util.DateTimeComponents;
+import biweekly.util.UtcOffset;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class ICalTimeZoneRegistryTest {
+	@Test(expected = IllegalArgumentException.class)
+	public void invalid_max_size() {
+		new ICalTimeZoneRegistry(0);
+	}
+
+	@Test
+	public void get() {
+		ICalTimeZoneRegistry registry = new ICalTimeZoneRegistry();
+
+		ICalTimeZone one = registry.get(vtimezoneNewYork());
+		ICalTimeZone two = registry.get(vtimezoneNewYork());
+		ICalTimeZone three = registry.get(timezone("Other", 1));
+
+		assertSame(one, two);
+		assertNotSame(one, three);
+		assertEquals("Other", three.getID());
+		assertEquals(2, registry.size());
+		assertEquals(1, registry.getHits());
+		assertEquals(2, registry.getMisses());
+
+		registry.clear();
+		assertEquals(0, registry.size());
+		assertEquals(0, registry.getHits());
+		assertEquals(0, registry.getMisses());
+	}
+
+	@Test
+	public void changes_to_component_do_not_affect_registry() {
+		ICalTimeZoneRegistry registry = new ICalTimeZoneRegistry();
+
+		VTimezone component = timezone("tz", 1);
+		ICalTimeZone timezone = registry.get(component);
+		assertNotSame(component, timezone.getComponent());
+
+		component.setTimezoneId("changed");
+		assertNotSame(timezone, registry.get(component));
+		assertSame(timezone, registry.get(timezone("tz", 1)));
+	}
+
+	@Test
+	public void least_recently_used_is_evicted() {
+		ICalTimeZoneRegistry registry = new ICalTimeZoneRegistry(2);
+
+		ICalTimeZone one = registry.get(timezone("one", 1));
+		ICalTimeZone two = registry.get(timezone("two", 2));
+		assertSame(one, registry.get(timezone("one", 1)));
+
+		registry.get(timezone("three", 3));
+		assertEquals(2, registry.size());
+
+		assertSame(one, registry.get(timezone("one", 1)));
+		assertNotSame(two, registry.get(timezone("two", 2)));
+	}
+
+	@Test
+	public void shared_between_readers() throws Exception {
+		//@formatter:off
+		String ics =
+		"BEGIN:VCALENDAR\r\n" +
+			"BEGIN:VTIMEZONE\r\n" +
+				"TZID:W. Europe Standard Time\r\n" +
+				"BEGIN:STANDARD\r\n" +
+					"DTSTART:16011028T030000\r\n" +
+					"RRULE:FREQ=YEARLY;BYDAY=-1SU;BYMONTH=10\r\n" +
+					"TZOFFSETFROM:+0200\r\n" +
+					"TZOFFSETTO:+0100\r\n" +
+				"END:STANDARD\r\n" +
+				"BEGIN:DAYLIGHT\r\n" +
+					"DTSTART:16010325T020000\r\n" +
+					"RRULE:FREQ=YEARLY;BYDAY=-1SU;BYMONTH=3\r\n" +
+					"TZOFFSETFROM:+0100\r\n" +
+					"TZOFFSETTO:+0200\r\n" +
+				"END:DAYLIGHT\r\n" +
+			"END:VTIMEZONE\r\n" +
+			"BEGIN:VEVENT\r\n" +
+				"DTSTART;TZID=W. Europe Standard Time:20200101T100000\r\n" +
+			"END:VEVENT\r\n" +
+		"END:VCALENDAR\r\n";
+		//@formatter:on
+
+		ICalTimeZoneRegistry registry = new ICalTimeZoneRegistry();
+
+		ICalReader reader = new ICalReader(ics);
+		reader.setTimezoneRegistry(registry);
+		ICalendar first = reader.readNext();
+		reader.close();
+
+		reader = new ICalReader(ics);
+		reader.setTimezoneRegistry(registry);
+		ICalendar second = reader.readNext();
+		reader.close();
+
+		TimezoneAssignment firstAssignment = first.getTimezoneInfo().getTimezoneById("W. Europe Standard Time");
+		TimezoneAssignment secondAssignment = second.getTimezoneInfo().getTimezoneById("W. Europe Standard Time");
+		assertSame(firstAssignment.getTimeZone(), secondAssignment.getTimeZone());
+		assertNotSame(firstAssignment.getComponent(), secondAssignment.getComponent());
+		assertEquals(first.getEvents().get(0).getDateStart().getValue(), second.getEvents().get(0).getDateStart().getValue());
+
+		assertEquals(1, registry.getHits());
+		assertEquals(1, registry.getMisses());
+	}
+
+	private static VTimezone timezone(String id, int offsetHours) {
+		VTimezone component = new VTimezone(id);
+		StandardTime standard = new StandardTime();
+		standard.setDateStart(new DateTimeComponents(2000, 1, 1, 0, 0, 0, false));
+		standard.setTimezoneOffsetFrom(new UtcOffset(true, offsetHours, 0));
+		standard.setTimezoneOffsetTo(new UtcOffset(true, offsetHours, 0));
+		component.addStandardTime(standard);
+		return component;
+	}
+}
@@ -332,6 +332,52 @@ public class ICalTimeZoneTest {
 		assertOffset(-4, 0, true, tz, 2014, 3, 10);
 	}
 
+	@Test
+	public void getOffset_past_horizon() {
+		VTimezone component = vtimezoneNewYork();
+		ICalTimeZone tz = new ICalTimeZone(component, 1950);
+
+		//inside of the precomputed table
+		assertOffset(-4, 0, true, tz, 1924, 4, 27, 2, 0, 0);
+		assertOffset(-5, 0, false, tz, 1924, 9, 28, 2, 0, 0);
+
+		//past the horizon
+		assertOffset(-5, 0, false, tz, 2014, 3, 9, 1, 59, 59);
+		assertOffset(-4, 0, true, tz, 2014, 3, 9, 2, 0, 0);
+		assertOffset(-4, 0, true, tz, 2014, 3, 10);
+		assertOffset(-5, 0, false, tz, 2014, 11, 3);
+	}
+
+	@Test
+	public void getOffset_utc() {
+		VTimezone component = vtimezoneNewYork();
+		ICalTimeZone tz = new ICalTimeZone(component);
+
+		//20140309T020000 local time is 20140309T070000 UTC
+		assertEquals(-5 * 60 * 60 * 1000, tz.getOffset(utc("2014-03-09 06:59:59").getTime()));
+		assertEquals(-4 * 60 * 60 * 1000, tz.getOffset(utc("2014-03-09 07:00:00").getTime()));
+
+		//20141102T020000 local time is 20141102T060000 UTC
+		assertEquals(-4 * 60 * 60 * 1000, tz.getOffset(utc("2014-11-02 05:59:59").getTime()));
+		assertEquals(-5 * 60 * 60 * 1000, tz.getOffset(utc("2014-11-02 06:00:00").getTime()));
+
+		//before the first observance
+		assertEquals(new UtcOffset(false, 4, 56).getMillis(), tz.getOffset(utc("1850-01-01 00:00:00").getTime()));
+	}
+
+	@Test
+	public void hasSameRules() {
+		ICalTimeZone tz = new ICalTimeZone(vtimezoneNewYork());
+		assertTrue(tz.hasSameRules(tz));
+		assertTrue(tz.hasSameRules((TimeZone) tz.clone()));
+		assertTrue(tz.hasSameRules(new ICalTimeZone(vtimezoneNewYork())));
+		assertFalse(tz.hasSameRules(new ICalTimeZone(vtimezoneNewYork(), 1950)));
+
+		VTimezone component = vtimezoneNewYork();
+		component.getDaylightSavingsTime().get(0).setTimezoneOffsetTo(new UtcOffset(false, 3, 0));
+		assertFalse(tz.hasSameRules(new ICalTimeZone(component)));
+	}
+
 	@Test
 	public void createIterator() {
 		VTimezone component = vtimezoneNewYork();
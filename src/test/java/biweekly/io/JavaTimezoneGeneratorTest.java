@@ -0,0 +1,202 @@
+package biweekly.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+import biweekly.component.DaylightSavingsTime;
+import biweekly.component.StandardTime;
+import biweekly.component.VTimezone;
+import biweekly.util.ByDay;
+import biweekly.util.DayOfWeek;
+import biweekly.util.Frequency;
+import biweekly.util.Recurrence;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class JavaTimezoneGeneratorTest {
+	private final JavaTimezoneGenerator generator = new JavaTimezoneGenerator();
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalid_years() {
+		new JavaTimezoneGenerator(2000, 1999);
+	}
+
+	@Test
+	public void offsets_match() {
+		//@formatter:off
+		String ids[] = {
+			"America/New_York",
+			"America/Sao_Paulo",
+			"Europe/London",
+			"Europe/Moscow",
+			"Australia/Sydney",
+			"Asia/Kolkata",
+			"Asia/Tokyo",
+			"UTC"
+		};
+		//@formatter:on
+
+		for (String id : ids) {
+			TimeZone expected = TimeZone.getTimeZone(id);
+			ICalTimeZone actual = new ICalTimeZone(generator.generate(expected));
+
+			Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+			cal.clear();
+			cal.set(1970, Calendar.JANUARY, 2);
+			long start = cal.getTimeInMillis();
+			cal.set(2045, Calendar.JANUARY, 1);
+			long end = cal.getTimeInMillis();
+
+			for (long time = start; time < end; time += 5 * 60 * 60 * 1000L + 17 * 60 * 1000L) {
+				assertEquals(id + " " + time, expected.getOffset(time), actual.getOffset(time));
+			}
+		}
+	}
+
+	@Test
+	public void sampled_transitions_match() {
+		//@formatter:off
+		String ids[] = {
+			"America/New_York",
+			"America/Sao_Paulo",
+			"Europe/Moscow",
+			"Australia/Lord_Howe",
+			"Asia/Tokyo"
+		};
+		//@formatter:on
+
+		for (String id : ids) {
+			/*
+			 * Wrapping the timezone hides it from java.time, so its
+			 * transitions have to be found by sampling.
+			 */
+			TimeZone timezone = TimeZone.getTimeZone(id);
+			VTimezone expected = generator.generate(new WrappedTimeZone(timezone));
+			VTimezone actual = generator.generate(timezone);
+			assertEquals(id, expected, actual);
+		}
+	}
+
+	@Test
+	public void yearly_rules() {
+		VTimezone component = generator.generate(TimeZone.getTimeZone("America/New_York"));
+		assertEquals("America/New_York", component.getTimezoneId().getValue());
+
+		List<DaylightSavingsTime> daylights = component.getDaylightSavingsTime();
+		DaylightSavingsTime daylight = daylights.get(daylights.size() - 1);
+		Recurrence rrule = daylight.getRecurrenceRule().getValue();
+		assertEquals(Frequency.YEARLY, rrule.getFrequency());
+		assertEquals(1, rrule.getByMonth().size());
+		assertEquals(Integer.valueOf(3), rrule.getByMonth().get(0));
+		assertEquals(new ByDay(2, DayOfWeek.SUNDAY), rrule.getByDay().get(0));
+		assertNull(rrule.getUntil());
+		assertEquals("EDT", daylight.getTimezoneNames().get(0).getValue());
+
+		List<StandardTime> standards = component.getStandardTimes();
+		StandardTime standard = standards.get(standards.size() - 1);
+		rrule = standard.getRecurrenceRule().getValue();
+		assertEquals(Integer.valueOf(11), rrule.getByMonth().get(0));
+		assertEquals(new ByDay(1, DayOfWeek.SUNDAY), rrule.getByDay().get(0));
+		assertNull(rrule.getUntil());
+		assertEquals("EST", standard.getTimezoneNames().get(0).getValue());
+	}
+
+	@Test
+	public void last_week_of_month() {
+		VTimezone component = generator.generate(TimeZone.getTimeZone("Europe/London"));
+
+		List<DaylightSavingsTime> daylights = component.getDaylightSavingsTime();
+		Recurrence rrule = daylights.get(daylights.size() - 1).getRecurrenceRule().getValue();
+		assertEquals(Integer.valueOf(3), rrule.getByMonth().get(0));
+		assertEquals(new ByDay(-1, DayOfWeek.SUNDAY), rrule.getByDay().get(0));
+	}
+
+	@Test
+	public void no_transitions() {
+		VTimezone component = generator.generate(TimeZone.getTimeZone("UTC"));
+		assertEquals(0, component.getDaylightSavingsTime().size());
+		assertEquals(1, component.getStandardTimes().size());
+
+		StandardTime standard = component.getStandardTimes().get(0);
+		assertEquals(0, standard.getTimezoneOffsetTo().getValue().getMillis());
+		assertNull(standard.getRecurrenceRule());
+	}
+
+	private static class WrappedTimeZone extends TimeZone {
+		private static final long serialVersionUID = 1L;
+		private final TimeZone timezone;
+
+		public WrappedTimeZone(TimeZone timezone) {
+			this.timezone = timezone;
+			setID(timezone.getID());
+		}
+
+		@Override
+		public int getOffset(int era, int year, int month, int day, int dayOfWeek, int milliseconds) {
+			return timezone.getOffset(era, year, month, day, dayOfWeek, milliseconds);
+		}
+
+		@Override
+		public int getOffset(long date) {
+			return timezone.getOffset(date);
+		}
+
+		@Override
+		public void setRawOffset(int offsetMillis) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int getRawOffset() {
+			return timezone.getRawOffset();
+		}
+
+		@Override
+		public int getDSTSavings() {
+			return timezone.getDSTSavings();
+		}
+
+		@Override
+		public boolean useDaylightTime() {
+			return timezone.useDaylightTime();
+		}
+
+		@Override
+		public boolean inDaylightTime(Date date) {
+			return timezone.inDaylightTime(date);
+		}
+	}
+}
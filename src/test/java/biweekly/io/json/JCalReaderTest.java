@@ -143,6 +143,52 @@ public class JCalReaderTest {
 		assertParseWarnings(reader);
 	}
 
+	@Test
+	public void filter() throws Throwable {
+		//@formatter:off
+		String json =
+		"[\"vcalendar\"," +
+			"[" +
+				"[\"prodid\", {}, \"text\", \"prodid\"]," +
+				"[\"version\", {}, \"text\", \"2.0\"]" +
+			"]," +
+			"[" +
+				"[\"vevent\"," +
+					"[" +
+						"[\"summary\", {}, \"text\", \"summary\"]," +
+						"[\"dtstart\", {}, \"date-time\", \"2020-01-01T12:00:00Z\"]" +
+					"]," +
+					"[" +
+						"[\"valarm\", [], []]" +
+					"]" +
+				"]," +
+				"[\"vtodo\"," +
+					"[" +
+						"[\"dtstart\", {}, \"date-time\", \"2020-01-01T12:00:00Z\"]" +
+					"]," +
+					"[" +
+						"[\"vevent\", [], []]" +
+					"]" +
+				"]" +
+			"]" +
+		"]";
+		//@formatter:on
+
+		JCalReader reader = new JCalReader(json);
+		reader.setFilter(VEvent.class, DateStart.class);
+
+		ICalendar ical = reader.readNext();
+		assertSize(ical, 1, 0);
+		assertVersion(V2_0, ical);
+
+		VEvent event = ical.getEvents().get(0);
+		assertSize(event, 0, 1);
+		assertEquals(utc("2020-01-01 12:00:00"), event.getDateStart().getValue());
+
+		assertParseWarnings(reader);
+		assertNull(reader.readNext());
+	}
+
 	@Test
 	public void read_multiple() throws Throwable {
 		//@formatter:off
@@ -6,19 +6,25 @@ import static biweekly.ICalVersion.V2_0_DEPRECATED;
 import static biweekly.util.TestUtils.each;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.io.StringWriter;
+
 import javax.xml.namespace.QName;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import biweekly.ICalDataType;
+import biweekly.ICalendar;
 import biweekly.ICalVersion;
 import biweekly.component.ICalComponent;
 import biweekly.component.VEvent;
 import biweekly.io.ParseContext;
 import biweekly.io.WriteContext;
+import biweekly.io.text.ICalReader;
+import biweekly.io.text.ICalWriter;
 import biweekly.io.scribe.component.ICalComponentScribe;
 import biweekly.io.scribe.component.RawComponentScribe;
 import biweekly.io.scribe.component.VEventScribe;
@@ -32,6 +38,7 @@ import biweekly.io.scribe.property.XmlScribe;
 import biweekly.io.xml.XCalNamespaceContext;
 import biweekly.parameter.ICalParameters;
 import biweekly.property.ICalProperty;
+import biweekly.property.RawProperty;
 import biweekly.property.Uid;
 
 /*
@@ -149,6 +156,58 @@ public class ScribeIndexTest {
 		}
 	}
 
+	@Test
+	public void getPropertyScribe_name_case_insensitive() {
+		for (ICalVersion version : ICalVersion.values()) {
+			assertTrue(index.getPropertyScribe("uid", version) instanceof UidScribe);
+			assertTrue(index.getPropertyScribe(new StringBuilder("uId"), version) instanceof UidScribe);
+		}
+	}
+
+	@Test
+	public void getPropertyScribe_name_raw() {
+		ICalPropertyScribe<? extends ICalProperty> scribe1 = index.getPropertyScribe("x-foo", V2_0);
+		assertTrue(scribe1 instanceof RawPropertyScribe);
+		assertEquals("X-FOO", scribe1.getPropertyName(V2_0));
+
+		//raw scribes are cached
+		ICalPropertyScribe<? extends ICalProperty> scribe2 = index.getPropertyScribe(new StringBuilder("X-Foo"), V1_0);
+		assertSame(scribe1, scribe2);
+
+		ICalPropertyScribe<? extends ICalProperty> scribe3 = index.getPropertyScribe(new RawProperty("X-FOO", "value"));
+		assertSame(scribe1, scribe3);
+
+		for (int i = 0; i < 1000; i++) {
+			scribe1 = index.getPropertyScribe("X-FOO-" + i, V2_0);
+			assertEquals("X-FOO-" + i, scribe1.getPropertyName(V2_0));
+		}
+	}
+
+	@Test
+	public void getPropertyScribe_raw_property_preserves_case() throws Throwable {
+		//cache the scribe under the upper-case name
+		index.getPropertyScribe("X-CUSTOM-PROP", V2_0);
+
+		ICalPropertyScribe<? extends ICalProperty> scribe = index.getPropertyScribe(new RawProperty("x-Custom-Prop", "value"));
+		assertEquals("x-Custom-Prop", scribe.getPropertyName(V2_0));
+
+		ICalendar ical = new ICalendar();
+		ical.addExperimentalProperty("x-Custom-Prop", "value");
+
+		StringWriter sw = new StringWriter();
+		ICalWriter writer = new ICalWriter(sw, V2_0);
+		writer.setScribeIndex(index);
+		writer.write(ical);
+		writer.close();
+		assertTrue(sw.toString().contains("\r\nx-Custom-Prop:value\r\n"));
+
+		ICalReader reader = new ICalReader(sw.toString());
+		reader.setScribeIndex(index);
+		ical = reader.readNext();
+		reader.close();
+		assertEquals("value", ical.getExperimentalProperty("X-CUSTOM-PROP").getValue());
+	}
+
 	@Test
 	public void getPropertyScribe_class() {
 		ICalPropertyScribe<? extends ICalProperty> scribe;
@@ -205,11 +264,15 @@ public class ScribeIndexTest {
 
 		scribe = index.getPropertyScribe(ICalPropertyImpl.class);
 		assertEquals(customScribe, scribe);
+		scribe = index.getPropertyScribe("x-impl", V2_0);
+		assertEquals(customScribe, scribe);
 
 		index.unregister(customScribe);
 
 		scribe = index.getPropertyScribe(ICalPropertyImpl.class);
 		assertNull(scribe);
+		scribe = index.getPropertyScribe("x-impl", V2_0);
+		assertTrue(scribe instanceof RawPropertyScribe);
 	}
 
 	private class ICalComponentImpl extends ICalComponent {
@@ -233,7 +296,7 @@ public class ScribeIndexTest {
 
 	private class ICalPropertyImplScribe extends ICalPropertyScribe<ICalPropertyImpl> {
 		public ICalPropertyImplScribe() {
-			super(ICalPropertyImpl.class, "", null);
+			super(ICalPropertyImpl.class, "X-IMPL", null);
 		}
 
 		@Override
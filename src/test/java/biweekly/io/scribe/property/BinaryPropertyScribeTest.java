@@ -5,14 +5,26 @@ import static biweekly.ICalVersion.V2_0;
 import static biweekly.ICalVersion.V2_0_DEPRECATED;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.Random;
+
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import biweekly.ICalDataType;
 import biweekly.io.ParseContext;
 import biweekly.io.scribe.property.Sensei.Check;
+import biweekly.parameter.ICalParameters;
 import biweekly.property.BinaryProperty;
+import biweekly.util.Gobble;
 import biweekly.util.org.apache.commons.codec.binary.Base64;
 
 /*
@@ -59,6 +71,9 @@ public class BinaryPropertyScribeTest extends ScribeTest<BinaryProperty> {
 	}
 	private final BinaryProperty empty = new BinaryProperty((String) null);
 
+	@Rule
+	public final TemporaryFolder tempFolder = new TemporaryFolder();
+
 	public BinaryPropertyScribeTest() {
 		super(new BinaryPropertyScribeImpl());
 	}
@@ -105,6 +120,90 @@ public class BinaryPropertyScribeTest extends ScribeTest<BinaryProperty> {
 		sensei.assertParseText("").dataType(ICalDataType.BINARY).run(has(new byte[0]));
 	}
 
+	@Test
+	public void parseText_data_file() throws Throwable {
+		byte[] largeData = new byte[20000];
+		new Random(1).nextBytes(largeData);
+		String largeBase64Data = Base64.encodeBase64String(largeData);
+
+		ParseContext context = new ParseContext();
+		context.setVersion(V2_0);
+		context.setBinaryDataThreshold(1000);
+		context.setBinaryDataDirectory(tempFolder.getRoot());
+
+		BinaryProperty property = scribe.parseText(largeBase64Data, ICalDataType.BINARY, new ICalParameters(), context);
+		File file = property.getDataFile();
+		assertEquals(tempFolder.getRoot(), file.getParentFile());
+		assertArrayEquals(largeData, new Gobble(file).asByteArray());
+		assertArrayEquals(largeData, property.getData());
+		assertEquals(largeData.length, property.getDataLength());
+		assertTrue(context.getWarnings().isEmpty());
+
+		//below the threshold
+		context.setBinaryDataThreshold(largeData.length);
+		property = scribe.parseText(largeBase64Data, ICalDataType.BINARY, new ICalParameters(), context);
+		assertNull(property.getDataFile());
+		assertArrayEquals(largeData, property.getData());
+
+		//padding and whitespace are not counted towards the threshold
+		String wrappedBase64Data = largeBase64Data.replaceAll("(.{75})", "$1\r\n ");
+		property = scribe.parseText(wrappedBase64Data, ICalDataType.BINARY, new ICalParameters(), context);
+		assertNull(property.getDataFile());
+		assertArrayEquals(largeData, property.getData());
+
+		context.setBinaryDataThreshold(largeData.length - 1);
+		property = scribe.parseText(wrappedBase64Data, ICalDataType.BINARY, new ICalParameters(), context);
+		assertArrayEquals(largeData, new Gobble(property.getDataFile()).asByteArray());
+	}
+
+	@Test
+	public void parseText_data_file_deleted() throws Throwable {
+		byte[] largeData = new byte[20000];
+		new Random(1).nextBytes(largeData);
+
+		ParseContext context = new ParseContext();
+		context.setVersion(V2_0);
+		context.setBinaryDataThreshold(1000);
+		context.setBinaryDataDirectory(tempFolder.getRoot());
+
+		BinaryProperty property = scribe.parseText(Base64.encodeBase64String(largeData), ICalDataType.BINARY, new ICalParameters(), context);
+		assertEquals(1, tempFolder.getRoot().listFiles().length);
+
+		assertTrue(property.deleteDataFile());
+		assertEquals(0, tempFolder.getRoot().listFiles().length);
+		assertFalse(property.hasData());
+	}
+
+	@Test
+	public void writeText_data_file() throws Throwable {
+		byte[] largeData = new byte[20000];
+		new Random(1).nextBytes(largeData);
+
+		File file = tempFolder.newFile();
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(largeData);
+		} finally {
+			out.close();
+		}
+
+		BinaryProperty property = new BinaryProperty((String) null);
+		property.setDataFile(file);
+
+		sensei.assertPrepareParams(property).expected("ENCODING", "BASE64").run();
+		sensei.assertDataType(property).run(ICalDataType.BINARY);
+		sensei.assertWriteText(property).run(Base64.encodeBase64String(largeData));
+		sensei.assertWriteJson(property).run(Base64.encodeBase64String(largeData));
+
+		BinaryPropertyScribe<BinaryProperty> binaryScribe = (BinaryPropertyScribe<BinaryProperty>) scribe;
+		assertTrue(binaryScribe.isStreamed(property));
+		StringWriter sw = new StringWriter();
+		binaryScribe.writeData(property, sw);
+		assertEquals(Base64.encodeBase64String(largeData), sw.toString());
+
+		assertFalse(binaryScribe.isStreamed(new BinaryProperty(largeData)));
+	}
+
 	@Test
 	public void writeXml() {
 		sensei.assertWriteXml(withUrl).run("<uri>" + url + "</uri>");
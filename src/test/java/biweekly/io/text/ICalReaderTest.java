@@ -18,9 +18,13 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.TimeZone;
 
 import org.junit.ClassRule;
@@ -41,6 +45,7 @@ import biweekly.component.VJournal;
 import biweekly.component.VTimezone;
 import biweekly.component.VTodo;
 import biweekly.io.ICalTimeZone;
+import biweekly.io.LazyParseContext;
 import biweekly.io.ParseContext;
 import biweekly.io.ParseWarning;
 import biweekly.io.TimezoneInfo;
@@ -59,6 +64,7 @@ import biweekly.property.Attendee;
 import biweekly.property.Created;
 import biweekly.property.DateEnd;
 import biweekly.property.DateStart;
+import biweekly.property.Description;
 import biweekly.property.ICalProperty;
 import biweekly.property.ProductId;
 import biweekly.property.RawProperty;
@@ -897,6 +903,36 @@ public class ICalReaderTest {
 		assertNull(reader.readNext());
 	}
 
+	@Test
+	public void fileChannel() throws Throwable {
+		//@formatter:off
+		String ical =
+		"BEGIN:VCALENDAR\r\n" +
+			"VERSION:2.0\r\n" +
+			"SUMMARY:\u1e66ummary \ud83d\ude00\r\n" +
+			"DESCRIPTION:one\r\n" +
+			" two\r\n" +
+		"END:VCALENDAR\r\n";
+		//@formatter:on
+		File file = tempFolder.newFile();
+		Writer writer = new Utf8Writer(file);
+		writer.write(ical);
+		writer.close();
+
+		FileChannel channel = new FileInputStream(file).getChannel();
+		ICalReader reader = new ICalReader(channel);
+		ICalendar icalendar = reader.readNext();
+		assertSize(icalendar, 0, 2);
+		assertEquals("\u1e66ummary \ud83d\ude00", icalendar.getProperty(Summary.class).getValue());
+		assertEquals("onetwo", icalendar.getProperty(Description.class).getValue());
+
+		assertParseWarnings(reader);
+		assertNull(reader.readNext());
+
+		reader.close();
+		assertFalse(channel.isOpen());
+	}
+
 	//see: http://stackoverflow.com/questions/33901/best-icalendar-library-for-java/17325369?noredirect=1#comment31110671_17325369
 	@Test
 	public void large_ical_file_stackoverflow_fix() throws Throwable {
@@ -1746,6 +1782,251 @@ public class ICalReaderTest {
 		assertNull(reader.readNext());
 	}
 
+	@Test
+	public void readNextComponent() throws Throwable {
+		ICalendar expected = read("rfc5545-example2.ics").readNext();
+		VEvent expectedEvent = expected.getEvents().get(0);
+
+		ICalReader reader = read("rfc5545-example2.ics");
+		assertNull(reader.getCurrentCalendar());
+
+		VEvent event = (VEvent) reader.readNextComponent();
+		assertEquals(expectedEvent, event);
+		assertEquals(utc("1998-03-12 13:30:00"), event.getDateStart().getValue());
+		assertNull(event.getDateStart().getParameters().getTimezoneId());
+		assertParseWarnings(reader);
+
+		ICalendar ical = reader.getCurrentCalendar();
+		assertSize(ical, 0, 1);
+		assertVersion(V2_0, ical);
+		assertEquals("-//RDU Software//NONSGML HandCal//EN", ical.getProductId().getValue());
+
+		TimezoneInfo tzinfo = ical.getTimezoneInfo();
+		TimeZone dtstartTz = tzinfo.getTimezone(event.getDateStart()).getTimeZone();
+		assertEquals("America/New_York", dtstartTz.getID());
+		assertEquals(expected.getTimezoneInfo().getComponents(), tzinfo.getComponents());
+
+		assertNull(reader.readNextComponent());
+	}
+
+	@Test
+	public void readComponents() throws Throwable {
+		//@formatter:off
+		String str =
+		"BEGIN:VCALENDAR\r\n" +
+			"PRODID:one\r\n" +
+			"BEGIN:VTIMEZONE\r\n" +
+				"TZID:Custom\r\n" +
+				"BEGIN:STANDARD\r\n" +
+					"DTSTART:19700101T000000\r\n" +
+					"TZOFFSETFROM:+0200\r\n" +
+					"TZOFFSETTO:+0200\r\n" +
+				"END:STANDARD\r\n" +
+			"END:VTIMEZONE\r\n" +
+			"BEGIN:VEVENT\r\n" +
+				"SUMMARY:event\r\n" +
+				"DTSTART;TZID=Custom:20200101T120000\r\n" +
+				"BEGIN:VALARM\r\n" +
+				"END:VALARM\r\n" +
+			"END:VEVENT\r\n" +
+			"BEGIN:VTODO\r\n" +
+				"SUMMARY:todo\r\n" +
+				"DTSTART:20200101T120000\r\n" +
+			"END:VTODO\r\n" +
+		"END:VCALENDAR\r\n" +
+		"BEGIN:VCALENDAR\r\n" +
+			"PRODID:two\r\n" +
+			"BEGIN:VJOURNAL\r\n" +
+				"SUMMARY:journal\r\n" +
+				"DTSTART;TZID=Custom:20200101T120000\r\n" +
+			"END:VJOURNAL\r\n" +
+		"END:VCALENDAR\r\n";
+		//@formatter:on
+
+		final List<ICalComponent> components = new ArrayList<ICalComponent>();
+		final List<String> productIds = new ArrayList<String>();
+		final List<Integer> warningCounts = new ArrayList<Integer>();
+		final List<Boolean> floating = new ArrayList<Boolean>();
+
+		ICalReader reader = new ICalReader(str);
+		reader.readComponents(new ICalReader.ComponentHandler() {
+			public void handle(ICalComponent component, ICalendar ical, List<ParseWarning> warnings) {
+				components.add(component);
+				productIds.add(ical.getProductId().getValue());
+				warningCounts.add(warnings.size());
+
+				DateStart dtstart = component.getProperty(DateStart.class);
+				floating.add(ical.getTimezoneInfo().isFloating(dtstart));
+
+				assertSize(ical, 0, 1);
+			}
+		});
+
+		assertEquals(3, components.size());
+		assertEquals(Arrays.asList("one", "one", "two"), productIds);
+		assertEquals(Arrays.asList(0, 0, 1), warningCounts);
+		assertEquals(Arrays.asList(false, true, false), floating);
+
+		VEvent event = (VEvent) components.get(0);
+		assertEquals("event", event.getSummary().getValue());
+		assertEquals(utc("2020-01-01 10:00:00"), event.getDateStart().getValue());
+		assertEquals(1, event.getAlarms().size());
+
+		VTodo todo = (VTodo) components.get(1);
+		assertEquals("todo", todo.getSummary().getValue());
+		assertEquals(new DateTimeComponents(2020, 1, 1, 12, 0, 0, false), todo.getDateStart().getValue().getRawComponents());
+
+		//the VTIMEZONE component is not visible to the second iCalendar object, so the TZID is not recognized
+		VJournal journal = (VJournal) components.get(2);
+		assertEquals("journal", journal.getSummary().getValue());
+		assertEquals(new DateTimeComponents(2020, 1, 1, 12, 0, 0, false), journal.getDateStart().getValue().getRawComponents());
+	}
+
+	@Test
+	public void filter() throws Throwable {
+		//@formatter:off
+		String str =
+		"BEGIN:VCALENDAR\r\n" +
+			"VERSION:2.0\r\n" +
+			"PRODID:one\r\n" +
+			"BEGIN:VTIMEZONE\r\n" +
+				"TZID:Custom\r\n" +
+				"BEGIN:STANDARD\r\n" +
+					"DTSTART:19700101T000000\r\n" +
+					"TZOFFSETFROM:+0200\r\n" +
+					"TZOFFSETTO:+0200\r\n" +
+				"END:STANDARD\r\n" +
+			"END:VTIMEZONE\r\n" +
+			"BEGIN:VEVENT\r\n" +
+				"SUMMARY:event\r\n" +
+				"DTSTART;TZID=Custom:20200101T120000\r\n" +
+				"BEGIN:VALARM\r\n" +
+				"END:VALARM\r\n" +
+			"END:VEVENT\r\n" +
+			"BEGIN:VTODO\r\n" +
+				"DTSTART:20200101T120000\r\n" +
+				"BEGIN:VEVENT\r\n" +
+				"END:VEVENT\r\n" +
+			"END:VTODO\r\n" +
+		"END:VCALENDAR\r\n";
+		//@formatter:on
+
+		ICalReader reader = new ICalReader(str);
+		reader.setFilter(VEvent.class, DateStart.class);
+
+		ICalendar ical = reader.readNext();
+		assertSize(ical, 1, 0);
+		assertVersion(V2_0, ical);
+
+		VEvent event = ical.getEvents().get(0);
+		assertSize(event, 0, 1);
+		assertEquals(utc("2020-01-01 10:00:00"), event.getDateStart().getValue());
+		assertFalse(ical.getTimezoneInfo().isFloating(event.getDateStart()));
+
+		assertParseWarnings(reader);
+		assertNull(reader.readNext());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void filter_invalid_class() {
+		ICalReader reader = new ICalReader("");
+		reader.setFilter(VEvent.class, String.class);
+	}
+
+	@Test
+	public void lazyParsing() throws Throwable {
+		//@formatter:off
+		String str =
+		"BEGIN:VCALENDAR\r\n" +
+			"VERSION:2.0\r\n" +
+			"BEGIN:VTIMEZONE\r\n" +
+				"TZID:Custom\r\n" +
+				"BEGIN:STANDARD\r\n" +
+					"DTSTART:19700101T000000\r\n" +
+					"TZOFFSETFROM:+0200\r\n" +
+					"TZOFFSETTO:+0200\r\n" +
+				"END:STANDARD\r\n" +
+			"END:VTIMEZONE\r\n" +
+			"BEGIN:VEVENT\r\n" +
+				"SUMMARY:event\r\n" +
+				"DTSTART;TZID=Custom:20200101T120000\r\n" +
+				"X-TEST:four\r\n" +
+				"CANNOTPARSE:value\r\n" +
+			"END:VEVENT\r\n" +
+		"END:VCALENDAR\r\n";
+		//@formatter:on
+
+		ICalReader reader = new ICalReader(str);
+		reader.registerScribe(new TestPropertyMarshaller());
+		reader.registerScribe(new CannotParseScribe());
+		reader.setLazyParsing(true);
+
+		ICalendar ical = reader.readNext();
+		assertParseWarnings(reader);
+
+		LazyParseContext lazyContext = reader.getLazyParseContext();
+		assertParseWarnings(lazyContext.getWarnings());
+
+		VEvent event = ical.getEvents().get(0);
+		assertEquals("event", event.getSummary().getValue());
+		assertEquals(utc("2020-01-01 10:00:00"), event.getDateStart().getValue());
+		assertFalse(ical.getTimezoneInfo().isFloating(event.getDateStart()));
+		assertParseWarnings(lazyContext.getWarnings());
+
+		TestProperty prop = event.getProperty(TestProperty.class);
+		assertIntEquals(4, prop.number);
+		assertParseWarnings(lazyContext.getWarnings(), (Integer) null);
+
+		//properties that cannot be parsed are converted to raw properties
+		RawProperty raw = event.getExperimentalProperty("CANNOTPARSE");
+		assertEquals("value", raw.getValue());
+		assertParseWarnings(lazyContext.getWarnings(), (Integer) null, 1);
+
+		assertEquals(4, event.getProperties().size());
+		assertNull(reader.readNext());
+	}
+
+	@Test
+	public void lazyParsing_readNextComponent() throws Throwable {
+		//@formatter:off
+		String str =
+		"BEGIN:VCALENDAR\r\n" +
+			"PRODID:one\r\n" +
+			"BEGIN:VTIMEZONE\r\n" +
+				"TZID:Custom\r\n" +
+				"BEGIN:STANDARD\r\n" +
+					"DTSTART:19700101T000000\r\n" +
+					"TZOFFSETFROM:+0200\r\n" +
+					"TZOFFSETTO:+0200\r\n" +
+				"END:STANDARD\r\n" +
+			"END:VTIMEZONE\r\n" +
+			"BEGIN:VEVENT\r\n" +
+				"DTSTART;TZID=Custom:20200101T120000\r\n" +
+			"END:VEVENT\r\n" +
+			"BEGIN:VTODO\r\n" +
+				"DTSTART:20200101T120000\r\n" +
+			"END:VTODO\r\n" +
+		"END:VCALENDAR\r\n";
+		//@formatter:on
+
+		ICalReader reader = new ICalReader(str);
+		reader.setLazyParsing(true);
+
+		VEvent event = (VEvent) reader.readNextComponent();
+		assertEquals("one", reader.getCurrentCalendar().getProductId().getValue());
+		LazyParseContext eventContext = reader.getLazyParseContext();
+
+		VTodo todo = (VTodo) reader.readNextComponent();
+		LazyParseContext todoContext = reader.getLazyParseContext();
+		assertTrue(eventContext != todoContext);
+
+		assertEquals(utc("2020-01-01 10:00:00"), event.getDateStart().getValue());
+		assertTrue(todoContext.getTimezoneInfo().isFloating(todo.getDateStart()));
+		assertEquals(new DateTimeComponents(2020, 1, 1, 12, 0, 0, false), todo.getDateStart().getValue().getRawComponents());
+
+		assertNull(reader.readNextComponent());
+	}
+
 	private ICalReader read(String file) {
 		return new ICalReader(getClass().getResourceAsStream(file));
 	}
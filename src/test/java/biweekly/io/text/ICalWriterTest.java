@@ -9,10 +9,15 @@ import static biweekly.util.TestUtils.date;
 import static biweekly.util.TestUtils.each;
 import static biweekly.util.TestUtils.utc;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.StringWriter;
+import java.nio.channels.FileChannel;
+import java.util.Random;
 import java.util.TimeZone;
 
 import org.junit.Rule;
@@ -64,6 +69,7 @@ import biweekly.util.Gobble;
 import biweekly.util.Period;
 import biweekly.util.Recurrence;
 import biweekly.util.UtcOffset;
+import biweekly.util.Utf8BufferWriter;
 
 /*
  Copyright (c) 2013-2020, Michael Angstadt
@@ -443,6 +449,101 @@ public class ICalWriterTest {
 		assertEquals(expected, actual);
 	}
 
+	@Test
+	public void binary_data_file() throws Exception {
+		byte[] data = new byte[20000];
+		new Random(1).nextBytes(data);
+
+		File file = tempFolder.newFile();
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(data);
+		} finally {
+			out.close();
+		}
+
+		for (ICalVersion version : ICalVersion.values()) {
+			ICalendar inMemory = new ICalendar();
+			inMemory.getProperties().clear();
+			Attachment attachment = new Attachment("image/png", data);
+			attachment.setParameter("X-LONG", "a-long-parameter-value-that-pushes-the-value-onto-the-next-line");
+			inMemory.addProperty(attachment);
+
+			ICalendar inFile = new ICalendar();
+			inFile.getProperties().clear();
+			attachment = new Attachment("image/png", (byte[]) null);
+			attachment.setParameter("X-LONG", "a-long-parameter-value-that-pushes-the-value-onto-the-next-line");
+			attachment.setDataFile(file);
+			inFile.addProperty(attachment);
+
+			//the streamed value is written the same way as a value in memory
+			StringWriter expected = new StringWriter();
+			ICalWriter writer = new ICalWriter(expected, version);
+			writer.write(inMemory);
+			writer.close();
+
+			StringWriter actual = new StringWriter();
+			writer = new ICalWriter(actual, version);
+			writer.write(inFile);
+			writer.close();
+
+			assertEquals(version.toString(), expected.toString(), actual.toString());
+		}
+	}
+
+	@Test
+	public void byte_buffer() throws Exception {
+		ICalendar ical = new ICalendar();
+		ical.getProperties().clear();
+		ical.addProperty(new Summary("\u1e66ummary"));
+
+		Utf8BufferWriter buffer = new Utf8BufferWriter(16);
+		ICalWriter writer = new ICalWriter(buffer, V2_0);
+		writer.write(ical);
+		writer.flush();
+
+		//@formatter:off
+		String expected = 
+		"BEGIN:VCALENDAR\r\n" +
+			"VERSION:2.0\r\n" +
+			"SUMMARY:\u1e66ummary\r\n" +
+		"END:VCALENDAR\r\n";
+		//@formatter:on
+
+		assertEquals(expected, new String(buffer.toByteArray(), "UTF-8"));
+
+		//reuse the buffer
+		buffer.reset();
+		writer.write(ical);
+		writer.flush();
+		assertEquals(expected, new String(buffer.toByteArray(), "UTF-8"));
+	}
+
+	@Test
+	public void channel() throws Exception {
+		ICalendar ical = new ICalendar();
+		ical.getProperties().clear();
+		ical.addProperty(new Summary("\u1e66ummary"));
+
+		File file = tempFolder.newFile();
+		FileChannel channel = new FileOutputStream(file).getChannel();
+		ICalWriter writer = new ICalWriter(channel, V2_0);
+		writer.write(ical);
+		writer.close();
+		assertFalse(channel.isOpen());
+
+		//@formatter:off
+		String expected = 
+		"BEGIN:VCALENDAR\r\n" +
+			"VERSION:2.0\r\n" +
+			"SUMMARY:\u1e66ummary\r\n" +
+		"END:VCALENDAR\r\n";
+		//@formatter:on
+
+		String actual = new Gobble(file).asString("UTF-8");
+		assertEquals(expected, actual);
+	}
+
 	@Test
 	public void vcal_timezone_no_dates() throws Throwable {
 		ICalendar ical = new ICalendar();
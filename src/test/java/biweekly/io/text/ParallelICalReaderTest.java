@@ -0,0 +1,301 @@
+package biweekly.io.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import biweekly.ICalendar;
+import biweekly.component.VEvent;
+import biweekly.component.VTodo;
+import biweekly.io.ParseWarning;
+import biweekly.io.TimezoneAssignment;
+import biweekly.io.TimezoneInfo;
+import biweekly.property.DateStart;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class ParallelICalReaderTest {
+	private ExecutorService executor;
+
+	@Before
+	public void before() {
+		executor = Executors.newFixedThreadPool(3);
+	}
+
+	@After
+	public void after() {
+		executor.shutdown();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalid_chunk_size() {
+		new ParallelICalReader(new StringReader(""), executor).setChunkSize(0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalid_max_pending_chunks() {
+		new ParallelICalReader(new StringReader(""), executor).setMaxPendingChunks(0);
+	}
+
+	@Test
+	public void same_as_ICalReader() throws Throwable {
+		String str = calendar("one", 20) + calendar("two", 7);
+
+		ICalReader expectedReader = new ICalReader(str);
+		ParallelICalReader reader = new ParallelICalReader(new StringReader(str), executor);
+		reader.setChunkSize(3);
+
+		for (int i = 0; i < 2; i++) {
+			ICalendar expected = expectedReader.readNext();
+			ICalendar actual = reader.readNext();
+
+			assertEquals(expected.getProductId(), actual.getProductId());
+			assertEquals(expected.getVersion(), actual.getVersion());
+			assertEquals(expected.getEvents(), actual.getEvents());
+			assertEquals(expected.getTodos(), actual.getTodos());
+			assertEquals(toStrings(expectedReader.getWarnings()), toStrings(reader.getWarnings()));
+
+			TimezoneInfo expectedTzinfo = expected.getTimezoneInfo();
+			TimezoneInfo actualTzinfo = actual.getTimezoneInfo();
+			assertEquals(expectedTzinfo.getComponents(), actualTzinfo.getComponents());
+			for (int j = 0; j < expected.getEvents().size(); j++) {
+				DateStart expectedDtstart = expected.getEvents().get(j).getDateStart();
+				DateStart actualDtstart = actual.getEvents().get(j).getDateStart();
+				assertEquals(expectedTzinfo.isFloating(expectedDtstart), actualTzinfo.isFloating(actualDtstart));
+
+				TimezoneAssignment expectedTz = expectedTzinfo.getTimezone(expectedDtstart);
+				TimezoneAssignment actualTz = actualTzinfo.getTimezone(actualDtstart);
+				if (expectedTz == null) {
+					assertNull(actualTz);
+				} else {
+					assertEquals(expectedTz.getTimeZone().getID(), actualTz.getTimeZone().getID());
+				}
+			}
+		}
+
+		assertNull(expectedReader.readNext());
+		assertNull(reader.readNext());
+	}
+
+	@Test
+	public void timezones_shared() throws Throwable {
+		ParallelICalReader reader = new ParallelICalReader(new StringReader(calendar("one", 10)), executor);
+		reader.setChunkSize(2);
+		ICalendar ical = reader.readNext();
+
+		TimezoneInfo tzinfo = ical.getTimezoneInfo();
+		TimezoneAssignment custom = tzinfo.getTimezoneById("Custom");
+		List<VEvent> events = ical.getEvents();
+		assertEquals(10, events.size());
+		for (int i = 0; i < events.size(); i += 2) {
+			assertSame(custom, tzinfo.getTimezone(events.get(i).getDateStart()));
+		}
+		assertTrue(tzinfo.isFloating(events.get(1).getDateStart()));
+		assertFalse(tzinfo.isFloating(events.get(0).getDateStart()));
+	}
+
+	@Test
+	public void timezone_after_components() throws Throwable {
+		String str = calendar("one", 10, true);
+
+		ICalReader expectedReader = new ICalReader(str);
+		ICalendar expected = expectedReader.readNext();
+
+		ParallelICalReader reader = new ParallelICalReader(new StringReader(str), executor);
+		reader.setChunkSize(2);
+		ICalendar ical = reader.readNext();
+
+		assertEquals(expected.getEvents(), ical.getEvents());
+		assertEquals(toStrings(expectedReader.getWarnings()), toStrings(reader.getWarnings()));
+
+		TimezoneInfo tzinfo = ical.getTimezoneInfo();
+		TimezoneAssignment custom = tzinfo.getTimezoneById("Custom");
+		List<VEvent> events = ical.getEvents();
+		for (int i = 0; i < events.size(); i += 2) {
+			assertSame(custom, tzinfo.getTimezone(events.get(i).getDateStart()));
+		}
+	}
+
+	@Test
+	public void chunks_submitted_while_reading() throws Throwable {
+		final CountingReader in = new CountingReader(calendar("one", 1000));
+		final List<Future<?>> submitted = new ArrayList<Future<?>>();
+		final int[] maxPending = { 0 };
+		final boolean[] submittedBeforeEnd = { false };
+		ExecutorService executor = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>()) {
+			@Override
+			public void execute(Runnable command) {
+				int pending = 1;
+				for (Future<?> future : submitted) {
+					if (!future.isDone()) {
+						pending++;
+					}
+				}
+				maxPending[0] = Math.max(maxPending[0], pending);
+				submittedBeforeEnd[0] |= !in.eof;
+
+				submitted.add((Future<?>) command);
+				super.execute(command);
+			}
+		};
+
+		try {
+			ParallelICalReader reader = new ParallelICalReader(in, executor);
+			reader.setChunkSize(10);
+			reader.setMaxPendingChunks(3);
+			ICalendar ical = reader.readNext();
+
+			assertEquals(1000, ical.getEvents().size());
+			assertEquals(120, submitted.size());
+			assertTrue(maxPending[0] <= 3);
+			assertTrue(submittedBeforeEnd[0]);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void warning_line_numbers() throws Throwable {
+		String str = calendar("one", 10);
+		ParallelICalReader reader = new ParallelICalReader(new StringReader(str), executor);
+		reader.setChunkSize(4);
+		reader.readNext();
+
+		List<ParseWarning> warnings = reader.getWarnings();
+		assertEquals(1, warnings.size());
+
+		String lines[] = str.split("\r\n");
+		int lineNumber = warnings.get(0).getLineNumber();
+		assertEquals("DTSTART:invalid", lines[lineNumber - 1]);
+	}
+
+	@Test
+	public void no_vcalendar() throws Throwable {
+		ParallelICalReader reader = new ParallelICalReader(new StringReader("BEGIN:VEVENT\r\nEND:VEVENT\r\n"), executor);
+		assertNull(reader.readNext());
+	}
+
+	private static String calendar(String prodId, int events) {
+		return calendar(prodId, events, false);
+	}
+
+	private static String calendar(String prodId, int events, boolean timezoneLast) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("BEGIN:VCALENDAR\r\n");
+		sb.append("VERSION:2.0\r\n");
+		sb.append("PRODID:").append(prodId).append("\r\n");
+		if (!timezoneLast) {
+			timezone(sb);
+		}
+		for (int i = 0; i < events; i++) {
+			sb.append("BEGIN:VEVENT\r\n");
+			sb.append("UID:").append(i).append("\r\n");
+			sb.append("SUMMARY:a long summary that is folded onto a second\r\n");
+			sb.append("  line\r\n");
+			if (i == 7) {
+				sb.append("DTSTART:invalid\r\n");
+			} else if (i % 2 == 0) {
+				sb.append("DTSTART;TZID=Custom:20200101T1200").append(i % 60 < 10 ? "0" : "").append(i % 60).append("\r\n");
+			} else {
+				sb.append("DTSTART:20200101T120000\r\n");
+			}
+			sb.append("BEGIN:VALARM\r\n");
+			sb.append("ACTION:DISPLAY\r\n");
+			sb.append("END:VALARM\r\n");
+			sb.append("END:VEVENT\r\n");
+
+			if (i % 5 == 0) {
+				sb.append("BEGIN:VTODO\r\n");
+				sb.append("UID:todo").append(i).append("\r\n");
+				sb.append("END:VTODO\r\n");
+			}
+		}
+		if (timezoneLast) {
+			timezone(sb);
+		}
+		sb.append("END:VCALENDAR\r\n");
+		return sb.toString();
+	}
+
+	private static void timezone(StringBuilder sb) {
+		sb.append("BEGIN:VTIMEZONE\r\n");
+		sb.append("TZID:Custom\r\n");
+		sb.append("BEGIN:STANDARD\r\n");
+		sb.append("DTSTART:19700101T000000\r\n");
+		sb.append("TZOFFSETFROM:+0200\r\n");
+		sb.append("TZOFFSETTO:+0200\r\n");
+		sb.append("END:STANDARD\r\n");
+		sb.append("END:VTIMEZONE\r\n");
+	}
+
+	/**
+	 * Records whether the end of the stream has been reached.
+	 */
+	private static class CountingReader extends StringReader {
+		private volatile boolean eof = false;
+
+		public CountingReader(String s) {
+			super(s);
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) throws IOException {
+			int read = super.read(cbuf, off, len);
+			if (read < 0) {
+				eof = true;
+			}
+			return read;
+		}
+	}
+
+	private static List<String> toStrings(List<ParseWarning> warnings) {
+		List<String> strings = new ArrayList<String>(warnings.size());
+		for (ParseWarning warning : warnings) {
+			strings.add(warning.toString());
+		}
+		return strings;
+	}
+}
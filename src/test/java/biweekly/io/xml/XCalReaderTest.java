@@ -162,6 +162,55 @@ public class XCalReaderTest {
 		reader.close();
 	}
 
+	@Test
+	public void filter() throws Exception {
+		//@formatter:off
+		String xml =
+		"<?xml version=\"1.0\" encoding=\"utf-8\" ?>" +
+		"<icalendar xmlns=\"" + XCAL_NS + "\">" +
+			"<vcalendar>" +
+				"<properties>" +
+					"<prodid><text>prodid</text></prodid>" +
+					"<version><text>2.0</text></version>" +
+				"</properties>" +
+				"<components>" +
+					"<vevent>" +
+						"<properties>" +
+							"<summary><text>summary</text></summary>" +
+							"<dtstart><date-time>2020-01-01T12:00:00Z</date-time></dtstart>" +
+						"</properties>" +
+						"<components>" +
+							"<valarm />" +
+						"</components>" +
+					"</vevent>" +
+					"<vtodo>" +
+						"<properties>" +
+							"<dtstart><date-time>2020-01-01T12:00:00Z</date-time></dtstart>" +
+						"</properties>" +
+						"<components>" +
+							"<vevent />" +
+						"</components>" +
+					"</vtodo>" +
+				"</components>" +
+			"</vcalendar>" +
+		"</icalendar>";
+		//@formatter:on
+
+		XCalReader reader = new XCalReader(xml);
+		reader.setFilter(VEvent.class, DateStart.class);
+
+		ICalendar ical = reader.readNext();
+		assertSize(ical, 1, 0);
+		assertVersion(V2_0, ical);
+
+		VEvent event = ical.getEvents().get(0);
+		assertSize(event, 0, 1);
+		assertEquals(utc("2020-01-01 12:00:00"), event.getDateStart().getValue());
+
+		assertParseWarnings(reader);
+		assertNull(reader.readNext());
+	}
+
 	@Test
 	public void read_multiple() throws Exception {
 		//@formatter:off
@@ -7,7 +7,16 @@ import static biweekly.util.TestUtils.assertEqualsAndHash;
 import static biweekly.util.TestUtils.assertEqualsMethodEssentials;
 import static biweekly.util.TestUtils.assertListSize;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -59,6 +68,56 @@ public class ICalParametersTest {
 		assertEquals("1", params.first("numbers"));
 	}
 
+	@Test
+	public void many_parameters() {
+		//the backing map switches to a hash table after three parameters
+		params.put("ONE", "1");
+		params.put("TWO", "2");
+		params.put("THREE", "3");
+		params.put("FOUR", "4");
+		params.put("one", "5");
+		assertEquals(Arrays.asList("1", "5"), params.get("ONE"));
+		assertEquals("4", params.first("four"));
+		assertEquals(5, params.size());
+
+		params.removeAll("ONE");
+		params.removeAll("TWO");
+		assertEquals(Arrays.asList("THREE", "FOUR"), new ArrayList<String>(params.keySet()));
+
+		params.clear();
+		assertTrue(params.isEmpty());
+		params.put("ONE", "1");
+		assertEquals("1", params.first("ONE"));
+	}
+
+	@Test
+	public void copy() {
+		params.put("ONE", "1");
+		params.put("TWO", "2");
+		ICalParameters copy = new ICalParameters(params);
+		assertEqualsAndHash(params, copy);
+
+		copy.put("ONE", "3");
+		assertEquals(Arrays.asList("1"), params.get("ONE"));
+	}
+
+	@Test
+	public void fromMap() {
+		Map<String, List<String>> map = new LinkedHashMap<String, List<String>>();
+		map.put("one", new ArrayList<String>(Arrays.asList("1")));
+		map.put(null, new ArrayList<String>(Arrays.asList("2")));
+		map.put("ONE", new ArrayList<String>(Arrays.asList("3")));
+		map.put("TWO", new ArrayList<String>());
+
+		params = ICalParameters.fromMap(map);
+		assertEquals(Arrays.asList("1", "3"), params.get("ONE"));
+		assertEquals(Arrays.asList("2"), params.get(null));
+		assertFalse(params.containsKey("TWO"));
+		assertEquals(3, params.size());
+
+		assertTrue(ICalParameters.fromMap(new HashMap<String, List<String>>()).isEmpty());
+	}
+
 	@Test
 	public void validate_empty() {
 		assertListSize(0, params.validate(V2_0));
@@ -7,13 +7,24 @@ import static biweekly.util.TestUtils.assertValidate;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import biweekly.util.Gobble;
 
 /*
  Copyright (c) 2013-2020, Michael Angstadt
@@ -44,6 +55,9 @@ import org.junit.Test;
  * @author Michael Angstadt
  */
 public class AttachmentTest {
+	@Rule
+	public final TemporaryFolder tempFolder = new TemporaryFolder();
+
 	@Test
 	public void constructors() throws Exception {
 		Attachment property = new Attachment("image/png", "data".getBytes());
@@ -142,6 +156,81 @@ public class AttachmentTest {
 		assertCopy(original);
 	}
 
+	@Test
+	public void copy_data_file() throws Exception {
+		File file = writeDataFile("data".getBytes());
+		Attachment original = new Attachment("image/png", (byte[]) null);
+		original.setDataFile(file);
+
+		//the copy refers to the same file
+		Attachment copy = new Attachment(original);
+		assertSame(file, copy.getDataFile());
+		assertEquals(original, copy);
+		assertEquals(1, tempFolder.getRoot().listFiles().length);
+	}
+
+	@Test
+	public void equals_data_file() throws Exception {
+		File file = writeDataFile("data".getBytes());
+		Attachment inFile = new Attachment("image/png", (byte[]) null);
+		inFile.setDataFile(file);
+
+		Attachment sameFile = new Attachment("image/png", (byte[]) null);
+		sameFile.setDataFile(file);
+		assertEquals(inFile, sameFile);
+		assertEquals(inFile.hashCode(), sameFile.hashCode());
+
+		//files are compared by path, not by content
+		Attachment otherFile = new Attachment("image/png", (byte[]) null);
+		otherFile.setDataFile(writeDataFile("data".getBytes()));
+		assertNotEquals(inFile, otherFile);
+
+		Attachment inMemory = new Attachment("image/png", "data".getBytes());
+		assertNotEquals(inFile, inMemory);
+		assertNotEquals(inMemory, inFile);
+
+		//the file is not read
+		Attachment missing1 = new Attachment("image/png", (byte[]) null);
+		missing1.setDataFile(new File(tempFolder.getRoot(), "missing.bin"));
+		Attachment missing2 = new Attachment("image/png", (byte[]) null);
+		missing2.setDataFile(new File(tempFolder.getRoot(), "missing.bin"));
+		assertEquals(missing1, missing2);
+		assertEquals(missing1.hashCode(), missing2.hashCode());
+	}
+
+	@Test
+	public void deleteDataFile() throws Exception {
+		File file = writeDataFile("data".getBytes());
+		Attachment property = new Attachment("image/png", (byte[]) null);
+		property.setDataFile(file);
+
+		assertTrue(property.deleteDataFile());
+		assertFalse(file.exists());
+		assertNull(property.getDataFile());
+		assertFalse(property.hasData());
+
+		assertFalse(property.deleteDataFile());
+		assertFalse(new Attachment("image/png", "data".getBytes()).deleteDataFile());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void getData_missing_file() {
+		Attachment property = new Attachment("image/png", (byte[]) null);
+		property.setDataFile(new File(tempFolder.getRoot(), "missing.bin"));
+		property.getData();
+	}
+
+	private File writeDataFile(byte[] data) throws IOException {
+		File file = tempFolder.newFile();
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(data);
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
 	@Test
 	public void equals() {
 		List<ICalProperty> properties = new ArrayList<ICalProperty>();
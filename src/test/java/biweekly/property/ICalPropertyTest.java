@@ -190,6 +190,24 @@ public class ICalPropertyTest {
 		assertEquals(CopyConstructorTest.class.getName() + " [ parameters={PARAM=[value]} | value=text ]", property.toString());
 	}
 
+	@Test
+	public void fingerprint() {
+		Summary one = new Summary("text");
+		one.addParameter("ONE", "1");
+		one.addParameter("TWO", "2");
+		Summary two = new Summary("text");
+		two.addParameter("TWO", "2");
+		two.addParameter("ONE", "1");
+		assertEquals(one.fingerprint(), two.fingerprint());
+
+		two.setValue("text2");
+		assertNotEquals(one.fingerprint(), two.fingerprint());
+
+		assertNotEquals(new Summary("text").fingerprint(), new Description("text").fingerprint());
+		assertEquals(new RawProperty("X-NAME", "text").fingerprint(), new RawProperty("x-name", "text").fingerprint());
+		assertNotEquals(new RawProperty("X-NAME", "text").fingerprint(), new RawProperty("X-NAME", "Text").fingerprint());
+	}
+
 	private static class CopyConstructorTest extends ICalProperty {
 		private String value;
 
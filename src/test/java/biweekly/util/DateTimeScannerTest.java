@@ -0,0 +1,165 @@
+package biweekly.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.CharBuffer;
+
+import org.junit.Test;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class DateTimeScannerTest {
+	@Test
+	public void scanComponents() {
+		assertComponents("20130722", 2013, 7, 22);
+		assertComponents("2013-07-22", 2013, 7, 22);
+		assertComponents("20130722T150630", 2013, 7, 22, 15, 6, 30, false);
+		assertComponents("2013-07-22T15:06:30", 2013, 7, 22, 15, 6, 30, false);
+		assertComponents("20130722T150630Z", 2013, 7, 22, 15, 6, 30, true);
+		assertComponents("2013-07-22T15:06:30Z", 2013, 7, 22, 15, 6, 30, true);
+	}
+
+	@Test
+	public void scanComponents_trailing_text() {
+		assertComponents("20130722T150630-0500", 2013, 7, 22, 15, 6, 30, false);
+		assertComponents("20130722T150630.5Z", 2013, 7, 22, 15, 6, 30, false);
+		assertComponents("20130722foo", 2013, 7, 22);
+
+		//incomplete times are ignored
+		assertComponents("20130722T1506", 2013, 7, 22);
+	}
+
+	@Test
+	public void scanComponents_invalid() {
+		assertFalse(new DateTimeScanner("").scanComponents());
+		assertFalse(new DateTimeScanner("invalid").scanComponents());
+		assertFalse(new DateTimeScanner("2013072").scanComponents());
+		assertFalse(new DateTimeScanner("2013-07-2a").scanComponents());
+	}
+
+	@Test
+	public void scanComponents_CharSequence() {
+		DateTimeScanner scanner = new DateTimeScanner(CharBuffer.wrap("20130722T150630Z".toCharArray()));
+		assertTrue(scanner.scanComponents());
+		assertEquals(2013, scanner.year);
+		assertEquals(30, scanner.second);
+		assertTrue(scanner.hasOffset);
+	}
+
+	@Test
+	public void scanTimestamp() {
+		DateTimeScanner scanner = assertTimestamp("20120701", 2012, 7, 1);
+		assertFalse(scanner.hasTime);
+		assertFalse(scanner.hasOffset);
+
+		scanner = assertTimestamp("2012-07-01T07:01:30", 2012, 7, 1);
+		assertTime(scanner, 7, 1, 30, 0);
+		assertFalse(scanner.hasOffset);
+
+		scanner = assertTimestamp("20120701T070130Z", 2012, 7, 1);
+		assertTime(scanner, 7, 1, 30, 0);
+		assertOffset(scanner, 0);
+
+		scanner = assertTimestamp("20120701T070130+0300", 2012, 7, 1);
+		assertOffset(scanner, 3 * 60 * 60 * 1000);
+
+		scanner = assertTimestamp("20120701T070130+03", 2012, 7, 1);
+		assertOffset(scanner, 3 * 60 * 60 * 1000);
+
+		scanner = assertTimestamp("2012-07-01T07:01:30-03:30", 2012, 7, 1);
+		assertOffset(scanner, -(3 * 60 + 30) * 60 * 1000);
+	}
+
+	@Test
+	public void scanTimestamp_fraction() {
+		assertTime(assertTimestamp("20120701T070130.1Z", 2012, 7, 1), 7, 1, 30, 100);
+		assertTime(assertTimestamp("20120701T070130.1234Z", 2012, 7, 1), 7, 1, 30, 123);
+		assertTime(assertTimestamp("20120701T070130.0005", 2012, 7, 1), 7, 1, 30, 1);
+		assertTime(assertTimestamp("20120701T070130.99999999999", 2012, 7, 1), 7, 1, 30, 1000);
+	}
+
+	@Test
+	public void scanTimestamp_invalid() {
+		assertFalse(new DateTimeScanner("invalid").scanTimestamp());
+		assertFalse(new DateTimeScanner("20120701foo").scanTimestamp());
+		assertFalse(new DateTimeScanner("20120701T").scanTimestamp());
+		assertFalse(new DateTimeScanner("20120701T0701").scanTimestamp());
+		assertFalse(new DateTimeScanner("20120701T070130.").scanTimestamp());
+		assertFalse(new DateTimeScanner("20120701T070130+").scanTimestamp());
+		assertFalse(new DateTimeScanner("20120701T070130+030").scanTimestamp());
+		assertFalse(new DateTimeScanner("20120701T070130+03:").scanTimestamp());
+		assertFalse(new DateTimeScanner("20120701T070130Zfoo").scanTimestamp());
+	}
+
+	private static void assertComponents(String value, int year, int month, int date) {
+		DateTimeScanner scanner = new DateTimeScanner(value);
+		assertTrue(scanner.scanComponents());
+		assertEquals(year, scanner.year);
+		assertEquals(month, scanner.month);
+		assertEquals(date, scanner.date);
+		assertFalse(scanner.hasTime);
+	}
+
+	private static void assertComponents(String value, int year, int month, int date, int hour, int minute, int second, boolean utc) {
+		DateTimeScanner scanner = new DateTimeScanner(value);
+		assertTrue(scanner.scanComponents());
+		assertEquals(year, scanner.year);
+		assertEquals(month, scanner.month);
+		assertEquals(date, scanner.date);
+		assertTrue(scanner.hasTime);
+		assertEquals(hour, scanner.hour);
+		assertEquals(minute, scanner.minute);
+		assertEquals(second, scanner.second);
+		assertEquals(utc, scanner.hasOffset);
+	}
+
+	private static DateTimeScanner assertTimestamp(String value, int year, int month, int date) {
+		DateTimeScanner scanner = new DateTimeScanner(value);
+		assertTrue(scanner.scanTimestamp());
+		assertEquals(year, scanner.year);
+		assertEquals(month, scanner.month);
+		assertEquals(date, scanner.date);
+		return scanner;
+	}
+
+	private static void assertTime(DateTimeScanner scanner, int hour, int minute, int second, int millisecond) {
+		assertTrue(scanner.hasTime);
+		assertEquals(hour, scanner.hour);
+		assertEquals(minute, scanner.minute);
+		assertEquals(second, scanner.second);
+		assertEquals(millisecond, scanner.millisecond);
+	}
+
+	private static void assertOffset(DateTimeScanner scanner, int offsetMillis) {
+		assertTrue(scanner.hasOffset);
+		assertEquals(offsetMillis, scanner.offsetMillis);
+	}
+}
@@ -93,6 +93,119 @@ public class ICalDateFormatTest {
 		}
 	}
 
+	@Test
+	public void format_leap_days_and_century_years() {
+		TimeZone timezone = TimeZone.getTimeZone("UTC");
+		String[] dates = { "1600-02-29", "1700-02-28", "1700-03-01", "1900-02-28", "1900-03-01", "2000-02-29", "2000-03-01", "2004-02-29", "2100-02-28", "2100-03-01", "2400-02-29", "9999-12-31", "10000-01-01" };
+		for (String date : dates) {
+			long millis = utc(date + " 00:00:00").getTime();
+			assertSameAsDateFormat(millis - 1000, timezone);
+			assertSameAsDateFormat(millis, timezone);
+			assertSameAsDateFormat(millis + 23 * 60 * 60 * 1000L + 59 * 60 * 1000 + 59 * 1000, timezone);
+		}
+
+		//every day around the turn of some centuries
+		String[] starts = { "1696-01-01", "1896-01-01", "1996-01-01", "2096-01-01" };
+		for (String start : starts) {
+			long millis = utc(start + " 12:34:56").getTime();
+			for (int i = 0; i < 8 * 366; i++) {
+				assertSameAsDateFormat(millis, timezone);
+				millis += 24 * 60 * 60 * 1000L;
+			}
+		}
+	}
+
+	@Test
+	public void format_years_below_1000() {
+		TimeZone timezone = TimeZone.getTimeZone("UTC");
+		String[] dates = { "0001-01-01 00:00:00", "0009-06-15 12:00:00", "0099-12-31 23:59:59", "0999-12-31 23:59:59" };
+		for (String date : dates) {
+			long millis = utc(date).getTime();
+			assertSameAsDateFormat(millis, timezone);
+			assertSameAsDateFormat(millis, buildTimezone(5, 0));
+		}
+		assertEquals("09991231T235959Z", ICalDateFormat.UTC_TIME_BASIC.format(utc("0999-12-31 23:59:59")));
+	}
+
+	@Test
+	public void format_gregorian_cutover() {
+		//the day before the cutover is October 4, 1582 in the Julian calendar
+		long cutover = utc("1582-10-15 00:00:00").getTime();
+		assertEquals("15821015", ICalDateFormat.DATE_BASIC.format(new Date(cutover), TimeZone.getTimeZone("UTC")));
+		assertEquals("15821004", ICalDateFormat.DATE_BASIC.format(new Date(cutover - 1), TimeZone.getTimeZone("UTC")));
+
+		TimeZone[] timezones = { TimeZone.getTimeZone("UTC"), buildTimezone(14, 0), buildTimezone(-12, 0), buildTimezone(5, 30), TimeZone.getTimeZone("America/New_York") };
+		for (TimeZone timezone : timezones) {
+			for (long millis = cutover - 2 * 24 * 60 * 60 * 1000L; millis <= cutover + 2 * 24 * 60 * 60 * 1000L; millis += 15 * 60 * 1000) {
+				assertSameAsDateFormat(millis, timezone);
+			}
+		}
+
+		assertSameAsDateFormat(utc("1000-03-01 00:00:00").getTime(), TimeZone.getTimeZone("UTC"));
+		assertSameAsDateFormat(utc("1500-02-29 00:00:00").getTime(), TimeZone.getTimeZone("UTC"));
+	}
+
+	@Test
+	public void format_offsets() {
+		Date date = utc("2020-07-01 12:00:00");
+		assertEquals("20200701T083000-0330", ICalDateFormat.DATE_TIME_BASIC.format(date, buildTimezone(-3, 30)));
+		assertEquals("2020-07-01T17:45:00+05:45", ICalDateFormat.DATE_TIME_EXTENDED.format(date, buildTimezone(5, 45)));
+
+		//includes zones whose historical offsets are not whole minutes
+		String[] ids = { "America/St_Johns", "Asia/Kathmandu", "Asia/Kolkata", "Pacific/Marquesas", "Pacific/Chatham", "America/Caracas", "Europe/Amsterdam", "Africa/Monrovia", "Asia/Singapore" };
+		String[] dates = { "1900-01-01 00:00:00", "1920-06-15 12:00:00", "1937-07-01 00:00:00", "1970-01-01 00:00:00", "2000-01-01 00:00:00", "2020-07-01 12:00:00" };
+		for (String id : ids) {
+			TimeZone timezone = TimeZone.getTimeZone(id);
+			for (String d : dates) {
+				assertSameAsDateFormat(utc(d).getTime(), timezone);
+			}
+		}
+		for (int minutes = -14 * 60; minutes <= 14 * 60; minutes += 15) {
+			TimeZone timezone = buildTimezone(minutes / 60, Math.abs(minutes % 60));
+			assertSameAsDateFormat(date.getTime(), timezone);
+		}
+	}
+
+	@Test
+	public void format_daylight_savings_transitions() {
+		String[][] transitions = { //@formatter:off
+			{ "America/New_York", "2020-03-08 07:00:00" },
+			{ "America/New_York", "2020-11-01 06:00:00" },
+			{ "Europe/London", "2020-03-29 01:00:00" },
+			{ "Europe/London", "2020-10-25 01:00:00" },
+			{ "Australia/Lord_Howe", "2020-04-04 15:00:00" },
+			{ "Australia/Lord_Howe", "2020-10-03 15:30:00" },
+			{ "America/Sao_Paulo", "2018-11-04 03:00:00" },
+			{ "Pacific/Apia", "2011-12-30 10:00:00" }
+		}; //@formatter:on
+
+		for (String[] transition : transitions) {
+			TimeZone timezone = TimeZone.getTimeZone(transition[0]);
+			long millis = utc(transition[1]).getTime();
+			for (long m = millis - 2 * 60 * 60 * 1000; m <= millis + 2 * 60 * 60 * 1000; m += 60 * 1000) {
+				assertSameAsDateFormat(m, timezone);
+				assertSameAsDateFormat(m - 1, timezone);
+			}
+		}
+	}
+
+	/**
+	 * Asserts that each format produces the same string as its
+	 * {@link java.text.DateFormat}.
+	 */
+	private static void assertSameAsDateFormat(long millis, TimeZone timezone) {
+		Date date = new Date(millis);
+		for (ICalDateFormat format : ICalDateFormat.values()) {
+			String expected = format.getDateFormat(timezone).format(date);
+			String message = format.name() + " " + millis + " " + timezone.getID();
+			assertEquals(message, expected, format.format(date, timezone));
+
+			StringBuilder sb = new StringBuilder("prefix");
+			format.format(millis, timezone, sb);
+			assertEquals(message, "prefix" + expected, sb.toString());
+		}
+	}
+
 	private static void assertLocale(Locale locale, ICalDateFormat df, Date date, String expected) {
 		String actual = df.format(date);
 		String message = "Test failed for " + df.name() + " with locale \"" + locale + "\".";
@@ -0,0 +1,191 @@
+package biweekly.util;
+
+import static biweekly.util.TestUtils.utc;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import biweekly.ICalendar;
+import biweekly.component.ICalComponent;
+import biweekly.component.VEvent;
+import biweekly.component.VTodo;
+import biweekly.util.ICalendarDiff.Change;
+import biweekly.util.ICalendarDiff.ComponentKey;
+import biweekly.util.ICalendarDiff.ComponentState;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class ICalendarDiffTest {
+	@Test
+	public void diff() {
+		ICalendar previous = new ICalendar();
+		VEvent unchanged = event("1", "Unchanged");
+		previous.addEvent(unchanged);
+		VEvent sequence = event("2", "Sequence");
+		sequence.setSequence(1);
+		previous.addEvent(sequence);
+		VEvent lastModified = event("3", "Last modified");
+		lastModified.setLastModified(utc("2020-01-01 00:00:00"));
+		previous.addEvent(lastModified);
+		VEvent content = event("4", "Content");
+		previous.addEvent(content);
+		VEvent removed = event("5", "Removed");
+		previous.addEvent(removed);
+
+		ICalendar current = new ICalendar();
+		current.addEvent(new VEvent(unchanged));
+		VEvent sequence2 = new VEvent(sequence);
+		sequence2.setSequence(2);
+		current.addEvent(sequence2);
+		VEvent lastModified2 = new VEvent(lastModified);
+		lastModified2.setLastModified(utc("2020-01-02 00:00:00"));
+		current.addEvent(lastModified2);
+		VEvent content2 = new VEvent(content);
+		content2.setSummary("Changed");
+		current.addEvent(content2);
+		VEvent added = event("6", "Added");
+		current.addEvent(added);
+
+		ICalendarDiff diff = ICalendarDiff.diff(previous, current);
+		assertEquals(Arrays.<ICalComponent> asList(added), diff.getAdded());
+		assertEquals(Arrays.<ICalComponent> asList(sequence2, lastModified2, content2), diff.getModified());
+		assertEquals(Arrays.<ICalComponent> asList(removed), diff.getRemovedComponents());
+		assertEquals(Arrays.asList(new ComponentKey("5", null)), diff.getRemoved());
+		assertEquals(5, diff.getStates().size());
+	}
+
+	@Test
+	public void dtstamp_ignored() {
+		ICalendar previous = new ICalendar();
+		VEvent event = event("1", "Summary");
+		previous.addEvent(event);
+
+		ICalendar current = new ICalendar();
+		VEvent event2 = new VEvent(event);
+		event2.setDateTimeStamp(utc("2021-01-01 00:00:00"));
+		current.addEvent(event2);
+
+		ICalendarDiff diff = ICalendarDiff.diff(previous, current);
+		assertTrue(diff.getAdded().isEmpty());
+		assertTrue(diff.getModified().isEmpty());
+		assertTrue(diff.getRemoved().isEmpty());
+	}
+
+	@Test
+	public void recurrence_id() {
+		ICalendar previous = new ICalendar();
+		VEvent master = event("1", "Master");
+		previous.addEvent(master);
+
+		ICalendar current = new ICalendar();
+		current.addEvent(new VEvent(master));
+		VEvent instance = event("1", "Instance");
+		instance.setRecurrenceId(utc("2020-01-08 10:00:00"));
+		current.addEvent(instance);
+
+		ICalendarDiff diff = ICalendarDiff.diff(previous, current);
+		assertEquals(Arrays.<ICalComponent> asList(instance), diff.getAdded());
+		assertTrue(diff.getModified().isEmpty());
+		assertTrue(diff.getStates().containsKey(new ComponentKey("1", utc("2020-01-08 10:00:00").getTime())));
+	}
+
+	@Test
+	public void no_uid() {
+		VTodo todo = new VTodo();
+		todo.setUid((String) null);
+
+		ICalendarDiff diff = new ICalendarDiff();
+		assertSame(Change.ADDED, diff.compare(todo));
+		assertEquals(Arrays.<ICalComponent> asList(todo), diff.getAdded());
+		assertTrue(diff.getStates().isEmpty());
+	}
+
+	@Test
+	public void stored_states() {
+		VEvent event = event("1", "Summary");
+		ICalendarDiff diff = new ICalendarDiff();
+		assertSame(Change.ADDED, diff.compare(event));
+		Map<ComponentKey, ComponentState> states = new HashMap<ComponentKey, ComponentState>(diff.getStates());
+
+		//unchanged
+		diff = new ICalendarDiff(states);
+		assertSame(Change.UNCHANGED, diff.compare(new VEvent(event)));
+		assertEquals(states.get(new ComponentKey("1", null)).getContentHash(), diff.getStates().get(new ComponentKey("1", null)).getContentHash());
+
+		//modified
+		VEvent modified = new VEvent(event);
+		modified.setDateTimeStamp(utc("2021-01-01 00:00:00"));
+		modified.setSummary("Changed");
+		diff = new ICalendarDiff(states);
+		assertSame(Change.MODIFIED, diff.compare(modified));
+		assertNotEquals(states.get(new ComponentKey("1", null)).getContentHash(), diff.getStates().get(new ComponentKey("1", null)).getContentHash());
+
+		//removed
+		diff = new ICalendarDiff(states);
+		assertEquals(Collections.singletonList(new ComponentKey("1", null)), diff.getRemoved());
+	}
+
+	@Test
+	public void content_hash_stable_across_runs() {
+		/*
+		 * Stored states are compared in later runs, so the content hash must
+		 * not depend on anything that changes between JVMs, such as identity
+		 * hash codes (the Recurrence class's hash code includes enum hash
+		 * codes).
+		 */
+		VEvent event = event("1", "Summary");
+		event.setDateStart(utc("2020-01-01 10:00:00"));
+		event.setRecurrenceRule(new Recurrence.Builder(Frequency.WEEKLY).byDay(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY).count(10).build());
+
+		ICalendarDiff diff = new ICalendarDiff();
+		diff.compare(event);
+		assertEquals(7965432758356323665L, diff.getStates().get(new ComponentKey("1", null)).getContentHash());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void getRemovedComponents_not_supported() {
+		new ICalendarDiff().getRemovedComponents();
+	}
+
+	private static VEvent event(String uid, String summary) {
+		VEvent event = new VEvent();
+		event.setUid(uid);
+		event.setDateTimeStamp(utc("2020-01-01 00:00:00"));
+		event.setSummary(summary);
+		return event;
+	}
+}
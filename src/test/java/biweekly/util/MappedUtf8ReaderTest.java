@@ -0,0 +1,157 @@
+package biweekly.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class MappedUtf8ReaderTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void read() throws Exception {
+		String data = "one two three \u00e9\u20ac\ud83d\ude00 four";
+		FileChannel channel = channel(data.getBytes("UTF-8"));
+
+		MappedUtf8Reader reader = new MappedUtf8Reader(channel);
+		String actual = new Gobble(reader).asString();
+		assertEquals(data, actual);
+
+		reader.close();
+		assertFalse(channel.isOpen());
+	}
+
+	@Test
+	public void empty() throws Exception {
+		MappedUtf8Reader reader = new MappedUtf8Reader(channel(new byte[0]));
+		assertEquals(-1, reader.read());
+		assertEquals(-1, reader.read(new char[4], 0, 4));
+		reader.close();
+	}
+
+	@Test
+	public void starts_at_channel_position() throws Exception {
+		FileChannel channel = channel("one two".getBytes("UTF-8"));
+		channel.position(4);
+
+		MappedUtf8Reader reader = new MappedUtf8Reader(channel);
+		assertEquals("two", new Gobble(reader).asString());
+	}
+
+	/**
+	 * Multi-byte characters that cross a region boundary must be decoded
+	 * correctly.
+	 */
+	@Test
+	public void region_boundaries() throws Exception {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			sb.append("a\u00e9\u20ac\ud83d\ude00");
+		}
+		String data = sb.toString();
+		byte[] bytes = data.getBytes("UTF-8");
+
+		for (int regionSize = 4; regionSize < 12; regionSize++) {
+			MappedUtf8Reader reader = new MappedUtf8Reader(channel(bytes), regionSize);
+			assertEquals(data, readOneAtATime(reader));
+			reader.close();
+
+			reader = new MappedUtf8Reader(channel(bytes), regionSize);
+			assertEquals(data, readInChunks(reader, 3));
+			reader.close();
+		}
+	}
+
+	@Test
+	public void malformed() throws Exception {
+		//@formatter:off
+		byte[] bytes = {
+			'a',
+			(byte) 0x80, //stray continuation byte
+			'b',
+			(byte) 0xc3, 'c', //missing continuation byte
+			(byte) 0xc0, (byte) 0x80, //invalid lead byte
+			(byte) 0xed, (byte) 0xa0, (byte) 0x80, //surrogate
+			'd',
+			(byte) 0xe2, (byte) 0x82 //truncated at end of file
+		};
+		//@formatter:on
+
+		String expected = new String(bytes, "UTF-8");
+		MappedUtf8Reader reader = new MappedUtf8Reader(channel(bytes), 4);
+		String actual = readInChunks(reader, 2);
+		assertEquals(expected.replace("\ufffd", ""), actual.replace("\ufffd", ""));
+		assertEquals('a', actual.charAt(0));
+		assertEquals('\ufffd', actual.charAt(1));
+		assertEquals('\ufffd', actual.charAt(actual.length() - 1));
+	}
+
+	private FileChannel channel(byte[] bytes) throws IOException {
+		File file = folder.newFile();
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(bytes);
+		} finally {
+			out.close();
+		}
+		return new FileInputStream(file).getChannel();
+	}
+
+	private static String readOneAtATime(Reader reader) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		int c;
+		while ((c = reader.read()) != -1) {
+			sb.append((char) c);
+		}
+		return sb.toString();
+	}
+
+	private static String readInChunks(Reader reader, int chunkSize) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		char[] buffer = new char[chunkSize];
+		int read;
+		while ((read = reader.read(buffer, 0, buffer.length)) != -1) {
+			sb.append(buffer, 0, read);
+		}
+		return sb.toString();
+	}
+}
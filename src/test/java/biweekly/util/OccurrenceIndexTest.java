@@ -0,0 +1,242 @@
+package biweekly.util;
+
+import static biweekly.util.TestUtils.utc;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import biweekly.ICalendar;
+import biweekly.component.VEvent;
+import biweekly.util.OccurrenceIndex.Occurrence;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class OccurrenceIndexTest {
+	@ClassRule
+	public static final DefaultTimezoneRule tzRule = new DefaultTimezoneRule(0, 0);
+
+	@Test
+	public void empty() {
+		OccurrenceIndex index = new OccurrenceIndex(new ICalendar());
+		assertNull(index.getHorizon());
+		assertEquals(0, index.getOccurrences(utc("2000-01-01 00:00:00"), utc("2100-01-01 00:00:00")).size());
+	}
+
+	@Test
+	public void single_events() {
+		ICalendar ical = new ICalendar();
+
+		VEvent one = new VEvent();
+		one.setDateStart(utc("2020-01-01 10:00:00"));
+		one.setDateEnd(utc("2020-01-01 11:00:00"));
+		ical.addEvent(one);
+
+		VEvent two = new VEvent();
+		two.setDateStart(utc("2020-01-03 10:00:00"));
+		two.setDuration(Duration.builder().hours(2).build());
+		ical.addEvent(two);
+
+		VEvent noStart = new VEvent();
+		ical.addEvent(noStart);
+
+		OccurrenceIndex index = new OccurrenceIndex(ical);
+
+		List<Occurrence> actual = index.getOccurrences(utc("2020-01-01 10:30:00"), utc("2020-01-03 10:30:00"));
+		assertEquals(2, actual.size());
+		assertSame(one, actual.get(0).getEvent());
+		assertEquals(utc("2020-01-01 10:00:00"), actual.get(0).getStart());
+		assertEquals(utc("2020-01-01 11:00:00"), actual.get(0).getEnd());
+		assertSame(two, actual.get(1).getEvent());
+		assertEquals(utc("2020-01-03 12:00:00"), actual.get(1).getEnd());
+
+		//end date is exclusive
+		actual = index.getOccurrences(utc("2020-01-01 11:00:00"), utc("2020-01-03 10:00:00"));
+		assertEquals(0, actual.size());
+	}
+
+	@Test
+	public void recurring_event_is_expanded_lazily() {
+		ICalendar ical = new ICalendar();
+
+		VEvent event = new VEvent();
+		event.setDateStart(utc("2020-01-01 10:00:00"));
+		event.setDateEnd(utc("2020-01-01 11:00:00"));
+		event.setRecurrenceRule(new Recurrence.Builder(Frequency.DAILY).build());
+		ical.addEvent(event);
+
+		OccurrenceIndex index = new OccurrenceIndex(ical, utc("2020-01-05 00:00:00"));
+		assertEquals(4, index.size());
+		assertEquals(utc("2020-01-05 00:00:00"), index.getHorizon());
+
+		List<Occurrence> actual = index.getOccurrences(utc("2020-01-10 10:30:00"), utc("2020-01-12 10:30:00"));
+		assertStarts(actual, "2020-01-10 10:00:00", "2020-01-11 10:00:00", "2020-01-12 10:00:00");
+		assertEquals(utc("2020-01-12 10:30:00"), index.getHorizon());
+		assertEquals(12, index.size());
+
+		//queries inside of the horizon do not expand anything
+		actual = index.getOccurrences(utc("2020-01-02 00:00:00"), utc("2020-01-03 00:00:00"));
+		assertStarts(actual, "2020-01-02 10:00:00");
+		assertEquals(12, index.size());
+	}
+
+	@Test
+	public void recurrence_id_overrides() {
+		ICalendar ical = new ICalendar();
+
+		VEvent master = new VEvent();
+		master.setUid("one");
+		master.setDateStart(utc("2020-01-01 10:00:00"));
+		master.setDuration(Duration.builder().hours(1).build());
+		master.setRecurrenceRule(new Recurrence.Builder(Frequency.DAILY).count(3).build());
+		ical.addEvent(master);
+
+		VEvent override = new VEvent();
+		override.setUid("one");
+		override.setRecurrenceId(utc("2020-01-02 10:00:00"));
+		override.setDateStart(utc("2020-01-02 15:00:00"));
+		override.setDateEnd(utc("2020-01-02 17:00:00"));
+		ical.addEvent(override);
+
+		OccurrenceIndex index = new OccurrenceIndex(ical);
+		List<Occurrence> actual = index.getOccurrences(utc("2020-01-01 00:00:00"), utc("2020-01-04 00:00:00"));
+		assertStarts(actual, "2020-01-01 10:00:00", "2020-01-02 15:00:00", "2020-01-03 10:00:00");
+
+		assertFalse(actual.get(0).isOverride());
+		assertSame(override, actual.get(1).getEvent());
+		assertTrue(actual.get(1).isOverride());
+		assertEquals(utc("2020-01-02 17:00:00"), actual.get(1).getEnd());
+		assertEquals(utc("2020-01-03 11:00:00"), actual.get(2).getEnd());
+	}
+
+	@Test
+	public void long_event_that_starts_before_range() {
+		ICalendar ical = new ICalendar();
+
+		VEvent longEvent = new VEvent();
+		longEvent.setDateStart(utc("2020-01-01 00:00:00"));
+		longEvent.setDateEnd(utc("2020-02-01 00:00:00"));
+		ical.addEvent(longEvent);
+
+		VEvent shortEvent = new VEvent();
+		shortEvent.setDateStart(utc("2020-01-10 00:00:00"));
+		shortEvent.setDateEnd(utc("2020-01-10 01:00:00"));
+		ical.addEvent(shortEvent);
+
+		OccurrenceIndex index = new OccurrenceIndex(ical);
+		List<Occurrence> actual = index.getOccurrences(utc("2020-01-15 00:00:00"), utc("2020-01-16 00:00:00"));
+		assertEquals(1, actual.size());
+		assertSame(longEvent, actual.get(0).getEvent());
+	}
+
+	@Test
+	public void long_event_mixed_with_short_events() {
+		ICalendar ical = new ICalendar();
+
+		VEvent longEvent = new VEvent();
+		longEvent.setDateStart(utc("2019-01-01 00:00:00"));
+		longEvent.setDateEnd(utc("2021-01-01 00:00:00"));
+		ical.addEvent(longEvent);
+
+		VEvent hourly = new VEvent();
+		hourly.setDateStart(utc("2020-01-01 00:00:00"));
+		hourly.setDuration(Duration.builder().minutes(30).build());
+		hourly.setRecurrenceRule(new Recurrence.Builder(Frequency.HOURLY).count(24 * 366).build());
+		ical.addEvent(hourly);
+
+		VEvent daily = new VEvent();
+		daily.setDateStart(utc("2020-01-01 12:00:00"));
+		daily.setDuration(Duration.builder().hours(36).build());
+		daily.setRecurrenceRule(new Recurrence.Builder(Frequency.DAILY).count(366).build());
+		ical.addEvent(daily);
+
+		OccurrenceIndex index = new OccurrenceIndex(ical, utc("2021-01-01 00:00:00"));
+
+		List<Occurrence> actual = index.getOccurrences(utc("2020-06-15 10:15:00"), utc("2020-06-15 11:15:00"));
+		assertEquals(4, actual.size());
+		assertSame(longEvent, actual.get(0).getEvent());
+		assertEquals(utc("2020-06-14 12:00:00"), actual.get(1).getStart());
+		assertEquals(utc("2020-06-15 10:00:00"), actual.get(2).getStart());
+		assertEquals(utc("2020-06-15 11:00:00"), actual.get(3).getStart());
+
+		//compare against a linear scan
+		List<Occurrence> all = index.getOccurrences(utc("2000-01-01 00:00:00"), utc("2021-01-01 00:00:00"));
+		assertEquals(1 + 24 * 366 + 366, all.size());
+		for (int hour = 0; hour < 24 * 366; hour += 37) {
+			Date from = new Date(utc("2020-01-01 00:00:00").getTime() + hour * 60 * 60 * 1000L);
+			Date to = new Date(from.getTime() + 90 * 60 * 1000L);
+
+			List<Occurrence> expected = new ArrayList<Occurrence>();
+			for (Occurrence occurrence : all) {
+				if (occurrence.getStart().before(to) && occurrence.getEnd().after(from)) {
+					expected.add(occurrence);
+				}
+			}
+			assertEquals(expected, index.getOccurrences(from, to));
+		}
+	}
+
+	@Test
+	public void all_day_event() {
+		ICalendar ical = new ICalendar();
+
+		VEvent event = new VEvent();
+		event.setDateStart(utc("2020-01-01 00:00:00"), false);
+		event.setRecurrenceRule(new Recurrence.Builder(Frequency.WEEKLY).count(2).build());
+		ical.addEvent(event);
+
+		OccurrenceIndex index = new OccurrenceIndex(ical);
+		List<Occurrence> actual = index.getOccurrences(utc("2020-01-08 12:00:00"), utc("2020-01-09 12:00:00"));
+		assertStarts(actual, "2020-01-08 00:00:00");
+		assertEquals(utc("2020-01-09 00:00:00"), actual.get(0).getEnd());
+		assertFalse(actual.get(0).getStart().hasTime());
+	}
+
+	private static void assertStarts(List<Occurrence> actual, String... expected) {
+		List<Date> expectedList = new ArrayList<Date>();
+		for (String text : expected) {
+			expectedList.add(utc(text));
+		}
+
+		List<Date> actualList = new ArrayList<Date>();
+		for (Occurrence occurrence : actual) {
+			actualList.add(occurrence.getStart());
+		}
+
+		assertEquals(expectedList, actualList);
+	}
+}
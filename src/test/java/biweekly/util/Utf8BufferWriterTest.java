@@ -0,0 +1,106 @@
+package biweekly.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+import org.junit.Test;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class Utf8BufferWriterTest {
+	private final String data = "one two three \u00e9\u20ac\ud83d\ude00 four";
+
+	@Test
+	public void write() throws Exception {
+		Utf8BufferWriter writer = new Utf8BufferWriter(1);
+		writer.write(data);
+		assertArrayEquals(data.getBytes("UTF-8"), writer.toByteArray());
+		assertEquals(data.getBytes("UTF-8").length, writer.size());
+
+		ByteBuffer buffer = writer.toByteBuffer();
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.get(bytes);
+		assertArrayEquals(data.getBytes("UTF-8"), bytes);
+	}
+
+	@Test
+	public void write_one_char_at_a_time() throws Exception {
+		Utf8BufferWriter writer = new Utf8BufferWriter(1);
+		for (int i = 0; i < data.length(); i++) {
+			writer.write(data.charAt(i));
+		}
+		assertArrayEquals(data.getBytes("UTF-8"), writer.toByteArray());
+	}
+
+	@Test
+	public void surrogate_pair_split_across_writes() throws Exception {
+		Utf8BufferWriter writer = new Utf8BufferWriter();
+		writer.write("a\ud83d");
+		writer.write("\ude00b".toCharArray());
+		assertArrayEquals("a\ud83d\ude00b".getBytes("UTF-8"), writer.toByteArray());
+	}
+
+	@Test
+	public void unpaired_surrogates() throws Exception {
+		Utf8BufferWriter writer = new Utf8BufferWriter();
+		writer.write("a\ud83db\ude00c\ud83d");
+		writer.close();
+		assertEquals("a?b?c?", new String(writer.toByteArray(), "UTF-8"));
+	}
+
+	@Test
+	public void reset() throws Exception {
+		Utf8BufferWriter writer = new Utf8BufferWriter();
+		writer.write("one");
+		writer.reset();
+		writer.write("two");
+		assertEquals("two", new String(writer.toByteArray(), "UTF-8"));
+	}
+
+	@Test
+	public void channel() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		WritableByteChannel channel = Channels.newChannel(out);
+		Utf8BufferWriter writer = new Utf8BufferWriter(channel, 8);
+
+		writer.write(data);
+		assertTrue(out.size() > 0); //the buffer filled up and was written to the channel
+
+		writer.close();
+		assertArrayEquals(data.getBytes("UTF-8"), out.toByteArray());
+		assertFalse(channel.isOpen());
+	}
+}
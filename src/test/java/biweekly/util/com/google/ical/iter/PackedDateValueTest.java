@@ -0,0 +1,103 @@
+package biweekly.util.com.google.ical.iter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import biweekly.util.com.google.ical.util.TimeUtils;
+import biweekly.util.com.google.ical.values.DateTimeValueImpl;
+import biweekly.util.com.google.ical.values.DateValue;
+import biweekly.util.com.google.ical.values.DateValueImpl;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class PackedDateValueTest {
+	@Test
+	public void pack() {
+		long date = PackedDateValue.packDate(2020, 2, 29);
+		assertFalse(PackedDateValue.hasTime(date));
+		assertEquals(2020, PackedDateValue.year(date));
+		assertEquals(2, PackedDateValue.month(date));
+		assertEquals(29, PackedDateValue.day(date));
+		assertEquals(new DateValueImpl(2020, 2, 29), PackedDateValue.toDateValue(date));
+
+		long dateTime = PackedDateValue.packDateTime(2020, 2, 29, 0, 0, 0);
+		assertTrue(PackedDateValue.hasTime(dateTime));
+		assertEquals(0, PackedDateValue.hour(dateTime));
+		assertEquals(0, PackedDateValue.minute(dateTime));
+		assertEquals(0, PackedDateValue.second(dateTime));
+		assertEquals(date, PackedDateValue.date(dateTime));
+		assertEquals(new DateTimeValueImpl(2020, 2, 29, 0, 0, 0), PackedDateValue.toDateValue(dateTime));
+
+		dateTime = PackedDateValue.packDateTime(1999, 12, 31, 23, 59, 59);
+		assertEquals(23, PackedDateValue.hour(dateTime));
+		assertEquals(59, PackedDateValue.minute(dateTime));
+		assertEquals(59, PackedDateValue.second(dateTime));
+
+		assertNull(PackedDateValue.toDateValue(PackedDateValue.NONE));
+	}
+
+	@Test
+	public void same_as_comparable() {
+		DateValue values[] = { //@formatter:off
+			new DateValueImpl(2020, 1, 1),
+			new DateTimeValueImpl(2020, 1, 1, 0, 0, 0),
+			new DateTimeValueImpl(2020, 1, 1, 12, 30, 15),
+			new DateValueImpl(2020, 1, 2),
+			new DateTimeValueImpl(2021, 12, 31, 23, 59, 59)
+		}; //@formatter:on
+
+		for (int i = 0; i < values.length; i++) {
+			long packed = PackedDateValue.pack(values[i]);
+			assertEquals(DateValueComparison.comparable(values[i]), packed);
+			assertEquals(values[i], PackedDateValue.toDateValue(packed));
+
+			if (i > 0) {
+				assertTrue(PackedDateValue.pack(values[i - 1]) < packed);
+			}
+		}
+	}
+
+	@Test
+	public void secsSinceEpoch() {
+		for (int fixed = TimeUtils.fixedFromGregorian(1999, 1, 1); fixed < TimeUtils.fixedFromGregorian(2002, 1, 1); fixed++) {
+			long date = PackedDateValue.fromFixed(fixed);
+			assertFalse(PackedDateValue.hasTime(date));
+			assertEquals(fixed, PackedDateValue.fixed(date));
+
+			long secs = fixed * 86400L + 3723;
+			long dateTime = PackedDateValue.fromSecsSinceEpoch(secs);
+			assertEquals(PackedDateValue.toDateValue(dateTime), TimeUtils.timeFromSecsSinceEpoch(secs));
+			assertEquals(secs, PackedDateValue.secsSinceEpoch(dateTime));
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package biweekly.util.com.google.ical.iter;
+
+import static biweekly.util.TestUtils.utc;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+import biweekly.util.DayOfWeek;
+import biweekly.util.Frequency;
+import biweekly.util.ICalDate;
+import biweekly.util.Recurrence;
+import biweekly.util.com.google.ical.values.DateTimeValueImpl;
+import biweekly.util.com.google.ical.values.DateValue;
+import biweekly.util.com.google.ical.values.DateValueImpl;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class PeriodicRecurrenceTest {
+	private final TimeZone newYork = TimeZone.getTimeZone("America/New_York");
+	private final DateValue start = new DateTimeValueImpl(2020, 1, 31, 9, 30, 0);
+
+	@Test
+	public void create_unsupported() {
+		assertNull(PeriodicRecurrence.create(new Recurrence.Builder(Frequency.HOURLY).build(), start, newYork));
+		assertNull(PeriodicRecurrence.create(new Recurrence.Builder(Frequency.DAILY).byHour(9, 17).build(), start, newYork));
+		assertNull(PeriodicRecurrence.create(new Recurrence.Builder(Frequency.MONTHLY).byDay(1, DayOfWeek.MONDAY).build(), start, newYork));
+		assertNull(PeriodicRecurrence.create(new Recurrence.Builder(Frequency.MONTHLY).byMonthDay(31).build(), start, newYork));
+		assertNull(PeriodicRecurrence.create(new Recurrence.Builder(Frequency.MONTHLY).byMonthDay(1, -1).build(), start, newYork));
+		assertNull(PeriodicRecurrence.create(new Recurrence.Builder(Frequency.DAILY).interval(2).byDay(DayOfWeek.MONDAY).build(), start, newYork));
+		assertNull(PeriodicRecurrence.create(new Recurrence.Builder(Frequency.WEEKLY).bySetPos(1).byDay(DayOfWeek.MONDAY, DayOfWeek.FRIDAY).build(), start, newYork));
+	}
+
+	@Test
+	public void create_supported() {
+		assertNotNull(PeriodicRecurrence.create(new Recurrence.Builder(Frequency.DAILY).build(), start, newYork));
+		assertNotNull(PeriodicRecurrence.create(new Recurrence.Builder(Frequency.DAILY).byDay(DayOfWeek.MONDAY).build(), start, newYork));
+		assertNotNull(PeriodicRecurrence.create(new Recurrence.Builder(Frequency.WEEKLY).interval(2).byDay(DayOfWeek.TUESDAY, DayOfWeek.THURSDAY).build(), start, newYork));
+		assertNotNull(PeriodicRecurrence.create(new Recurrence.Builder(Frequency.MONTHLY).byMonthDay(1, 15).build(), start, newYork));
+		assertNotNull(PeriodicRecurrence.create(new Recurrence.Builder(Frequency.YEARLY).byMonth(2, 8).byMonthDay(-1).build(), start, newYork));
+	}
+
+	@Test
+	public void same_as_iterator() {
+		ICalDate until = new ICalDate(utc("2023-06-01 00:00:00"));
+		List<Recurrence> rules = new ArrayList<Recurrence>();
+		rules.add(new Recurrence.Builder(Frequency.DAILY).interval(3).count(100).build());
+		rules.add(new Recurrence.Builder(Frequency.DAILY).byDay(DayOfWeek.MONDAY, DayOfWeek.FRIDAY).until(until).build());
+		rules.add(new Recurrence.Builder(Frequency.WEEKLY).interval(2).byDay(DayOfWeek.SUNDAY, DayOfWeek.WEDNESDAY).workweekStarts(DayOfWeek.MONDAY).count(75).build());
+		rules.add(new Recurrence.Builder(Frequency.WEEKLY).until(until).build());
+		rules.add(new Recurrence.Builder(Frequency.MONTHLY).until(until).build());
+		rules.add(new Recurrence.Builder(Frequency.MONTHLY).interval(5).byMonthDay(-1, -28).count(20).build());
+		rules.add(new Recurrence.Builder(Frequency.YEARLY).byMonth(2, 3).byMonthDay(28).until(until).build());
+		rules.add(new Recurrence.Builder(Frequency.YEARLY).byMonthDay(1).count(30).build());
+		rules.add(new Recurrence.Builder(Frequency.YEARLY).count(5).build());
+
+		//not periodic
+		rules.add(new Recurrence.Builder(Frequency.MONTHLY).byDay(-1, DayOfWeek.FRIDAY).count(12).build());
+
+		DateValue[] starts = { start, new DateValueImpl(2020, 1, 31) };
+		for (Recurrence rule : rules) {
+			for (DateValue dtStart : starts) {
+				List<DateValue> expected = new ArrayList<DateValue>();
+				RecurrenceIterator it = RecurrenceIteratorFactory.createRecurrenceIterator(rule, dtStart, newYork);
+				while (it.hasNext()) {
+					expected.add(it.next());
+				}
+
+				String message = rule + " " + dtStart;
+				for (int i = 0; i < expected.size(); i++) {
+					assertEquals(message, expected.get(i), RecurrenceIteratorFactory.getInstance(rule, dtStart, newYork, i));
+				}
+				assertNull(message, RecurrenceIteratorFactory.getInstance(rule, dtStart, newYork, expected.size()));
+				assertNull(message, RecurrenceIteratorFactory.getInstance(rule, dtStart, newYork, -1));
+
+				assertEquals(message, expected.get(expected.size() - 1), RecurrenceIteratorFactory.getLastInstance(rule, dtStart, newYork));
+				assertEquals(message, expected.size(), RecurrenceIteratorFactory.countInstances(rule, dtStart, newYork, null));
+				for (int i = 0; i < expected.size(); i += 7) {
+					assertEquals(message, expected.size() - i, RecurrenceIteratorFactory.countInstances(rule, dtStart, newYork, expected.get(i)));
+				}
+				assertEquals(message, 0, RecurrenceIteratorFactory.countInstances(rule, dtStart, newYork, new DateValueImpl(2200, 1, 1)));
+			}
+		}
+	}
+
+	@Test
+	public void unbounded() {
+		Recurrence rule = new Recurrence.Builder(Frequency.WEEKLY).byDay(DayOfWeek.MONDAY).build();
+		assertEquals(new DateTimeValueImpl(2020, 2, 3, 14, 30, 0), RecurrenceIteratorFactory.getInstance(rule, start, newYork, 0));
+		assertEquals(new DateTimeValueImpl(2040, 1, 30, 14, 30, 0), RecurrenceIteratorFactory.getInstance(rule, start, newYork, 1043));
+		assertNull(RecurrenceIteratorFactory.getLastInstance(rule, start, newYork));
+		assertEquals(-1, RecurrenceIteratorFactory.countInstances(rule, start, newYork, null));
+	}
+}
@@ -2042,6 +2042,23 @@ public class RRuleIteratorImplTest {
 			run(recur, start, advanceTo, expected);
 		}
 
+		//advancing into a new year must start from the first of the month
+		{
+			Recurrence recur = new Recurrence.Builder(Frequency.DAILY)
+				.byHour(9, 17)
+			.build();
+			DateValue start = new DateTimeValueImpl(2020, 1, 6, 9, 0, 0);
+			DateValue advanceTo = new DateValueImpl(2021, 1, 1);
+			DateValue[] expected = {
+				new DateTimeValueImpl(2021, 1, 1, 9, 0, 0),
+				new DateTimeValueImpl(2021, 1, 1, 17, 0, 0),
+				new DateTimeValueImpl(2021, 1, 2, 9, 0, 0),
+				new DateTimeValueImpl(2021, 1, 2, 17, 0, 0)
+			};
+			
+			run(recur, start, advanceTo, expected);
+		}
+
 		// TODO(msamuel): check advancement of more examples
 	}
 
@@ -2292,6 +2309,51 @@ public class RRuleIteratorImplTest {
 	
 		run(recur, start, expected);
 	}
+
+	@Test
+	public void weekdaysAtSeveralTimes() {
+		Recurrence recur = new Recurrence.Builder(Frequency.MONTHLY)
+			.byDay(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY)
+			.byHour(9, 13)
+			.count(10)
+		.build();
+		DateValue start = new DateTimeValueImpl(2020, 1, 30, 13, 0, 0);
+		DateValue[] expected = {
+			new DateTimeValueImpl(2020, 1, 30, 13, 0, 0),
+			new DateTimeValueImpl(2020, 1, 31, 9, 0, 0),
+			new DateTimeValueImpl(2020, 1, 31, 13, 0, 0),
+			new DateTimeValueImpl(2020, 2, 3, 9, 0, 0),
+			new DateTimeValueImpl(2020, 2, 3, 13, 0, 0),
+			new DateTimeValueImpl(2020, 2, 4, 9, 0, 0),
+			new DateTimeValueImpl(2020, 2, 4, 13, 0, 0),
+			new DateTimeValueImpl(2020, 2, 5, 9, 0, 0),
+			new DateTimeValueImpl(2020, 2, 5, 13, 0, 0),
+			new DateTimeValueImpl(2020, 2, 6, 9, 0, 0)
+		};
+
+		run(recur, start, expected);
+	}
+
+	@Test
+	public void weekdaysAtSeveralTimesAdvanceTo() {
+		Recurrence recur = new Recurrence.Builder(Frequency.MONTHLY)
+			.byDay(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY)
+			.byHour(9, 13)
+			.byMinute(0, 30)
+		.build();
+		DateValue start = new DateTimeValueImpl(2020, 1, 30, 9, 0, 0);
+		DateValue advanceTo = new DateTimeValueImpl(2020, 3, 31, 13, 15, 0);
+		DateValue[] expected = {
+			new DateTimeValueImpl(2020, 3, 31, 13, 30, 0),
+			new DateTimeValueImpl(2020, 4, 1, 9, 0, 0),
+			new DateTimeValueImpl(2020, 4, 1, 9, 30, 0),
+			new DateTimeValueImpl(2020, 4, 1, 13, 0, 0),
+			new DateTimeValueImpl(2020, 4, 1, 13, 30, 0),
+			new DateTimeValueImpl(2020, 4, 2, 9, 0, 0)
+		};
+
+		run(recur, start, advanceTo, expected);
+	}
 	
 	/**
 	 * <p>
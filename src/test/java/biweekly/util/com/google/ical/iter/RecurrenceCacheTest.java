@@ -0,0 +1,195 @@
+package biweekly.util.com.google.ical.iter;
+
+import static biweekly.util.TestUtils.utc;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+import biweekly.component.VTimezone;
+import biweekly.io.ICalTimeZone;
+import biweekly.io.JavaTimezoneGenerator;
+import biweekly.util.DayOfWeek;
+import biweekly.util.Frequency;
+import biweekly.util.ICalDate;
+import biweekly.util.Recurrence;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class RecurrenceCacheTest {
+	private final TimeZone newYork = TimeZone.getTimeZone("America/New_York");
+	private final ICalDate start = new ICalDate(utc("2020-01-06 14:00:00"));
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalid_max_size() {
+		new RecurrenceCache(0, 1000);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalid_time_to_live() {
+		new RecurrenceCache(10, 0);
+	}
+
+	@Test
+	public void same_as_expander() {
+		//@formatter:off
+		Recurrence rrules[] = {
+			new Recurrence.Builder(Frequency.DAILY).build(),
+			new Recurrence.Builder(Frequency.WEEKLY).byDay(DayOfWeek.MONDAY, DayOfWeek.FRIDAY).count(300).build(),
+			new Recurrence.Builder(Frequency.MONTHLY).byDay(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY).bySetPos(-1).build(),
+			new Recurrence.Builder(Frequency.DAILY).byHour(9, 17).until(utc("2021-06-01 00:00:00")).build()
+		};
+		//@formatter:on
+
+		Random random = new Random(42);
+		RecurrenceCache cache = new RecurrenceCache();
+		long base = start.getTime() - 7L * 24 * 60 * 60 * 1000;
+		long from = base;
+		for (int i = 0; i < 2000; i++) {
+			Recurrence rrule = rrules[random.nextInt(rrules.length)];
+			long[] expected = new long[1 + random.nextInt(100)];
+			long[] actual = new long[expected.length];
+
+			//mostly slide forward, but sometimes jump around
+			switch (random.nextInt(10)) {
+			case 0:
+				from = base + (long) (random.nextDouble() * 3 * 365 * 24 * 60 * 60 * 1000);
+				break;
+			default:
+				from += random.nextInt(7 * 24 * 60 * 60 * 1000);
+				break;
+			}
+			long to = from + 1 + random.nextInt(20 * 24 * 60 * 60 * 1000);
+
+			int expectedCount = RecurrenceExpander.expand(rrule, start, newYork, from, to, expected);
+			int actualCount = cache.expand(rrule, start, newYork, from, to, actual);
+			assertEquals(expectedCount, actualCount);
+			assertEquals(Arrays.toString(Arrays.copyOf(expected, expectedCount)), Arrays.toString(Arrays.copyOf(actual, actualCount)));
+		}
+
+		assertEquals(4, cache.size());
+		assertEquals(4, cache.getMisses());
+		assertEquals(1996, cache.getHits());
+	}
+
+	@Test
+	public void rules_are_normalized() {
+		RecurrenceCache cache = new RecurrenceCache();
+		long[] buffer = new long[10];
+
+		Recurrence one = new Recurrence.Builder(Frequency.WEEKLY).byDay(DayOfWeek.FRIDAY, DayOfWeek.MONDAY).build();
+		Recurrence two = new Recurrence.Builder(Frequency.WEEKLY).byDay(DayOfWeek.MONDAY, DayOfWeek.FRIDAY, DayOfWeek.MONDAY).interval(1).workweekStarts(DayOfWeek.MONDAY).build();
+		cache.expand(one, start, newYork, start.getTime(), Long.MAX_VALUE, buffer);
+		cache.expand(two, start, newYork, start.getTime(), Long.MAX_VALUE, buffer);
+
+		assertEquals(1, cache.size());
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+
+		cache.expand(one, start, TimeZone.getTimeZone("Europe/Paris"), start.getTime(), Long.MAX_VALUE, buffer);
+		cache.expand(one, new ICalDate(utc("2020-01-07 14:00:00")), newYork, start.getTime(), Long.MAX_VALUE, buffer);
+		assertEquals(3, cache.size());
+		assertEquals(3, cache.getMisses());
+
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getHits());
+		assertEquals(0, cache.getMisses());
+	}
+
+	@Test
+	public void ical_timezone() {
+		RecurrenceCache cache = new RecurrenceCache();
+		long[] buffer = new long[10];
+		Recurrence rrule = new Recurrence.Builder(Frequency.DAILY).build();
+
+		JavaTimezoneGenerator generator = new JavaTimezoneGenerator();
+		VTimezone component = generator.generate(newYork);
+		ICalTimeZone timezone = new ICalTimeZone(component);
+		for (int i = 0; i < 3; i++) {
+			cache.expand(rrule, start, timezone, start.getTime(), Long.MAX_VALUE, buffer);
+		}
+		assertEquals(1, cache.size());
+		assertEquals(2, cache.getHits());
+		assertEquals(1, cache.getMisses());
+
+		//a different object with the same rules
+		cache.expand(rrule, start, new ICalTimeZone(component), start.getTime(), Long.MAX_VALUE, buffer);
+		assertEquals(1, cache.size());
+		assertEquals(3, cache.getHits());
+
+		//same TZID, different rules
+		VTimezone paris = generator.generate(TimeZone.getTimeZone("Europe/Paris"));
+		paris.setTimezoneId(newYork.getID());
+		cache.expand(rrule, start, new ICalTimeZone(paris), start.getTime(), Long.MAX_VALUE, buffer);
+		assertEquals(2, cache.size());
+		assertEquals(2, cache.getMisses());
+	}
+
+	@Test
+	public void least_recently_used_is_evicted() {
+		RecurrenceCache cache = new RecurrenceCache(2, RecurrenceCache.DEFAULT_TIME_TO_LIVE);
+		long[] buffer = new long[10];
+
+		Recurrence one = new Recurrence.Builder(Frequency.DAILY).build();
+		Recurrence two = new Recurrence.Builder(Frequency.WEEKLY).build();
+		Recurrence three = new Recurrence.Builder(Frequency.MONTHLY).build();
+		cache.expand(one, start, newYork, start.getTime(), Long.MAX_VALUE, buffer);
+		cache.expand(two, start, newYork, start.getTime(), Long.MAX_VALUE, buffer);
+		cache.expand(one, start, newYork, start.getTime(), Long.MAX_VALUE, buffer);
+		cache.expand(three, start, newYork, start.getTime(), Long.MAX_VALUE, buffer);
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getHits());
+		assertEquals(3, cache.getMisses());
+
+		cache.expand(one, start, newYork, start.getTime(), Long.MAX_VALUE, buffer);
+		assertEquals(2, cache.getHits());
+		cache.expand(two, start, newYork, start.getTime(), Long.MAX_VALUE, buffer);
+		assertEquals(4, cache.getMisses());
+	}
+
+	@Test
+	public void entries_expire() throws Exception {
+		RecurrenceCache cache = new RecurrenceCache(10, 1);
+		long[] buffer = new long[10];
+
+		Recurrence rrule = new Recurrence.Builder(Frequency.DAILY).build();
+		cache.expand(rrule, start, newYork, start.getTime(), Long.MAX_VALUE, buffer);
+		Thread.sleep(10);
+		int count = cache.expand(rrule, start, newYork, start.getTime(), Long.MAX_VALUE, buffer);
+
+		assertEquals(10, count);
+		assertEquals(1, cache.size());
+		assertEquals(0, cache.getHits());
+		assertEquals(2, cache.getMisses());
+	}
+}
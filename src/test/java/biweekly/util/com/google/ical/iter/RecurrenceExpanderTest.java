@@ -0,0 +1,148 @@
+package biweekly.util.com.google.ical.iter;
+
+import static biweekly.util.TestUtils.utc;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+import biweekly.util.DayOfWeek;
+import biweekly.util.Frequency;
+import biweekly.util.ICalDate;
+import biweekly.util.Recurrence;
+import biweekly.util.com.google.ical.compat.javautil.DateIterator;
+import biweekly.util.com.google.ical.values.DateTimeValueImpl;
+import biweekly.util.com.google.ical.values.DateValueImpl;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class RecurrenceExpanderTest {
+	private final TimeZone newYork = TimeZone.getTimeZone("America/New_York");
+
+	@Test
+	public void matches_date_iterator() {
+		Recurrence rrule = new Recurrence.Builder(Frequency.WEEKLY).byDay(DayOfWeek.MONDAY, DayOfWeek.FRIDAY).count(40).build();
+		ICalDate start = new ICalDate(utc("2020-01-06 14:00:00"));
+
+		List<Long> expected = new ArrayList<Long>();
+		DateIterator it = rrule.getDateIterator(start, newYork);
+		while (it.hasNext()) {
+			expected.add(it.next().getTime());
+		}
+
+		long[] buffer = new long[100];
+		int count = RecurrenceExpander.expand(rrule, start, newYork, Long.MIN_VALUE, Long.MAX_VALUE, buffer);
+		assertEquals(expected, toList(buffer, count));
+	}
+
+	@Test
+	public void window() {
+		Recurrence rrule = new Recurrence.Builder(Frequency.DAILY).build();
+		ICalDate start = new ICalDate(utc("2020-03-06 14:00:00"));
+
+		long[] buffer = new long[10];
+		int count = RecurrenceExpander.expand(rrule, start, newYork, utc("2020-03-07 14:00:00").getTime(), utc("2020-03-10 13:00:00").getTime(), buffer);
+
+		//daylight savings time starts on 2020-03-08
+		List<Long> expected = new ArrayList<Long>();
+		expected.add(utc("2020-03-07 14:00:00").getTime());
+		expected.add(utc("2020-03-08 13:00:00").getTime());
+		expected.add(utc("2020-03-09 13:00:00").getTime());
+		assertEquals(expected, toList(buffer, count));
+	}
+
+	@Test
+	public void window_starts_mid_second() {
+		Recurrence rrule = new Recurrence.Builder(Frequency.DAILY).count(3).build();
+		ICalDate start = new ICalDate(utc("2020-01-01 00:00:01"));
+
+		long[] buffer = new long[10];
+		int count = RecurrenceExpander.expand(rrule, start, TimeZone.getTimeZone("UTC"), utc("2020-01-01 00:00:01").getTime() + 500, Long.MAX_VALUE, buffer);
+
+		List<Long> expected = new ArrayList<Long>();
+		expected.add(utc("2020-01-02 00:00:01").getTime());
+		expected.add(utc("2020-01-03 00:00:01").getTime());
+		assertEquals(expected, toList(buffer, count));
+	}
+
+	@Test
+	public void buffer_full() {
+		Recurrence rrule = new Recurrence.Builder(Frequency.DAILY).count(5).build();
+		ICalDate start = new ICalDate(utc("2020-01-01 12:00:00"));
+		TimeZone utc = TimeZone.getTimeZone("UTC");
+
+		List<Long> actual = new ArrayList<Long>();
+		long[] buffer = new long[2];
+		long from = Long.MIN_VALUE;
+		int count;
+		do {
+			count = RecurrenceExpander.expand(rrule, start, utc, from, Long.MAX_VALUE, buffer);
+			actual.addAll(toList(buffer, count));
+			if (count > 0) {
+				from = buffer[count - 1] + 1;
+			}
+		} while (count == buffer.length);
+
+		List<Long> expected = new ArrayList<Long>();
+		for (int i = 1; i <= 5; i++) {
+			expected.add(utc("2020-01-0" + i + " 12:00:00").getTime());
+		}
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void empty_window() {
+		Recurrence rrule = new Recurrence.Builder(Frequency.DAILY).build();
+		ICalDate start = new ICalDate(utc("2020-01-01 12:00:00"));
+
+		long[] buffer = new long[2];
+		long time = utc("2020-01-05 00:00:00").getTime();
+		assertEquals(0, RecurrenceExpander.expand(rrule, start, newYork, time, time, buffer));
+		assertEquals(0, RecurrenceExpander.expand(rrule, start, newYork, time, time - 1, buffer));
+	}
+
+	@Test
+	public void toMillis() {
+		assertEquals(utc("2020-02-29 00:00:00").getTime(), RecurrenceExpander.toMillis(new DateValueImpl(2020, 2, 29)));
+		assertEquals(utc("1969-12-31 23:59:59").getTime(), RecurrenceExpander.toMillis(new DateTimeValueImpl(1969, 12, 31, 23, 59, 59)));
+		assertEquals(new Date(0).getTime(), RecurrenceExpander.toMillis(new DateValueImpl(1970, 1, 1)));
+	}
+
+	private static List<Long> toList(long[] buffer, int count) {
+		List<Long> list = new ArrayList<Long>(count);
+		for (int i = 0; i < count; i++) {
+			list.add(buffer[i]);
+		}
+		return list;
+	}
+}
@@ -0,0 +1,137 @@
+package biweekly.util.com.google.ical.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.SimpleTimeZone;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+import biweekly.io.ICalTimeZone;
+import biweekly.io.JavaTimezoneGenerator;
+import biweekly.util.com.google.ical.values.DateTimeValue;
+import biweekly.util.com.google.ical.values.DateTimeValueImpl;
+import biweekly.util.com.google.ical.values.DateValue;
+import biweekly.util.com.google.ical.values.DateValueImpl;
+
+/*
+ Copyright (c) 2013-2020, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class TimeZoneConverterTest {
+	private final TimeZone newYork = TimeZone.getTimeZone("America/New_York");
+
+	@Test
+	public void toUtc() {
+		TimeZoneConverter converter = new TimeZoneConverter(newYork);
+
+		//standard time
+		assertEquals(new DateTimeValueImpl(2019, 1, 15, 17, 0, 0), converter.toUtc(new DateTimeValueImpl(2019, 1, 15, 12, 0, 0)));
+
+		//daylight savings time
+		assertEquals(new DateTimeValueImpl(2019, 7, 15, 16, 0, 0), converter.toUtc(new DateTimeValueImpl(2019, 7, 15, 12, 0, 0)));
+
+		//gap: 02:30 does not exist, so it is treated as standard time
+		assertEquals(new DateTimeValueImpl(2019, 3, 10, 7, 30, 0), converter.toUtc(new DateTimeValueImpl(2019, 3, 10, 2, 30, 0)));
+
+		//overlap: 01:30 happens twice, the second one (standard time) is used
+		assertEquals(new DateTimeValueImpl(2019, 11, 3, 6, 30, 0), converter.toUtc(new DateTimeValueImpl(2019, 11, 3, 1, 30, 0)));
+
+		//date values are not converted
+		DateValue date = new DateValueImpl(2019, 7, 15);
+		assertSame(date, converter.toUtc(date));
+	}
+
+	@Test
+	public void fromUtc() {
+		TimeZoneConverter converter = new TimeZoneConverter(newYork);
+
+		assertEquals(new DateTimeValueImpl(2019, 1, 15, 12, 0, 0), converter.fromUtc(new DateTimeValueImpl(2019, 1, 15, 17, 0, 0)));
+		assertEquals(new DateTimeValueImpl(2019, 7, 15, 12, 0, 0), converter.fromUtc(new DateTimeValueImpl(2019, 7, 15, 16, 0, 0)));
+
+		//either side of the overlap
+		assertEquals(new DateTimeValueImpl(2019, 11, 3, 1, 30, 0), converter.fromUtc(new DateTimeValueImpl(2019, 11, 3, 5, 30, 0)));
+		assertEquals(new DateTimeValueImpl(2019, 11, 3, 1, 30, 0), converter.fromUtc(new DateTimeValueImpl(2019, 11, 3, 6, 30, 0)));
+
+		DateValue date = new DateValueImpl(2019, 7, 15);
+		assertSame(date, converter.fromUtc(date));
+	}
+
+	@Test
+	public void utc() {
+		DateTimeValue value = new DateTimeValueImpl(2019, 3, 10, 2, 30, 0);
+		assertSame(value, new TimeZoneConverter(null).toUtc(value));
+		assertSame(value, new TimeZoneConverter(TimeUtils.utcTimezone()).fromUtc(value));
+	}
+
+	@Test
+	public void same_as_calendar() {
+		TimeZone[] zones = { newYork, TimeZone.getTimeZone("Europe/London"), TimeZone.getTimeZone("Australia/Lord_Howe"), TimeZone.getTimeZone("Asia/Kolkata") };
+		for (TimeZone zone : zones) {
+			assertSameAsCalendar(zone);
+		}
+	}
+
+	/**
+	 * GregorianCalendar resolves the local times of timezones that are not
+	 * JDK timezones (such as {@link ICalTimeZone}) by standard time instead
+	 * of by wall time.
+	 */
+	@Test
+	public void same_as_calendar_non_jdk_timezones() {
+		JavaTimezoneGenerator generator = new JavaTimezoneGenerator(2018, 2021);
+		TimeZone[] zones = { //@formatter:off
+			new ICalTimeZone(generator.generate(newYork)),
+			new ICalTimeZone(generator.generate(TimeZone.getTimeZone("Australia/Lord_Howe"))),
+			new SimpleTimeZone(-5 * 60 * 60 * 1000, "Custom", Calendar.MARCH, 8, -Calendar.SUNDAY, 2 * 60 * 60 * 1000, Calendar.NOVEMBER, 1, -Calendar.SUNDAY, 2 * 60 * 60 * 1000)
+		}; //@formatter:on
+		for (TimeZone zone : zones) {
+			assertSameAsCalendar(zone);
+		}
+	}
+
+	private static void assertSameAsCalendar(TimeZone zone) {
+		TimeZoneConverter converter = new TimeZoneConverter(zone);
+		Calendar cal = new GregorianCalendar(zone);
+
+		//every 20 minutes for two years
+		for (int i = 0; i < 2 * 366 * 72; i++) {
+			long localSecs = TimeUtils.secsSinceEpoch(new DateTimeValueImpl(2019, 1, 1, 0, 0, 0)) + i * 20 * 60L;
+			DateTimeValue local = TimeUtils.timeFromSecsSinceEpoch(localSecs);
+
+			cal.clear();
+			cal.set(local.year(), local.month() - 1, local.day(), local.hour(), local.minute(), local.second());
+			DateTimeValue expected = TimeUtils.toDateTimeValue(cal.getTimeInMillis(), TimeUtils.utcTimezone());
+
+			assertEquals(zone.getID() + " " + local, expected, converter.toUtc(local));
+			assertEquals(zone.getID() + " " + expected, TimeUtils.toDateTimeValue(cal.getTimeInMillis(), zone), converter.fromUtc(expected));
+		}
+	}
+}